@@ -5,11 +5,16 @@ import repository.InstructorRepository;
 import repository.jdbcRepository.JdbcAttractionRepository;
 import repository.jdbcRepository.JdbcGuestRepository;
 import repository.jdbcRepository.JdbcInstructorRepository;
+import repository.journal.JournaledRepositories;
+import repository.journal.SyncPolicy;
 import repository.memoryRepo.InMemoryAttractionRepository;
 import repository.memoryRepo.InMemoryGuestRepository;
 import repository.memoryRepo.InMemoryInstructorRepository;
 import ui.UI;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class Main {
     public static void main(String[] args) {
         // in memory
@@ -21,13 +26,34 @@ public class Main {
         UI ui = new UI(controller);
         ui.getUserChoice();
 
+        // in memory, the changes are kept in ./journal
+        // an existing journal replaces the data of the repositories above
+//        try (JournaledRepositories journal = new JournaledRepositories(Path.of("journal"), SyncPolicy.GROUPED, 1000, 1000,
+//                instructorRepository, attractionRepository, guestRepository)) {
+//            RegistrationSystem journalController = new RegistrationSystem(journal.getAttractionRepository(),
+//                    journal.getGuestRepository(), journal.getInstructorRepository());
+//            new UI(journalController).getUserChoice();
+//        } catch (IOException e) {
+//            System.out.println("Das Journal kann nicht geschlossen werden: " + e.getMessage());
+//        }
+
         // database
 //        JdbcInstructorRepository jdbcInstructorRepository = new JdbcInstructorRepository("default");
 //        JdbcAttractionRepository jdbcAttractionRepository = new JdbcAttractionRepository(jdbcInstructorRepository);
 //        GuestRepository jdbcGuestRepository = new JdbcGuestRepository(jdbcAttractionRepository);
 //
-//        RegistrationSystem jdbcController = new RegistrationSystem(jdbcAttractionRepository, jdbcGuestRepository, jdbcInstructorRepository);
+//        RegistrationSystem jdbcController = new RegistrationSystem(jdbcAttractionRepository, jdbcGuestRepository, jdbcInstructorRepository,
+//                new JdbcListingQueries(jdbcInstructorRepository.getProvider()), jdbcInstructorRepository.getProvider());
 //        UI jdbcUi = new UI(jdbcController);
 //        jdbcUi.getUserChoice();
+
+        // hybrid, in memory with asynchronous writes to the database
+//        try (WriteBehindRepositories hybrid = new WriteBehindRepositories(instructorRepository, attractionRepository, guestRepository,
+//                jdbcInstructorRepository, jdbcAttractionRepository, jdbcGuestRepository, jdbcInstructorRepository.getProvider(),
+//                10_000, 500, 1000)) {
+//            RegistrationSystem hybridController = new RegistrationSystem(hybrid.getAttractionRepository(),
+//                    hybrid.getGuestRepository(), hybrid.getInstructorRepository());
+//            new UI(hybridController).getUserChoice();
+//        }
     }
 }
\ No newline at end of file
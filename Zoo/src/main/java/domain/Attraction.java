@@ -1,15 +1,33 @@
 package domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 /**
- * This class models Attractions of the zoo.
+ * This class models Attractions of the zoo. <br>
+ * The Attractions change rarely, so they are kept in the second-level cache of the database backend.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "attraction_price_idx", columnList = "price, ID"),
+        @Index(name = "attraction_guest_count_idx", columnList = "guest_count, ID")})
+@NamedEntityGraph(name = Attraction.LISTING, attributeNodes = {
+        @NamedAttributeNode("instructor"),
+        @NamedAttributeNode("guestList")})
 public class Attraction implements Comparable<Attraction>{
+    /**
+     * Name of the fetch plan for lists of Attractions: the Instructor and the Guests are loaded with the Attractions,
+     * so toString() and getNrOfFreePlaces() don't need a query for each Attraction.
+     */
+    public static final String LISTING = "Attraction.listing";
+
     /**
      * Unique identification of the Attraction.
      */
@@ -42,6 +60,23 @@ public class Attraction implements Comparable<Attraction>{
             inverseJoinColumns = @JoinColumn(name = "guest_id"))
     public List <Guest> guestList;
 
+    /**
+     * Number of Guests in the guestList, stored in its own column so the database can filter the Attractions
+     * with free places without counting the rows of attraction_guests. <br>
+     * It is set by the constructors and updated by addGuest() and updateGuestCount(). The rows stored before the column
+     * existed are counted by the schema script V3.
+     */
+    @Column(name = "guest_count")
+    private Integer guestCount;
+
+    /**
+     * Version of the row in the database, it is incremented by every update, e.g. by a sign-up. <br>
+     * An update of an Attraction which was changed by someone else since it was read fails (optimistic locking),
+     * so two application nodes can't sell the last place twice.
+     */
+    @Version
+    private Long version;
+
     /**
      * Price of one ticket (without discounts).
      */
@@ -82,6 +117,8 @@ public class Attraction implements Comparable<Attraction>{
         this.price = price;
         this.location = location;
         this.day = day;
+        // the field is set directly, a constructor must not call an overridable method
+        this.guestCount = guestList == null ? 0 : guestList.size();
         // create ID
         // this.ID = UUID.randomUUID().toString();
         this.ID = this.name.substring(0,1)+this.location.substring(0,1)+ '-' +this.day.toString().substring(0,3);
@@ -113,10 +150,35 @@ public class Attraction implements Comparable<Attraction>{
         this.price = price;
         this.location = location;
         this.day = day;
+        this.guestCount = 0;
         //this.ID = UUID.randomUUID().toString();
         this.ID = this.name.substring(0,1)+this.location.substring(0,1)+ '-' +this.day.toString().substring(0,3);
     }
 
+    /**
+     * Constructor - constructs an Attraction with a given ID. <br>
+     * Used when a stored Attraction is read back, its ID is not generated again because the name, location or day could have changed.
+     * @param ID String - the stored ID of the Attraction
+     * @param name String - name of the Attraction
+     * @param capacity Integer - maximum number of guests who can participate
+     * @param instructor Instructor - who holds the Attraction
+     * @param guestList list of Guests - who signed up at the Attraction
+     * @param price Double - price of one ticket
+     * @param location String - name of the area where the Attraction is held
+     * @param day Weekday - when the Attraction takes place
+     */
+    public Attraction(String ID, String name, Integer capacity, Instructor instructor, List<Guest> guestList, double price, String location, Weekday day) {
+        this.ID = ID;
+        this.name = name;
+        this.capacity = capacity;
+        this.instructor = instructor;
+        this.guestList = guestList;
+        this.price = price;
+        this.location = location;
+        this.day = day;
+        this.guestCount = guestList == null ? 0 : guestList.size();
+    }
+
     /**
      * Empty constructor.
      */
@@ -178,6 +240,25 @@ public class Attraction implements Comparable<Attraction>{
      */
     public void addGuest(Guest guest) {
         this.guestList.add(guest);
+        this.guestCount = this.guestList.size();
+    }
+
+    /**
+     * This method returns the stored number of Guests, which the database uses for the filters.
+     * @return Integer - the value of the guest_count column
+     */
+    public Integer getGuestCount() {
+        return guestCount;
+    }
+
+    /**
+     * This method sets the stored number of Guests to the size of the Guest-list. <br>
+     * It is called before a new Attraction is written to the database and after the Guest-list was replaced.
+     * It isn't a @PreUpdate callback, because a lazy Guest-list must not be loaded while Hibernate flushes.
+     */
+    @PrePersist
+    public void updateGuestCount() {
+        this.guestCount = this.guestList == null ? 0 : this.guestList.size();
     }
 
     /**
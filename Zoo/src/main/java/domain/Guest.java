@@ -10,7 +10,17 @@ import java.util.List;
  * This class extends the class Person and models Guests of the zoo.
  */
 @Entity
+@Table(indexes = @Index(name = "guest_sum_idx", columnList = "finalSum DESC, ID"))
+@NamedEntityGraph(name = Guest.LISTING,
+        attributeNodes = @NamedAttributeNode(value = "attractions", subgraph = "attractions"),
+        subgraphs = @NamedSubgraph(name = "attractions", attributeNodes = @NamedAttributeNode("instructor")))
 public class Guest extends Person implements Comparable<Guest>{
+    /**
+     * Name of the fetch plan for lists of Guests: the Attractions and their Instructors are loaded with the Guests,
+     * so getData() doesn't need a query for each Guest.
+     */
+    public static final String LISTING = "Guest.listing";
+
     /**
      * Guest's birthday (YEAR-MONTH-DAY).
      */
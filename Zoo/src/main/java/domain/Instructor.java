@@ -1,5 +1,8 @@
 package domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,7 +11,15 @@ import java.util.List;
  * This class extends the class Person and models Instructors, who hold Attractions (shows) in the zoo.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(name = Instructor.LISTING, attributeNodes = @NamedAttributeNode("attractions"))
 public class Instructor extends Person{
+    /**
+     * Name of the fetch plan for lists of Instructors: the Attractions are loaded with the Instructors,
+     * so toString() doesn't need a query for each Instructor.
+     */
+    public static final String LISTING = "Instructor.listing";
 
     /**
      * List of Attractions which are held by the Instructor. <br>
@@ -98,25 +109,33 @@ public class Instructor extends Person{
 
     /**
      * This method calculates and updates the income of the Instructor for the Attractions which he/she holds. <br>
-     * The method adds the income from each Attraction.
+     * The method adds the income from each Attraction. <br>
+     * The Guest-list of each Attraction is copied under the lock of the Attraction, because a sign-up in another thread
+     * can change it meanwhile. The calculation holds the lock of the Instructor, so an older result can't overwrite a newer one.
+     * The locks are taken in the order Instructor, Attraction, so the caller mustn't hold the lock of an Attraction.
      */
     @Override
-    public void calculateSum() {
-        this.finalSum = 0;
+    public synchronized void calculateSum() {
+        double sum = 0;
         long youngNr, oldNr;
-        for (Attraction attr: this.attractions){
-           youngNr = attr.guestList
+        for (Attraction attr: new ArrayList<>(this.attractions)){
+           List<Guest> guests;
+           synchronized (attr) {
+               guests = new ArrayList<>(attr.guestList);
+           }
+           youngNr = guests
                     .stream()
                     .filter(g -> g.getAge() < 18)
                     .count();
 
-           oldNr = attr.guestList
+           oldNr = guests
                    .stream()
                    .filter(g -> g.getAge() > 60)
                    .count();
 
-           finalSum += attr.price * (attr.getNrOfGuests() - youngNr * 0.5 - oldNr * 0.2);
+           sum += attr.price * (guests.size() - youngNr * 0.5 - oldNr * 0.2);
         }
+        this.finalSum = sum;
     }
 
     /**
@@ -21,6 +21,13 @@ abstract class Person {
      */
     protected double finalSum;
 
+    /**
+     * Version of the row in the database, it is incremented by every update. <br>
+     * An update of a Person which was changed by someone else since it was read fails (optimistic locking).
+     */
+    @Version
+    protected Long version;
+
     /**
      * Credential of the Person.
      */
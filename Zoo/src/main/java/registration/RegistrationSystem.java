@@ -5,37 +5,93 @@ import domain.Guest;
 import domain.Instructor;
 import domain.Weekday;
 import repository.AttractionRepository;
+import repository.AttractionSummary;
 import repository.GuestRepository;
+import repository.GuestSummary;
 import repository.InstructorRepository;
+import repository.ListingQueries;
+import repository.SortCursor;
+import repository.UnitOfWork;
 import utils.NoMoreAvailableTicketsException;
 import utils.NoSuchDataException;
 import utils.BadInputException;
+import utils.ConcurrentUpdateException;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Controller - Creates the connection between repositories and view
  */
 public class RegistrationSystem {
+    /**
+     * Number of Objects which are read together by the listings, e.g. forEachAttraction() and forEachGuest().
+     */
+    private static final int PAGE_SIZE = 100;
+    /**
+     * Maximum number of attempts of a change which fails because the data was changed by someone else at the same time.
+     */
+    private static final int MAX_ATTEMPTS = 5;
+    /**
+     * Upper bound of the random wait before the second attempt, it doubles with each further attempt.
+     */
+    private static final long BACKOFF_MILLIS = 10;
+
     private final AttractionRepository attractionRepository;
     private final GuestRepository guestRepository;
     private final InstructorRepository instructorRepository;
+    private final ListingQueries listingQueries;
+    private final UnitOfWork unitOfWork;
 
     /**
      * Constructor - constructs and initializes a RegistrationSystem. <br>
+     * The listings of summaries are read from the repositories.
      * @param instructorRepository InstructorRepository
      * @param attractionRepository AttractionRepository - populated with Attractions who have Instructors from the InstructorRepository
      * @param guestRepository GuestRepository - populated with Guests who are signed to Attractions from the AttractionRepository
      */
     public RegistrationSystem(AttractionRepository attractionRepository, GuestRepository guestRepository, InstructorRepository instructorRepository) {
+        this(attractionRepository, guestRepository, instructorRepository, ListingQueries.of(attractionRepository, guestRepository));
+    }
+
+    /**
+     * Constructor - constructs and initializes a RegistrationSystem with its own read path for the listings of summaries. <br>
+     * @param instructorRepository InstructorRepository
+     * @param attractionRepository AttractionRepository - populated with Attractions who have Instructors from the InstructorRepository
+     * @param guestRepository GuestRepository - populated with Guests who are signed to Attractions from the AttractionRepository
+     * @param listingQueries ListingQueries - reads the same data as the repositories, e.g. JdbcListingQueries
+     */
+    public RegistrationSystem(AttractionRepository attractionRepository, GuestRepository guestRepository, InstructorRepository instructorRepository,
+                              ListingQueries listingQueries) {
+        this(attractionRepository, guestRepository, instructorRepository, listingQueries, UnitOfWork.NONE);
+    }
+
+    /**
+     * Constructor - constructs and initializes a RegistrationSystem whose operations run in units of work. <br>
+     * @param instructorRepository InstructorRepository
+     * @param attractionRepository AttractionRepository - populated with Attractions who have Instructors from the InstructorRepository
+     * @param guestRepository GuestRepository - populated with Guests who are signed to Attractions from the AttractionRepository
+     * @param listingQueries ListingQueries - reads the same data as the repositories, e.g. JdbcListingQueries
+     * @param unitOfWork UnitOfWork - groups the repository calls of an operation, e.g. the EntityManagerProvider of the Jdbc repositories
+     */
+    public RegistrationSystem(AttractionRepository attractionRepository, GuestRepository guestRepository, InstructorRepository instructorRepository,
+                              ListingQueries listingQueries, UnitOfWork unitOfWork) {
         this.attractionRepository = attractionRepository;
         this.guestRepository = guestRepository;
         this.instructorRepository = instructorRepository;
+        this.listingQueries = listingQueries;
+        this.unitOfWork = unitOfWork;
     }
 
     /**
@@ -75,15 +131,13 @@ public class RegistrationSystem {
 
     /**
      * This method filters the Attractions with available places. <br>
-     * The filtering condition is that the capacity of the show is greater than the number of signed up guests. <br>
+     * The filtering condition is that the capacity of the show is greater than the number of signed up guests,
+     * the AttractionRepository answers it (from an index if it has one). <br>
      * NoSuchDataException exception is thrown (and then caught) when there are no Attractions with available places.
      * @return The list of Attractions with available places.
      */
     public List<Attraction> getAllAttractionsWithFreePlaces() {
-        List<Attraction> attractionsWithFreePlaces = this.attractionRepository.getAllAttractions()
-                .stream()
-                .filter(attr -> attr.getCapacity() > attr.getNrOfGuests())
-                .toList();
+        List<Attraction> attractionsWithFreePlaces = this.attractionRepository.getAttractionsWithFreePlaces();
 
         if (attractionsWithFreePlaces.size() == 0)
             try {
@@ -92,53 +146,41 @@ public class RegistrationSystem {
                 System.out.println(e.getMessage());
             }
         return attractionsWithFreePlaces;
-
-//        without stream:
-//        List<Attraction> attractionsWithFreePlaces = new ArrayList<>();
-//        for (Attraction attraction : this.attractionRepository.getAllAttractions())
-//            if (attraction.getCapacity() > attraction.getNrOfGuests())
-//                attractionsWithFreePlaces.add(attraction);
-
     }
 
     /**
-     * This method sorts the Attractions lexicographically by title.
+     * This method sorts the Attractions lexicographically by title. <br>
+     * A copy of the list from the AttractionRepository is sorted, the repository itself is not changed.
      * @return The list of Attractions sorted lexicographically by title
      */
     public List<Attraction> getAttractionsSortedByTitle() {
-        List<Attraction> sortedAttractions = this.attractionRepository.getAllAttractions();
+        List<Attraction> sortedAttractions = new ArrayList<>(this.attractionRepository.getAllAttractions());
         Collections.sort(sortedAttractions);
         return sortedAttractions;
     }
 
     /**
      * This method filters the Attractions held later or on the given weekday as a parameter. <br>
-     * The filtering condition is that the number of the attraction-day is greater than the number of the given weekday.
+     * The filtering condition is that the number of the attraction-day is greater than the number of the given weekday,
+     * the AttractionRepository answers it (from an index if it has one).
      * @param weekday Weekday - we search the attractions held later or on this day.
      * @return The list of Attractions held later or on the given weekday as a parameter.
      */
     public List<Attraction> getAttractionsAfterAGivenDay(Weekday weekday) {
         List<Attraction> attractionsAfterADay = new ArrayList<>();
         try {
-            attractionsAfterADay = this.attractionRepository.getAllAttractions()
-                    .stream()
-                    .filter(attr -> attr.day.getNr() >= weekday.getNr())
-                    .toList();
+            attractionsAfterADay = this.attractionRepository.getAttractionsFromDay(weekday);
             } catch (NullPointerException ignored) {}
         return attractionsAfterADay;
-
-//        without stream:
-//            for (Attraction attr : this.attractionRepository.getAllAttractions()) {
-//                if (attr.day.getNr() >= weekday.getNr())
-//                    attractionsAfterADay.add(attr);
     }
 
     /**
-     * This method sorts the Attractions ascending by price. The method uses a new Comparable for this.
+     * This method sorts the Attractions ascending by price. The method uses a new Comparable for this. <br>
+     * A copy of the list from the AttractionRepository is sorted, the repository itself is not changed.
      * @return The list of Attractions sorted ascending by price
      */
     public List<Attraction> getAttractionsSortedByPriceAscending() {
-        List<Attraction> sortedAttractions = this.attractionRepository.getAllAttractions();
+        List<Attraction> sortedAttractions = new ArrayList<>(this.attractionRepository.getAllAttractions());
         Collections.sort(sortedAttractions,
                 (Attraction a1, Attraction a2) -> Double.compare(a1.price, a2.price));
         /*
@@ -152,11 +194,12 @@ public class RegistrationSystem {
     }
 
     /**
-     * This method sorts the Attractions ascending by signed up Guests-number.
+     * This method sorts the Attractions ascending by signed up Guests-number. <br>
+     * A copy of the list from the AttractionRepository is sorted, the repository itself is not changed.
      * @return The list of Attractions sorted ascending by Guest-number
      */
     public List<Attraction> getAttractionsSortedByGuestAscending() {
-        List<Attraction> sortedAttractions = this.attractionRepository.getAllAttractions();
+        List<Attraction> sortedAttractions = new ArrayList<>(this.attractionRepository.getAllAttractions());
         Collections.sort(sortedAttractions,
                 (Attraction o1, Attraction o2) -> {
                     return o1.getNrOfGuests() - o2.getNrOfGuests();
@@ -170,19 +213,40 @@ public class RegistrationSystem {
         return sortedAttractions;
     }
 
+    /**
+     * This method returns a page of the Attractions sorted ascending by price, Attractions with the same price by ID. <br>
+     * The page starts after the last Attraction of the previous page, the AttractionRepository doesn't sort all Attractions for it.
+     * @param lastOfPreviousPage Attraction - the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions sorted ascending by price
+     */
+    public List<Attraction> getAttractionsSortedByPriceAscending(Attraction lastOfPreviousPage, int limit) {
+        SortCursor after = lastOfPreviousPage == null ? null : new SortCursor(lastOfPreviousPage.price, lastOfPreviousPage.getID());
+        return this.attractionRepository.pageByPrice(after, limit);
+    }
+
+    /**
+     * This method returns a page of the Attractions sorted ascending by signed up Guests-number, Attractions with the same number by ID. <br>
+     * The page starts after the last Attraction of the previous page, the AttractionRepository doesn't sort all Attractions for it.
+     * @param lastOfPreviousPage Attraction - the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions sorted ascending by Guest-number
+     */
+    public List<Attraction> getAttractionsSortedByGuestAscending(Attraction lastOfPreviousPage, int limit) {
+        SortCursor after = lastOfPreviousPage == null ? null : new SortCursor(lastOfPreviousPage.getNrOfGuests(), lastOfPreviousPage.getID());
+        return this.attractionRepository.pageByNrOfGuests(after, limit);
+    }
+
     /**
      * This method filters the Attractions which price is cheaper or equal to a given price as a parameter. <br>
-     * The filtering condition is that the normal price of the attraction is less than or equal to the given price. <br>
+     * The filtering condition is that the normal price of the attraction is less than or equal to the given price,
+     * the AttractionRepository answers it (from an index if it has one). <br>
      * NoSuchDataException exception is thrown (and then caught) when there are no Attractions with the given criteria
      * @param givenPrice Double - a price below we search Attractions
      * @return The list of Attractions which are less than or equal to a given price.
      */
     public List<Attraction> filterAttractionsByAGivenValue(double givenPrice) {
-        List<Attraction> attractionsWithFixedPrice =
-                this.attractionRepository.getAllAttractions()
-                        .stream()
-                        .filter(attr -> attr.price <= givenPrice)
-                        .toList();
+        List<Attraction> attractionsWithFixedPrice = this.attractionRepository.getAttractionsWithPriceAtMost(givenPrice);
 
         if (attractionsWithFixedPrice.size() == 0)
             try {
@@ -191,12 +255,6 @@ public class RegistrationSystem {
                 System.out.println(e.getMessage());
             }
         return attractionsWithFixedPrice;
-//      without stream:
-//      List<Attraction> attractionsWithFixedPrice2 = new ArrayList<>();
-//      for (Attraction attraction : this.attractionRepository.getAllAttractions())
-//            if (attraction.price <= givenPrice)
-//                attractionsWithFixedPrice2.add(attraction);
-
     }
 
     /**
@@ -214,48 +272,31 @@ public class RegistrationSystem {
 
     /**
      * This method calculates and returns the average income of Instructors. <br>
-     * First the sum of total incomes is calculated and then divided by the number of Instructors.
-     * @return Double - the average income of Instructors
+     * The InstructorRepository calculates the average, the database backend with one aggregate query.
+     * @return Double - the average income of Instructors, 0 if there are no Instructors
      */
     public double getAverageSalaryOfInstructors() {
-        double avgSum = 0;
-        for (Instructor instructor: this.getAllInstructors()) {
-            avgSum += instructor.getFinalSum();
-        }
-        avgSum = avgSum / this.getAllInstructors().size();
-        return avgSum;
+        return this.instructorRepository.getAverageIncome();
     }
 
     /**
      * This method filters the Instructors who have higher salary than the average Instructor. <br>
-     * This method uses the method getAverageSalaryOfInstructors() to compare this value to each instructors' salary.
-     * The filtering condition is that the Instructor's salary is higher than the average income.
+     * The average and the filter are calculated by the InstructorRepository in one step,
+     * the filtering condition is that the Instructor's salary is higher than the average income.
      * @return The list of Instructors who have higher income than the average Instructor
      */
     public List<Instructor> filterInstructorsWithHigherSalaryThanAverage() {
-        double avgSum = this.getAverageSalaryOfInstructors();
-        List<Instructor> instructorsWithHighSalary = this.instructorRepository.getAllInstructors()
-                .stream()
-                .filter(i -> i.getFinalSum() > avgSum)
-                .toList();
-        return instructorsWithHighSalary;
-
-        // List<Instructor> instructorsWithHighSalary = new ArrayList<>();
-//        double avgSum = this.getAverageSalaryOfInstructors();
-//        for (Instructor instructor : this.instructorRepository.getAllInstructors())
-//            if (instructor.getFinalSum() > avgSum)
-//                instructorsWithHighSalary.add(instructor);
+        return this.instructorRepository.getInstructorsAboveAverageIncome();
     }
 
     /**
      * This method adds a Guest to the GuestRepository. <br>
+     * The repository checks the username and adds the Guest in one step, so two registrations with the same username can't both succeed.
      * @param guest Guest - who is going to be added.
      * @return Boolean - true if the guest could be added, false otherwise <br>
      */
     public boolean addGuest(Guest guest) {
-        int guestsInitialNr = this.guestRepository.getAllGuests().size();
-        this.guestRepository.add(guest);
-        return this.guestRepository.getAllGuests().size() == guestsInitialNr + 1;
+        return this.guestRepository.insertIfAbsent(guest);
     }
 
     /**
@@ -266,6 +307,70 @@ public class RegistrationSystem {
         return this.guestRepository.getAllGuests();
     }
 
+    /**
+     * This method passes every Attraction, ordered by ID, to the given action. <br>
+     * The Attractions are read in pages of PAGE_SIZE, each page continues after the ID of the previous one,
+     * so the listing never holds more than one page, however many Attractions there are.
+     * @param action Consumer - executed for each Attraction
+     */
+    public void forEachAttraction(Consumer<Attraction> action) {
+        forEachInPages(this.attractionRepository::pageAfter, Attraction::getID, action);
+    }
+
+    /**
+     * This method passes every Guest, ordered by ID, to the given action. <br>
+     * The Guests are read in pages of PAGE_SIZE, each page continues after the ID of the previous one,
+     * so the listing never holds more than one page, however many Guests there are.
+     * @param action Consumer - executed for each Guest
+     */
+    public void forEachGuest(Consumer<Guest> action) {
+        forEachInPages(this.guestRepository::pageAfter, Guest::getID, action);
+    }
+
+    /**
+     * This method passes the summary of every Attraction, ordered by ID, to the given action. <br>
+     * The summaries are read in pages of PAGE_SIZE by the ListingQueries, so a listing which only shows the Attractions
+     * doesn't need the entities.
+     * @param action Consumer - executed for each AttractionSummary
+     */
+    public void forEachAttractionSummary(Consumer<AttractionSummary> action) {
+        forEachInPages(this.listingQueries::attractionsAfter, AttractionSummary::getID, action);
+    }
+
+    /**
+     * This method passes the summary of every Guest, ordered by ID, to the given action. <br>
+     * The summaries are read in pages of PAGE_SIZE by the ListingQueries, so a listing which only shows the Guests
+     * doesn't need the entities.
+     * @param action Consumer - executed for each GuestSummary
+     */
+    public void forEachGuestSummary(Consumer<GuestSummary> action) {
+        forEachInPages(this.listingQueries::guestsAfter, GuestSummary::getID, action);
+    }
+
+    /**
+     * This method waits a random time before the next attempt of a change, so the competing nodes don't collide again.
+     * @param attempt int - number of the failed attempt, the upper bound of the wait doubles with each attempt
+     */
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_MILLIS << (attempt - 1)) + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <E> void forEachInPages(BiFunction<String, Integer, List<E>> pageAfter, Function<E, String> idOf, Consumer<E> action) {
+        String lastID = null;
+        List<E> page;
+        do {
+            page = pageAfter.apply(lastID, PAGE_SIZE);
+            for (E element : page)
+                action.accept(element);
+            if (!page.isEmpty())
+                lastID = idOf.apply(page.get(page.size() - 1));
+        } while (page.size() == PAGE_SIZE);
+    }
+
     /**
      * This method returns the list of Attractions of a Guest whose username is given as a parameter.<br>
      * NoSuchDataException exception is thrown (and then caught) when there are no Attractions with the given criteria
@@ -322,11 +427,12 @@ public class RegistrationSystem {
     }
 
     /**
-     * This method sorts the Guests in descending order by the sum which they have to pay.
+     * This method sorts the Guests in descending order by the sum which they have to pay. <br>
+     * A copy of the list from the GuestRepository is sorted, the repository itself is not changed.
      * @return The list of Guests sorted in descending order by the sum which they have to pay.
      */
     public List<Guest> getGuestsSortedDescendingBySum() {
-        List<Guest> guests = this.guestRepository.getAllGuests();
+        List<Guest> guests = new ArrayList<>(this.guestRepository.getAllGuests());
         Collections.sort(guests, new Comparator<Guest>() {
             @Override
             public int compare(Guest o1, Guest o2) {
@@ -339,6 +445,19 @@ public class RegistrationSystem {
         return guests;
     }
 
+    /**
+     * This method returns a page of the Guests sorted in descending order by the sum which they have to pay,
+     * Guests with the same sum by username. <br>
+     * The page starts after the last Guest of the previous page, the GuestRepository doesn't sort all Guests for it.
+     * @param lastOfPreviousPage Guest - the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests sorted in descending order by the sum which they have to pay
+     */
+    public List<Guest> getGuestsSortedDescendingBySum(Guest lastOfPreviousPage, int limit) {
+        SortCursor after = lastOfPreviousPage == null ? null : new SortCursor(lastOfPreviousPage.getFinalSum(), lastOfPreviousPage.getID());
+        return this.guestRepository.pageBySumDescending(after, limit);
+    }
+
     /**
      * This method returns the Guest object who has the given username as a parameter.
      * @param username String - the username of the searched Guest
@@ -359,13 +478,12 @@ public class RegistrationSystem {
 
     /**
      * This method adds an Instructor to the InstructorRepository. <br>
+     * The repository checks the username and adds the Instructor in one step.
      * @param instructor Instructor - who is going to be added.
      * @return Boolean - true if the guest could be added, false otherwise <br>
      */
     public boolean addInstructor(Instructor instructor) {
-        int instructorsInitialNr = this.instructorRepository.getAllInstructors().size();
-        this.instructorRepository.add(instructor);
-        return this.instructorRepository.getAllInstructors().size() == instructorsInitialNr + 1;
+        return this.instructorRepository.insertIfAbsent(instructor);
     }
 
     /**
@@ -391,11 +509,7 @@ public class RegistrationSystem {
      * @return Double - the income of the Zoo
      */
     public double getIncomeOfTheZoo() {
-        double sum=0;
-        for (Instructor instructor: this.getAllInstructors()){
-            sum += instructor.getFinalSum();
-        }
-        return sum;
+        return this.instructorRepository.getTotalIncome();
     }
 
     /**
@@ -410,19 +524,27 @@ public class RegistrationSystem {
      * <ol>
      *     <li>Attraction with the given ID doesn't exist</li>
      *     <li>Instructor with the given ID doesn't exist</li>
+     *     <li>The Attraction or an Instructor was changed by someone else at the same time</li>
      * </ol>
+     * The Attraction and both Instructors are written in one unit of work.
      */
     public boolean changeInstructorOfAttraction(String idAttraction, String idNewInstructor) {
-        Attraction attr = this.attractionRepository.findByID(idAttraction);
-        Instructor newInstructor = this.instructorRepository.findByID(idNewInstructor);
-        if (attr != null && newInstructor != null) {
-            Instructor oldInstructor = attr.getInstructor();
-            oldInstructor.removeAttraction(attr);
-            attr.setInstructor(newInstructor);
-            newInstructor.addAttraction(attr);
-            return true;
-        }
-        return false;
+        return this.inUnitOfWork(() -> {
+            Attraction attr = this.attractionRepository.findByID(idAttraction);
+            Instructor newInstructor = this.instructorRepository.findByID(idNewInstructor);
+            if (attr != null && newInstructor != null) {
+                Instructor oldInstructor = attr.getInstructor();
+                oldInstructor.removeAttraction(attr);
+                attr.setInstructor(newInstructor);
+                newInstructor.addAttraction(attr);
+                // the changes must reach the repositories, not only the objects
+                this.attractionRepository.update(attr.getID(), attr);
+                this.instructorRepository.update(oldInstructor.getID(), oldInstructor);
+                this.instructorRepository.update(newInstructor.getID(), newInstructor);
+                return true;
+            }
+            return false;
+        });
     }
 
     /**
@@ -440,26 +562,70 @@ public class RegistrationSystem {
      *     <li>Guest with the given username doesn't exist</li>
      *     <li>Guest is already signed up to the attraction</li>
      * </ol>
+     * The check of the free places and the sign-up happen while holding the lock of the Attraction,
+     * so with thread-safe repositories two threads can't sell the last place twice. <br>
+     * An attempt runs in one unit of work, so the Attraction, the Guest and the Instructor are written together. <br>
+     * In the database the entities have a version: if another application node changed one of them since it was read,
+     * the whole unit of work is rolled back with a ConcurrentUpdateException. The retry is outside the unit of work:
+     * the sign-up is tried again in a new unit of work with the current data, after a random wait which grows with each
+     * attempt (at most MAX_ATTEMPTS attempts). If the caller has already begun a transaction, the unit of work joins it
+     * and a conflict only appears at the commit of the caller, so it isn't retried here.
      */
     public boolean signUpForAttraction(String idGuest, String idAttraction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return this.unitOfWork.execute(() -> this.trySignUpForAttraction(idGuest, idAttraction));
+            } catch (ConcurrentUpdateException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    System.out.println("Die Anmeldung ist fehlgeschlagen, bitte versuchen Sie es später noch einmal");
+                    return false;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * This method makes one attempt of the sign-up. The Attraction is updated first, only this update decides if the place is sold,
+     * the sums of the Guest and the Instructor are updated afterwards. <br>
+     * The income of the Instructor is calculated after the lock of the Attraction is released, because it locks every
+     * Attraction of the Instructor one after the other. <br>
+     * Inside a unit of work of a database the updates are written at its end, a conflict makes the whole attempt fail.
+     * @param idGuest String - the ID of the Guest who wants to sign up to an Attraction
+     * @param idAttraction String - the ID of the Attraction on which the Guest would like to sign up
+     * @return Boolean - true if the sign-up is successful, false otherwise
+     * @throws ConcurrentUpdateException if the Attraction, the Guest or the Instructor was changed by someone else since it was read
+     */
+    private boolean trySignUpForAttraction(String idGuest, String idAttraction) {
         Attraction attr = this.attractionRepository.findByID(idAttraction);
-        if (attr != null) {
+        if (attr == null)
+            return false;
+        synchronized (attr) {
             if (attr.getNrOfFreePlaces() > 0) {
                 Guest g = this.guestRepository.findByID(idGuest);
                 // if guest is already signed up -> sign up not possible
-                if (g != null && !attr.guestList.contains(g)) {
+                if (g == null || attr.guestList.contains(g))
+                    return false;
+                synchronized (g) {
                     g.addAttraction(attr);
-                    attr.addGuest(g);
-                    attr.getInstructor().calculateSum();
-                    return true;
                 }
+                attr.addGuest(g);
+                // the number of free places changed
+                this.attractionRepository.update(attr.getID(), attr);
+                // the sum of the Guest changed
+                this.guestRepository.update(g.getID(), g);
             } else try {
                 throw new NoMoreAvailableTicketsException("Wir haben nicht mehr Platz");
             } catch (NoMoreAvailableTicketsException e) {
                 System.out.println(e.getMessage());
+                return false;
             }
         }
-        return false;
+        // the income of the Instructor changed
+        Instructor instructor = attr.getInstructor();
+        instructor.calculateSum();
+        this.instructorRepository.update(instructor.getID(), instructor);
+        return true;
     }
 
     /**
@@ -475,22 +641,47 @@ public class RegistrationSystem {
      *     <li>Attraction with the given ID doesn't exist</li>
      *     <li>The given Instructor ID doesn't belong to the actual Instructor of the Attraction</li>
      *     <li>Guest with the given username doesn't exist</li>
+     *     <li>The Attraction, the Instructor or a Guest was changed by someone else at the same time</li>
      * </ol>
+     * The Guests, the Instructor and the Attraction are written in one unit of work,
+     * the Attraction is deleted last, so the Guests still find it in their lists.
      */
     public boolean deleteAttraction(String idInstructor, String idAttraction) {
-        Attraction attr = this.attractionRepository.findByID(idAttraction);
-        if (attr != null && attr.getInstructor().getID().equals(idInstructor)) {
-            Instructor instructor = this.instructorRepository.findByID(idInstructor);
-            instructor.removeAttraction(attr);
-            this.attractionRepository.delete(idAttraction);
-
-            for (Guest guest: this.guestRepository.getAllGuests()) {
-                guest.removeAttraction(attr);
-                this.guestRepository.update(guest.getID(), guest);
+        return this.inUnitOfWork(() -> {
+            Attraction attr = this.attractionRepository.findByID(idAttraction);
+            if (attr != null && attr.getInstructor().getID().equals(idInstructor)) {
+                Instructor instructor = this.instructorRepository.findByID(idInstructor);
+                instructor.removeAttraction(attr);
+
+                // only the Guests who were signed up are read and written, with one bulk update
+                Map<String, Guest> changedGuests = new LinkedHashMap<>();
+                for (Guest guest: attr.guestList) {
+                    guest.removeAttraction(attr);
+                    changedGuests.put(guest.getID(), guest);
+                }
+                if (!changedGuests.isEmpty())
+                    this.guestRepository.updateAll(changedGuests);
+                this.instructorRepository.update(instructor.getID(), instructor);
+                this.attractionRepository.delete(idAttraction);
+                return true;
             }
-            return true;
+            return false;
+        });
+    }
+
+    /**
+     * This method executes an operation in one unit of work. If the data was changed by someone else at the same time,
+     * nothing is written and the operation fails.
+     * @param operation Supplier - the repository calls of the operation, returns true if it was successful
+     * @return Boolean - the result of the operation, false if it failed
+     */
+    private boolean inUnitOfWork(Supplier<Boolean> operation) {
+        try {
+            return this.unitOfWork.execute(operation);
+        } catch (ConcurrentUpdateException e) {
+            System.out.println("Die Änderung konnte nicht gespeichert werden: " + e.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
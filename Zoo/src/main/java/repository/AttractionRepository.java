@@ -1,11 +1,18 @@
 package repository;
 
 import domain.Attraction;
+import domain.Weekday;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * AttractionRepository extending ICrudRepository with getAllAttractions method.
+ * AttractionRepository extending ICrudRepository with getAllAttractions method and query methods for Attractions. <br>
+ * The query methods filter the list of all Attractions by default and keep its order, implementations can answer them
+ * from an index. An index is refreshed by add(), update() and delete(), so an Attraction which is changed in place
+ * (e.g. its Guest-list after a sign-up) has to be passed to update().
  */
 public interface AttractionRepository extends ICrudRepository<String, Attraction>{
     /**
@@ -13,4 +20,150 @@ public interface AttractionRepository extends ICrudRepository<String, Attraction
      * @return The list of Attractions
      */
     List<Attraction> getAllAttractions();
+
+    /**
+     * This method returns the Attractions held on the given weekday or later in the week.
+     * @param weekday Weekday - the first day of the searched Attractions
+     * @return The list of Attractions held on or after the given weekday
+     */
+    default List<Attraction> getAttractionsFromDay(Weekday weekday) {
+        return this.getAllAttractions()
+                .stream()
+                .filter(attr -> attr.day.getNr() >= weekday.getNr())
+                .toList();
+    }
+
+    /**
+     * This method returns the Attractions whose price is less than or equal to the given price.
+     * @param price Double - the maximum price of the searched Attractions
+     * @return The list of Attractions which are not more expensive than the given price
+     */
+    default List<Attraction> getAttractionsWithPriceAtMost(double price) {
+        return this.getAllAttractions()
+                .stream()
+                .filter(attr -> attr.price <= price)
+                .toList();
+    }
+
+    /**
+     * This method returns the Attractions which still have available places.
+     * @return The list of Attractions whose capacity is greater than the number of signed up Guests
+     */
+    default List<Attraction> getAttractionsWithFreePlaces() {
+        return this.getAllAttractions()
+                .stream()
+                .filter(attr -> attr.getCapacity() > attr.getNrOfGuests())
+                .toList();
+    }
+
+    /**
+     * This method returns the Attractions as a Stream, by default from the list of all Attractions.
+     * @return Stream of the Attractions
+     */
+    @Override
+    default Stream<Attraction> stream() {
+        return this.getAllAttractions().stream();
+    }
+
+    /**
+     * This method returns a page of the Attractions, by default it skips the first offset Attractions of stream().
+     * @param offset int - number of Attractions which are skipped
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    default List<Attraction> page(int offset, int limit) {
+        try (Stream<Attraction> attractions = this.stream()) {
+            return attractions.skip(offset).limit(limit).toList();
+        }
+    }
+
+    /**
+     * This method returns the Attractions whose ID comes after the given ID, ordered by ID. By default all Attractions are sorted.
+     * @param lastID String - ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    default List<Attraction> pageAfter(String lastID, int limit) {
+        try (Stream<Attraction> attractions = this.stream()) {
+            return attractions
+                    .filter(a -> lastID == null || a.getID().compareTo(lastID) > 0)
+                    .sorted(Comparator.comparing(Attraction::getID))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    /**
+     * This method returns a page of the Attractions sorted ascending by price, Attractions with the same price by ID. <br>
+     * The page starts after the cursor, the cursor of the next page is made from the price and the ID of the last Attraction.
+     * By default all Attractions are sorted.
+     * @param after SortCursor - price and ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    default List<Attraction> pageByPrice(SortCursor after, int limit) {
+        try (Stream<Attraction> attractions = this.stream()) {
+            return attractions
+                    .filter(a -> after == null || after.isBefore(a.price, a.getID(), false))
+                    .sorted(SortCursor.order(a -> a.price, Attraction::getID, false))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    /**
+     * This method returns a page of the Attractions sorted ascending by the number of signed up Guests,
+     * Attractions with the same number by ID. <br>
+     * The page starts after the cursor, the cursor of the next page is made from the number of Guests and the ID of the last Attraction.
+     * By default all Attractions are sorted.
+     * @param after SortCursor - number of Guests and ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    default List<Attraction> pageByNrOfGuests(SortCursor after, int limit) {
+        try (Stream<Attraction> attractions = this.stream()) {
+            return attractions
+                    .filter(a -> after == null || after.isBefore(a.getNrOfGuests(), a.getID(), false))
+                    .sorted(SortCursor.order(Attraction::getNrOfGuests, Attraction::getID, false))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    /**
+     * This method adds an Attraction if there is no Attraction with the same ID. <br>
+     * By default the ID is searched first and then add() is called, which is not atomic,
+     * the repositories which can check and insert in one step override it.
+     * @param attraction Attraction - which will be added
+     * @return true if the Attraction was added, false otherwise
+     */
+    @Override
+    default boolean insertIfAbsent(Attraction attraction) {
+        if (attraction == null || this.findByID(attraction.getID()) != null)
+            return false;
+        this.add(attraction);
+        return this.findByID(attraction.getID()) != null;
+    }
+
+    /**
+     * This method adds several Attractions. By default insertIfAbsent() is called for each Attraction.
+     * @param attractions Attractions who will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each Attraction, in the order of the Attractions
+     */
+    @Override
+    default BulkResult addAll(Collection<Attraction> attractions) {
+        WriteOutcome[] outcomes = new WriteOutcome[attractions.size()];
+        int i = 0;
+        for (Attraction attraction : attractions) {
+            try {
+                outcomes[i] = this.insertIfAbsent(attraction) ? WriteOutcome.ADDED : WriteOutcome.DUPLICATE;
+            } catch (RuntimeException e) {
+                outcomes[i] = WriteOutcome.FAILED;
+            }
+            i++;
+        }
+        return new BulkResult(outcomes);
+    }
 }
@@ -0,0 +1,111 @@
+package repository;
+
+import domain.Attraction;
+import domain.Weekday;
+
+/**
+ * Read-only view of an Attraction for the listings: only the values which are shown, without the Guest objects
+ * and without the Instructor object. <br>
+ * It is not connected to a repository, changes of the Attraction don't appear in it.
+ */
+public class AttractionSummary {
+    private final String id;
+    private final String name;
+    private final String instructorName;
+    private final double price;
+    private final String location;
+    private final Weekday day;
+    private final int capacity;
+    private final int nrOfGuests;
+
+    /**
+     * Constructor - constructs an AttractionSummary.
+     * @param id ID of the Attraction
+     * @param name name of the Attraction
+     * @param instructorName first name and last name of the Instructor, null if there is no Instructor
+     * @param price price of one ticket
+     * @param location location of the Attraction
+     * @param day day when the Attraction is held
+     * @param capacity maximum number of Guests
+     * @param nrOfGuests number of signed up Guests
+     */
+    public AttractionSummary(String id, String name, String instructorName, double price, String location, Weekday day,
+                             int capacity, int nrOfGuests) {
+        this.id = id;
+        this.name = name;
+        this.instructorName = instructorName;
+        this.price = price;
+        this.location = location;
+        this.day = day;
+        this.capacity = capacity;
+        this.nrOfGuests = nrOfGuests;
+    }
+
+    /**
+     * This method creates the view of an Attraction.
+     * @param attraction Attraction
+     * @return AttractionSummary with the values of the Attraction
+     */
+    public static AttractionSummary of(Attraction attraction) {
+        return new AttractionSummary(attraction.getID(), attraction.name,
+                attraction.getInstructor() == null ? null : attraction.getInstructor().getName(),
+                attraction.price, attraction.location, attraction.day, attraction.getCapacity(), attraction.getNrOfGuests());
+    }
+
+    public String getID() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getInstructorName() {
+        return instructorName;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public Weekday getDay() {
+        return day;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getNrOfGuests() {
+        return nrOfGuests;
+    }
+
+    /**
+     * @return number of free places
+     */
+    public int getNrOfFreePlaces() {
+        return capacity - nrOfGuests;
+    }
+
+    /**
+     * This method converts the AttractionSummary to a String, in the same form as Attraction.toString().
+     * @return A String containing the ID, name, Instructor, price, location, day, capacity, free places and number of Guests
+     */
+    @Override
+    public String toString() {
+        return  "ID=" + id +
+                "  \tname=" + name +
+                "  \tinstructor=Name: " + instructorName +
+                "  \tprice=" + price +
+                "  \tlocation=" + location +
+                "  \tday=" + day +
+                "  \tcapacity=" + capacity +
+                "  \tfree places=" + this.getNrOfFreePlaces() +
+                "  \tsigned up guests=" + nrOfGuests +
+                '\n';
+    }
+}
@@ -0,0 +1,89 @@
+package repository;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a bulk operation: the outcome of each element, in the order in which the elements were given.
+ */
+public class BulkResult {
+    private final List<WriteOutcome> outcomes;
+    /**
+     * Message of the first error which made elements FAILED, null if there was none or it is unknown.
+     */
+    private final String error;
+
+    /**
+     * Constructor - constructs a BulkResult.
+     * @param outcomes the outcome of each element, in the order of the elements
+     */
+    public BulkResult(WriteOutcome... outcomes) {
+        this(null, outcomes);
+    }
+
+    /**
+     * Constructor - constructs a BulkResult with the message of the error which made elements FAILED.
+     * @param error String - message of the first error, null if there was none
+     * @param outcomes the outcome of each element, in the order of the elements
+     */
+    public BulkResult(String error, WriteOutcome... outcomes) {
+        this.outcomes = Arrays.asList(outcomes.clone());
+        this.error = error;
+    }
+
+    /**
+     * This method returns the outcome of an element.
+     * @param index int - position of the element in the bulk operation
+     * @return WriteOutcome of the element
+     */
+    public WriteOutcome get(int index) {
+        return outcomes.get(index);
+    }
+
+    /**
+     * This method returns the outcomes of all elements.
+     * @return The list of outcomes, in the order of the elements
+     */
+    public List<WriteOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * This method returns the message of the first error, so the caller can show why elements are FAILED.
+     * @return String - the message, null if there was no error or it is unknown
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * This method counts the elements with the given outcome.
+     * @param outcome WriteOutcome - the searched outcome
+     * @return number of elements with the outcome
+     */
+    public int count(WriteOutcome outcome) {
+        return (int) outcomes.stream().filter(o -> o == outcome).count();
+    }
+
+    /**
+     * This method checks if every element was written.
+     * @return true if no element is DUPLICATE, NOT_FOUND or FAILED
+     */
+    public boolean allSucceeded() {
+        return outcomes.stream().allMatch(o -> o == WriteOutcome.ADDED || o == WriteOutcome.UPDATED || o == WriteOutcome.DELETED);
+    }
+
+    /**
+     * This method converts the BulkResult to a String.
+     * @return A String with the number of elements for each outcome
+     */
+    @Override
+    public String toString() {
+        Map<WriteOutcome, Integer> counts = new EnumMap<>(WriteOutcome.class);
+        for (WriteOutcome outcome : outcomes)
+            counts.merge(outcome, 1, Integer::sum);
+        return "BulkResult" + counts + (error == null ? "" : " " + error);
+    }
+}
@@ -1,6 +1,9 @@
 package repository;
 import domain.Guest;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * GuestRepository extending ICrudRepository with getAllGuests method.
@@ -11,4 +14,96 @@ public interface GuestRepository extends ICrudRepository<String, Guest>{
      * @return The list of Guests
      */
     List<Guest> getAllGuests();
+
+    /**
+     * This method returns the Guests as a Stream, by default from the list of all Guests.
+     * @return Stream of the Guests
+     */
+    @Override
+    default Stream<Guest> stream() {
+        return this.getAllGuests().stream();
+    }
+
+    /**
+     * This method returns a page of the Guests, by default it skips the first offset Guests of stream().
+     * @param offset int - number of Guests which are skipped
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    default List<Guest> page(int offset, int limit) {
+        try (Stream<Guest> guests = this.stream()) {
+            return guests.skip(offset).limit(limit).toList();
+        }
+    }
+
+    /**
+     * This method returns the Guests whose ID comes after the given ID, ordered by ID. By default all Guests are sorted.
+     * @param lastID String - ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    default List<Guest> pageAfter(String lastID, int limit) {
+        try (Stream<Guest> guests = this.stream()) {
+            return guests
+                    .filter(g -> lastID == null || g.getID().compareTo(lastID) > 0)
+                    .sorted(Comparator.comparing(Guest::getID))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    /**
+     * This method returns a page of the Guests sorted descending by the sum which they have to pay, Guests with the same sum by ID. <br>
+     * The page starts after the cursor, the cursor of the next page is made from the sum and the ID of the last Guest.
+     * By default all Guests are sorted.
+     * @param after SortCursor - sum and ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    default List<Guest> pageBySumDescending(SortCursor after, int limit) {
+        try (Stream<Guest> guests = this.stream()) {
+            return guests
+                    .filter(g -> after == null || after.isBefore(g.getFinalSum(), g.getID(), true))
+                    .sorted(SortCursor.order(Guest::getFinalSum, Guest::getID, true))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    /**
+     * This method adds a Guest if there is no Guest with the same ID. <br>
+     * By default the ID is searched first and then add() is called, which is not atomic,
+     * the repositories which can check and insert in one step override it.
+     * @param guest Guest - who will be added
+     * @return true if the Guest was added, false otherwise
+     */
+    @Override
+    default boolean insertIfAbsent(Guest guest) {
+        if (guest == null || this.findByID(guest.getID()) != null)
+            return false;
+        this.add(guest);
+        return this.findByID(guest.getID()) != null;
+    }
+
+    /**
+     * This method adds several Guests. By default insertIfAbsent() is called for each Guest.
+     * @param guests Guests who will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each Guest, in the order of the Guests
+     */
+    @Override
+    default BulkResult addAll(Collection<Guest> guests) {
+        WriteOutcome[] outcomes = new WriteOutcome[guests.size()];
+        int i = 0;
+        for (Guest guest : guests) {
+            try {
+                outcomes[i] = this.insertIfAbsent(guest) ? WriteOutcome.ADDED : WriteOutcome.DUPLICATE;
+            } catch (RuntimeException e) {
+                outcomes[i] = WriteOutcome.FAILED;
+            }
+            i++;
+        }
+        return new BulkResult(outcomes);
+    }
 }
@@ -0,0 +1,108 @@
+package repository;
+
+import domain.Guest;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+
+/**
+ * Read-only view of a Guest for the listings: the values which are shown and a short description of each Attraction
+ * of the Guest, without the Attraction objects. <br>
+ * It is not connected to a repository, changes of the Guest don't appear in it.
+ */
+public class GuestSummary {
+    private final String id;
+    private final String firstName;
+    private final String lastName;
+    private final LocalDate birthday;
+    private final double finalSum;
+    private final List<String> attractions;
+
+    /**
+     * Constructor - constructs a GuestSummary.
+     * @param id username of the Guest
+     * @param firstName first name of the Guest
+     * @param lastName last name of the Guest
+     * @param birthday birthday of the Guest
+     * @param finalSum sum which the Guest has to pay
+     * @param attractions description of each Attraction of the Guest, see describe()
+     */
+    public GuestSummary(String id, String firstName, String lastName, LocalDate birthday, double finalSum, List<String> attractions) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.birthday = birthday;
+        this.finalSum = finalSum;
+        this.attractions = List.copyOf(attractions);
+    }
+
+    /**
+     * This method creates the view of a Guest.
+     * @param guest Guest
+     * @return GuestSummary with the values of the Guest
+     */
+    public static GuestSummary of(Guest guest) {
+        List<String> attractions = guest.getAttractions().stream()
+                .map(a -> describe(a.name, a.day == null ? null : a.day.toString(), a.getInstructor() == null ? null : a.getInstructor().getName()))
+                .toList();
+        return new GuestSummary(guest.getID(), guest.getFirstName(), guest.getLastName(), guest.getBirthday(), guest.getFinalSum(), attractions);
+    }
+
+    /**
+     * This method describes an Attraction in the form of Guest.getData().
+     * @param name String - name of the Attraction
+     * @param day String - day of the Attraction
+     * @param instructorName String - name of the Instructor
+     * @return the description "(name day, instructorName)"
+     */
+    public static String describe(String name, String day, String instructorName) {
+        return "(" + name + " " + day + ", " + instructorName + ")";
+    }
+
+    public String getID() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public LocalDate getBirthday() {
+        return birthday;
+    }
+
+    public double getFinalSum() {
+        return finalSum;
+    }
+
+    /**
+     * @return description of each Attraction of the Guest
+     */
+    public List<String> getAttractions() {
+        return attractions;
+    }
+
+    /**
+     * This method calculates the age of the Guest.
+     * @return The actual age of the Guest
+     */
+    public int getAge() {
+        return Period.between(this.birthday, LocalDate.now()).getYears();
+    }
+
+    /**
+     * This method returns a String containing the data of the Guest, in the same form as Guest.getData().
+     * @return A String containing the ID, the name, the age and the Attractions of the Guest
+     */
+    public String getData() {
+        String data = "ID: " + id + ", Name: " + firstName + ' ' + lastName + ", Alter: " + this.getAge() + '\n';
+        if (!attractions.isEmpty())
+            data = data + "nimmt teil an: " + String.join(", ", attractions) + ".\n";
+        return data;
+    }
+}
@@ -1,7 +1,14 @@
 package repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 /**
- * CRUD - Contains basic operations: add, delete, update, findByID.
+ * CRUD - Contains basic operations: add, insertIfAbsent, delete, update, findByID. <br>
+ * The Objects can also be read lazily with stream() or in pages with page() and pageAfter(),
+ * and written in bulk with addAll(), updateAll() and deleteAll().
  * @param <ID> Identificator
  * @param <E> Object
  */
@@ -11,13 +18,20 @@ public interface ICrudRepository<ID, E>{
      * @param e Element that will be added
      */
     void add(E e);
+    /**
+     * This method adds an Object if there is no Object with the same ID, the check and the insert are one atomic step.
+     * @param e Element that will be added
+     * @return true if the Object was added, false if its ID already exists (or the Object is null)
+     */
+    boolean insertIfAbsent(E e);
     /**
      * This method deletes an Object.
      * @param id parametrized type - ID of the Object that will be deleted
      */
     void delete(ID id);
     /**
-     * This method updates an Object.
+     * This method updates an Object. If the new Object has another ID which already belongs to another Object,
+     * the update is rejected, the other Object is never overwritten.
      * @param id parametrized type - ID of the Object that will be updated
      * @param e Object that will appear instead of the old Object
      */
@@ -28,4 +42,78 @@ public interface ICrudRepository<ID, E>{
      * @return E The found Object
      */
     E findByID(ID id);
+    /**
+     * This method returns the Objects as a lazy Stream, in the same order as the list of all Objects. <br>
+     * The Stream must be closed if the repository keeps resources open while it is read (e.g. a database cursor).
+     * @return Stream of the Objects
+     */
+    Stream<E> stream();
+    /**
+     * This method returns a page of the Objects, in the same order as stream().
+     * @param offset int - number of Objects which are skipped
+     * @param limit int - maximum number of Objects in the page
+     * @return The list of at most limit Objects
+     */
+    List<E> page(int offset, int limit);
+    /**
+     * This method returns the Objects whose ID comes after the given ID, ordered by ID (keyset paging). <br>
+     * The next page is read with the ID of the last Object of the page, so Objects added or deleted meanwhile don't shift the pages.
+     * @param lastID parametrized type - ID of the last Object of the previous page, null for the first page
+     * @param limit int - maximum number of Objects in the page
+     * @return The list of at most limit Objects
+     */
+    List<E> pageAfter(ID lastID, int limit);
+    /**
+     * This method adds several Objects. An Object is not added if there is already an Object with the same ID.
+     * @param elements Objects that will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each Object, in the order of the Objects
+     */
+    BulkResult addAll(Collection<E> elements);
+    /**
+     * This method updates several Objects. By default update() is called for each Object.
+     * @param elements Map - the ID of each Object that will be updated and the Object that will appear instead of it
+     * @return BulkResult - UPDATED, NOT_FOUND or FAILED for each Object, in the order of the Map. An implementation which
+     * knows the new IDs reports DUPLICATE for an update which was rejected because the new ID belongs to another Object.
+     */
+    default BulkResult updateAll(Map<ID, E> elements) {
+        WriteOutcome[] outcomes = new WriteOutcome[elements.size()];
+        int i = 0;
+        for (Map.Entry<ID, E> entry : elements.entrySet()) {
+            try {
+                if (this.findByID(entry.getKey()) == null)
+                    outcomes[i] = WriteOutcome.NOT_FOUND;
+                else {
+                    this.update(entry.getKey(), entry.getValue());
+                    outcomes[i] = WriteOutcome.UPDATED;
+                }
+            } catch (RuntimeException e) {
+                outcomes[i] = WriteOutcome.FAILED;
+            }
+            i++;
+        }
+        return new BulkResult(outcomes);
+    }
+    /**
+     * This method deletes several Objects. By default delete() is called for each Object.
+     * @param ids IDs of the Objects that will be deleted
+     * @return BulkResult - DELETED, NOT_FOUND or FAILED for each ID, in the order of the IDs
+     */
+    default BulkResult deleteAll(Collection<ID> ids) {
+        WriteOutcome[] outcomes = new WriteOutcome[ids.size()];
+        int i = 0;
+        for (ID id : ids) {
+            try {
+                if (this.findByID(id) == null)
+                    outcomes[i] = WriteOutcome.NOT_FOUND;
+                else {
+                    this.delete(id);
+                    outcomes[i] = WriteOutcome.DELETED;
+                }
+            } catch (RuntimeException e) {
+                outcomes[i] = WriteOutcome.FAILED;
+            }
+            i++;
+        }
+        return new BulkResult(outcomes);
+    }
 }
@@ -2,7 +2,10 @@ package repository;
 import domain.Guest;
 import domain.Instructor;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * InstructorRepository extending ICrudRepository with getAllInstructors method.
@@ -13,4 +16,127 @@ public interface InstructorRepository extends ICrudRepository<String, Instructor
      * @return The list of Instructors
      */
     List<Instructor> getAllInstructors();
+
+    /**
+     * This method returns the Instructors as a Stream, by default from the list of all Instructors.
+     * @return Stream of the Instructors
+     */
+    @Override
+    default Stream<Instructor> stream() {
+        return this.getAllInstructors().stream();
+    }
+
+    /**
+     * This method returns a page of the Instructors, by default it skips the first offset Instructors of stream().
+     * @param offset int - number of Instructors which are skipped
+     * @param limit int - maximum number of Instructors in the page
+     * @return The list of at most limit Instructors
+     */
+    @Override
+    default List<Instructor> page(int offset, int limit) {
+        try (Stream<Instructor> instructors = this.stream()) {
+            return instructors.skip(offset).limit(limit).toList();
+        }
+    }
+
+    /**
+     * This method returns the Instructors whose ID comes after the given ID, ordered by ID. By default all Instructors are sorted.
+     * @param lastID String - ID of the last Instructor of the previous page, null for the first page
+     * @param limit int - maximum number of Instructors in the page
+     * @return The list of at most limit Instructors
+     */
+    @Override
+    default List<Instructor> pageAfter(String lastID, int limit) {
+        try (Stream<Instructor> instructors = this.stream()) {
+            return instructors
+                    .filter(i -> lastID == null || i.getID().compareTo(lastID) > 0)
+                    .sorted(Comparator.comparing(Instructor::getID))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    /**
+     * This method returns the sum of the incomes (finalSum) of all Instructors. <br>
+     * By default the Instructors of getAllInstructors() are added up in one pass.
+     * @return Double - the sum of the incomes, 0 if there are no Instructors
+     */
+    default double getTotalIncome() {
+        double sum = 0;
+        for (Instructor instructor : this.getAllInstructors())
+            sum += instructor.getFinalSum();
+        return sum;
+    }
+
+    /**
+     * This method returns the average income (finalSum) of the Instructors. <br>
+     * By default the sum and the number of the Instructors are counted in the same pass.
+     * @return Double - the average income, 0 if there are no Instructors
+     */
+    default double getAverageIncome() {
+        return average(this.getAllInstructors());
+    }
+
+    /**
+     * This method returns the Instructors whose income is higher than the average income. <br>
+     * By default the average and the filter use the same list of Instructors, so getAllInstructors() is called only once.
+     * @return The list of Instructors with higher income than the average Instructor
+     */
+    default List<Instructor> getInstructorsAboveAverageIncome() {
+        List<Instructor> instructors = this.getAllInstructors();
+        double average = average(instructors);
+        return instructors.stream()
+                .filter(i -> i.getFinalSum() > average)
+                .toList();
+    }
+
+    /**
+     * This method calculates the average income of the given Instructors in one pass.
+     * @param instructors List of Instructors
+     * @return Double - the average income, 0 for an empty list
+     */
+    private static double average(List<Instructor> instructors) {
+        double sum = 0;
+        int count = 0;
+        for (Instructor instructor : instructors) {
+            sum += instructor.getFinalSum();
+            count++;
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * This method adds an Instructor if there is no Instructor with the same ID. <br>
+     * By default the ID is searched first and then add() is called, which is not atomic,
+     * the repositories which can check and insert in one step override it.
+     * @param instructor Instructor - who will be added
+     * @return true if the Instructor was added, false otherwise
+     */
+    @Override
+    default boolean insertIfAbsent(Instructor instructor) {
+        if (instructor == null || this.findByID(instructor.getID()) != null)
+            return false;
+        this.add(instructor);
+        return this.findByID(instructor.getID()) != null;
+    }
+
+    /**
+     * This method adds several Instructors. By default insertIfAbsent() is called for each Instructor.
+     * @param instructors Instructors who will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each Instructor, in the order of the Instructors
+     */
+    @Override
+    default BulkResult addAll(Collection<Instructor> instructors) {
+        WriteOutcome[] outcomes = new WriteOutcome[instructors.size()];
+        int i = 0;
+        for (Instructor instructor : instructors) {
+            try {
+                outcomes[i] = this.insertIfAbsent(instructor) ? WriteOutcome.ADDED : WriteOutcome.DUPLICATE;
+            } catch (RuntimeException e) {
+                outcomes[i] = WriteOutcome.FAILED;
+            }
+            i++;
+        }
+        return new BulkResult(outcomes);
+    }
 }
@@ -0,0 +1,47 @@
+package repository;
+
+import java.util.List;
+
+/**
+ * Read-only queries for the listings which only show data (e.g. "Zeige alle Attraktionen", "Zeige alle Besucher"). <br>
+ * They return AttractionSummary and GuestSummary instead of the entities, so a database backend can read the shown
+ * columns directly, without creating and tracking entities.
+ */
+public interface ListingQueries {
+    /**
+     * This method returns the views of the Attractions whose ID comes after the given ID, ordered by ID.
+     * @param lastID String - ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit AttractionSummaries
+     */
+    List<AttractionSummary> attractionsAfter(String lastID, int limit);
+
+    /**
+     * This method returns the views of the Guests whose ID comes after the given ID, ordered by ID.
+     * @param lastID String - ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit GuestSummaries
+     */
+    List<GuestSummary> guestsAfter(String lastID, int limit);
+
+    /**
+     * This method returns ListingQueries which read the entities of the repositories and convert them into views.
+     * It is used for the repositories which keep the entities in memory, where no faster way exists.
+     * @param attractionRepository AttractionRepository
+     * @param guestRepository GuestRepository
+     * @return ListingQueries based on pageAfter() of the repositories
+     */
+    static ListingQueries of(AttractionRepository attractionRepository, GuestRepository guestRepository) {
+        return new ListingQueries() {
+            @Override
+            public List<AttractionSummary> attractionsAfter(String lastID, int limit) {
+                return attractionRepository.pageAfter(lastID, limit).stream().map(AttractionSummary::of).toList();
+            }
+
+            @Override
+            public List<GuestSummary> guestsAfter(String lastID, int limit) {
+                return guestRepository.pageAfter(lastID, limit).stream().map(GuestSummary::of).toList();
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package repository;
+
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Position in a listing which is sorted by a number (e.g. the price) and then by the ID. <br>
+ * The next page starts after the position (keyset pagination), so the previous pages don't have to be read again
+ * and a database can continue in an index on (number, ID).
+ * The cursor of the next page is made from the last element of the current page.
+ */
+public class SortCursor {
+    private final double value;
+    private final String id;
+
+    /**
+     * Constructor - constructs a SortCursor.
+     * @param value the number of the last element of the previous page
+     * @param id the ID of the last element of the previous page
+     */
+    public SortCursor(double value, String id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * @return the number of the last element of the previous page
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return the ID of the last element of the previous page
+     */
+    public String getID() {
+        return id;
+    }
+
+    /**
+     * This method checks if an element comes after the cursor in the listing.
+     * @param value double - the number of the element
+     * @param id String - the ID of the element
+     * @param descending boolean - true if the listing is sorted descending by the number
+     * @return true if the element belongs to a later page
+     */
+    public boolean isBefore(double value, String id, boolean descending) {
+        int byValue = descending ? Double.compare(this.value, value) : Double.compare(value, this.value);
+        return byValue > 0 || byValue == 0 && id.compareTo(this.id) > 0;
+    }
+
+    /**
+     * This method returns the order of a listing: by the number, ties are ordered ascending by ID.
+     * @param valueOf function which returns the number of an element
+     * @param idOf function which returns the ID of an element
+     * @param descending boolean - true if the listing is sorted descending by the number
+     * @return Comparator of the listing
+     */
+    public static <E> Comparator<E> order(ToDoubleFunction<E> valueOf, Function<E, String> idOf, boolean descending) {
+        Comparator<E> byValue = Comparator.comparingDouble(valueOf);
+        return (descending ? byValue.reversed() : byValue).thenComparing(idOf);
+    }
+}
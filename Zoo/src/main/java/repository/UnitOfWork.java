@@ -0,0 +1,28 @@
+package repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Groups the repository calls of one operation (e.g. a sign-up) into one unit of work. <br>
+ * A database backend runs them in one transaction: the changes are written with one flush at the end
+ * and are committed together or not at all. The repositories in memory don't need it, their changes are visible at once.
+ */
+public interface UnitOfWork {
+    /**
+     * Unit of work of the repositories in memory: the work is executed directly.
+     */
+    UnitOfWork NONE = new UnitOfWork() {
+        @Override
+        public <T> T execute(Supplier<T> work) {
+            return work.get();
+        }
+    };
+
+    /**
+     * This method executes the repository calls of an operation as one unit of work.
+     * If a unit of work is already running, the calls become part of it.
+     * @param work Supplier - the repository calls of the operation
+     * @return the result of the work
+     */
+    <T> T execute(Supplier<T> work);
+}
@@ -0,0 +1,31 @@
+package repository;
+
+/**
+ * Outcome of one element of a bulk operation (addAll, updateAll, deleteAll).
+ */
+public enum WriteOutcome {
+    /**
+     * The element was added.
+     */
+    ADDED,
+    /**
+     * The element was updated.
+     */
+    UPDATED,
+    /**
+     * The element was deleted.
+     */
+    DELETED,
+    /**
+     * The element wasn't added, or wasn't updated to a new ID, because there is already an element with the same ID.
+     */
+    DUPLICATE,
+    /**
+     * The element wasn't updated or deleted, because there is no element with the given ID.
+     */
+    NOT_FOUND,
+    /**
+     * The element couldn't be written because of an error.
+     */
+    FAILED
+}
@@ -0,0 +1,104 @@
+package repository.concurrentRepo;
+
+import domain.Attraction;
+import repository.AttractionRepository;
+import repository.BulkResult;
+import repository.InstructorRepository;
+import repository.WriteOutcome;
+import repository.memoryRepo.InMemoryAttractionRepository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ConcurrentAttractionRepository implements the interface AttractionRepository. The data is saved in memory. <br>
+ * The repository can be used from several threads at the same time.
+ */
+public class ConcurrentAttractionRepository implements AttractionRepository {
+    /**
+     * Thread-safe storage of the Attractions
+     */
+    private final ConcurrentEntityStore<Attraction> allAttractions;
+
+    /**
+     * Constructor - constructs and initializes a ConcurrentAttractionRepository. <br>
+     * The repository is populated with the same Attractions as the InMemoryAttractionRepository,
+     * the Attractions are assigned to the Instructors from the given InstructorRepository.
+     * @param instructorRepository InstructorRepository from where the Instructor of the Attractions can be selected.
+     */
+    public ConcurrentAttractionRepository(InstructorRepository instructorRepository) {
+        this.allAttractions = new ConcurrentEntityStore<>(Attraction::getID);
+        new InMemoryAttractionRepository(instructorRepository).getAllAttractions().forEach(this::add);
+    }
+
+    /**
+     * This method returns the list of Attractions.
+     * @return The list of Attractions
+     */
+    @Override
+    public List<Attraction> getAllAttractions() {
+        return allAttractions.getAll();
+    }
+
+    /**
+     * This method adds an Attraction to the list of Attractions. <br>
+     * If there is already an Attraction in the repository with the same ID, the new Attraction won't be added.
+     * @param attraction Attraction which will be added.
+     */
+    @Override
+    public void add(Attraction attraction) {
+        if (attraction != null && !this.insertIfAbsent(attraction))
+            System.out.println("Eine Attraktion mit dieser ID existiert schon");
+    }
+
+    /**
+     * This method adds an Attraction if there is no Attraction with the same ID, the store checks and inserts in one step.
+     * @param attraction Attraction which will be added.
+     * @return true if the Attraction was added, false otherwise
+     */
+    @Override
+    public boolean insertIfAbsent(Attraction attraction) {
+        return attraction != null && this.allAttractions.add(attraction);
+    }
+
+    /**
+     * This method deletes an Attraction from the list of Attractions.
+     * @param id String - the ID of the Attraction which will be eliminated
+     */
+    @Override
+    public void delete(String id) {
+        this.allAttractions.delete(id);
+    }
+
+    /**
+     * This method updates an Attraction from the list of Attractions. <br>
+     * If the new ID belongs to another Attraction, nothing is changed.
+     * @param id String - the ID of the Attraction which will be updated
+     * @param attraction the new Attraction which will appear instead of the old Attraction
+     */
+    @Override
+    public void update(String id, Attraction attraction) {
+        if (this.allAttractions.update(id, attraction) == WriteOutcome.DUPLICATE)
+            System.out.println("Eine Attraktion mit dieser ID existiert schon");
+    }
+
+    /**
+     * This method updates several Attractions, each one is updated like with update().
+     * @param attractions Map - the ID of each Attraction which will be updated and the new Attraction
+     * @return BulkResult - UPDATED, NOT_FOUND, DUPLICATE (the new ID exists) or FAILED (null) for each Attraction
+     */
+    @Override
+    public BulkResult updateAll(Map<String, Attraction> attractions) {
+        return this.allAttractions.updateAll(attractions);
+    }
+
+    /**
+     * This method returns the Attraction who has the ID given as a parameter. <br>
+     * @param id String - the ID of the Attraction who is searched
+     * @return the Attraction which has the ID given as a parameter or null if there is no Attraction with the given ID
+     */
+    @Override
+    public Attraction findByID(String id) {
+        return this.allAttractions.findByID(id);
+    }
+}
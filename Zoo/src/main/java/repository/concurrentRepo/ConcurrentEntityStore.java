@@ -0,0 +1,248 @@
+package repository.concurrentRepo;
+
+import repository.BulkResult;
+import repository.WriteOutcome;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Thread-safe storage shared by the concurrent repositories. <br>
+ * Reads don't lock: findByID is a ConcurrentHashMap lookup and getAll() returns a versioned immutable snapshot. <br>
+ * Writes only lock the hash bin of the ID they change, so writers of different IDs don't wait for each other.
+ * Only an update which changes the ID touches two IDs, it waits for the other writes and runs alone.
+ * @param <E> type of the stored Objects
+ */
+class ConcurrentEntityStore<E> {
+    /**
+     * An Object together with the sequence number it got when it was added.
+     * @param <E> type of the stored Object
+     */
+    private static final class Entry<E> {
+        private final long sequence;
+        private final E element;
+
+        private Entry(long sequence, E element) {
+            this.sequence = sequence;
+            this.element = element;
+        }
+    }
+
+    /**
+     * Immutable list of the Objects together with the version of the store it was built from.
+     * @param <E> type of the stored Objects
+     */
+    private static final class Snapshot<E> {
+        private final long version;
+        private final List<E> elements;
+
+        private Snapshot(long version, List<E> elements) {
+            this.version = version;
+            this.elements = elements;
+        }
+    }
+
+    /**
+     * Objects indexed by their ID.
+     */
+    private final ConcurrentHashMap<String, Entry<E>> byID;
+    /**
+     * Objects ordered by their sequence number, this keeps the insertion order.
+     */
+    private final ConcurrentSkipListMap<Long, E> inOrder;
+    /**
+     * Source of the sequence numbers.
+     */
+    private final AtomicLong sequence;
+    /**
+     * Function which returns the ID of an Object.
+     */
+    private final Function<E, String> idOf;
+    /**
+     * Number of finished writes, increased after every change.
+     */
+    private final AtomicLong version;
+    /**
+     * Last snapshot handed out by getAll().
+     */
+    private final AtomicReference<Snapshot<E>> snapshot;
+    /**
+     * The writes of one ID (and the building of a snapshot) share the read lock,
+     * an update which changes the ID takes the write lock. So the ID can't be taken meanwhile by another write,
+     * and a snapshot never contains the Object under both IDs or under none.
+     */
+    private final ReadWriteLock idChange;
+
+    /**
+     * Constructor - constructs an empty store.
+     * @param idOf function which returns the ID of an Object
+     */
+    ConcurrentEntityStore(Function<E, String> idOf) {
+        this.byID = new ConcurrentHashMap<>();
+        this.inOrder = new ConcurrentSkipListMap<>();
+        this.sequence = new AtomicLong();
+        this.idOf = idOf;
+        this.version = new AtomicLong();
+        this.snapshot = new AtomicReference<>(new Snapshot<>(0, List.of()));
+        this.idChange = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * This method adds an Object if there is no Object with the same ID.
+     * @param element Object which will be added
+     * @return Boolean - true if the Object was added, false if the ID is already taken
+     */
+    boolean add(E element) {
+        this.idChange.readLock().lock();
+        try {
+            return this.insert(element);
+        } finally {
+            this.idChange.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method replaces the Object with the given ID. <br>
+     * If the new Object has the same ID, it keeps the position of the old Object, otherwise it is moved to the end.
+     * The new ID mustn't belong to another Object, it isn't overwritten.
+     * @param id ID of the Object which will be replaced
+     * @param element the new Object
+     * @return WriteOutcome - UPDATED, NOT_FOUND or DUPLICATE (the new ID belongs to another Object)
+     */
+    WriteOutcome update(String id, E element) {
+        String newID = this.idOf.apply(element);
+        if (id.equals(newID)) {
+            boolean[] found = {false};
+            this.idChange.readLock().lock();
+            try {
+                this.byID.computeIfPresent(id, (key, old) -> {
+                    this.inOrder.put(old.sequence, element);
+                    found[0] = true;
+                    return new Entry<>(old.sequence, element);
+                });
+            } finally {
+                this.idChange.readLock().unlock();
+            }
+            if (!found[0])
+                return WriteOutcome.NOT_FOUND;
+            this.version.incrementAndGet();
+            return WriteOutcome.UPDATED;
+        }
+        this.idChange.writeLock().lock();
+        try {
+            if (!this.byID.containsKey(id))
+                return WriteOutcome.NOT_FOUND;
+            if (this.byID.containsKey(newID))
+                return WriteOutcome.DUPLICATE;
+            // added before the old ID is removed, so findByID() finds the Object all the time
+            this.insert(element);
+            this.remove(id);
+            return WriteOutcome.UPDATED;
+        } finally {
+            this.idChange.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method replaces several Objects, each one with update().
+     * @param elements Map - the ID of each Object which will be replaced and the new Object
+     * @return BulkResult - UPDATED, NOT_FOUND, DUPLICATE (the new ID belongs to another Object) or FAILED (null) for each Object
+     */
+    BulkResult updateAll(Map<String, E> elements) {
+        WriteOutcome[] outcomes = new WriteOutcome[elements.size()];
+        int i = 0;
+        for (Map.Entry<String, E> entry : elements.entrySet())
+            outcomes[i++] = entry.getValue() == null ? WriteOutcome.FAILED : this.update(entry.getKey(), entry.getValue());
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method removes the Object with the given ID.
+     * @param id ID of the Object which will be removed
+     * @return the removed Object or null if there was no Object with the given ID
+     */
+    E delete(String id) {
+        this.idChange.readLock().lock();
+        try {
+            return this.remove(id);
+        } finally {
+            this.idChange.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method adds an Object if its ID is free, the caller holds one of the locks of idChange.
+     */
+    private boolean insert(E element) {
+        long seq = this.sequence.incrementAndGet();
+        boolean[] added = {false};
+        this.byID.compute(this.idOf.apply(element), (id, old) -> {
+            if (old != null)
+                return old;
+            this.inOrder.put(seq, element);
+            added[0] = true;
+            return new Entry<>(seq, element);
+        });
+        if (added[0])
+            this.version.incrementAndGet();
+        return added[0];
+    }
+
+    /**
+     * This method removes the Object with the given ID, the caller holds one of the locks of idChange.
+     */
+    private E remove(String id) {
+        Object[] removed = {null};
+        this.byID.computeIfPresent(id, (key, old) -> {
+            this.inOrder.remove(old.sequence);
+            removed[0] = old.element;
+            return null;
+        });
+        @SuppressWarnings("unchecked")
+        E element = (E) removed[0];
+        if (element != null)
+            this.version.incrementAndGet();
+        return element;
+    }
+
+    /**
+     * This method returns the Object with the given ID without locking.
+     * @param id ID of the searched Object
+     * @return the Object or null if there is no Object with the given ID
+     */
+    E findByID(String id) {
+        Entry<E> entry = this.byID.get(id);
+        return entry == null ? null : entry.element;
+    }
+
+    /**
+     * This method returns the Objects in insertion order. <br>
+     * The list is an immutable snapshot which contains every write finished before the call,
+     * concurrent writes may or may not appear. The snapshot is only rebuilt if there was a write since the last one,
+     * only then it waits for an update which changes an ID.
+     * @return list of the Objects
+     */
+    List<E> getAll() {
+        Snapshot<E> current = this.snapshot.get();
+        long readVersion = this.version.get();
+        if (current.version == readVersion)
+            return current.elements;
+        Snapshot<E> fresh;
+        this.idChange.readLock().lock();
+        try {
+            fresh = new Snapshot<>(readVersion, List.copyOf(this.inOrder.values()));
+        } finally {
+            this.idChange.readLock().unlock();
+        }
+        // a newer snapshot built by another reader is kept
+        this.snapshot.accumulateAndGet(fresh, (old, built) -> built.version > old.version ? built : old);
+        return fresh.elements;
+    }
+}
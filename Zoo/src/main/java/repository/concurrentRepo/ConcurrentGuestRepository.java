@@ -0,0 +1,104 @@
+package repository.concurrentRepo;
+
+import domain.Guest;
+import repository.AttractionRepository;
+import repository.BulkResult;
+import repository.GuestRepository;
+import repository.WriteOutcome;
+import repository.memoryRepo.InMemoryGuestRepository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ConcurrentGuestRepository implements the interface GuestRepository. The data is saved in memory. <br>
+ * The repository can be used from several threads at the same time.
+ */
+public class ConcurrentGuestRepository implements GuestRepository {
+    /**
+     * Thread-safe storage of the Guests
+     */
+    private final ConcurrentEntityStore<Guest> allGuests;
+
+    /**
+     * Constructor - constructs and initializes a ConcurrentGuestRepository. <br>
+     * The repository is populated with the same Guests as the InMemoryGuestRepository,
+     * the Guests are signed up to Attractions from the given AttractionRepository.
+     * @param attractionRepository AttractionRepository from where the Attractions are selected on which the Guests can sign up
+     */
+    public ConcurrentGuestRepository(AttractionRepository attractionRepository) {
+        this.allGuests = new ConcurrentEntityStore<>(Guest::getID);
+        new InMemoryGuestRepository(attractionRepository).getAllGuests().forEach(this::add);
+    }
+
+    /**
+     * This method returns the list of Guests.
+     * @return The list of Guests
+     */
+    @Override
+    public List<Guest> getAllGuests() {
+        return this.allGuests.getAll();
+    }
+
+    /**
+     * This method adds a Guest to the list of Guests. <br>
+     * If there is already a Guest in the repository with the same ID, the new Guest won't be added.
+     * @param guest Guest who will be added.
+     */
+    @Override
+    public void add(Guest guest) {
+        if (guest != null && !this.insertIfAbsent(guest))
+            System.out.println("Ein Besucher mit dieser ID existiert schon");
+    }
+
+    /**
+     * This method adds a Guest if there is no Guest with the same ID, the store checks and inserts in one step.
+     * @param guest Guest who will be added.
+     * @return true if the Guest was added, false otherwise
+     */
+    @Override
+    public boolean insertIfAbsent(Guest guest) {
+        return guest != null && this.allGuests.add(guest);
+    }
+
+    /**
+     * This method deletes a Guest from the list of Guests.
+     * @param id String - the ID of the Guest who will be eliminated
+     */
+    @Override
+    public void delete(String id) {
+        this.allGuests.delete(id);
+    }
+
+    /**
+     * This method updates a Guest from the list of Guests. <br>
+     * If the new ID belongs to another Guest, nothing is changed.
+     * @param id String - the ID of the Guest who will be updated
+     * @param guest the new Guest who will appear instead of the old Guest
+     */
+    @Override
+    public void update(String id, Guest guest) {
+        if (this.allGuests.update(id, guest) == WriteOutcome.DUPLICATE)
+            System.out.println("Ein Besucher mit dieser ID existiert schon");
+    }
+
+    /**
+     * This method updates several Guests, each one is updated like with update().
+     * @param guests Map - the ID of each Guest which will be updated and the new Guest
+     * @return BulkResult - UPDATED, NOT_FOUND, DUPLICATE (the new ID exists) or FAILED (null) for each Guest
+     */
+    @Override
+    public BulkResult updateAll(Map<String, Guest> guests) {
+        return this.allGuests.updateAll(guests);
+    }
+
+    /**
+     * This method returns the Guest who has the ID given as a parameter. <br>
+     * @param id String - the ID of the Guest who is searched
+     * @return the Guest who has the ID given as a parameter or null if there is no Guest with the given ID
+     */
+    @Override
+    public Guest findByID(String id) {
+        return this.allGuests.findByID(id);
+    }
+}
@@ -0,0 +1,101 @@
+package repository.concurrentRepo;
+
+import domain.Instructor;
+import repository.BulkResult;
+import repository.InstructorRepository;
+import repository.WriteOutcome;
+import repository.memoryRepo.InMemoryInstructorRepository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ConcurrentInstructorRepository implements the interface InstructorRepository. The data is saved in memory. <br>
+ * The repository can be used from several threads at the same time.
+ */
+public class ConcurrentInstructorRepository implements InstructorRepository {
+    /**
+     * Thread-safe storage of the Instructors
+     */
+    private final ConcurrentEntityStore<Instructor> allInstructors;
+
+    /**
+     * Constructor - constructs and initializes a ConcurrentInstructorRepository. <br>
+     * The repository is populated with the same Instructors as the InMemoryInstructorRepository.
+     */
+    public ConcurrentInstructorRepository() {
+        this.allInstructors = new ConcurrentEntityStore<>(Instructor::getID);
+        new InMemoryInstructorRepository().getAllInstructors().forEach(this::add);
+    }
+
+    /**
+     * This method returns the list of Instructors.
+     * @return The list of Instructors
+     */
+    @Override
+    public List<Instructor> getAllInstructors() {
+        return allInstructors.getAll();
+    }
+
+    /**
+     * This method adds an Instructor to the list of Instructors. <br>
+     * If there is already an Instructor in the repository with the same ID, the new Instructor won't be added.
+     * @param instructor Instructor who will be added.
+     */
+    @Override
+    public void add(Instructor instructor) {
+        if (instructor != null && !this.insertIfAbsent(instructor))
+            System.out.println("Es gibt schon eine Instruktor mit dieser ID");
+    }
+
+    /**
+     * This method adds an Instructor if there is no Instructor with the same ID, the store checks and inserts in one step.
+     * @param instructor Instructor who will be added.
+     * @return true if the Instructor was added, false otherwise
+     */
+    @Override
+    public boolean insertIfAbsent(Instructor instructor) {
+        return instructor != null && this.allInstructors.add(instructor);
+    }
+
+    /**
+     * This method deletes an Instructor from the list of Instructors.
+     * @param id String - the ID of the Instructor who will be eliminated
+     */
+    @Override
+    public void delete(String id) {
+        this.allInstructors.delete(id);
+    }
+
+    /**
+     * This method updates an Instructor from the list of Instructors. <br>
+     * If the new ID belongs to another Instructor, nothing is changed.
+     * @param id String - the ID of the Instructor who will be updated
+     * @param instructor the new Instructor who will appear instead of the old Instructor
+     */
+    @Override
+    public void update(String id, Instructor instructor) {
+        if (this.allInstructors.update(id, instructor) == WriteOutcome.DUPLICATE)
+            System.out.println("Es gibt schon eine Instruktor mit dieser ID");
+    }
+
+    /**
+     * This method updates several Instructors, each one is updated like with update().
+     * @param instructors Map - the ID of each Instructor which will be updated and the new Instructor
+     * @return BulkResult - UPDATED, NOT_FOUND, DUPLICATE (the new ID exists) or FAILED (null) for each Instructor
+     */
+    @Override
+    public BulkResult updateAll(Map<String, Instructor> instructors) {
+        return this.allInstructors.updateAll(instructors);
+    }
+
+    /**
+     * This method returns the Instructor who has the ID given as a parameter. <br>
+     * @param id String - the ID of the Instructor who is searched
+     * @return the Instructor who has the ID given as a parameter or null if there is no Instruction with the given ID
+     */
+    @Override
+    public Instructor findByID(String id) {
+        return this.allInstructors.findByID(id);
+    }
+}
@@ -0,0 +1,112 @@
+package repository.fileRepo;
+
+import domain.Attraction;
+import repository.AttractionRepository;
+import repository.memoryRepo.InMemoryAttractionRepository;
+
+import java.util.List;
+
+/**
+ * FileAttractionRepository implements the interface AttractionRepository. The data is saved in memory-mapped files.
+ */
+public class FileAttractionRepository implements AttractionRepository {
+    /**
+     * Files where the Instructors, Attractions and Guests are saved
+     */
+    private final MappedFileStore store;
+
+    /**
+     * Constructor - constructs and initializes a FileAttractionRepository, it uses the files of the FileInstructorRepository. <br>
+     * If the files were newly created, they are populated with the same Attractions as the InMemoryAttractionRepository.
+     * @param instructorRepository FileInstructorRepository from where the Instructor of the Attractions can be selected.
+     */
+    public FileAttractionRepository(FileInstructorRepository instructorRepository) {
+        this.store = instructorRepository.getStore();
+        if (this.store.attractionsCreated())
+            new InMemoryAttractionRepository(instructorRepository).getAllAttractions().forEach(this::add);
+    }
+
+    /**
+     * This method returns the store of the repository.
+     * @return MappedFileStore - files of the repository
+     */
+    MappedFileStore getStore() {
+        return store;
+    }
+
+    /**
+     * This method reads out from the files and returns the list of Attractions.
+     * @return The list of Attractions
+     */
+    @Override
+    public List<Attraction> getAllAttractions() {
+        return this.store.getAllAttractions();
+    }
+
+    /**
+     * This method adds an Attraction to the files. <br>
+     * If there is already an Attraction in the repository with the same ID, the new Attraction won't be added.
+     * @param attraction Attraction which will be added.
+     */
+    @Override
+    public void add(Attraction attraction) {
+        try {
+            if (!this.store.addAttraction(attraction))
+                System.out.println("Eine Attraktion mit dieser ID existiert schon");
+        } catch (NullPointerException ignored) {
+        } catch (IllegalArgumentException e) {
+            System.out.println("Die Attraktion kann nicht gespeichert werden. " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method adds an Attraction if there is no Attraction with the same ID, the store checks and writes it while it holds its lock.
+     * @param attraction Attraction which will be added.
+     * @return true if the Attraction was added, false otherwise
+     */
+    @Override
+    public boolean insertIfAbsent(Attraction attraction) {
+        if (attraction == null)
+            return false;
+        try {
+            return this.store.addAttraction(attraction);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Die Attraktion kann nicht gespeichert werden. " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * This method deletes an Attraction from the files, the Guests are signed off from it.
+     * @param id String - the ID of the Attraction which will be eliminated
+     */
+    @Override
+    public void delete(String id) {
+        this.store.deleteAttraction(id);
+    }
+
+    /**
+     * This method updates an Attraction in the files. <br>
+     * The Guests of the Attraction and its Instructor are saved as well. If the new ID belongs to another Attraction, nothing is changed.
+     * @param id String - the ID of the Attraction which will be updated
+     * @param attraction the new Attraction which will appear instead of the old Attraction
+     */
+    @Override
+    public void update(String id, Attraction attraction) {
+        try {
+            this.store.updateAttraction(id, attraction);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Die Attraktion kann nicht gespeichert werden. " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method returns the Attraction which has the ID given as a parameter. <br>
+     * @param id String - the ID of the Attraction which is searched
+     * @return the Attraction which has the ID given as a parameter or null if there is no Attraction with the given ID
+     */
+    @Override
+    public Attraction findByID(String id) {
+        return this.store.findAttraction(id);
+    }
+}
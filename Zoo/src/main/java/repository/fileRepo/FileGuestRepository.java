@@ -0,0 +1,109 @@
+package repository.fileRepo;
+
+import domain.Attraction;
+import domain.Guest;
+import repository.GuestRepository;
+import repository.memoryRepo.InMemoryGuestRepository;
+
+import java.util.List;
+
+/**
+ * FileGuestRepository implements the interface GuestRepository. The data is saved in memory-mapped files.
+ */
+public class FileGuestRepository implements GuestRepository {
+    /**
+     * Files where the Instructors, Attractions and Guests are saved
+     */
+    private final MappedFileStore store;
+
+    /**
+     * Constructor - constructs and initializes a FileGuestRepository, it uses the files of the FileAttractionRepository. <br>
+     * If the files were newly created, they are populated with the same Guests as the InMemoryGuestRepository.
+     * The income of the Instructors changes because of the signed up Guests, so the Instructors are saved again.
+     * @param attractionRepository FileAttractionRepository from where the Attractions are selected on which the Guests can sign up
+     */
+    public FileGuestRepository(FileAttractionRepository attractionRepository) {
+        this.store = attractionRepository.getStore();
+        if (this.store.guestsCreated()) {
+            new InMemoryGuestRepository(attractionRepository).getAllGuests().forEach(this::add);
+            for (Attraction attraction : attractionRepository.getAllAttractions())
+                this.store.updateInstructor(attraction.getInstructor().getID(), attraction.getInstructor());
+        }
+    }
+
+    /**
+     * This method reads out from the files and returns the list of Guests.
+     * @return The list of Guests
+     */
+    @Override
+    public List<Guest> getAllGuests() {
+        return this.store.getAllGuests();
+    }
+
+    /**
+     * This method adds a Guest to the files. <br>
+     * If there is already a Guest in the repository with the same ID, the new Guest won't be added.
+     * @param guest Guest who will be added.
+     */
+    @Override
+    public void add(Guest guest) {
+        try {
+            if (!this.store.addGuest(guest))
+                System.out.println("Ein Besucher mit dieser ID existiert schon");
+        } catch (NullPointerException ignored) {
+        } catch (IllegalArgumentException e) {
+            System.out.println("Der Besucher kann nicht gespeichert werden. " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method adds a Guest if there is no Guest with the same ID, the store checks and writes it while it holds its lock.
+     * @param guest Guest who will be added.
+     * @return true if the Guest was added, false otherwise
+     */
+    @Override
+    public boolean insertIfAbsent(Guest guest) {
+        if (guest == null)
+            return false;
+        try {
+            return this.store.addGuest(guest);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Der Besucher kann nicht gespeichert werden. " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * This method deletes a Guest from the files, the Guest is signed off from the Attractions.
+     * @param id String - the ID of the Guest who will be eliminated
+     */
+    @Override
+    public void delete(String id) {
+        this.store.deleteGuest(id);
+    }
+
+    /**
+     * This method updates a Guest in the files. <br>
+     * The Attractions of the Guest are saved as well. If the new ID belongs to another Guest, nothing is changed.
+     * @param id String - the ID of the Guest who will be updated
+     * @param guest the new Guest who will appear instead of the old Guest
+     */
+    @Override
+    public void update(String id, Guest guest) {
+        try {
+            this.store.updateGuest(id, guest);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Der Besucher kann nicht gespeichert werden. " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method returns the Guest who has the ID given as a parameter. <br>
+     * @param id String - the ID of the Guest who is searched
+     * @return the Guest who has the ID given as a parameter or null if there is no Guest with the given ID
+     */
+    @Override
+    public Guest findByID(String id) {
+        return this.store.findGuest(id);
+    }
+}
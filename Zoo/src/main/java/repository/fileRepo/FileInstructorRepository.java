@@ -0,0 +1,124 @@
+package repository.fileRepo;
+
+import domain.Instructor;
+import repository.InstructorRepository;
+import repository.memoryRepo.InMemoryInstructorRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * FileInstructorRepository implements the interface InstructorRepository. The data is saved in memory-mapped files. <br>
+ * The repository opens the files of the store, the FileAttractionRepository and FileGuestRepository use the same store.
+ */
+public class FileInstructorRepository implements InstructorRepository, Closeable {
+    /**
+     * Files where the Instructors, Attractions and Guests are saved
+     */
+    private final MappedFileStore store;
+
+    /**
+     * Constructor - constructs and initializes a FileInstructorRepository. <br>
+     * If the files don't exist yet, they are created and populated with the same Instructors as the InMemoryInstructorRepository.
+     * @param directory Path - directory of the files
+     */
+    public FileInstructorRepository(Path directory) {
+        this.store = new MappedFileStore(directory);
+        if (this.store.instructorsCreated())
+            new InMemoryInstructorRepository().getAllInstructors().forEach(this::add);
+    }
+
+    /**
+     * This method returns the store of the repository.
+     * @return MappedFileStore - files of the repository
+     */
+    MappedFileStore getStore() {
+        return store;
+    }
+
+    /**
+     * This method reads out from the files and returns the list of Instructors.
+     * @return The list of Instructors
+     */
+    @Override
+    public List<Instructor> getAllInstructors() {
+        return this.store.getAllInstructors();
+    }
+
+    /**
+     * This method adds an Instructor to the files. <br>
+     * If there is already an Instructor in the repository with the same ID, the new Instructor won't be added.
+     * @param instructor Instructor who will be added.
+     */
+    @Override
+    public void add(Instructor instructor) {
+        try {
+            if (!this.store.addInstructor(instructor))
+                System.out.println("Es gibt schon eine Instruktor mit dieser ID");
+        } catch (NullPointerException ignored) {
+        } catch (IllegalArgumentException e) {
+            System.out.println("Der Instruktor kann nicht gespeichert werden. " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method adds an Instructor if there is no Instructor with the same ID, the store checks and writes it while it holds its lock.
+     * @param instructor Instructor who will be added.
+     * @return true if the Instructor was added, false otherwise
+     */
+    @Override
+    public boolean insertIfAbsent(Instructor instructor) {
+        if (instructor == null)
+            return false;
+        try {
+            return this.store.addInstructor(instructor);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Der Instruktor kann nicht gespeichert werden. " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * This method deletes an Instructor from the files.
+     * @param id String - the ID of the Instructor who will be eliminated
+     */
+    @Override
+    public void delete(String id) {
+        this.store.deleteInstructor(id);
+    }
+
+    /**
+     * This method updates an Instructor in the files. <br>
+     * If the new ID belongs to another Instructor, nothing is changed.
+     * @param id String - the ID of the Instructor who will be updated
+     * @param instructor the new Instructor who will appear instead of the old Instructor
+     */
+    @Override
+    public void update(String id, Instructor instructor) {
+        try {
+            this.store.updateInstructor(id, instructor);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Der Instruktor kann nicht gespeichert werden. " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method returns the Instructor who has the ID given as a parameter. <br>
+     * @param id String - the ID of the Instructor who is searched
+     * @return the Instructor who has the ID given as a parameter or null if there is no Instructor with the given ID
+     */
+    @Override
+    public Instructor findByID(String id) {
+        return this.store.findInstructor(id);
+    }
+
+    /**
+     * This method writes the files to the disk and closes them.
+     */
+    @Override
+    public void close() throws IOException {
+        this.store.close();
+    }
+}
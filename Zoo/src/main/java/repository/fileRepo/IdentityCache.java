@@ -0,0 +1,60 @@
+package repository.fileRepo;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Objects of the MappedFileStore which were already read or written, by ID. <br>
+ * The same object is returned for the same ID as long as it is used somewhere. The objects are only weakly referenced:
+ * an object which is no longer used is removed by the garbage collector and read again from the files when it is asked for,
+ * so the cache never holds more than the objects which the application holds anyway.
+ */
+final class IdentityCache<E> {
+    private final Map<String, Entry<E>> entries = new HashMap<>();
+    private final ReferenceQueue<E> collected = new ReferenceQueue<>();
+
+    private static final class Entry<E> extends WeakReference<E> {
+        private final String id;
+
+        private Entry(String id, E object, ReferenceQueue<E> queue) {
+            super(object, queue);
+            this.id = id;
+        }
+    }
+
+    E get(String id) {
+        this.expunge();
+        Entry<E> entry = this.entries.get(id);
+        return entry == null ? null : entry.get();
+    }
+
+    void put(String id, E object) {
+        this.expunge();
+        this.entries.put(id, new Entry<>(id, object, this.collected));
+    }
+
+    void remove(String id) {
+        this.entries.remove(id);
+    }
+
+    /**
+     * @return number of the IDs in the cache, including the ones whose objects were just collected
+     */
+    int size() {
+        this.expunge();
+        return this.entries.size();
+    }
+
+    /**
+     * This method removes the entries whose objects were collected by the garbage collector.
+     */
+    @SuppressWarnings("unchecked")
+    private void expunge() {
+        Entry<E> entry;
+        while ((entry = (Entry<E>) this.collected.poll()) != null)
+            // the ID may belong to a newer object already
+            this.entries.remove(entry.id, entry);
+    }
+}
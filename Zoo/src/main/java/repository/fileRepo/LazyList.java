@@ -0,0 +1,70 @@
+package repository.fileRepo;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * List of related objects of the MappedFileStore (e.g. the Guests of an Attraction), which are read when the list is used. <br>
+ * The size is known without reading the objects, it is counted in the link records, so getNrOfGuests() reads no Guest.
+ * After the first access the list is an ArrayList and can be changed like one.
+ */
+final class LazyList<E> extends AbstractList<E> {
+    private Supplier<List<E>> loader;
+    private final int size;
+    private List<E> elements;
+
+    /**
+     * Constructor - constructs a LazyList.
+     * @param size number of the elements
+     * @param loader reads the elements, it is called at most once
+     */
+    LazyList(int size, Supplier<List<E>> loader) {
+        this.size = size;
+        this.loader = loader;
+    }
+
+    private List<E> elements() {
+        if (this.elements == null) {
+            this.elements = new ArrayList<>(this.loader.get());
+            this.loader = null;
+        }
+        return this.elements;
+    }
+
+    /**
+     * @return true if the elements were read already
+     */
+    boolean isLoaded() {
+        return this.elements != null;
+    }
+
+    @Override
+    public E get(int index) {
+        return this.elements().get(index);
+    }
+
+    @Override
+    public int size() {
+        return this.elements == null ? this.size : this.elements.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return this.elements().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        this.elements().add(index, element);
+        this.modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = this.elements().remove(index);
+        this.modCount++;
+        return removed;
+    }
+}
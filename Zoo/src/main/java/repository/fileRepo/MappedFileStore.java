@@ -0,0 +1,655 @@
+package repository.fileRepo;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import domain.Weekday;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Storage of the file repositories. Instructors, Attractions and Guests are kept in memory-mapped files of fixed-size records,
+ * each with an on-disk index from ID to slot. <br>
+ * The relations are stored as slot references, so no file has to be read when the store is opened:
+ * <ul>
+ *     <li>an Instructor record points to the first of its Attractions, the Attraction records form a chain</li>
+ *     <li>a link record connects an Attraction with a Guest (attraction_guests),
+ *     each Attraction and each Guest points to the first of its links and the links form a chain for both of them</li>
+ * </ul>
+ * Records are read only when they are asked for. Reading an Attraction also reads its Instructor, the other relations
+ * (the Attractions of an Instructor, the Guests of an Attraction, the Attractions of a Guest) are LazyLists,
+ * whose objects are read when the list is used. So a lookup reads a constant number of records, not the connected data.
+ * As long as an object is used, the same object is returned for its ID, like an EntityManager does (IdentityCache). <br>
+ * After every change the mapped files are written to the disk.
+ */
+class MappedFileStore implements Closeable {
+    private static final int ID_BYTES = MappedIdIndex.MAX_ID_BYTES;
+    private static final int NAME_BYTES = 64;
+    private static final int PASSWORD_BYTES = 64;
+    private static final int TITLE_BYTES = 96;
+    private static final int LOCATION_BYTES = 32;
+    private static final int NO_SLOT = MappedRecordFile.NO_SLOT;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    // instructor record
+    private static final int I_ID = 0;
+    private static final int I_FIRST_NAME = I_ID + 2 + ID_BYTES;
+    private static final int I_LAST_NAME = I_FIRST_NAME + 2 + NAME_BYTES;
+    private static final int I_PASSWORD = I_LAST_NAME + 2 + NAME_BYTES;
+    private static final int I_FINAL_SUM = I_PASSWORD + 2 + PASSWORD_BYTES;
+    private static final int I_FIRST_ATTRACTION = I_FINAL_SUM + 8;
+    private static final int I_SIZE = I_FIRST_ATTRACTION + 4;
+
+    // attraction record
+    private static final int A_ID = 0;
+    private static final int A_NAME = A_ID + 2 + ID_BYTES;
+    private static final int A_CAPACITY = A_NAME + 2 + TITLE_BYTES;
+    private static final int A_INSTRUCTOR = A_CAPACITY + 4;
+    private static final int A_PRICE = A_INSTRUCTOR + 2 + ID_BYTES;
+    private static final int A_LOCATION = A_PRICE + 8;
+    private static final int A_DAY = A_LOCATION + 2 + LOCATION_BYTES;
+    private static final int A_FIRST_LINK = A_DAY + 1;
+    private static final int A_NEXT_OF_INSTRUCTOR = A_FIRST_LINK + 4;
+    private static final int A_SIZE = A_NEXT_OF_INSTRUCTOR + 4;
+
+    // guest record
+    private static final int G_ID = 0;
+    private static final int G_FIRST_NAME = G_ID + 2 + ID_BYTES;
+    private static final int G_LAST_NAME = G_FIRST_NAME + 2 + NAME_BYTES;
+    private static final int G_PASSWORD = G_LAST_NAME + 2 + NAME_BYTES;
+    private static final int G_BIRTHDAY = G_PASSWORD + 2 + PASSWORD_BYTES;
+    private static final int G_FINAL_SUM = G_BIRTHDAY + 8;
+    private static final int G_FIRST_LINK = G_FINAL_SUM + 8;
+    private static final int G_SIZE = G_FIRST_LINK + 4;
+
+    // link record (attraction_guests)
+    private static final int L_ATTRACTION = 0;
+    private static final int L_GUEST = 4;
+    private static final int L_NEXT_OF_ATTRACTION = 8;
+    private static final int L_NEXT_OF_GUEST = 12;
+    private static final int L_SIZE = 16;
+
+    private final MappedRecordFile instructors;
+    private final MappedRecordFile attractions;
+    private final MappedRecordFile guests;
+    private final MappedRecordFile links;
+    private final MappedIdIndex instructorIndex;
+    private final MappedIdIndex attractionIndex;
+    private final MappedIdIndex guestIndex;
+
+    /**
+     * Objects which were already read or written, by ID.
+     */
+    private final IdentityCache<Instructor> loadedInstructors = new IdentityCache<>();
+    private final IdentityCache<Attraction> loadedAttractions = new IdentityCache<>();
+    private final IdentityCache<Guest> loadedGuests = new IdentityCache<>();
+
+    /**
+     * Constructor - opens the files of the store in the given directory, missing files are created empty.
+     * @param directory directory of the files
+     */
+    MappedFileStore(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.instructors = new MappedRecordFile(directory.resolve("instructor.dat"), I_SIZE);
+        this.attractions = new MappedRecordFile(directory.resolve("attraction.dat"), A_SIZE);
+        this.guests = new MappedRecordFile(directory.resolve("guest.dat"), G_SIZE);
+        this.links = new MappedRecordFile(directory.resolve("attraction_guests.dat"), L_SIZE);
+        this.instructorIndex = new MappedIdIndex(directory.resolve("instructor.idx"));
+        this.attractionIndex = new MappedIdIndex(directory.resolve("attraction.idx"));
+        this.guestIndex = new MappedIdIndex(directory.resolve("guest.idx"));
+    }
+
+    /**
+     * @return true if the Instructor file was newly created
+     */
+    boolean instructorsCreated() {
+        return this.instructors.isCreated();
+    }
+
+    /**
+     * @return true if the Attraction file was newly created
+     */
+    boolean attractionsCreated() {
+        return this.attractions.isCreated();
+    }
+
+    /**
+     * @return true if the Guest file was newly created
+     */
+    boolean guestsCreated() {
+        return this.guests.isCreated();
+    }
+
+    // ---------------------------------------------------------------- Instructors
+
+    synchronized Instructor findInstructor(String id) {
+        Instructor instructor = this.loadedInstructors.get(id);
+        if (instructor != null)
+            return instructor;
+        int slot = this.instructorIndex.get(id);
+        return slot == NO_SLOT ? null : this.loadInstructor(slot);
+    }
+
+    synchronized List<Instructor> getAllInstructors() {
+        List<Instructor> all = new ArrayList<>(this.instructors.count());
+        for (int slot = 0; slot < this.instructors.highWater(); slot++)
+            if (this.instructors.isUsed(slot))
+                all.add(this.loadInstructor(slot));
+        return all;
+    }
+
+    synchronized boolean addInstructor(Instructor instructor) {
+        if (this.instructorIndex.get(instructor.getID()) != NO_SLOT)
+            return false;
+        checkInstructor(instructor);
+        int slot = this.instructors.allocate();
+        this.writeInstructor(slot, instructor);
+        this.instructors.putInt(slot, I_FIRST_ATTRACTION, NO_SLOT);
+        this.instructorIndex.put(instructor.getID(), slot);
+        this.loadedInstructors.put(instructor.getID(), instructor);
+        this.force();
+        return true;
+    }
+
+    synchronized void updateInstructor(String id, Instructor instructor) {
+        int slot = this.instructorIndex.get(id);
+        if (slot == NO_SLOT)
+            return;
+        checkInstructor(instructor);
+        if (!id.equals(instructor.getID())) {
+            if (this.instructorIndex.get(instructor.getID()) != NO_SLOT)
+                throw new IllegalArgumentException("Die ID " + instructor.getID() + " existiert schon");
+            this.instructorIndex.remove(id);
+            this.instructorIndex.put(instructor.getID(), slot);
+            this.loadedInstructors.remove(id);
+            // the attractions of the instructor refer to him/her by ID
+            for (int a = this.instructors.getInt(slot, I_FIRST_ATTRACTION); a != NO_SLOT; a = this.attractions.getInt(a, A_NEXT_OF_INSTRUCTOR))
+                this.attractions.putString(a, A_INSTRUCTOR, ID_BYTES, instructor.getID());
+        }
+        this.writeInstructor(slot, instructor);
+        this.loadedInstructors.put(instructor.getID(), instructor);
+        this.force();
+    }
+
+    synchronized void deleteInstructor(String id) {
+        int slot = this.instructorIndex.get(id);
+        if (slot == NO_SLOT)
+            return;
+        // the attractions stay, only the chain of the instructor is dissolved
+        int a = this.instructors.getInt(slot, I_FIRST_ATTRACTION);
+        while (a != NO_SLOT) {
+            int next = this.attractions.getInt(a, A_NEXT_OF_INSTRUCTOR);
+            this.attractions.putInt(a, A_NEXT_OF_INSTRUCTOR, NO_SLOT);
+            a = next;
+        }
+        this.instructors.free(slot);
+        this.instructorIndex.remove(id);
+        this.loadedInstructors.remove(id);
+        this.force();
+    }
+
+    private Instructor loadInstructor(int slot) {
+        String id = this.instructors.getString(slot, I_ID);
+        Instructor instructor = this.loadedInstructors.get(id);
+        if (instructor != null)
+            return instructor;
+        instructor = new Instructor(id, this.instructors.getString(slot, I_FIRST_NAME),
+                this.instructors.getString(slot, I_LAST_NAME), this.instructors.getString(slot, I_PASSWORD));
+        instructor.setFinalSum(this.instructors.getDouble(slot, I_FINAL_SUM));
+        Instructor loaded = instructor;
+        instructor.setAttractions(new LazyList<>(count(this.attractions, this.instructors.getInt(slot, I_FIRST_ATTRACTION), A_NEXT_OF_INSTRUCTOR),
+                () -> this.attractionsOfInstructor(loaded.getID())));
+        this.loadedInstructors.put(id, instructor);
+        return instructor;
+    }
+
+    /**
+     * This method reads the Attractions of an Instructor, for the LazyList of the Instructor.
+     */
+    private synchronized List<Attraction> attractionsOfInstructor(String id) {
+        List<Attraction> list = new ArrayList<>();
+        int slot = this.instructorIndex.get(id);
+        if (slot != NO_SLOT)
+            for (int a = this.instructors.getInt(slot, I_FIRST_ATTRACTION); a != NO_SLOT; a = this.attractions.getInt(a, A_NEXT_OF_INSTRUCTOR))
+                list.add(this.loadAttraction(a));
+        // the chain starts with the newest Attraction
+        Collections.reverse(list);
+        return list;
+    }
+
+    private void writeInstructor(int slot, Instructor instructor) {
+        this.instructors.putString(slot, I_ID, ID_BYTES, instructor.getID());
+        this.instructors.putString(slot, I_FIRST_NAME, NAME_BYTES, instructor.getFirstName());
+        this.instructors.putString(slot, I_LAST_NAME, NAME_BYTES, instructor.getLastName());
+        this.instructors.putString(slot, I_PASSWORD, PASSWORD_BYTES, instructor.getPassword());
+        this.instructors.putDouble(slot, I_FINAL_SUM, instructor.getFinalSum());
+    }
+
+    private static void checkInstructor(Instructor instructor) {
+        check(instructor.getID(), ID_BYTES);
+        check(instructor.getFirstName(), NAME_BYTES);
+        check(instructor.getLastName(), NAME_BYTES);
+        check(instructor.getPassword(), PASSWORD_BYTES);
+    }
+
+    // ---------------------------------------------------------------- Attractions
+
+    synchronized Attraction findAttraction(String id) {
+        Attraction attraction = this.loadedAttractions.get(id);
+        if (attraction != null)
+            return attraction;
+        int slot = this.attractionIndex.get(id);
+        return slot == NO_SLOT ? null : this.loadAttraction(slot);
+    }
+
+    synchronized List<Attraction> getAllAttractions() {
+        List<Attraction> all = new ArrayList<>(this.attractions.count());
+        for (int slot = 0; slot < this.attractions.highWater(); slot++)
+            if (this.attractions.isUsed(slot))
+                all.add(this.loadAttraction(slot));
+        return all;
+    }
+
+    synchronized boolean addAttraction(Attraction attraction) {
+        if (this.attractionIndex.get(attraction.getID()) != NO_SLOT)
+            return false;
+        checkAttraction(attraction);
+        int slot = this.attractions.allocate();
+        this.writeAttraction(slot, attraction);
+        this.attractions.putInt(slot, A_FIRST_LINK, NO_SLOT);
+        this.attractions.putInt(slot, A_NEXT_OF_INSTRUCTOR, NO_SLOT);
+        this.attractionIndex.put(attraction.getID(), slot);
+        this.loadedAttractions.put(attraction.getID(), attraction);
+        this.linkToInstructor(slot, instructorID(attraction));
+        this.setGuestsOfAttraction(slot, attraction.guestList);
+        this.force();
+        return true;
+    }
+
+    synchronized void updateAttraction(String id, Attraction attraction) {
+        int slot = this.attractionIndex.get(id);
+        if (slot == NO_SLOT)
+            return;
+        checkAttraction(attraction);
+        if (!id.equals(attraction.getID())) {
+            if (this.attractionIndex.get(attraction.getID()) != NO_SLOT)
+                throw new IllegalArgumentException("Die ID " + attraction.getID() + " existiert schon");
+            this.attractionIndex.remove(id);
+            this.attractionIndex.put(attraction.getID(), slot);
+            this.loadedAttractions.remove(id);
+        }
+        String oldInstructor = this.attractions.getString(slot, A_INSTRUCTOR);
+        String newInstructor = instructorID(attraction);
+        if (oldInstructor == null ? newInstructor != null : !oldInstructor.equals(newInstructor)) {
+            this.unlinkFromInstructor(slot, oldInstructor);
+            this.linkToInstructor(slot, newInstructor);
+        }
+        this.writeAttraction(slot, attraction);
+        this.loadedAttractions.put(attraction.getID(), attraction);
+        this.setGuestsOfAttraction(slot, attraction.guestList);
+        this.force();
+    }
+
+    synchronized void deleteAttraction(String id) {
+        int slot = this.attractionIndex.get(id);
+        if (slot == NO_SLOT)
+            return;
+        this.setGuestsOfAttraction(slot, List.of());
+        this.unlinkFromInstructor(slot, this.attractions.getString(slot, A_INSTRUCTOR));
+        this.attractions.free(slot);
+        this.attractionIndex.remove(id);
+        this.loadedAttractions.remove(id);
+        this.force();
+    }
+
+    private Attraction loadAttraction(int slot) {
+        String id = this.attractions.getString(slot, A_ID);
+        Attraction attraction = this.loadedAttractions.get(id);
+        if (attraction != null)
+            return attraction;
+        byte day = this.attractions.getByte(slot, A_DAY);
+        List<Guest> guestList = new LazyList<>(count(this.links, this.attractions.getInt(slot, A_FIRST_LINK), L_NEXT_OF_ATTRACTION),
+                () -> this.guestsOfAttraction(id));
+        attraction = new Attraction(id, this.attractions.getString(slot, A_NAME), this.attractions.getInt(slot, A_CAPACITY),
+                null, guestList, this.attractions.getDouble(slot, A_PRICE),
+                this.attractions.getString(slot, A_LOCATION), day < 0 ? null : Weekday.values()[day]);
+        // registered before the instructor is read, his/her Attractions may be read and refer back to the attraction
+        this.loadedAttractions.put(id, attraction);
+        String instructorID = this.attractions.getString(slot, A_INSTRUCTOR);
+        if (instructorID != null)
+            attraction.setInstructor(this.findInstructor(instructorID));
+        return attraction;
+    }
+
+    /**
+     * This method reads the Guests of an Attraction, for the LazyList of the Attraction.
+     */
+    private synchronized List<Guest> guestsOfAttraction(String id) {
+        List<Guest> list = new ArrayList<>();
+        int slot = this.attractionIndex.get(id);
+        if (slot != NO_SLOT)
+            for (int l = this.attractions.getInt(slot, A_FIRST_LINK); l != NO_SLOT; l = this.links.getInt(l, L_NEXT_OF_ATTRACTION))
+                list.add(this.loadGuest(this.links.getInt(l, L_GUEST)));
+        Collections.reverse(list);
+        return list;
+    }
+
+    private void writeAttraction(int slot, Attraction attraction) {
+        this.attractions.putString(slot, A_ID, ID_BYTES, attraction.getID());
+        this.attractions.putString(slot, A_NAME, TITLE_BYTES, attraction.name);
+        this.attractions.putInt(slot, A_CAPACITY, attraction.getCapacity());
+        this.attractions.putString(slot, A_INSTRUCTOR, ID_BYTES, instructorID(attraction));
+        this.attractions.putDouble(slot, A_PRICE, attraction.price);
+        this.attractions.putString(slot, A_LOCATION, LOCATION_BYTES, attraction.location);
+        this.attractions.putByte(slot, A_DAY, attraction.day == null ? -1 : (byte) attraction.day.ordinal());
+    }
+
+    private static void checkAttraction(Attraction attraction) {
+        check(attraction.getID(), ID_BYTES);
+        check(attraction.name, TITLE_BYTES);
+        check(instructorID(attraction), ID_BYTES);
+        check(attraction.location, LOCATION_BYTES);
+    }
+
+    private static String instructorID(Attraction attraction) {
+        return attraction.getInstructor() == null ? null : attraction.getInstructor().getID();
+    }
+
+    /**
+     * This method appends an Attraction to the chain of its Instructor, if the Instructor is stored.
+     */
+    private void linkToInstructor(int attractionSlot, String instructorID) {
+        int instructorSlot = instructorID == null ? NO_SLOT : this.instructorIndex.get(instructorID);
+        if (instructorSlot == NO_SLOT)
+            return;
+        this.attractions.putInt(attractionSlot, A_NEXT_OF_INSTRUCTOR, this.instructors.getInt(instructorSlot, I_FIRST_ATTRACTION));
+        this.instructors.putInt(instructorSlot, I_FIRST_ATTRACTION, attractionSlot);
+    }
+
+    /**
+     * This method removes an Attraction from the chain of its Instructor.
+     */
+    private void unlinkFromInstructor(int attractionSlot, String instructorID) {
+        int instructorSlot = instructorID == null ? NO_SLOT : this.instructorIndex.get(instructorID);
+        if (instructorSlot == NO_SLOT)
+            return;
+        int next = this.attractions.getInt(attractionSlot, A_NEXT_OF_INSTRUCTOR);
+        int a = this.instructors.getInt(instructorSlot, I_FIRST_ATTRACTION);
+        if (a == attractionSlot) {
+            this.instructors.putInt(instructorSlot, I_FIRST_ATTRACTION, next);
+        } else {
+            while (a != NO_SLOT && this.attractions.getInt(a, A_NEXT_OF_INSTRUCTOR) != attractionSlot)
+                a = this.attractions.getInt(a, A_NEXT_OF_INSTRUCTOR);
+            if (a != NO_SLOT)
+                this.attractions.putInt(a, A_NEXT_OF_INSTRUCTOR, next);
+        }
+        this.attractions.putInt(attractionSlot, A_NEXT_OF_INSTRUCTOR, NO_SLOT);
+    }
+
+    // ---------------------------------------------------------------- Guests
+
+    synchronized Guest findGuest(String id) {
+        Guest guest = this.loadedGuests.get(id);
+        if (guest != null)
+            return guest;
+        int slot = this.guestIndex.get(id);
+        return slot == NO_SLOT ? null : this.loadGuest(slot);
+    }
+
+    synchronized List<Guest> getAllGuests() {
+        List<Guest> all = new ArrayList<>(this.guests.count());
+        for (int slot = 0; slot < this.guests.highWater(); slot++)
+            if (this.guests.isUsed(slot))
+                all.add(this.loadGuest(slot));
+        return all;
+    }
+
+    synchronized boolean addGuest(Guest guest) {
+        if (this.guestIndex.get(guest.getID()) != NO_SLOT)
+            return false;
+        checkGuest(guest);
+        int slot = this.guests.allocate();
+        this.writeGuest(slot, guest);
+        this.guests.putInt(slot, G_FIRST_LINK, NO_SLOT);
+        this.guestIndex.put(guest.getID(), slot);
+        this.loadedGuests.put(guest.getID(), guest);
+        this.setAttractionsOfGuest(slot, guest.getAttractions());
+        this.force();
+        return true;
+    }
+
+    synchronized void updateGuest(String id, Guest guest) {
+        int slot = this.guestIndex.get(id);
+        if (slot == NO_SLOT)
+            return;
+        checkGuest(guest);
+        if (!id.equals(guest.getID())) {
+            if (this.guestIndex.get(guest.getID()) != NO_SLOT)
+                throw new IllegalArgumentException("Die ID " + guest.getID() + " existiert schon");
+            this.guestIndex.remove(id);
+            this.guestIndex.put(guest.getID(), slot);
+            this.loadedGuests.remove(id);
+        }
+        this.writeGuest(slot, guest);
+        this.loadedGuests.put(guest.getID(), guest);
+        this.setAttractionsOfGuest(slot, guest.getAttractions());
+        this.force();
+    }
+
+    synchronized void deleteGuest(String id) {
+        int slot = this.guestIndex.get(id);
+        if (slot == NO_SLOT)
+            return;
+        this.setAttractionsOfGuest(slot, List.of());
+        this.guests.free(slot);
+        this.guestIndex.remove(id);
+        this.loadedGuests.remove(id);
+        this.force();
+    }
+
+    private Guest loadGuest(int slot) {
+        String id = this.guests.getString(slot, G_ID);
+        Guest guest = this.loadedGuests.get(id);
+        if (guest != null)
+            return guest;
+        long birthday = this.guests.getLong(slot, G_BIRTHDAY);
+        guest = new Guest(id, this.guests.getString(slot, G_FIRST_NAME), this.guests.getString(slot, G_LAST_NAME),
+                this.guests.getString(slot, G_PASSWORD), birthday == NO_DATE ? null : LocalDate.ofEpochDay(birthday),
+                this.guests.getDouble(slot, G_FINAL_SUM),
+                new LazyList<>(count(this.links, this.guests.getInt(slot, G_FIRST_LINK), L_NEXT_OF_GUEST), () -> this.attractionsOfGuest(id)));
+        this.loadedGuests.put(id, guest);
+        return guest;
+    }
+
+    /**
+     * This method reads the Attractions of a Guest, for the LazyList of the Guest.
+     */
+    private synchronized List<Attraction> attractionsOfGuest(String id) {
+        List<Attraction> list = new ArrayList<>();
+        int slot = this.guestIndex.get(id);
+        if (slot != NO_SLOT)
+            for (int l = this.guests.getInt(slot, G_FIRST_LINK); l != NO_SLOT; l = this.links.getInt(l, L_NEXT_OF_GUEST))
+                list.add(this.loadAttraction(this.links.getInt(l, L_ATTRACTION)));
+        Collections.reverse(list);
+        return list;
+    }
+
+    private void writeGuest(int slot, Guest guest) {
+        this.guests.putString(slot, G_ID, ID_BYTES, guest.getID());
+        this.guests.putString(slot, G_FIRST_NAME, NAME_BYTES, guest.getFirstName());
+        this.guests.putString(slot, G_LAST_NAME, NAME_BYTES, guest.getLastName());
+        this.guests.putString(slot, G_PASSWORD, PASSWORD_BYTES, guest.getPassword());
+        this.guests.putLong(slot, G_BIRTHDAY, guest.getBirthday() == null ? NO_DATE : guest.getBirthday().toEpochDay());
+        this.guests.putDouble(slot, G_FINAL_SUM, guest.getFinalSum());
+    }
+
+    private static void checkGuest(Guest guest) {
+        check(guest.getID(), ID_BYTES);
+        check(guest.getFirstName(), NAME_BYTES);
+        check(guest.getLastName(), NAME_BYTES);
+        check(guest.getPassword(), PASSWORD_BYTES);
+    }
+
+    // ---------------------------------------------------------------- attraction_guests
+
+    /**
+     * This method changes the links of an Attraction, so that it is linked exactly with the given Guests. <br>
+     * Guests which are not stored are skipped, their links are created when they are added.
+     */
+    private void setGuestsOfAttraction(int attractionSlot, List<Guest> guestList) {
+        Set<Integer> wanted = new LinkedHashSet<>();
+        if (guestList != null)
+            for (Guest guest : guestList) {
+                int slot = this.guestIndex.get(guest.getID());
+                if (slot != NO_SLOT)
+                    wanted.add(slot);
+            }
+        int previous = NO_SLOT;
+        int l = this.attractions.getInt(attractionSlot, A_FIRST_LINK);
+        while (l != NO_SLOT) {
+            int next = this.links.getInt(l, L_NEXT_OF_ATTRACTION);
+            int guestSlot = this.links.getInt(l, L_GUEST);
+            if (wanted.remove(guestSlot)) {
+                previous = l;
+            } else {
+                if (previous == NO_SLOT)
+                    this.attractions.putInt(attractionSlot, A_FIRST_LINK, next);
+                else
+                    this.links.putInt(previous, L_NEXT_OF_ATTRACTION, next);
+                this.removeFromGuestChain(guestSlot, l);
+                this.links.free(l);
+            }
+            l = next;
+        }
+        for (int guestSlot : wanted)
+            this.createLink(attractionSlot, guestSlot);
+    }
+
+    /**
+     * This method changes the links of a Guest, so that it is linked exactly with the given Attractions. <br>
+     * Attractions which are not stored are skipped.
+     */
+    private void setAttractionsOfGuest(int guestSlot, List<Attraction> attractionList) {
+        Set<Integer> wanted = new LinkedHashSet<>();
+        if (attractionList != null)
+            for (Attraction attraction : attractionList) {
+                int slot = this.attractionIndex.get(attraction.getID());
+                if (slot != NO_SLOT)
+                    wanted.add(slot);
+            }
+        int previous = NO_SLOT;
+        int l = this.guests.getInt(guestSlot, G_FIRST_LINK);
+        while (l != NO_SLOT) {
+            int next = this.links.getInt(l, L_NEXT_OF_GUEST);
+            int attractionSlot = this.links.getInt(l, L_ATTRACTION);
+            if (wanted.remove(attractionSlot)) {
+                previous = l;
+            } else {
+                if (previous == NO_SLOT)
+                    this.guests.putInt(guestSlot, G_FIRST_LINK, next);
+                else
+                    this.links.putInt(previous, L_NEXT_OF_GUEST, next);
+                this.removeFromAttractionChain(attractionSlot, l);
+                this.links.free(l);
+            }
+            l = next;
+        }
+        for (int attractionSlot : wanted)
+            this.createLink(attractionSlot, guestSlot);
+    }
+
+    private void createLink(int attractionSlot, int guestSlot) {
+        int l = this.links.allocate();
+        this.links.putInt(l, L_ATTRACTION, attractionSlot);
+        this.links.putInt(l, L_GUEST, guestSlot);
+        this.links.putInt(l, L_NEXT_OF_ATTRACTION, this.attractions.getInt(attractionSlot, A_FIRST_LINK));
+        this.links.putInt(l, L_NEXT_OF_GUEST, this.guests.getInt(guestSlot, G_FIRST_LINK));
+        this.attractions.putInt(attractionSlot, A_FIRST_LINK, l);
+        this.guests.putInt(guestSlot, G_FIRST_LINK, l);
+    }
+
+    private void removeFromGuestChain(int guestSlot, int link) {
+        int next = this.links.getInt(link, L_NEXT_OF_GUEST);
+        int l = this.guests.getInt(guestSlot, G_FIRST_LINK);
+        if (l == link) {
+            this.guests.putInt(guestSlot, G_FIRST_LINK, next);
+            return;
+        }
+        while (l != NO_SLOT && this.links.getInt(l, L_NEXT_OF_GUEST) != link)
+            l = this.links.getInt(l, L_NEXT_OF_GUEST);
+        if (l != NO_SLOT)
+            this.links.putInt(l, L_NEXT_OF_GUEST, next);
+    }
+
+    private void removeFromAttractionChain(int attractionSlot, int link) {
+        int next = this.links.getInt(link, L_NEXT_OF_ATTRACTION);
+        int l = this.attractions.getInt(attractionSlot, A_FIRST_LINK);
+        if (l == link) {
+            this.attractions.putInt(attractionSlot, A_FIRST_LINK, next);
+            return;
+        }
+        while (l != NO_SLOT && this.links.getInt(l, L_NEXT_OF_ATTRACTION) != link)
+            l = this.links.getInt(l, L_NEXT_OF_ATTRACTION);
+        if (l != NO_SLOT)
+            this.links.putInt(l, L_NEXT_OF_ATTRACTION, next);
+    }
+
+    /**
+     * This method counts the records of a chain without reading them, e.g. the links of an Attraction.
+     * @param chain file of the records of the chain
+     * @param first slot of the first record
+     * @param next field of a record with the slot of the next record
+     * @return number of the records
+     */
+    private static int count(MappedRecordFile chain, int first, int next) {
+        int count = 0;
+        for (int slot = first; slot != NO_SLOT; slot = chain.getInt(slot, next))
+            count++;
+        return count;
+    }
+
+    // ---------------------------------------------------------------- files
+
+    /**
+     * @throws IllegalArgumentException if the String doesn't fit into its field
+     */
+    private static void check(String value, int maxBytes) {
+        if (!MappedRecordFile.fits(value, maxBytes))
+            throw new IllegalArgumentException("Zu lang (maximal " + maxBytes + " Bytes): " + value);
+    }
+
+    private void force() {
+        this.instructors.force();
+        this.attractions.force();
+        this.guests.force();
+        this.links.force();
+        this.instructorIndex.force();
+        this.attractionIndex.force();
+        this.guestIndex.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.instructors.close();
+        this.attractions.close();
+        this.guests.close();
+        this.links.close();
+        this.instructorIndex.close();
+        this.attractionIndex.close();
+        this.guestIndex.close();
+    }
+}
@@ -0,0 +1,237 @@
+package repository.fileRepo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A hash index from IDs to slot numbers which is stored in a memory-mapped file. <br>
+ * The index uses open addressing with linear probing, so a lookup reads one or a few neighbouring buckets
+ * and nothing has to be loaded when the file is opened. <br>
+ * Layout: a header of 32 bytes, then the buckets. A bucket holds a state byte (empty, used, deleted),
+ * the ID (2 bytes length and up to MAX_ID_BYTES bytes UTF-8) and the slot number.
+ */
+class MappedIdIndex implements Closeable {
+    /**
+     * Maximum length of an ID in UTF-8 bytes.
+     */
+    static final int MAX_ID_BYTES = 64;
+
+    private static final int MAGIC = 0x5A4F4F49; // "ZOOI"
+    private static final int HEADER_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int SIZE_OFFSET = 8;
+    private static final int DELETED_OFFSET = 12;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte DELETED = 2;
+
+    private static final int KEY_OFFSET = 1;
+    private static final int VALUE_OFFSET = KEY_OFFSET + 2 + MAX_ID_BYTES;
+    private static final int BUCKET_SIZE = VALUE_OFFSET + 4;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Constructor - opens the index file or creates an empty index if it doesn't exist.
+     * @param path path of the file
+     */
+    MappedIdIndex(Path path) {
+        try {
+            boolean created = !Files.exists(path) || Files.size(path) == 0;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (created) {
+                this.map(INITIAL_CAPACITY);
+                this.buffer.putInt(MAGIC_OFFSET, MAGIC);
+                this.buffer.putInt(CAPACITY_OFFSET, INITIAL_CAPACITY);
+            } else {
+                this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                if (this.buffer.getInt(MAGIC_OFFSET) != MAGIC)
+                    throw new IllegalStateException("Unbekanntes Dateiformat: " + path);
+                this.map(this.buffer.getInt(CAPACITY_OFFSET));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(int capacity) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * BUCKET_SIZE);
+    }
+
+    private int capacity() {
+        return this.buffer.getInt(CAPACITY_OFFSET);
+    }
+
+    /**
+     * @return number of IDs in the index
+     */
+    int size() {
+        return this.buffer.getInt(SIZE_OFFSET);
+    }
+
+    /**
+     * This method returns the slot number stored for an ID.
+     * @param id the searched ID
+     * @return the slot number or MappedRecordFile.NO_SLOT if the ID is not in the index
+     */
+    int get(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_ID_BYTES)
+            return MappedRecordFile.NO_SLOT;
+        int bucket = this.find(key);
+        return this.state(bucket) == USED ? this.buffer.getInt(this.offset(bucket) + VALUE_OFFSET) : MappedRecordFile.NO_SLOT;
+    }
+
+    /**
+     * This method stores the slot number of an ID, an existing entry of the ID is overwritten.
+     * @param id the ID
+     * @param slot the slot number
+     */
+    void put(String id, int slot) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_ID_BYTES)
+            throw new IllegalArgumentException("ID zu lang (maximal " + MAX_ID_BYTES + " Bytes): " + id);
+        int bucket = this.find(key);
+        if (this.state(bucket) != USED) {
+            if ((this.size() + this.buffer.getInt(DELETED_OFFSET) + 1) * 4L >= this.capacity() * 3L) {
+                this.rehash();
+                bucket = this.find(key);
+            }
+            if (this.state(bucket) == DELETED)
+                this.buffer.putInt(DELETED_OFFSET, this.buffer.getInt(DELETED_OFFSET) - 1);
+            int offset = this.offset(bucket);
+            this.buffer.put(offset, USED);
+            this.buffer.putShort(offset + KEY_OFFSET, (short) key.length);
+            this.buffer.put(offset + KEY_OFFSET + 2, key);
+            this.buffer.putInt(SIZE_OFFSET, this.size() + 1);
+        }
+        this.buffer.putInt(this.offset(bucket) + VALUE_OFFSET, slot);
+    }
+
+    /**
+     * This method removes an ID from the index. The bucket is marked as deleted, so later entries stay reachable.
+     * @param id the ID
+     */
+    void remove(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_ID_BYTES)
+            return;
+        int bucket = this.find(key);
+        if (this.state(bucket) == USED) {
+            this.buffer.put(this.offset(bucket), DELETED);
+            this.buffer.putInt(SIZE_OFFSET, this.size() - 1);
+            this.buffer.putInt(DELETED_OFFSET, this.buffer.getInt(DELETED_OFFSET) + 1);
+        }
+    }
+
+    /**
+     * This method searches the bucket of a key. <br>
+     * It returns the bucket which holds the key, or else the first deleted bucket of the probe sequence, or else the empty bucket where the sequence ends.
+     */
+    private int find(byte[] key) {
+        int mask = this.capacity() - 1;
+        int bucket = hash(key) & mask;
+        int firstDeleted = -1;
+        while (true) {
+            byte state = this.state(bucket);
+            if (state == EMPTY)
+                return firstDeleted >= 0 ? firstDeleted : bucket;
+            if (state == DELETED) {
+                if (firstDeleted < 0)
+                    firstDeleted = bucket;
+            } else if (this.keyEquals(bucket, key)) {
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(int bucket, byte[] key) {
+        int offset = this.offset(bucket) + KEY_OFFSET;
+        if (this.buffer.getShort(offset) != key.length)
+            return false;
+        for (int i = 0; i < key.length; i++)
+            if (this.buffer.get(offset + 2 + i) != key[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * This method rebuilds the index without deleted buckets, the capacity is doubled if the index is half full.
+     */
+    private void rehash() {
+        int capacity = this.capacity();
+        int size = this.size();
+        byte[][] keys = new byte[size][];
+        int[] slots = new int[size];
+        int n = 0;
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            if (this.state(bucket) == USED) {
+                int offset = this.offset(bucket);
+                keys[n] = new byte[this.buffer.getShort(offset + KEY_OFFSET)];
+                this.buffer.get(offset + KEY_OFFSET + 2, keys[n]);
+                slots[n++] = this.buffer.getInt(offset + VALUE_OFFSET);
+            }
+        }
+        int newCapacity = size * 2 >= capacity ? capacity * 2 : capacity;
+        try {
+            this.map(newCapacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int bucket = 0; bucket < newCapacity; bucket++)
+            this.buffer.put(this.offset(bucket), EMPTY);
+        this.buffer.putInt(CAPACITY_OFFSET, newCapacity);
+        this.buffer.putInt(DELETED_OFFSET, 0);
+        for (int i = 0; i < n; i++) {
+            int offset = this.offset(this.find(keys[i]));
+            this.buffer.put(offset, USED);
+            this.buffer.putShort(offset + KEY_OFFSET, (short) keys[i].length);
+            this.buffer.put(offset + KEY_OFFSET + 2, keys[i]);
+            this.buffer.putInt(offset + VALUE_OFFSET, slots[i]);
+        }
+    }
+
+    private byte state(int bucket) {
+        return this.buffer.get(this.offset(bucket));
+    }
+
+    private int offset(int bucket) {
+        return HEADER_SIZE + bucket * BUCKET_SIZE;
+    }
+
+    /**
+     * Hash of the UTF-8 bytes of an ID, the same on every start of the program.
+     */
+    private static int hash(byte[] key) {
+        int h = 1;
+        for (byte b : key)
+            h = 31 * h + b;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * This method writes the changes of the mapped file to the disk.
+     */
+    void force() {
+        this.buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.force();
+        this.channel.close();
+    }
+}
@@ -0,0 +1,253 @@
+package repository.fileRepo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of fixed-size records which is mapped into memory. <br>
+ * Each record lives in a slot, a slot number never changes while the record exists, so slots can be used as references.
+ * Deleted slots are kept in a free list and reused. When the file is full, it is doubled and mapped again. <br>
+ * Layout: a header of 64 bytes, then the slots. Each slot starts with a status byte (0 = free, 1 = used) followed by the payload.
+ */
+class MappedRecordFile implements Closeable {
+    private static final int MAGIC = 0x5A4F4F52; // "ZOOR"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // header fields
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int RECORD_SIZE_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int HIGH_WATER_OFFSET = 16;
+    private static final int FREE_HEAD_OFFSET = 20;
+    private static final int COUNT_OFFSET = 24;
+
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+
+    /**
+     * Value of a slot reference which points to no record.
+     */
+    static final int NO_SLOT = -1;
+
+    private final FileChannel channel;
+    /**
+     * Size of a slot including the status byte.
+     */
+    private final int slotSize;
+    private MappedByteBuffer buffer;
+    /**
+     * True if the file didn't exist before and was created empty.
+     */
+    private final boolean created;
+
+    /**
+     * Constructor - opens the record file or creates it if it doesn't exist.
+     * @param path path of the file
+     * @param payloadSize number of bytes of one record without the status byte
+     */
+    MappedRecordFile(Path path, int payloadSize) {
+        this.slotSize = payloadSize + 1;
+        try {
+            this.created = !Files.exists(path) || Files.size(path) == 0;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (this.created) {
+                this.map(INITIAL_CAPACITY);
+                this.buffer.putInt(MAGIC_OFFSET, MAGIC);
+                this.buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+                this.buffer.putInt(RECORD_SIZE_OFFSET, this.slotSize);
+                this.buffer.putInt(CAPACITY_OFFSET, INITIAL_CAPACITY);
+                this.buffer.putInt(HIGH_WATER_OFFSET, 0);
+                this.buffer.putInt(FREE_HEAD_OFFSET, NO_SLOT);
+                this.buffer.putInt(COUNT_OFFSET, 0);
+            } else {
+                this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                if (this.buffer.getInt(MAGIC_OFFSET) != MAGIC || this.buffer.getInt(VERSION_OFFSET) != FORMAT_VERSION
+                        || this.buffer.getInt(RECORD_SIZE_OFFSET) != this.slotSize)
+                    throw new IllegalStateException("Unbekanntes Dateiformat: " + path);
+                this.map(this.buffer.getInt(CAPACITY_OFFSET));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method maps the header and the given number of slots, the file grows if it is shorter.
+     * @param capacity number of slots
+     */
+    private void map(int capacity) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * this.slotSize);
+    }
+
+    /**
+     * @return true if the file was created by this object
+     */
+    boolean isCreated() {
+        return created;
+    }
+
+    /**
+     * @return number of used slots
+     */
+    int count() {
+        return this.buffer.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * @return number of slots which were ever used, every used slot is below this number
+     */
+    int highWater() {
+        return this.buffer.getInt(HIGH_WATER_OFFSET);
+    }
+
+    /**
+     * @param slot slot number
+     * @return true if the slot holds a record
+     */
+    boolean isUsed(int slot) {
+        return slot >= 0 && slot < this.highWater() && this.buffer.get(this.offset(slot, -1)) == USED;
+    }
+
+    /**
+     * This method reserves a slot for a new record. A free slot is reused, otherwise the file grows if necessary.
+     * @return the number of the reserved slot
+     */
+    int allocate() {
+        int slot = this.buffer.getInt(FREE_HEAD_OFFSET);
+        if (slot != NO_SLOT) {
+            this.buffer.putInt(FREE_HEAD_OFFSET, this.getInt(slot, 0));
+        } else {
+            slot = this.highWater();
+            int capacity = this.buffer.getInt(CAPACITY_OFFSET);
+            if (slot == capacity) {
+                try {
+                    this.map(capacity * 2);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                this.buffer.putInt(CAPACITY_OFFSET, capacity * 2);
+            }
+            this.buffer.putInt(HIGH_WATER_OFFSET, slot + 1);
+        }
+        this.buffer.put(this.offset(slot, -1), USED);
+        this.buffer.putInt(COUNT_OFFSET, this.count() + 1);
+        return slot;
+    }
+
+    /**
+     * This method frees a slot, it will be reused by a later allocate().
+     * @param slot number of the slot
+     */
+    void free(int slot) {
+        this.buffer.put(this.offset(slot, -1), FREE);
+        this.putInt(slot, 0, this.buffer.getInt(FREE_HEAD_OFFSET));
+        this.buffer.putInt(FREE_HEAD_OFFSET, slot);
+        this.buffer.putInt(COUNT_OFFSET, this.count() - 1);
+    }
+
+    private int offset(int slot, int field) {
+        return HEADER_SIZE + slot * this.slotSize + 1 + field;
+    }
+
+    int getInt(int slot, int field) {
+        return this.buffer.getInt(this.offset(slot, field));
+    }
+
+    void putInt(int slot, int field, int value) {
+        this.buffer.putInt(this.offset(slot, field), value);
+    }
+
+    long getLong(int slot, int field) {
+        return this.buffer.getLong(this.offset(slot, field));
+    }
+
+    void putLong(int slot, int field, long value) {
+        this.buffer.putLong(this.offset(slot, field), value);
+    }
+
+    double getDouble(int slot, int field) {
+        return this.buffer.getDouble(this.offset(slot, field));
+    }
+
+    void putDouble(int slot, int field, double value) {
+        this.buffer.putDouble(this.offset(slot, field), value);
+    }
+
+    byte getByte(int slot, int field) {
+        return this.buffer.get(this.offset(slot, field));
+    }
+
+    void putByte(int slot, int field, byte value) {
+        this.buffer.put(this.offset(slot, field), value);
+    }
+
+    /**
+     * This method reads a String which was written by putString().
+     * @param slot slot number
+     * @param field offset of the field in the record
+     * @return the String or null
+     */
+    String getString(int slot, int field) {
+        int offset = this.offset(slot, field);
+        short length = this.buffer.getShort(offset);
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        this.buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method writes a String as its length (2 bytes) and its UTF-8 bytes.
+     * @param slot slot number
+     * @param field offset of the field in the record
+     * @param maxBytes maximum number of UTF-8 bytes, the field takes maxBytes + 2 bytes in the record
+     * @param value the String or null
+     * @throws IllegalArgumentException if the String is longer than maxBytes
+     */
+    void putString(int slot, int field, int maxBytes, String value) {
+        int offset = this.offset(slot, field);
+        if (value == null) {
+            this.buffer.putShort(offset, (short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes)
+            throw new IllegalArgumentException("Zu lang (maximal " + maxBytes + " Bytes): " + value);
+        this.buffer.putShort(offset, (short) bytes.length);
+        this.buffer.put(offset + 2, bytes);
+    }
+
+    /**
+     * This method checks before writing a record, if a String fits into a field of the given size.
+     * @param value the String or null
+     * @param maxBytes maximum number of UTF-8 bytes
+     * @return true if the String fits
+     */
+    static boolean fits(String value, int maxBytes) {
+        return value == null || value.getBytes(StandardCharsets.UTF_8).length <= maxBytes;
+    }
+
+    /**
+     * This method writes the changes of the mapped file to the disk.
+     */
+    void force() {
+        this.buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.force();
+        this.channel.close();
+    }
+}
@@ -0,0 +1,110 @@
+package repository.jdbcRepository;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process provider of the second-level cache and the query cache of Hibernate. <br>
+ * Every region (e.g. the Attractions, the Instructors, the results of the cached queries) keeps at most
+ * zoo.cache.max_entries entries in the memory of the application, the least recently used entry is removed first.
+ * The consistency with the database (locks of the entries during an update, invalidation after a commit) is done
+ * by Hibernate according to the concurrency strategy of the entity, e.g. READ_WRITE. <br>
+ * This only covers the changes of this application: if several application nodes use the same database,
+ * a node doesn't see the changes of the others in its cache. Therefore an entry is kept at most zoo.cache.ttl_seconds,
+ * after that time the row is read from the database again. Set it to the staleness which is acceptable for the
+ * cached entities (Attractions and Instructors), 0 keeps the entries until they are invalidated or removed. <br>
+ * The hits, misses and puts of the regions are counted by the regions themselves, see getStatistics(). <br>
+ * It is configured in persistence.xml with hibernate.cache.region.factory_class.
+ */
+public class BoundedRegionFactory extends RegionFactoryTemplate {
+    /**
+     * Property of the persistence unit: maximum number of entries of each region.
+     */
+    public static final String MAX_ENTRIES = "zoo.cache.max_entries";
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+    /**
+     * Property of the persistence unit: time to live of an entry in seconds.
+     */
+    public static final String TTL_SECONDS = "zoo.cache.ttl_seconds";
+    static final int DEFAULT_TTL_SECONDS = 60;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long ttlMillis = DEFAULT_TTL_SECONDS * 1000L;
+    /**
+     * Regions of the entities and of the query results, for the counters.
+     */
+    private final List<BoundedStorage> entityRegions = new CopyOnWriteArrayList<>();
+    private final List<BoundedStorage> queryRegions = new CopyOnWriteArrayList<>();
+
+    /**
+     * The configuration values are a raw Map in the signature of Hibernate.
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        Object value = configValues.get(MAX_ENTRIES);
+        if (value != null)
+            this.maxEntries = Integer.parseInt(value.toString().trim());
+        value = configValues.get(TTL_SECONDS);
+        if (value != null)
+            this.ttlMillis = Long.parseLong(value.toString().trim()) * 1000;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        BoundedStorage storage = new BoundedStorage(this.maxEntries, this.ttlMillis, System::currentTimeMillis);
+        this.entityRegions.add(storage);
+        return storage;
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        BoundedStorage storage = new BoundedStorage(this.maxEntries, this.ttlMillis, System::currentTimeMillis);
+        this.queryRegions.add(storage);
+        return storage;
+    }
+
+    /**
+     * The timestamps region keeps the time of the last change of each table. It is not bounded and doesn't expire
+     * (it has one entry per table): without the timestamp of a table the cached query results on this table would look up to date.
+     */
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new BoundedStorage(Integer.MAX_VALUE);
+    }
+
+    /**
+     * This method adds up the counters of the entity regions (second-level cache) and of the query result regions. <br>
+     * A read of an entry which Hibernate has locked for an update is counted as a hit of the region,
+     * although Hibernate reads the row from the database.
+     * @return CacheStatistics since the start
+     */
+    public CacheStatistics getStatistics() {
+        long hits = 0, misses = 0, puts = 0, queryHits = 0, queryMisses = 0, queryPuts = 0;
+        for (BoundedStorage storage : this.entityRegions) {
+            hits += storage.getHits();
+            misses += storage.getMisses();
+            puts += storage.getPuts();
+        }
+        for (BoundedStorage storage : this.queryRegions) {
+            queryHits += storage.getHits();
+            queryMisses += storage.getMisses();
+            queryPuts += storage.getPuts();
+        }
+        return new CacheStatistics(hits, misses, puts, queryHits, queryMisses, queryPuts);
+    }
+}
@@ -0,0 +1,150 @@
+package repository.jdbcRepository;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Entries of one region of the BoundedRegionFactory. <br>
+ * The entries are kept in access order, if there are more than maxEntries the least recently used one is removed.
+ * An entry which is older than the time to live is removed when it is read.
+ * A removed entry is only a cache miss: Hibernate reads the row from the database again. <br>
+ * The region counts its hits, misses and puts itself, so they are available without the statistics of Hibernate.
+ */
+final class BoundedStorage implements DomainDataStorageAccess {
+    /**
+     * A value of the cache and the time when it expires.
+     */
+    private static final class CacheEntry {
+        private final Object value;
+        private final long expires;
+
+        private CacheEntry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<Object, CacheEntry> entries;
+    /**
+     * Time to live of an entry in milliseconds, 0 if the entries don't expire.
+     */
+    private final long ttlMillis;
+    /**
+     * Current time in milliseconds.
+     */
+    private final LongSupplier clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    /**
+     * Constructor - constructs an empty region whose entries don't expire.
+     * @param maxEntries int - maximum number of entries
+     */
+    BoundedStorage(int maxEntries) {
+        this(maxEntries, 0, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor - constructs an empty region.
+     * @param maxEntries int - maximum number of entries
+     * @param ttlMillis long - time to live of an entry in milliseconds, 0 if the entries don't expire
+     * @param clock LongSupplier - current time in milliseconds
+     */
+    BoundedStorage(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Object value = this.lookUp(key);
+        if (value == null)
+            this.misses.increment();
+        else
+            this.hits.increment();
+        return value;
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        this.entries.put(key, new CacheEntry(value, this.clock.getAsLong() + this.ttlMillis));
+        this.puts.increment();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return this.lookUp(key) != null;
+    }
+
+    /**
+     * This method returns the value of a key without counting a hit or a miss, an expired entry is removed.
+     * @param key key of the entry
+     * @return value or null if there is no entry or it has expired
+     */
+    private Object lookUp(Object key) {
+        CacheEntry entry = this.entries.get(key);
+        if (entry == null)
+            return null;
+        if (this.ttlMillis > 0 && this.clock.getAsLong() - entry.expires >= 0) {
+            this.entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public void evictData() {
+        this.entries.clear();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        this.entries.remove(key);
+    }
+
+    @Override
+    public void release() {
+        this.entries.clear();
+    }
+
+    /**
+     * @return number of entries in the region
+     */
+    int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return number of lookups which found a value since the start
+     */
+    long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return number of lookups which found no value (or an expired one) since the start
+     */
+    long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return number of values stored since the start
+     */
+    long getPuts() {
+        return this.puts.sum();
+    }
+}
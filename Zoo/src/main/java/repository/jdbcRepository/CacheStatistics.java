@@ -0,0 +1,104 @@
+package repository.jdbcRepository;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counters of the second-level cache and the query cache of a persistence unit since the start. <br>
+ * A hit is a row (or a query result) which was found in the cache, a miss had to be read from the database,
+ * a put is an entry which was stored in the cache after it was read.
+ */
+public class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long queryHits;
+    private final long queryMisses;
+    private final long queryPuts;
+
+    /**
+     * Constructor - constructs the statistics of a cache.
+     * @param hits long - entities found in the second-level cache
+     * @param misses long - entities not found in the second-level cache
+     * @param puts long - entities stored in the second-level cache
+     * @param queryHits long - query results found in the query cache
+     * @param queryMisses long - query results not found in the query cache
+     * @param queryPuts long - query results stored in the query cache
+     */
+    public CacheStatistics(long hits, long misses, long puts, long queryHits, long queryMisses, long queryPuts) {
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.queryHits = queryHits;
+        this.queryMisses = queryMisses;
+        this.queryPuts = queryPuts;
+    }
+
+    /**
+     * This method copies the counters of the statistics of Hibernate.
+     * @param statistics Statistics of the SessionFactory
+     * @return CacheStatistics
+     */
+    static CacheStatistics of(Statistics statistics) {
+        return new CacheStatistics(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(), statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount());
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getQueryHits() {
+        return queryHits;
+    }
+
+    public long getQueryMisses() {
+        return queryMisses;
+    }
+
+    public long getQueryPuts() {
+        return queryPuts;
+    }
+
+    /**
+     * @return share of the second-level cache lookups which were hits, 0 if there was no lookup
+     */
+    public double getHitRatio() {
+        return ratio(hits, misses);
+    }
+
+    /**
+     * @return share of the query cache lookups which were hits, 0 if there was no lookup
+     */
+    public double getQueryHitRatio() {
+        return ratio(queryHits, queryMisses);
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * This method converts the CacheStatistics to a String.
+     * @return A String containing the counters and the hit ratios
+     */
+    @Override
+    public String toString() {
+        return "hits=" + hits +
+                "  \tmisses=" + misses +
+                "  \tputs=" + puts +
+                "  \thit ratio=" + Math.round(this.getHitRatio() * 100) + "%" +
+                "  \tquery hits=" + queryHits +
+                "  \tquery misses=" + queryMisses +
+                "  \tquery puts=" + queryPuts +
+                "  \tquery hit ratio=" + Math.round(this.getQueryHitRatio() * 100) + "%";
+    }
+}
@@ -0,0 +1,445 @@
+package repository.jdbcRepository;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.StaleStateException;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import repository.UnitOfWork;
+import repository.pool.PoolStatistics;
+import repository.pool.PooledDataSource;
+import utils.ConcurrentUpdateException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceException;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Hands out the EntityManager of the Jdbc repositories, depending on the ManagerMode. <br>
+ * The EntityManagerFactory is created once, it is thread-safe and keeps the mapping and the connections.
+ * An EntityManager is cheap to create but not thread-safe, so with ManagerMode.PER_THREAD each thread
+ * gets its own one, which is closed by release() at the end of the unit of work (e.g. a request of a user).
+ * As UnitOfWork the provider runs a whole operation of the RegistrationSystem in one transaction. <br>
+ * The listings are read with a second EntityManager, which loads the entities read-only (see readOnly()).
+ */
+public class EntityManagerProvider implements Closeable, UnitOfWork {
+    /**
+     * Property of the persistence unit: "true" if the SchemaMigrations are executed at the start.
+     */
+    public static final String MIGRATE_SCHEMA = "zoo.schema.migrate";
+    /**
+     * Property of the persistence unit: "true" if a warning is printed at the start for each missing index.
+     */
+    public static final String CHECK_INDEXES = "zoo.schema.check_indexes";
+
+    private final EntityManagerFactory factory;
+    private final ManagerMode mode;
+    /**
+     * The EntityManager of all threads, only used with ManagerMode.SHARED.
+     */
+    private final EntityManager shared;
+    /**
+     * The EntityManager of the current thread, only used with ManagerMode.PER_THREAD.
+     */
+    private final ThreadLocal<EntityManager> current = new ThreadLocal<>();
+    /**
+     * The read-only EntityManager for the listings of all threads, only used with ManagerMode.SHARED.
+     */
+    private EntityManager sharedListing;
+    /**
+     * The read-only EntityManager for the listings of the current thread, only used with ManagerMode.PER_THREAD.
+     */
+    private final ThreadLocal<EntityManager> currentListing = new ThreadLocal<>();
+    /**
+     * Every open EntityManager, so close() can close the ones of threads which didn't call release().
+     */
+    private final Set<EntityManager> open = ConcurrentHashMap.newKeySet();
+    /**
+     * The EntityManagers whose active transaction was begun by stream() and is ended when the Stream is closed.
+     */
+    private final Set<EntityManager> streaming = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor - creates the EntityManagerFactory of the persistence unit.
+     * @param persistenceName name of the used persistence unit
+     * @param mode ManagerMode - which EntityManager the repositories use
+     */
+    public EntityManagerProvider(String persistenceName, ManagerMode mode) {
+        this(Persistence.createEntityManagerFactory(persistenceName), mode);
+    }
+
+    /**
+     * Constructor - creates the EntityManagerFactory of the persistence unit with some of its properties changed,
+     * e.g. the pool size for a measurement.
+     * @param persistenceName name of the used persistence unit
+     * @param mode ManagerMode - which EntityManager the repositories use
+     * @param properties Map - properties which replace the ones of the persistence unit
+     */
+    public EntityManagerProvider(String persistenceName, ManagerMode mode, Map<String, ?> properties) {
+        this(Persistence.createEntityManagerFactory(persistenceName, properties), mode);
+    }
+
+    /**
+     * Constructor - constructs a provider for an existing EntityManagerFactory. <br>
+     * Depending on the properties zoo.schema.migrate and zoo.schema.check_indexes of the persistence unit
+     * the schema scripts are executed and the indexes are checked first.
+     * @param factory EntityManagerFactory of the persistence unit
+     * @param mode ManagerMode - which EntityManager the repositories use
+     */
+    public EntityManagerProvider(EntityManagerFactory factory, ManagerMode mode) {
+        this.factory = factory;
+        this.mode = mode;
+        if (Boolean.parseBoolean(String.valueOf(factory.getProperties().get(MIGRATE_SCHEMA))))
+            SchemaMigrations.migrate(factory);
+        if (Boolean.parseBoolean(String.valueOf(factory.getProperties().get(CHECK_INDEXES))))
+            SchemaMigrations.checkIndexes(factory);
+        this.shared = mode == ManagerMode.SHARED ? this.create() : null;
+    }
+
+    private EntityManager create() {
+        EntityManager manager = this.factory.createEntityManager();
+        this.open.add(manager);
+        return manager;
+    }
+
+    /**
+     * @return ManagerMode of the provider
+     */
+    public ManagerMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return EntityManagerFactory of the persistence unit
+     */
+    public EntityManagerFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * This method returns the EntityManager of the current thread, with ManagerMode.PER_THREAD it is created at the first call.
+     * @return EntityManager
+     */
+    public EntityManager get() {
+        if (this.mode == ManagerMode.SHARED)
+            return this.shared;
+        EntityManager manager = this.current.get();
+        if (manager == null || !manager.isOpen()) {
+            manager = this.create();
+            this.current.set(manager);
+        }
+        return manager;
+    }
+
+    /**
+     * This method executes a read. <br>
+     * With ManagerMode.PER_THREAD the read runs without transaction (the database commits each statement itself),
+     * with ManagerMode.SHARED it runs in a transaction like before, unless a transaction is already active.
+     * @param query Function - the read, gets the EntityManager
+     * @return the result of the read
+     */
+    public <T> T read(Function<EntityManager, T> query) {
+        return this.read(this.get(), query);
+    }
+
+    /**
+     * This method executes the read of a listing, whose entities are shown but not changed. <br>
+     * Outside a unit of work the listing is read with a second EntityManager, which loads every entity read-only:
+     * Hibernate keeps no snapshot of the entities for the dirty check, so a long listing doesn't make the flush of the
+     * next transaction slower. Its persistence context is cleared before each listing, so the listing shows the current data.
+     * The entities of a listing are not the ones which findByID() returns; changes of them are written with update(),
+     * which copies the values into the entity loaded for the change. <br>
+     * Inside a unit of work the listing is read like with read(), because the operation may change its entities.
+     * @param query Function - the read, gets the EntityManager
+     * @return the result of the read
+     */
+    public <T> T readOnly(Function<EntityManager, T> query) {
+        if (this.get().getTransaction().isActive())
+            return query.apply(this.get());
+        EntityManager manager = this.listing();
+        manager.clear();
+        return this.read(manager, query);
+    }
+
+    /**
+     * This method executes a query whose result is read as a lazy Stream through a database cursor. <br>
+     * Outside a unit of work the cursor needs its own transaction: it is begun here and rolled back when the Stream is closed,
+     * the query only reads. If the query fails, the transaction is rolled back at once. So the Stream must be closed
+     * (try-with-resources), otherwise the transaction stays active: changes with inTransaction() or execute() are refused
+     * while it is open, they would be rolled back with it.
+     * The entities are detached in chunks after they were passed on, so the persistence context doesn't grow with the Stream. <br>
+     * Inside a unit of work the Stream is part of its transaction and its entities stay managed.
+     * @param query Function - the query, gets the EntityManager and returns the Stream of its result
+     * @param chunkSize int - number of entities which are detached together
+     * @return Stream of the entities, it must be closed
+     */
+    public <E> Stream<E> stream(Function<EntityManager, Stream<E>> query, int chunkSize) {
+        EntityManager manager = this.get();
+        EntityTransaction transaction = manager.getTransaction();
+        if (transaction.isActive())
+            return query.apply(manager);
+        transaction.begin();
+        this.streaming.add(manager);
+        Stream<E> rows;
+        try {
+            rows = query.apply(manager);
+        } catch (RuntimeException e) {
+            this.streaming.remove(manager);
+            transaction.rollback();
+            throw e;
+        }
+        List<E> passed = new ArrayList<>(chunkSize);
+        return rows.map(row -> {
+            // the entities of the previous chunk were already passed on
+            if (passed.size() >= chunkSize) {
+                passed.forEach(manager::detach);
+                passed.clear();
+            }
+            passed.add(row);
+            return row;
+        }).onClose(() -> {
+            this.streaming.remove(manager);
+            if (transaction.isActive())
+                transaction.rollback();
+        });
+    }
+
+    private <T> T read(EntityManager manager, Function<EntityManager, T> query) {
+        if (this.mode == ManagerMode.PER_THREAD || manager.getTransaction().isActive())
+            return query.apply(manager);
+        manager.getTransaction().begin();
+        try {
+            T result = query.apply(manager);
+            manager.getTransaction().commit();
+            return result;
+        } finally {
+            if (manager.getTransaction().isActive())
+                manager.getTransaction().rollback();
+        }
+    }
+
+    /**
+     * This method executes changes in one transaction. If they fail, the transaction is rolled back and the exception is thrown again. <br>
+     * If a transaction is already active, the changes become part of it, unless it belongs to a Stream which is still open. <br>
+     * If the version check of an entity fails, the changes are rolled back, the persistence context is discarded with release(),
+     * the stale entity is removed from the second-level cache and a ConcurrentUpdateException is thrown,
+     * so the caller can read the current data and try again.
+     * @param changes Consumer - the changes, gets the EntityManager
+     * @throws ConcurrentUpdateException if an entity was changed by someone else since it was read
+     * @throws IllegalStateException if a Stream of stream() wasn't closed, the changes would be rolled back with its transaction
+     */
+    public void inTransaction(Consumer<EntityManager> changes) {
+        this.transaction(manager -> {
+            changes.accept(manager);
+            return null;
+        });
+    }
+
+    /**
+     * This method executes a unit of work, e.g. a whole operation of the RegistrationSystem, in one transaction. <br>
+     * The repository calls of the work join the transaction. The persistence context is flushed only once, at the commit
+     * (FlushModeType.COMMIT), so the changes of all entities are sent together and are committed together or not at all.
+     * If the work fails, the transaction is rolled back and the persistence context is discarded with release().
+     * @param work Supplier - the repository calls of the operation
+     * @return the result of the work
+     * @throws ConcurrentUpdateException if an entity was changed by someone else since it was read, nothing was written
+     * @throws IllegalStateException if a Stream of stream() wasn't closed, the work would be rolled back with its transaction
+     */
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        EntityManager manager = this.get();
+        this.checkNotStreaming(manager);
+        if (manager.getTransaction().isActive())
+            return work.get();
+        FlushModeType flushMode = manager.getFlushMode();
+        manager.setFlushMode(FlushModeType.COMMIT);
+        try {
+            return this.transaction(m -> work.get());
+        } catch (RuntimeException e) {
+            // the entities in the persistence context still have the changes of the failed unit, they are discarded
+            this.release();
+            throw e;
+        } finally {
+            // with ManagerMode.PER_THREAD release() closed the EntityManager
+            if (manager.isOpen())
+                manager.setFlushMode(flushMode);
+        }
+    }
+
+    /**
+     * This method returns the read-only EntityManager for the listings, with ManagerMode.PER_THREAD the one of the current thread.
+     */
+    private EntityManager listing() {
+        EntityManager manager = this.mode == ManagerMode.SHARED ? this.sharedListing : this.currentListing.get();
+        if (manager == null || !manager.isOpen()) {
+            manager = this.create();
+            // also the relations which are loaded later are read-only
+            manager.unwrap(Session.class).setDefaultReadOnly(true);
+            if (this.mode == ManagerMode.SHARED)
+                this.sharedListing = manager;
+            else
+                this.currentListing.set(manager);
+        }
+        return manager;
+    }
+
+    private <T> T transaction(Function<EntityManager, T> changes) {
+        EntityManager manager = this.get();
+        this.checkNotStreaming(manager);
+        EntityTransaction transaction = manager.getTransaction();
+        if (transaction.isActive())
+            return changes.apply(manager);
+        transaction.begin();
+        try {
+            T result = changes.apply(manager);
+            transaction.commit();
+            return result;
+        } catch (PersistenceException e) {
+            if (!isVersionConflict(e))
+                throw e;
+            if (transaction.isActive())
+                transaction.rollback();
+            this.release();
+            this.evictStale(e);
+            throw new ConcurrentUpdateException("Die Daten wurden inzwischen geändert", e);
+        } finally {
+            if (transaction.isActive())
+                transaction.rollback();
+        }
+    }
+
+    /**
+     * This method refuses changes while the transaction of the EntityManager belongs to an open Stream:
+     * they would join the transaction of the Stream and be rolled back silently when it is closed.
+     * @param manager EntityManager of the changes
+     * @throws IllegalStateException if the Stream wasn't closed
+     */
+    private void checkNotStreaming(EntityManager manager) {
+        if (this.streaming.contains(manager) && manager.getTransaction().isActive())
+            throw new IllegalStateException("Ein Stream ist noch offen, die Änderungen können nicht gespeichert werden");
+    }
+
+    /**
+     * This method removes the entity whose version check failed from the second-level cache, otherwise the next attempt
+     * would read the same old version from the cache and fail again. If the entity isn't known, the whole cache is cleared.
+     * @param e the exception of the failed version check
+     */
+    private void evictStale(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StaleObjectStateException stale && stale.getIdentifier() != null) {
+                this.factory.unwrap(SessionFactory.class).getCache().evictEntityData(stale.getEntityName(), stale.getIdentifier());
+                return;
+            }
+            if (cause instanceof OptimisticLockException conflict && conflict.getEntity() != null) {
+                Object entity = conflict.getEntity();
+                this.factory.getCache().evict(Hibernate.getClass(entity), this.factory.getPersistenceUnitUtil().getIdentifier(entity));
+                return;
+            }
+        }
+        this.factory.getCache().evictAll();
+    }
+
+    /**
+     * This method checks if an exception was caused by a failed version check (optimistic locking).
+     * @param e the exception
+     * @return true if the exception or one of its causes is an OptimisticLockException or a StaleStateException
+     */
+    static boolean isVersionConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+            if (cause instanceof OptimisticLockException || cause instanceof StaleStateException)
+                return true;
+        return false;
+    }
+
+    /**
+     * This method ends the unit of work of the current thread: its EntityManager is closed, so the next call of get()
+     * starts with an empty persistence context and sees the changes of the other threads. The same happens with the EntityManager of the listings. <br>
+     * With ManagerMode.SHARED the persistence contexts are only cleared.
+     */
+    public void release() {
+        if (this.mode == ManagerMode.SHARED) {
+            if (!this.shared.getTransaction().isActive())
+                this.shared.clear();
+            if (this.sharedListing != null && this.sharedListing.isOpen())
+                this.sharedListing.clear();
+            return;
+        }
+        this.close(this.current);
+        this.close(this.currentListing);
+    }
+
+    private void close(ThreadLocal<EntityManager> current) {
+        EntityManager manager = current.get();
+        if (manager != null) {
+            current.remove();
+            this.open.remove(manager);
+            this.streaming.remove(manager);
+            if (manager.isOpen())
+                manager.close();
+        }
+    }
+
+    /**
+     * This method returns the statistics of the connection pool, if the persistence unit uses the PooledConnectionProvider.
+     * @return PoolStatistics or null if the connections are not taken from a PooledDataSource
+     */
+    public PoolStatistics getPoolStatistics() {
+        ConnectionProvider connections = this.factory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+        if (connections == null || !connections.isUnwrappableAs(PooledDataSource.class))
+            return null;
+        return connections.unwrap(PooledDataSource.class).getStatistics();
+    }
+
+    /**
+     * This method returns the counters of the second-level cache and the query cache. <br>
+     * With the BoundedRegionFactory they are the counters of its regions, which are always kept.
+     * With another cache provider they are the statistics of Hibernate, if hibernate.generate_statistics is enabled.
+     * @return CacheStatistics or null if there are no counters
+     */
+    public CacheStatistics getCacheStatistics() {
+        RegionFactory regions = this.factory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (regions instanceof BoundedRegionFactory)
+            return ((BoundedRegionFactory) regions).getStatistics();
+        org.hibernate.stat.Statistics statistics = this.factory.unwrap(SessionFactory.class).getStatistics();
+        return statistics.isStatisticsEnabled() ? CacheStatistics.of(statistics) : null;
+    }
+
+    /**
+     * This method empties the second-level cache and the query cache. <br>
+     * It is needed after changes which bypass the persistence context (e.g. a StatelessSession or plain JDBC),
+     * because Hibernate only invalidates the cache for the changes it executes itself.
+     */
+    public void evictCaches() {
+        this.factory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    /**
+     * This method closes every open EntityManager and the EntityManagerFactory.
+     */
+    @Override
+    public void close() {
+        for (EntityManager manager : this.open)
+            if (manager.isOpen())
+                manager.close();
+        this.open.clear();
+        this.factory.close();
+    }
+}
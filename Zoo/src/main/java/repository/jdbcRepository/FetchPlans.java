@@ -0,0 +1,159 @@
+package repository.jdbcRepository;
+
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.persistence.AttributeNode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads lists of entities with a named entity graph (fetch plan) of the entity, e.g. Attraction.LISTING. <br>
+ * The relations of the graph are joined into the query, so a list costs a constant number of queries
+ * instead of one query for each row when the relations are used (N+1). <br>
+ * A page can't be limited in the database when a collection is joined, because the rows of one entity are repeated.
+ * Therefore a page is read in two queries: first the IDs of the page, then the entities with these IDs and the graph.
+ */
+final class FetchPlans {
+    private FetchPlans() {}
+
+    /**
+     * This method reads all entities of a type with a fetch plan.
+     * @param manager EntityManager
+     * @param type entity class
+     * @param graph name of the entity graph
+     * @return the list of the entities, each entity once
+     */
+    static <E> List<E> all(EntityManager manager, Class<E> type, String graph) {
+        return withGraph(manager, manager.createQuery("select distinct e from " + type.getSimpleName() + " e", type), graph)
+                .getResultList();
+    }
+
+    /**
+     * This method reads all entities of a type with a fetch plan, the result is kept in the query cache. <br>
+     * The query cache only keeps the IDs, the entities are taken from the second-level cache. It is invalidated by
+     * every change of the queried tables, so it is useful for entities which change rarely (e.g. the Attractions).
+     * On a hit no join is executed, the relations of the graph are loaded afterwards in batches.
+     * @param manager EntityManager
+     * @param type entity class, it should be cacheable
+     * @param graph name of the entity graph
+     * @return the list of the entities, each entity once
+     */
+    static <E> List<E> allCached(EntityManager manager, Class<E> type, String graph) {
+        List<E> entities = withGraph(manager, manager.createQuery("select distinct e from " + type.getSimpleName() + " e", type), graph)
+                .setHint(QueryHints.CACHEABLE, true)
+                .getResultList();
+        EntityPersister persister = manager.unwrap(SessionImplementor.class).getFactory().getMetamodel().entityPersister(type);
+        for (AttributeNode<?> node : manager.getEntityGraph(graph).getAttributeNodes())
+            for (E entity : entities)
+                Hibernate.initialize(persister.getPropertyValue(entity, node.getAttributeName()));
+        return entities;
+    }
+
+    /**
+     * This method reads a page of the entities ordered by ID with a fetch plan.
+     * @param manager EntityManager
+     * @param type entity class
+     * @param graph name of the entity graph
+     * @param offset number of entities which are skipped
+     * @param limit maximum number of entities in the page
+     * @return the page of the entities
+     */
+    static <E> List<E> page(EntityManager manager, Class<E> type, String graph, int offset, int limit) {
+        List<String> ids = manager.createQuery("select e.ID from " + type.getSimpleName() + " e order by e.ID", String.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        return byIDs(manager, type, graph, ids);
+    }
+
+    /**
+     * This method reads the entities whose ID comes after the given ID, ordered by ID, with a fetch plan.
+     * @param manager EntityManager
+     * @param type entity class
+     * @param graph name of the entity graph
+     * @param lastID ID of the last entity of the previous page
+     * @param limit maximum number of entities in the page
+     * @return the page of the entities
+     */
+    static <E> List<E> pageAfter(EntityManager manager, Class<E> type, String graph, String lastID, int limit) {
+        List<String> ids = manager.createQuery("select e.ID from " + type.getSimpleName() + " e where e.ID > :lastID order by e.ID", String.class)
+                .setParameter("lastID", lastID)
+                .setMaxResults(limit)
+                .getResultList();
+        return byIDs(manager, type, graph, ids);
+    }
+
+    /**
+     * This method reads a page of the entities sorted by an attribute and then by ID, with a fetch plan. <br>
+     * The page starts after the given value and ID (keyset pagination), so with an index on (attribute, ID)
+     * the database reads only the rows of the page, no matter on which page it is.
+     * @param manager EntityManager
+     * @param type entity class
+     * @param graph name of the entity graph
+     * @param attribute name of the attribute by which the entities are sorted
+     * @param descending true if the entities are sorted descending by the attribute, ties are always ascending by ID
+     * @param lastValue value of the attribute of the last entity of the previous page, it must have the type of the attribute
+     * @param lastID ID of the last entity of the previous page, null for the first page
+     * @param limit maximum number of entities in the page
+     * @return the page of the entities in the order of the listing
+     */
+    static <E> List<E> sortedAfter(EntityManager manager, Class<E> type, String graph, String attribute, boolean descending,
+                                   Object lastValue, String lastID, int limit) {
+        String value = "e." + attribute;
+        String after = lastID == null ? ""
+                : " where " + value + (descending ? " < " : " > ") + ":lastValue or (" + value + " = :lastValue and e.ID > :lastID)";
+        TypedQuery<String> query = manager.createQuery("select e.ID from " + type.getSimpleName() + " e" + after
+                + " order by " + value + (descending ? " desc" : "") + ", e.ID", String.class);
+        if (lastID != null)
+            query.setParameter("lastValue", lastValue).setParameter("lastID", lastID);
+        List<String> ids = query.setMaxResults(limit).getResultList();
+        // byIDs() returns the entities ordered by ID, they are put back into the order of the listing
+        Map<String, Integer> positions = new HashMap<>();
+        for (String id : ids)
+            positions.put(id, positions.size());
+        PersistenceUnitUtil util = manager.getEntityManagerFactory().getPersistenceUnitUtil();
+        return byIDs(manager, type, graph, ids).stream()
+                .sorted(Comparator.comparingInt(e -> positions.get((String) util.getIdentifier(e))))
+                .toList();
+    }
+
+    /**
+     * This method reads the entities which fulfil a condition, ordered by ID, with a fetch plan. The condition is checked by the database.
+     * @param manager EntityManager
+     * @param type entity class
+     * @param graph name of the entity graph
+     * @param condition JPQL condition on the entity "e", e.g. "e.price &lt;= :price"
+     * @param parameters values of the named parameters of the condition
+     * @return the list of the entities which fulfil the condition
+     */
+    static <E> List<E> where(EntityManager manager, Class<E> type, String graph, String condition, Map<String, Object> parameters) {
+        TypedQuery<E> query = manager.createQuery("select distinct e from " + type.getSimpleName() + " e where " + condition + " order by e.ID", type);
+        parameters.forEach(query::setParameter);
+        return withGraph(manager, query, graph).getResultList();
+    }
+
+    private static <E> List<E> byIDs(EntityManager manager, Class<E> type, String graph, List<String> ids) {
+        if (ids.isEmpty())
+            return List.of();
+        TypedQuery<E> query = manager.createQuery("select distinct e from " + type.getSimpleName() + " e where e.ID in :ids order by e.ID", type)
+                .setParameter("ids", ids);
+        return withGraph(manager, query, graph).getResultList();
+    }
+
+    /**
+     * This method adds the entity graph to a query. The joined rows are merged in memory,
+     * the "distinct" of the query is not sent to the database.
+     */
+    private static <E> TypedQuery<E> withGraph(EntityManager manager, TypedQuery<E> query, String graph) {
+        return query.setHint("javax.persistence.loadgraph", manager.getEntityGraph(graph))
+                .setHint(QueryHints.PASS_DISTINCT_THROUGH, false);
+    }
+}
@@ -0,0 +1,95 @@
+package repository.jdbcRepository;
+
+/**
+ * Result of a bulk import of the JdbcImport: the number of inserted rows of each table and the duration. <br>
+ * If the import failed, it was rolled back and no row was inserted.
+ */
+public class ImportReport {
+    private final int instructors;
+    private final int attractions;
+    private final int guests;
+    private final int signUps;
+    private final long nanos;
+    private final boolean successful;
+
+    /**
+     * Constructor - constructs an ImportReport.
+     * @param instructors number of inserted Instructors
+     * @param attractions number of inserted Attractions
+     * @param guests number of inserted Guests
+     * @param signUps number of inserted rows of attraction_guests
+     * @param nanos duration of the import in nanoseconds
+     * @param successful false if the import was rolled back
+     */
+    ImportReport(int instructors, int attractions, int guests, int signUps, long nanos, boolean successful) {
+        this.instructors = instructors;
+        this.attractions = attractions;
+        this.guests = guests;
+        this.signUps = signUps;
+        this.nanos = nanos;
+        this.successful = successful;
+    }
+
+    public int getInstructors() {
+        return instructors;
+    }
+
+    public int getAttractions() {
+        return attractions;
+    }
+
+    public int getGuests() {
+        return guests;
+    }
+
+    /**
+     * @return number of inserted rows of attraction_guests
+     */
+    public int getSignUps() {
+        return signUps;
+    }
+
+    /**
+     * @return number of all inserted rows
+     */
+    public int getRows() {
+        return instructors + attractions + guests + signUps;
+    }
+
+    /**
+     * @return duration of the import in milliseconds
+     */
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * This method calculates the throughput of the import.
+     * @return Double - inserted rows per second, 0 if nothing was inserted
+     */
+    public double getRowsPerSecond() {
+        return nanos == 0 ? 0 : this.getRows() * 1_000_000_000.0 / nanos;
+    }
+
+    /**
+     * @return true if the import was committed
+     */
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * This method converts the ImportReport to a String.
+     * @return A String containing the inserted rows of each table and the throughput
+     */
+    @Override
+    public String toString() {
+        return "instructors=" + instructors +
+                "  \tattractions=" + attractions +
+                "  \tguests=" + guests +
+                "  \tsign-ups=" + signUps +
+                "  \ttime=" + this.getMillis() + " ms" +
+                "  \trows/s=" + Math.round(this.getRowsPerSecond()) +
+                (successful ? "" : "  \t(rolled back)");
+    }
+}
@@ -1,27 +1,38 @@
 package repository.jdbcRepository;
 
 import domain.Attraction;
+import domain.Guest;
 import domain.Instructor;
 import domain.Weekday;
+import repository.BulkResult;
 import repository.AttractionRepository;
 import repository.InstructorRepository;
+import repository.SortCursor;
 
 import javax.persistence.*;
 import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * JdbcAttractionRepository implements the interface AttractionRepository. The data is saved in database.
  */
 public class JdbcAttractionRepository implements AttractionRepository {
+    /**
+     * Number of rows which are fetched together when the Attractions are streamed.
+     */
+    private static final int FETCH_SIZE = 100;
     /**
      * InstructorRepository from where the Instructor of the Attractions can be selected.
      */
     private final InstructorRepository instructorRepository;
     /**
-     * EntityManager - used for different operations with database
+     * EntityManagerProvider - hands out the EntityManager used for the operations in the database
      */
-    private final EntityManager manager;
+    private final EntityManagerProvider provider;
 
     /**
      * Constructor - constructs and initializes an JdbcAttractionRepository. <br>
@@ -30,7 +41,7 @@ public class JdbcAttractionRepository implements AttractionRepository {
      */
     public JdbcAttractionRepository(JdbcInstructorRepository instructorRepository) {
         this.instructorRepository = instructorRepository;
-        this.manager = instructorRepository.getManager();
+        this.provider = instructorRepository.getProvider();
         // this.populateAttractions();
     }
 
@@ -75,16 +86,26 @@ public class JdbcAttractionRepository implements AttractionRepository {
     }
 
     /**
-     * This method reads out from the database and returns the list of Attractions.
+     * This method inserts many new Attractions with the bulk import of JdbcImport (JDBC batches, no persistence context). <br>
+     * The Guests in the guestList are signed up too, they and the Instructors must exist already.
+     * If one of the rows can't be inserted, nothing is imported.
+     * @param attractions Attractions which will be inserted
+     * @return ImportReport - the number of inserted rows and the rows per second
+     */
+    public ImportReport importAttractions(Collection<Attraction> attractions) {
+        return JdbcImport.importAll(this.provider, List.of(), attractions, List.of());
+    }
+
+    /**
+     * This method reads out from the database and returns the list of Attractions. <br>
+     * The Instructor and the Guests are loaded with the fetch plan Attraction.LISTING in the same query.
+     * The result is kept in the query cache until an Attraction, Instructor or Guest is changed.
+     * The entities are loaded read-only, see EntityManagerProvider.readOnly().
      * @return The list of Attractions
      */
     @Override
     public List<Attraction> getAllAttractions() {
-        manager.getTransaction().begin();
-        Query query = manager.createNativeQuery("SELECT * FROM attraction", Attraction.class);
-        List<Attraction> attractions = (List<Attraction>) query.getResultList();
-        manager.getTransaction().commit();
-        return attractions;
+        return provider.readOnly(manager -> FetchPlans.allCached(manager, Attraction.class, Attraction.LISTING));
     }
 
     /**
@@ -96,9 +117,7 @@ public class JdbcAttractionRepository implements AttractionRepository {
     public void add(Attraction attraction) {
         try {
             if (this.findByID(attraction.getID()) == null) {
-                manager.getTransaction().begin();
-                manager.persist(attraction);
-                manager.getTransaction().commit();
+                provider.inTransaction(manager -> manager.persist(attraction));
             }
             else System.out.println("Eine Attraktion mit dieser ID existiert schon");
         } catch (NullPointerException ignored){}
@@ -111,9 +130,7 @@ public class JdbcAttractionRepository implements AttractionRepository {
     @Override
     public void delete(String id){
         Attraction attraction = this.findByID(id);
-        manager.getTransaction().begin();
-        manager.remove(attraction);
-        manager.getTransaction().commit();
+        provider.inTransaction(manager -> manager.remove(attraction));
     }
 
     /**
@@ -126,17 +143,96 @@ public class JdbcAttractionRepository implements AttractionRepository {
         Attraction attr = this.findByID(idAttraction);
         if (attr != null)
         {
-            manager.getTransaction().begin();
-            attr.name = attraction.name;
-            attr.guestList = attraction.guestList;
-            attr.day = attraction.day;
-            attr.price = attraction.price;
-            attr.location = attraction.location;
-            attr.setInstructor(attraction.getInstructor());
-            manager.getTransaction().commit();
+            provider.inTransaction(manager -> copy(manager, attr, attraction));
         }
     }
 
+    /**
+     * This method copies the values of an Attraction into the Attraction loaded from the database. <br>
+     * The Guests and the Instructor are taken from the EntityManager, the source may come from another persistence context.
+     * @param manager EntityManager which loaded the target
+     * @param target Attraction - loaded Attraction which will be changed
+     * @param source Attraction - Attraction with the new values
+     */
+    private static void copy(EntityManager manager, Attraction target, Attraction source) {
+        target.name = source.name;
+        JdbcBulk.replace(manager, Guest.class, target.guestList, source.guestList, Guest::getID);
+        target.updateGuestCount();
+        target.day = source.day;
+        target.price = source.price;
+        target.location = source.location;
+        target.setInstructor(JdbcBulk.managed(manager, Instructor.class, source.getInstructor(), Instructor::getID));
+    }
+
+    /**
+     * This method adds several Attractions to the database. <br>
+     * The Attractions are written in chunks, each chunk in one transaction which is sent to the database in JDBC batches.
+     * @param attractions the Attractions which will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each Attraction
+     */
+    @Override
+    public BulkResult addAll(Collection<Attraction> attractions) {
+        return JdbcBulk.addAll(this.provider, Attraction.class, attractions, Attraction::getID);
+    }
+
+    /**
+     * This method updates several Attractions in the database, in chunks like addAll().
+     * @param attractions Map - the ID of each Attraction which will be updated and the Attraction with the new values
+     * @return BulkResult - UPDATED, NOT_FOUND or FAILED for each Attraction
+     */
+    @Override
+    public BulkResult updateAll(Map<String, Attraction> attractions) {
+        return JdbcBulk.updateAll(this.provider, Attraction.class, attractions, Attraction::getID, JdbcAttractionRepository::copy);
+    }
+
+    /**
+     * This method deletes several Attractions from the database, in chunks like addAll().
+     * @param ids the IDs of the Attractions which will be deleted
+     * @return BulkResult - DELETED, NOT_FOUND or FAILED for each ID
+     */
+    @Override
+    public BulkResult deleteAll(Collection<String> ids) {
+        return JdbcBulk.deleteAll(this.provider, Attraction.class, ids, Attraction::getID);
+    }
+
+    /**
+     * This method reads out the Attractions held on the given weekday or later in the week. <br>
+     * The database filters the Attractions, they are loaded with the fetch plan Attraction.LISTING.
+     * @param weekday Weekday - the first day of the searched Attractions
+     * @return The list of Attractions held on or after the given weekday
+     */
+    @Override
+    public List<Attraction> getAttractionsFromDay(Weekday weekday) {
+        List<Weekday> days = Arrays.stream(Weekday.values())
+                .filter(day -> day.getNr() >= weekday.getNr())
+                .toList();
+        return provider.readOnly(manager -> FetchPlans.where(manager, Attraction.class, Attraction.LISTING,
+                "e.day in :days", Map.of("days", days)));
+    }
+
+    /**
+     * This method reads out the Attractions whose price is less than or equal to the given price. <br>
+     * The database filters the Attractions, they are loaded with the fetch plan Attraction.LISTING.
+     * @param price Double - the maximum price of the searched Attractions
+     * @return The list of Attractions which are not more expensive than the given price
+     */
+    @Override
+    public List<Attraction> getAttractionsWithPriceAtMost(double price) {
+        return provider.readOnly(manager -> FetchPlans.where(manager, Attraction.class, Attraction.LISTING,
+                "e.price <= :price", Map.of("price", price)));
+    }
+
+    /**
+     * This method reads out the Attractions which still have available places. <br>
+     * The database compares the column guest_count with the capacity, the rows of attraction_guests are not counted.
+     * @return The list of Attractions whose capacity is greater than the number of signed up Guests
+     */
+    @Override
+    public List<Attraction> getAttractionsWithFreePlaces() {
+        return provider.readOnly(manager -> FetchPlans.where(manager, Attraction.class, Attraction.LISTING,
+                "e.guestCount < e.capacity", Map.of()));
+    }
+
     /**
      * This method returns the Attraction who has the ID given as parameter. <br>
      * @param idAttraction String - the ID of the Attraction who is searched
@@ -145,20 +241,93 @@ public class JdbcAttractionRepository implements AttractionRepository {
     @Override
     public Attraction findByID(String idAttraction) {
         try{
-            manager.getTransaction().begin();
-            Attraction attraction = manager.find(Attraction.class, idAttraction);
-            manager.getTransaction().commit();
-            return attraction;
+            return provider.read(manager -> manager.find(Attraction.class, idAttraction));
         } catch (NoResultException e){
             return null;}
     }
 
+    /**
+     * This method reads out the Attractions from the database ordered by ID as a lazy Stream. <br>
+     * The rows are fetched in batches of FETCH_SIZE through a cursor, which stays open in a transaction until the Stream is closed
+     * (see EntityManagerProvider.stream()).
+     * @return Stream of the Attractions, it must be closed, e.g. with try-with-resources
+     */
+    @Override
+    public Stream<Attraction> stream() {
+        return this.provider.stream(manager -> manager.createQuery("select a from Attraction a order by a.ID", Attraction.class)
+                .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                .getResultStream(), FETCH_SIZE);
+    }
+
+    /**
+     * This method reads out a page of the Attractions ordered by ID from the database. <br>
+     * The IDs of the page are read first, then the Attractions with the fetch plan Attraction.LISTING (two queries).
+     * @param offset int - number of Attractions which are skipped
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> page(int offset, int limit) {
+        return provider.readOnly(manager -> FetchPlans.page(manager, Attraction.class, Attraction.LISTING, offset, limit));
+    }
+
+    /**
+     * This method reads out the Attractions whose ID comes after the given ID from the database, ordered by ID. <br>
+     * The database continues at the given ID in the primary key index, the previous rows are not read again.
+     * The Attractions are loaded with the fetch plan Attraction.LISTING like in page().
+     * @param lastID String - ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> pageAfter(String lastID, int limit) {
+        if (lastID == null)
+            return this.page(0, limit);
+        return provider.readOnly(manager -> FetchPlans.pageAfter(manager, Attraction.class, Attraction.LISTING, lastID, limit));
+    }
+
+    /**
+     * This method reads out a page of the Attractions sorted ascending by price, Attractions with the same price by ID. <br>
+     * The database sorts the Attractions with the index attraction_price_idx and continues after the cursor,
+     * the Attractions are loaded with the fetch plan Attraction.LISTING.
+     * @param after SortCursor - price and ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> pageByPrice(SortCursor after, int limit) {
+        return provider.readOnly(manager -> FetchPlans.sortedAfter(manager, Attraction.class, Attraction.LISTING, "price", false,
+                after == null ? null : after.getValue(), after == null ? null : after.getID(), limit));
+    }
+
+    /**
+     * This method reads out a page of the Attractions sorted ascending by the number of Guests, Attractions with the same number by ID. <br>
+     * The database sorts by the column guest_count with the index attraction_guest_count_idx and continues after the cursor,
+     * the Attractions are loaded with the fetch plan Attraction.LISTING.
+     * @param after SortCursor - number of Guests and ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> pageByNrOfGuests(SortCursor after, int limit) {
+        return provider.readOnly(manager -> FetchPlans.sortedAfter(manager, Attraction.class, Attraction.LISTING, "guestCount", false,
+                after == null ? null : (int) after.getValue(), after == null ? null : after.getID(), limit));
+    }
+
     /**
      * This method returns the EntityManager.
      * @return EntityManager of the repository
      */
-    public EntityManager getManager(){
-        return manager;
+    public EntityManager getManager() {
+        return this.provider.get();
+    }
+
+    /**
+     * This method returns the EntityManagerProvider, which is shared by the Jdbc repositories.
+     * @return EntityManagerProvider of the repository
+     */
+    public EntityManagerProvider getProvider() {
+        return provider;
     }
 
     /**
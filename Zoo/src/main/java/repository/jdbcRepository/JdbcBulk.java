@@ -0,0 +1,225 @@
+package repository.jdbcRepository;
+
+import org.hibernate.Hibernate;
+import repository.BulkResult;
+import repository.WriteOutcome;
+import utils.ConcurrentUpdateException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bulk operations of the Jdbc repositories. <br>
+ * The elements are processed in chunks of CHUNK_SIZE. Each chunk is one transaction of EntityManagerProvider.inTransaction():
+ * the existing rows are read with one query, then the chunk is written, which Hibernate sends as JDBC batches (hibernate.jdbc.batch_size).
+ * If the transaction of a chunk fails, it is rolled back, the persistence context is discarded and the outcome of its
+ * written elements is FAILED, the other chunks are not affected. The message of the error is returned in the BulkResult.
+ * A failed version check is handled like in the other writes of the provider: the stale entity is removed from the
+ * second-level cache, so the chunk can be written again with the current data. <br>
+ * Inside a unit of work (EntityManagerProvider.execute()) the chunks join its transaction instead,
+ * they are written with the other changes of the unit and fail together with them.
+ */
+final class JdbcBulk {
+    /**
+     * Number of elements which are written in one transaction.
+     */
+    static final int CHUNK_SIZE = 50;
+
+    private JdbcBulk() {}
+
+    /**
+     * Copies the values of an element into the entity loaded for the change, with the EntityManager of the transaction.
+     */
+    @FunctionalInterface
+    interface Copy<E> {
+        void copy(EntityManager manager, E target, E source);
+    }
+
+    /**
+     * This method adds the elements whose ID doesn't exist yet.
+     * @param provider EntityManagerProvider of the repository
+     * @param type entity class
+     * @param elements elements which will be added
+     * @param idOf function which returns the ID of an element
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each element
+     */
+    static <E> BulkResult addAll(EntityManagerProvider provider, Class<E> type, Collection<E> elements, Function<E, String> idOf) {
+        WriteOutcome[] outcomes = new WriteOutcome[elements.size()];
+        List<E> list = new ArrayList<>(elements);
+        String error = null;
+        for (int start = 0; start < list.size(); start += CHUNK_SIZE) {
+            int first = start;
+            List<E> chunk = list.subList(start, Math.min(start + CHUNK_SIZE, list.size()));
+            String failure = writeChunk(provider, outcomes, start, chunk.size(), manager -> {
+                Map<String, E> existing = findAll(manager, type, chunk.stream().map(idOf).toList(), idOf);
+                List<E> added = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    String id = idOf.apply(chunk.get(i));
+                    if (existing.containsKey(id) || added.stream().anyMatch(e -> idOf.apply(e).equals(id))) {
+                        outcomes[first + i] = WriteOutcome.DUPLICATE;
+                    } else {
+                        added.add(chunk.get(i));
+                        outcomes[first + i] = WriteOutcome.ADDED;
+                    }
+                }
+                added.forEach(manager::persist);
+            });
+            if (error == null)
+                error = failure;
+        }
+        return new BulkResult(error, outcomes);
+    }
+
+    /**
+     * This method updates the elements which exist, the new values are copied into the loaded entities.
+     * @param provider EntityManagerProvider of the repository
+     * @param type entity class
+     * @param elements Map - the ID of each element which will be updated and the element with the new values
+     * @param idOf function which returns the ID of an element
+     * @param copy copies the values from the source element into the target (loaded) element
+     * @return BulkResult - UPDATED, NOT_FOUND or FAILED for each element
+     */
+    static <E> BulkResult updateAll(EntityManagerProvider provider, Class<E> type, Map<String, E> elements, Function<E, String> idOf, Copy<E> copy) {
+        WriteOutcome[] outcomes = new WriteOutcome[elements.size()];
+        List<Map.Entry<String, E>> list = new ArrayList<>(elements.entrySet());
+        String error = null;
+        for (int start = 0; start < list.size(); start += CHUNK_SIZE) {
+            int first = start;
+            List<Map.Entry<String, E>> chunk = list.subList(start, Math.min(start + CHUNK_SIZE, list.size()));
+            String failure = writeChunk(provider, outcomes, start, chunk.size(), manager -> {
+                Map<String, E> existing = findAll(manager, type, chunk.stream().map(Map.Entry::getKey).toList(), idOf);
+                for (int i = 0; i < chunk.size(); i++) {
+                    E loaded = existing.get(chunk.get(i).getKey());
+                    outcomes[first + i] = loaded != null ? WriteOutcome.UPDATED : WriteOutcome.NOT_FOUND;
+                    if (loaded != null)
+                        copy.copy(manager, loaded, chunk.get(i).getValue());
+                }
+            });
+            if (error == null)
+                error = failure;
+        }
+        return new BulkResult(error, outcomes);
+    }
+
+    /**
+     * This method deletes the elements which exist.
+     * @param provider EntityManagerProvider of the repository
+     * @param type entity class
+     * @param ids IDs of the elements which will be deleted
+     * @param idOf function which returns the ID of an element
+     * @return BulkResult - DELETED, NOT_FOUND or FAILED for each ID
+     */
+    static <E> BulkResult deleteAll(EntityManagerProvider provider, Class<E> type, Collection<String> ids, Function<E, String> idOf) {
+        WriteOutcome[] outcomes = new WriteOutcome[ids.size()];
+        List<String> list = new ArrayList<>(ids);
+        String error = null;
+        for (int start = 0; start < list.size(); start += CHUNK_SIZE) {
+            int first = start;
+            List<String> chunk = list.subList(start, Math.min(start + CHUNK_SIZE, list.size()));
+            String failure = writeChunk(provider, outcomes, start, chunk.size(), manager -> {
+                Map<String, E> existing = findAll(manager, type, chunk, idOf);
+                for (int i = 0; i < chunk.size(); i++)
+                    outcomes[first + i] = existing.containsKey(chunk.get(i)) ? WriteOutcome.DELETED : WriteOutcome.NOT_FOUND;
+                existing.values().forEach(manager::remove);
+            });
+            if (error == null)
+                error = failure;
+        }
+        return new BulkResult(error, outcomes);
+    }
+
+    /**
+     * This method returns the entity of the EntityManager for an element which may belong to another persistence context,
+     * e.g. to the read-only one of the listings. <br>
+     * It is the element itself if the EntityManager contains it, otherwise the entity with its ID.
+     * If there is no such entity yet, the element itself is returned, it is saved by the cascade of the relation.
+     * @param manager EntityManager which writes the change
+     * @param type entity class
+     * @param element the element, may be null
+     * @param idOf function which returns the ID of an element
+     * @return the element of the EntityManager
+     */
+    static <E> E managed(EntityManager manager, Class<E> type, E element, Function<E, String> idOf) {
+        if (element == null || manager.contains(element))
+            return element;
+        E found = manager.find(type, idOf.apply(element));
+        return found != null ? found : element;
+    }
+
+    /**
+     * This method replaces the content of a list of a loaded entity with the elements of another list. <br>
+     * The elements are taken from the EntityManager with managed(), the list object itself is kept:
+     * a list of another persistence context must not be put into the entity, Hibernate can't attach a collection to two sessions.
+     * A list which was never loaded (e.g. of a detached entity from a Stream) can't have been changed, the target is kept.
+     * @param manager EntityManager which writes the change
+     * @param type entity class of the elements
+     * @param target list of the loaded entity
+     * @param source list with the new elements, null is the empty list
+     * @param idOf function which returns the ID of an element
+     */
+    static <E> void replace(EntityManager manager, Class<E> type, List<E> target, List<E> source, Function<E, String> idOf) {
+        if (target == source || !Hibernate.isInitialized(source))
+            return;
+        List<E> elements = new ArrayList<>();
+        if (source != null)
+            for (E element : source)
+                elements.add(managed(manager, type, element, idOf));
+        target.clear();
+        target.addAll(elements);
+    }
+
+    /**
+     * This method reads the entities with the given IDs with one query, in the transaction of the chunk.
+     */
+    private static <E> Map<String, E> findAll(EntityManager manager, Class<E> type, List<String> ids, Function<E, String> idOf) {
+        Map<String, E> found = new HashMap<>();
+        if (ids.isEmpty())
+            return found;
+        List<E> entities = manager.createQuery("select e from " + type.getSimpleName() + " e where e.ID in :ids", type)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (E entity : entities)
+            found.put(idOf.apply(entity), entity);
+        return found;
+    }
+
+    /**
+     * This method reads and writes a chunk in one transaction of the provider. If it fails, the transaction is rolled back and
+     * the persistence context is discarded with release(): its entities still have the changes which weren't written and
+     * would be written by the next flush. After a failed version check the provider has also evicted the stale entity.
+     * The written elements of the chunk get the outcome FAILED.
+     * @return String - message of the error, null if the chunk was written
+     */
+    private static String writeChunk(EntityManagerProvider provider, WriteOutcome[] outcomes, int start, int size, Consumer<EntityManager> chunk) {
+        if (provider.get().getTransaction().isActive()) {
+            // inside a unit of work the chunk joins its transaction and fails with it
+            provider.inTransaction(chunk);
+            return null;
+        }
+        try {
+            provider.inTransaction(chunk);
+            return null;
+        } catch (ConcurrentUpdateException e) {
+            // the provider has already rolled back, discarded the persistence context and evicted the stale entity
+            markFailed(outcomes, start, size);
+            return e.getMessage();
+        } catch (PersistenceException | IllegalStateException e) {
+            provider.release();
+            markFailed(outcomes, start, size);
+            return "Die Änderungen konnten nicht gespeichert werden: " + e.getMessage();
+        }
+    }
+
+    private static void markFailed(WriteOutcome[] outcomes, int start, int size) {
+        for (int i = start; i < start + size; i++)
+            if (outcomes[i] != WriteOutcome.DUPLICATE && outcomes[i] != WriteOutcome.NOT_FOUND)
+                outcomes[i] = WriteOutcome.FAILED;
+    }
+}
@@ -3,32 +3,45 @@ package repository.jdbcRepository;
 import domain.Attraction;
 import domain.Guest;
 import domain.Instructor;
+import org.hibernate.exception.ConstraintViolationException;
+import repository.BulkResult;
 import repository.GuestRepository;
+import repository.SortCursor;
+import utils.ConcurrentUpdateException;
 
+import javax.persistence.EntityExistsException;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
-import javax.persistence.Query;
+import javax.persistence.PersistenceException;
 import javax.persistence.criteria.CriteriaBuilder;
 import java.sql.Connection;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * JdbcGuestRepository implements the interface InstructorRepository. The data is saved in database.
  */
 public class JdbcGuestRepository implements GuestRepository {
+    /**
+     * Number of rows which are fetched together when the Guests are streamed.
+     */
+    private static final int FETCH_SIZE = 100;
     /**
      * AttractionRepository from where the Attractions are selected on which the Guests can sign up.
      */
     private final JdbcAttractionRepository attractionRepository;
     /**
-     * EntityManager - used for different operations with database
+     * EntityManagerProvider - hands out the EntityManager used for the operations in the database
      */
-    private final EntityManager manager;
+    private final EntityManagerProvider provider;
 
     public JdbcGuestRepository(JdbcAttractionRepository attractionRepository) {
         this.attractionRepository = attractionRepository;
-        this.manager = attractionRepository.getManager();
+        this.provider = attractionRepository.getProvider();
         // this.populateGuests();
     }
 
@@ -99,16 +112,26 @@ public class JdbcGuestRepository implements GuestRepository {
     }
 
     /**
-     * This method reads out from the database and returns the list of Guests.
+     * This method inserts many new Guests (e.g. the pre-registrations of a season) with the bulk import of JdbcImport
+     * (JDBC batches, no persistence context). <br>
+     * The Guests are signed up for their Attractions too, which must exist already, the number of Guests of the Attractions is updated.
+     * If one of the rows can't be inserted, nothing is imported.
+     * @param guests Guests which will be inserted
+     * @return ImportReport - the number of inserted rows and the rows per second
+     */
+    public ImportReport importGuests(Collection<Guest> guests) {
+        return JdbcImport.importAll(this.provider, List.of(), List.of(), guests);
+    }
+
+    /**
+     * This method reads out from the database and returns the list of Guests. <br>
+     * The Attractions and their Instructors are loaded with the fetch plan Guest.LISTING in the same query.
+     * The Guests are loaded read-only, see EntityManagerProvider.readOnly().
      * @return The list of Guests
      */
     @Override
     public List<Guest> getAllGuests(){
-        manager.getTransaction().begin();
-        Query query = manager.createNativeQuery("SELECT * FROM guest", Guest.class);
-        List<Guest> guests = (List<Guest>) query.getResultList();
-        manager.getTransaction().commit();
-        return guests;
+        return provider.readOnly(manager -> FetchPlans.all(manager, Guest.class, Guest.LISTING));
     }
 
     /**
@@ -120,14 +143,67 @@ public class JdbcGuestRepository implements GuestRepository {
     public void add(Guest guest) {
         try {
             if (this.findByID(guest.getID()) == null) {
-                manager.getTransaction().begin();
-                manager.persist(guest);
-                manager.getTransaction().commit();
+                provider.inTransaction(manager -> manager.persist(guest));
             }
             else System.out.println("Es gibt schon einen Benutzer mit dieser ID");
         } catch (NullPointerException ignored){}
     }
 
+    /**
+     * This method adds a Guest and signs it up for its Attractions in one transaction. <br>
+     * The INSERT of the Guest is flushed first, the primary key makes it fail if the ID exists, so no findByID() is needed
+     * and two threads can't both add the same ID. Only if the Guest was inserted, it is added to the Guest-lists of its
+     * Attractions (the join rows and the guest count), which are written at the commit of the same transaction. <br>
+     * If the insert fails, the persistence context is discarded with release(), it must not keep the Guest.
+     * Inside a unit of work a Guest whose ID exists makes the whole unit fail, because the failed INSERT can't be undone alone.
+     * @param guest Guest who will be added.
+     * @return true if the Guest was added, false otherwise
+     * @throws ConcurrentUpdateException if one of the Attractions was changed by someone else since it was read
+     */
+    @Override
+    public boolean insertIfAbsent(Guest guest) {
+        if (guest == null)
+            return false;
+        if (this.provider.get().getTransaction().isActive()) {
+            // inside a unit of work the insert joins its transaction and fails with it
+            this.provider.inTransaction(manager -> this.insert(manager, guest));
+            return true;
+        }
+        try {
+            this.provider.inTransaction(manager -> this.insert(manager, guest));
+            return true;
+        } catch (PersistenceException | IllegalStateException e) {
+            this.provider.release();
+            if (!isDuplicate(e))
+                System.out.println("Der Besucher konnte nicht gespeichert werden: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void insert(EntityManager manager, Guest guest) {
+        List<Attraction> attractions = new ArrayList<>();
+        for (Attraction attraction : guest.getAttractions())
+            attractions.add(JdbcBulk.managed(manager, Attraction.class, attraction, Attraction::getID));
+        guest.setAttractions(new ArrayList<>(attractions));
+        manager.persist(guest);
+        manager.flush();
+        // the Attractions own the sign-ups
+        for (Attraction attraction : attractions)
+            attraction.addGuest(guest);
+    }
+
+    /**
+     * This method checks if an insert failed because the ID exists already.
+     * @param e the exception of the insert
+     * @return true if the exception or one of its causes is a violated constraint or an EntityExistsException
+     */
+    private static boolean isDuplicate(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+            if (cause instanceof ConstraintViolationException || cause instanceof EntityExistsException)
+                return true;
+        return false;
+    }
+
     /**
      * This method deletes a Guest from the database.
      * @param id String - the ID of the Guest who will be eliminated
@@ -135,9 +211,7 @@ public class JdbcGuestRepository implements GuestRepository {
     @Override
     public void delete(String id){
         Guest guest = this.findByID(id);
-        manager.getTransaction().begin();
-        manager.remove(guest);
-        manager.getTransaction().commit();
+        provider.inTransaction(manager -> manager.remove(guest));
     }
 
     /**
@@ -149,17 +223,57 @@ public class JdbcGuestRepository implements GuestRepository {
     public void update(String idGuest, Guest guest){
         Guest g = this.findByID(idGuest);
         if (g!= null){
-            manager.getTransaction().begin();
-            g.setFirstName(guest.getFirstName());
-            g.setLastName(guest.getLastName());
-            g.setPassword(guest.getPassword());
-            g.setFinalSum(guest.getFinalSum());
-            g.setAttractions(guest.getAttractions());
-            g.setBirthday(guest.getBirthday());
-            manager.getTransaction().commit();
+            provider.inTransaction(manager -> copy(manager, g, guest));
         }
     }
 
+    /**
+     * This method copies the values of a Guest into the Guest loaded from the database. <br>
+     * The Attractions are taken from the EntityManager, the source may come from another persistence context.
+     * @param manager EntityManager which loaded the target
+     * @param target Guest - loaded Guest which will be changed
+     * @param source Guest - Guest with the new values
+     */
+    private static void copy(EntityManager manager, Guest target, Guest source) {
+        target.setFirstName(source.getFirstName());
+        target.setLastName(source.getLastName());
+        target.setPassword(source.getPassword());
+        target.setFinalSum(source.getFinalSum());
+        JdbcBulk.replace(manager, Attraction.class, target.getAttractions(), source.getAttractions(), Attraction::getID);
+        target.setBirthday(source.getBirthday());
+    }
+
+    /**
+     * This method adds several Guests to the database. <br>
+     * The Guests are written in chunks, each chunk in one transaction which is sent to the database in JDBC batches.
+     * @param guests the Guests which will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each Guest
+     */
+    @Override
+    public BulkResult addAll(Collection<Guest> guests) {
+        return JdbcBulk.addAll(this.provider, Guest.class, guests, Guest::getID);
+    }
+
+    /**
+     * This method updates several Guests in the database, in chunks like addAll().
+     * @param guests Map - the ID of each Guest which will be updated and the Guest with the new values
+     * @return BulkResult - UPDATED, NOT_FOUND or FAILED for each Guest
+     */
+    @Override
+    public BulkResult updateAll(Map<String, Guest> guests) {
+        return JdbcBulk.updateAll(this.provider, Guest.class, guests, Guest::getID, JdbcGuestRepository::copy);
+    }
+
+    /**
+     * This method deletes several Guests from the database, in chunks like addAll().
+     * @param ids the IDs of the Guests which will be deleted
+     * @return BulkResult - DELETED, NOT_FOUND or FAILED for each ID
+     */
+    @Override
+    public BulkResult deleteAll(Collection<String> ids) {
+        return JdbcBulk.deleteAll(this.provider, Guest.class, ids, Guest::getID);
+    }
+
     /**
      * This method returns the Guest who has the ID given as a parameter. <br>
      * @param idGuest String - the ID of the Guest who is searched
@@ -168,12 +282,63 @@ public class JdbcGuestRepository implements GuestRepository {
     @Override
     public Guest findByID(String idGuest) {
         try {
-            manager.getTransaction().begin();
-            Guest guest = manager.find(Guest.class, idGuest);
-            manager.getTransaction().commit();
-            return guest;
+            return provider.read(manager -> manager.find(Guest.class, idGuest));
         } catch (NoResultException e){
             return null;
         }
     }
+
+    /**
+     * This method reads out the Guests from the database ordered by ID as a lazy Stream. <br>
+     * The rows are fetched in batches of FETCH_SIZE through a cursor, which stays open in a transaction until the Stream is closed
+     * (see EntityManagerProvider.stream()).
+     * @return Stream of the Guests, it must be closed, e.g. with try-with-resources
+     */
+    @Override
+    public Stream<Guest> stream() {
+        return this.provider.stream(manager -> manager.createQuery("select g from Guest g order by g.ID", Guest.class)
+                .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                .getResultStream(), FETCH_SIZE);
+    }
+
+    /**
+     * This method reads out a page of the Guests ordered by ID from the database. <br>
+     * The IDs of the page are read first, then the Guests with the fetch plan Guest.LISTING (two queries).
+     * @param offset int - number of Guests which are skipped
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    public List<Guest> page(int offset, int limit) {
+        return provider.readOnly(manager -> FetchPlans.page(manager, Guest.class, Guest.LISTING, offset, limit));
+    }
+
+    /**
+     * This method reads out the Guests whose ID comes after the given ID from the database, ordered by ID. <br>
+     * The database continues at the given ID in the primary key index, the previous rows are not read again.
+     * The Guests are loaded with the fetch plan Guest.LISTING like in page().
+     * @param lastID String - ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    public List<Guest> pageAfter(String lastID, int limit) {
+        if (lastID == null)
+            return this.page(0, limit);
+        return provider.readOnly(manager -> FetchPlans.pageAfter(manager, Guest.class, Guest.LISTING, lastID, limit));
+    }
+
+    /**
+     * This method reads out a page of the Guests sorted descending by their sum, Guests with the same sum by ID. <br>
+     * The database sorts the Guests with the index guest_sum_idx and continues after the cursor,
+     * so every page costs the same, the Guests are loaded with the fetch plan Guest.LISTING.
+     * @param after SortCursor - sum and ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    public List<Guest> pageBySumDescending(SortCursor after, int limit) {
+        return provider.readOnly(manager -> FetchPlans.sortedAfter(manager, Guest.class, Guest.LISTING, "finalSum", true,
+                after == null ? null : after.getValue(), after == null ? null : after.getID(), limit));
+    }
 }
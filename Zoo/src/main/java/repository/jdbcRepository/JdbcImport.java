@@ -0,0 +1,142 @@
+package repository.jdbcRepository;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk import of many new rows (e.g. the pre-registrations of a season) into the database. <br>
+ * The rows are inserted with a StatelessSession: there is no persistence context which grows with the imported entities
+ * and has to be flushed and cleared, no dirty checking and no cascades. The inserts are sent as JDBC batches of
+ * hibernate.jdbc.batch_size statements. The tables are written one after the other (instructor, guest, attraction,
+ * attraction_guests), so every batch contains the same statement and the foreign keys already exist.
+ * The whole import runs in one transaction. The StatelessSession bypasses the second-level cache,
+ * so the cache is emptied after the import.
+ */
+public final class JdbcImport {
+    private static final String INSERT_SIGN_UP = "insert into attraction_guests (attraction_id, guest_id) values (?, ?)";
+    private static final String COUNT_GUESTS = "update attraction a set guest_count = "
+            + "(select count(*) from attraction_guests g where g.attraction_id = a.id) where a.id in (:ids)";
+
+    private JdbcImport() {}
+
+    /**
+     * This method inserts new Instructors, Attractions and Guests and the sign-ups between them. <br>
+     * The sign-ups are taken from the guestList of the Attractions and the Attractions of the Guests,
+     * they may refer to Attractions and Guests which are already in the database.
+     * The entities are stored as they are, e.g. the sums of the Guests and Instructors are not calculated again.
+     * If a row can't be inserted (e.g. an ID exists already), nothing is imported.
+     * @param provider EntityManagerProvider - of the Jdbc repositories
+     * @param instructors Instructors which will be inserted
+     * @param attractions Attractions which will be inserted, their Instructors must be inserted too or exist already
+     * @param guests Guests which will be inserted
+     * @return ImportReport - the number of inserted rows and the rows per second
+     */
+    public static ImportReport importAll(EntityManagerProvider provider, Collection<Instructor> instructors,
+                                         Collection<Attraction> attractions, Collection<Guest> guests) {
+        int batchSize = batchSize(provider.getFactory());
+        Set<List<String>> signUps = signUps(attractions, guests);
+        long start = System.nanoTime();
+        try (StatelessSession session = provider.getFactory().unwrap(SessionFactory.class).openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                instructors.forEach(session::insert);
+                guests.forEach(session::insert);
+                for (Attraction attraction : attractions) {
+                    attraction.updateGuestCount();
+                    session.insert(attraction);
+                }
+                // the last batch of the entities has to reach the database before the sign-ups refer to them
+                ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+                insertSignUps(session, signUps, batchSize);
+                countGuests(session, signUps, batchSize);
+                transaction.commit();
+                provider.evictCaches();
+                return new ImportReport(instructors.size(), attractions.size(), guests.size(), signUps.size(),
+                        System.nanoTime() - start, true);
+            } catch (RuntimeException e) {
+                if (transaction.isActive())
+                    transaction.rollback();
+                System.out.println("Der Import ist fehlgeschlagen: " + e.getMessage());
+                return new ImportReport(0, 0, 0, 0, System.nanoTime() - start, false);
+            }
+        }
+    }
+
+    /**
+     * This method collects the rows of attraction_guests (attraction ID, guest ID) from both sides of the relation, each row once.
+     */
+    private static Set<List<String>> signUps(Collection<Attraction> attractions, Collection<Guest> guests) {
+        Set<List<String>> signUps = new LinkedHashSet<>();
+        for (Attraction attraction : attractions)
+            if (attraction.guestList != null)
+                for (Guest guest : attraction.guestList)
+                    signUps.add(List.of(attraction.getID(), guest.getID()));
+        for (Guest guest : guests)
+            if (guest.getAttractions() != null)
+                for (Attraction attraction : guest.getAttractions())
+                    signUps.add(List.of(attraction.getID(), guest.getID()));
+        return signUps;
+    }
+
+    /**
+     * This method inserts the sign-ups with a JDBC batch, which is sent every batchSize rows.
+     */
+    private static void insertSignUps(StatelessSession session, Set<List<String>> signUps, int batchSize) {
+        if (signUps.isEmpty())
+            return;
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SIGN_UP)) {
+                int pending = 0;
+                for (List<String> signUp : signUps) {
+                    statement.setString(1, signUp.get(0));
+                    statement.setString(2, signUp.get(1));
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0)
+                    statement.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * This method updates the column guest_count of every Attraction with new sign-ups, from the rows of attraction_guests. <br>
+     * The imported Attractions are counted again too: a sign-up which is only in the Attractions of a Guest
+     * is not in the guestList the Attraction was inserted with.
+     */
+    private static void countGuests(StatelessSession session, Set<List<String>> signUps, int batchSize) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (List<String> signUp : signUps)
+            ids.add(signUp.get(0));
+        List<String> list = new ArrayList<>(ids);
+        for (int start = 0; start < list.size(); start += batchSize)
+            session.createNativeQuery(COUNT_GUESTS)
+                    .setParameterList("ids", list.subList(start, Math.min(start + batchSize, list.size())))
+                    .executeUpdate();
+    }
+
+    /**
+     * This method returns the size of the JDBC batches, hibernate.jdbc.batch_size of the persistence unit or JdbcBulk.CHUNK_SIZE.
+     */
+    private static int batchSize(EntityManagerFactory factory) {
+        Object value = factory.getProperties().get("hibernate.jdbc.batch_size");
+        return value == null ? JdbcBulk.CHUNK_SIZE : Integer.parseInt(value.toString().trim());
+    }
+}
@@ -1,20 +1,30 @@
 package repository.jdbcRepository;
 
+import domain.Attraction;
 import domain.Instructor;
+import org.hibernate.query.NativeQuery;
+import repository.BulkResult;
 import repository.InstructorRepository;
 
 import javax.persistence.*;
 import java.sql.*;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * JdbcInstructorRepository implements the interface InstructorRepository. The data is saved in the database.
  */
 public class JdbcInstructorRepository implements InstructorRepository {
     /**
-     * EntityManager - used for different operations in the database
+     * Number of rows which are fetched together when the Instructors are streamed.
      */
-    private EntityManager manager;
+    private static final int FETCH_SIZE = 100;
+    /**
+     * EntityManagerProvider - hands out the EntityManager used for the operations in the database
+     */
+    private final EntityManagerProvider provider;
 
     /**
      Constructor - constructs and initializes an JdbcInstructorRepository. <br>
@@ -22,8 +32,16 @@ public class JdbcInstructorRepository implements InstructorRepository {
      * @param persistenceName name of the used persistence
      */
     public JdbcInstructorRepository(String persistenceName) {
-        EntityManagerFactory factory = Persistence.createEntityManagerFactory(persistenceName);
-        this.manager =  factory.createEntityManager();
+        this(new EntityManagerProvider(persistenceName, ManagerMode.SHARED));
+    }
+
+    /**
+     * Constructor - constructs a JdbcInstructorRepository which gets its EntityManager from the given provider. <br>
+     * With ManagerMode.PER_THREAD the repositories can be used by several threads at the same time.
+     * @param provider EntityManagerProvider - shared by the Jdbc repositories
+     */
+    public JdbcInstructorRepository(EntityManagerProvider provider) {
+        this.provider = provider;
         // this.populateInstructors();
     }
 
@@ -38,23 +56,29 @@ public class JdbcInstructorRepository implements InstructorRepository {
         Instructor instructor5 = new Instructor("i5","Camila", "Pop", "password1");
         Instructor instructor6 = new Instructor("i6","Mircea", "Miron", "abcd1234");
 
-        manager.getTransaction().begin();
-        manager.persist(instructor1); manager.persist(instructor2); manager.persist(instructor3);
-        manager.persist(instructor4); manager.persist(instructor5); manager.persist(instructor6);
-        manager.getTransaction().commit();
+        this.importInstructors(List.of(instructor1, instructor2, instructor3, instructor4, instructor5, instructor6));
+    }
+
+    /**
+     * This method inserts many new Instructors with the bulk import of JdbcImport (JDBC batches, no persistence context). <br>
+     * If one of the Instructors exists already, none of them is inserted.
+     * @param instructors Instructors which will be inserted
+     * @return ImportReport - the number of inserted rows and the rows per second
+     */
+    public ImportReport importInstructors(Collection<Instructor> instructors) {
+        return JdbcImport.importAll(this.provider, instructors, List.of(), List.of());
     }
 
     /**
-     * This method reads out from the database and returns the list of Instructors.
+     * This method reads out from the database and returns the list of Instructors. <br>
+     * The Attractions are loaded with the fetch plan Instructor.LISTING in the same query.
+     * The result is kept in the query cache until an Instructor or Attraction is changed.
+     * The entities are loaded read-only, see EntityManagerProvider.readOnly().
      * @return The list of Instructors
      */
     @Override
     public List<Instructor> getAllInstructors() {
-        manager.getTransaction().begin();
-        Query query = manager.createNativeQuery("select * from instructor", Instructor.class);
-        List<Instructor> instructors = (List<Instructor>) query.getResultList();
-        manager.getTransaction().commit();
-        return instructors;
+        return provider.readOnly(manager -> FetchPlans.allCached(manager, Instructor.class, Instructor.LISTING));
     }
 
     /**
@@ -66,14 +90,50 @@ public class JdbcInstructorRepository implements InstructorRepository {
     public void add(Instructor instructor) {
         try{
             if (this.findByID(instructor.getID()) == null) {
-                manager.getTransaction().begin();
-                manager.persist(instructor);
-                manager.getTransaction().commit();
+                provider.inTransaction(manager -> manager.persist(instructor));
             }
             else System.out.println("Es gibt schon eine Instruktor mit dieser ID");
         }catch (NullPointerException ignored) {}
     }
 
+    /**
+     * This method adds an Instructor with one INSERT ... ON CONFLICT DO NOTHING statement, so the database checks the ID
+     * and inserts the row in one step and no findByID() is needed. <br>
+     * The given object is not managed by the EntityManager afterwards, findByID() reads the stored Instructor.
+     * Instructors who already have Attractions are added with persist(), so the relations are stored too.
+     * @param instructor Instructor who will be added.
+     * @return true if the Instructor was added, false otherwise
+     */
+    @Override
+    public boolean insertIfAbsent(Instructor instructor) {
+        if (instructor == null)
+            return false;
+        if (!instructor.getAttractions().isEmpty())
+            return InstructorRepository.super.insertIfAbsent(instructor);
+        EntityManager manager = this.provider.get();
+        try {
+            manager.getTransaction().begin();
+            // the primary key is the only unique key, so no conflict target is needed; H2 in PostgreSQL mode accepts only this form
+            int inserted = manager.createNativeQuery("insert into instructor (id, firstname, lastname, password, finalsum, version) values (?1, ?2, ?3, ?4, ?5, 0) on conflict do nothing")
+                    .unwrap(NativeQuery.class)
+                    // only the cache entries which depend on the table instructor are invalidated, not the whole cache
+                    .addSynchronizedEntityClass(Instructor.class)
+                    .setParameter(1, instructor.getID())
+                    .setParameter(2, instructor.getFirstName())
+                    .setParameter(3, instructor.getLastName())
+                    .setParameter(4, instructor.getPassword())
+                    .setParameter(5, instructor.getFinalSum())
+                    .executeUpdate();
+            manager.getTransaction().commit();
+            return inserted == 1;
+        } catch (PersistenceException e) {
+            if (manager.getTransaction().isActive())
+                manager.getTransaction().rollback();
+            System.out.println("Der Instruktor konnte nicht gespeichert werden: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * This method deletes an Instructor from the database.
      * @param id String - the ID of the Instructor who will be eliminated
@@ -81,9 +141,7 @@ public class JdbcInstructorRepository implements InstructorRepository {
     @Override
     public void delete(String id) {
         Instructor instructor = this.findByID(id);
-        manager.getTransaction().begin();
-        manager.remove(instructor);
-        manager.getTransaction().commit();
+        provider.inTransaction(manager -> manager.remove(instructor));
     }
 
     /**
@@ -96,16 +154,56 @@ public class JdbcInstructorRepository implements InstructorRepository {
         Instructor instr = this.findByID(idInstructor);
         if (instr != null)
         {
-            manager.getTransaction().begin();
-            instr.setFirstName(instructor.getFirstName());
-            instr.setLastName(instructor.getLastName());
-            instr.setPassword(instructor.getPassword());
-            instr.setFinalSum(instructor.getFinalSum());
-            instr.setAttractions(instructor.getAttractions());
-            manager.getTransaction().commit();
+            provider.inTransaction(manager -> copy(manager, instr, instructor));
         }
       }
 
+    /**
+     * This method copies the values of an Instructor into the Instructor loaded from the database. <br>
+     * The Attractions are taken from the EntityManager, the source may come from another persistence context.
+     * @param manager EntityManager which loaded the target
+     * @param target Instructor - loaded Instructor which will be changed
+     * @param source Instructor - Instructor with the new values
+     */
+    private static void copy(EntityManager manager, Instructor target, Instructor source) {
+        target.setFirstName(source.getFirstName());
+        target.setLastName(source.getLastName());
+        target.setPassword(source.getPassword());
+        target.setFinalSum(source.getFinalSum());
+        JdbcBulk.replace(manager, Attraction.class, target.getAttractions(), source.getAttractions(), Attraction::getID);
+    }
+
+    /**
+     * This method adds several Instructors to the database. <br>
+     * The Instructors are written in chunks, each chunk in one transaction which is sent to the database in JDBC batches.
+     * @param instructors the Instructors which will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED for each Instructor
+     */
+    @Override
+    public BulkResult addAll(Collection<Instructor> instructors) {
+        return JdbcBulk.addAll(this.provider, Instructor.class, instructors, Instructor::getID);
+    }
+
+    /**
+     * This method updates several Instructors in the database, in chunks like addAll().
+     * @param instructors Map - the ID of each Instructor which will be updated and the Instructor with the new values
+     * @return BulkResult - UPDATED, NOT_FOUND or FAILED for each Instructor
+     */
+    @Override
+    public BulkResult updateAll(Map<String, Instructor> instructors) {
+        return JdbcBulk.updateAll(this.provider, Instructor.class, instructors, Instructor::getID, JdbcInstructorRepository::copy);
+    }
+
+    /**
+     * This method deletes several Instructors from the database, in chunks like addAll().
+     * @param ids the IDs of the Instructors which will be deleted
+     * @return BulkResult - DELETED, NOT_FOUND or FAILED for each ID
+     */
+    @Override
+    public BulkResult deleteAll(Collection<String> ids) {
+        return JdbcBulk.deleteAll(this.provider, Instructor.class, ids, Instructor::getID);
+    }
+
     /**
      * This method returns the Instructor who has the ID given as a parameter. <br>
      * @param idInstructor String - the ID of the Instructor who is searched
@@ -114,19 +212,105 @@ public class JdbcInstructorRepository implements InstructorRepository {
     @Override
     public Instructor findByID(String idInstructor) {
         try{
-            manager.getTransaction().begin();
-            Instructor instructor = manager.find(Instructor.class, idInstructor);
-            manager.getTransaction().commit();
-            return instructor;
+            return provider.read(manager -> manager.find(Instructor.class, idInstructor));
         } catch (NoResultException e){
                 return null;}
     }
 
+    /**
+     * This method reads out the Instructors from the database ordered by ID as a lazy Stream. <br>
+     * The rows are fetched in batches of FETCH_SIZE through a cursor, which stays open in a transaction until the Stream is closed
+     * (see EntityManagerProvider.stream()).
+     * @return Stream of the Instructors, it must be closed, e.g. with try-with-resources
+     */
+    @Override
+    public Stream<Instructor> stream() {
+        return this.provider.stream(manager -> manager.createQuery("select i from Instructor i order by i.ID", Instructor.class)
+                .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                .getResultStream(), FETCH_SIZE);
+    }
+
+    /**
+     * This method reads out a page of the Instructors ordered by ID from the database. <br>
+     * The IDs of the page are read first, then the Instructors with the fetch plan Instructor.LISTING (two queries).
+     * @param offset int - number of Instructors which are skipped
+     * @param limit int - maximum number of Instructors in the page
+     * @return The list of at most limit Instructors
+     */
+    @Override
+    public List<Instructor> page(int offset, int limit) {
+        return provider.readOnly(manager -> FetchPlans.page(manager, Instructor.class, Instructor.LISTING, offset, limit));
+    }
+
+    /**
+     * This method reads out the Instructors whose ID comes after the given ID from the database, ordered by ID. <br>
+     * The database continues at the given ID in the primary key index, the previous rows are not read again.
+     * The Instructors are loaded with the fetch plan Instructor.LISTING like in page().
+     * @param lastID String - ID of the last Instructor of the previous page, null for the first page
+     * @param limit int - maximum number of Instructors in the page
+     * @return The list of at most limit Instructors
+     */
+    @Override
+    public List<Instructor> pageAfter(String lastID, int limit) {
+        if (lastID == null)
+            return this.page(0, limit);
+        return provider.readOnly(manager -> FetchPlans.pageAfter(manager, Instructor.class, Instructor.LISTING, lastID, limit));
+    }
+
+    /**
+     * This method calculates the sum of the incomes of the Instructors in the database with one aggregate query.
+     * @return Double - the sum of the incomes, 0 if there are no Instructors
+     */
+    @Override
+    public double getTotalIncome() {
+        return provider.read(manager -> aggregate(manager, "select sum(i.finalSum) from Instructor i"));
+    }
+
+    /**
+     * This method calculates the average income of the Instructors in the database with one aggregate query.
+     * @return Double - the average income, 0 if there are no Instructors
+     */
+    @Override
+    public double getAverageIncome() {
+        return provider.read(manager -> aggregate(manager, "select avg(i.finalSum) from Instructor i"));
+    }
+
+    /**
+     * This method reads out the Instructors whose income is higher than the average income. <br>
+     * The average is calculated by a subquery, so the database answers with one query.
+     * The Instructors are loaded with the fetch plan Instructor.LISTING.
+     * @return The list of Instructors with higher income than the average Instructor
+     */
+    @Override
+    public List<Instructor> getInstructorsAboveAverageIncome() {
+        return provider.readOnly(manager -> FetchPlans.where(manager, Instructor.class, Instructor.LISTING,
+                "e.finalSum > (select avg(a.finalSum) from Instructor a)", Map.of()));
+    }
+
+    /**
+     * This method runs a query which returns a single number, sum() and avg() return null if there are no rows.
+     * @param manager EntityManager - used for the query
+     * @param query String - the JPQL query
+     * @return Double - the result of the query or 0
+     */
+    private static double aggregate(EntityManager manager, String query) {
+        Number result = manager.createQuery(query, Number.class).getSingleResult();
+        return result == null ? 0 : result.doubleValue();
+    }
+
     /**
      * This method returns the EntityManager.
      * @return EntityManager of the repository
      */
     public EntityManager getManager() {
-        return manager;
+        return this.provider.get();
+    }
+
+    /**
+     * This method returns the EntityManagerProvider, which is shared by the Jdbc repositories.
+     * @return EntityManagerProvider of the repository
+     */
+    public EntityManagerProvider getProvider() {
+        return provider;
     }
 }
@@ -0,0 +1,169 @@
+package repository.jdbcRepository;
+
+import domain.Weekday;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import repository.AttractionSummary;
+import repository.GuestSummary;
+import repository.ListingQueries;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ListingQueries which read the shown columns with plain JDBC, next to the Jdbc repositories. <br>
+ * The rows are read with prepared statements and converted by the row mappers of this class into AttractionSummary
+ * and GuestSummary. No entity is created, so Hibernate neither hydrates entities nor keeps snapshots for the dirty check.
+ * The connections are taken from the ConnectionProvider of the persistence unit (the connection pool).
+ */
+public class JdbcListingQueries implements ListingQueries {
+    private static final String ATTRACTIONS = "select a.id, a.name, i.firstname, i.lastname, a.price, a.location, a.day, a.capacity, "
+            + "coalesce(a.guest_count, (select count(*) from attraction_guests g where g.attraction_id = a.id)) "
+            + "from attraction a left join instructor i on i.id = a.instructor_id "
+            + "where a.id > ? order by a.id limit ?";
+    private static final String GUESTS = "select g.id, g.firstname, g.lastname, g.birthday, g.finalsum "
+            + "from guest g where g.id > ? order by g.id limit ?";
+    private static final String ATTRACTIONS_OF_GUESTS = "select ag.guest_id, a.name, a.day, i.firstname, i.lastname "
+            + "from attraction_guests ag join attraction a on a.id = ag.attraction_id left join instructor i on i.id = a.instructor_id "
+            + "where ag.guest_id = any(?) order by ag.guest_id, a.id";
+
+    private final ConnectionProvider connections;
+
+    /**
+     * Constructor - constructs JdbcListingQueries which use the database of the given provider.
+     * @param provider EntityManagerProvider - of the Jdbc repositories
+     */
+    public JdbcListingQueries(EntityManagerProvider provider) {
+        this.connections = provider.getFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+    }
+
+    /**
+     * This method reads the views of the Attractions after the given ID with one query, the Instructor is joined.
+     * @param lastID String - ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit AttractionSummaries, empty if the database can't be read
+     */
+    @Override
+    public List<AttractionSummary> attractionsAfter(String lastID, int limit) {
+        Connection connection = null;
+        try {
+            connection = this.connections.getConnection();
+            List<AttractionSummary> attractions = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(ATTRACTIONS)) {
+                statement.setString(1, lastID == null ? "" : lastID);
+                statement.setInt(2, limit);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next())
+                        attractions.add(mapAttraction(rows));
+                }
+            }
+            return attractions;
+        } catch (SQLException e) {
+            System.out.println("Die Attraktionen konnten nicht gelesen werden: " + e.getMessage());
+            return List.of();
+        } finally {
+            this.release(connection);
+        }
+    }
+
+    /**
+     * This method reads the views of the Guests after the given ID with two queries:
+     * the Guests of the page, then the Attractions of these Guests.
+     * @param lastID String - ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit GuestSummaries, empty if the database can't be read
+     */
+    @Override
+    public List<GuestSummary> guestsAfter(String lastID, int limit) {
+        Connection connection = null;
+        try {
+            connection = this.connections.getConnection();
+            Map<String, Object[]> guests = new LinkedHashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(GUESTS)) {
+                statement.setString(1, lastID == null ? "" : lastID);
+                statement.setInt(2, limit);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next())
+                        guests.put(rows.getString(1), new Object[]{rows.getString(2), rows.getString(3), rows.getDate(4), rows.getDouble(5)});
+                }
+            }
+            Map<String, List<String>> attractions = new LinkedHashMap<>();
+            if (!guests.isEmpty())
+                try (PreparedStatement statement = connection.prepareStatement(ATTRACTIONS_OF_GUESTS)) {
+                    statement.setArray(1, connection.createArrayOf("varchar", guests.keySet().toArray()));
+                    try (ResultSet rows = statement.executeQuery()) {
+                        while (rows.next())
+                            attractions.computeIfAbsent(rows.getString(1), id -> new ArrayList<>()).add(describeAttraction(rows));
+                    }
+                }
+            List<GuestSummary> summaries = new ArrayList<>();
+            guests.forEach((id, values) -> summaries.add(mapGuest(id, values, attractions.getOrDefault(id, List.of()))));
+            return summaries;
+        } catch (SQLException e) {
+            System.out.println("Die Besucher konnten nicht gelesen werden: " + e.getMessage());
+            return List.of();
+        } finally {
+            this.release(connection);
+        }
+    }
+
+    /**
+     * Row mapper of the query ATTRACTIONS.
+     */
+    private static AttractionSummary mapAttraction(ResultSet row) throws SQLException {
+        return new AttractionSummary(row.getString(1), row.getString(2), name(row.getString(3), row.getString(4)),
+                row.getDouble(5), row.getString(6), weekday(row, 7), row.getInt(8), row.getInt(9));
+    }
+
+    /**
+     * Row mapper of the query GUESTS, the values of the row were kept until the Attractions of the Guest are read.
+     */
+    private static GuestSummary mapGuest(String id, Object[] values, List<String> attractions) {
+        Date birthday = (Date) values[2];
+        return new GuestSummary(id, (String) values[0], (String) values[1], birthday == null ? null : birthday.toLocalDate(),
+                (Double) values[3], attractions);
+    }
+
+    /**
+     * Row mapper of the query ATTRACTIONS_OF_GUESTS.
+     */
+    private static String describeAttraction(ResultSet row) throws SQLException {
+        Weekday day = weekday(row, 3);
+        return GuestSummary.describe(row.getString(2), day == null ? null : day.toString(), name(row.getString(4), row.getString(5)));
+    }
+
+    /**
+     * This method reads a Weekday, which is stored as its position in the enum (like Hibernate stores it).
+     */
+    private static Weekday weekday(ResultSet row, int column) throws SQLException {
+        int day = row.getInt(column);
+        return row.wasNull() ? null : Weekday.values()[day];
+    }
+
+    private static String name(String firstName, String lastName) {
+        return firstName == null && lastName == null ? null : firstName + ' ' + lastName;
+    }
+
+    /**
+     * This method ends the read transaction, if the connection has no auto-commit, and gives the connection back to the pool.
+     */
+    private void release(Connection connection) {
+        if (connection == null)
+            return;
+        try {
+            if (!connection.getAutoCommit())
+                connection.rollback();
+            this.connections.closeConnection(connection);
+        } catch (SQLException e) {
+            System.out.println("Die Verbindung konnte nicht geschlossen werden: " + e.getMessage());
+        }
+    }
+}
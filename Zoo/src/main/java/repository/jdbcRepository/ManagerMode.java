@@ -0,0 +1,17 @@
+package repository.jdbcRepository;
+
+/**
+ * Defines which EntityManager the Jdbc repositories use.
+ */
+public enum ManagerMode {
+    /**
+     * All repositories and threads use one EntityManager, every read runs in its own transaction.
+     * Only one thread may use the repositories at a time.
+     */
+    SHARED,
+    /**
+     * Each thread gets its own EntityManager from the shared EntityManagerFactory, the reads run without transaction.
+     * The EntityManager lives until the thread calls EntityManagerProvider.release() at the end of its request.
+     */
+    PER_THREAD
+}
@@ -0,0 +1,173 @@
+package repository.jdbcRepository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Versioned schema of the database. <br>
+ * The SQL scripts in src/main/resources/db/migration are executed in the order of their version, each script once:
+ * the applied versions are stored in the table schema_version. A script runs in one transaction together with its row
+ * in schema_version, the table is locked meanwhile, so two application nodes which start at the same time don't apply a script twice.
+ * New changes of the schema get a new script with the next version, an applied script is never changed.
+ */
+final class SchemaMigrations {
+    /**
+     * The scripts, the version of a script is its position in the list (starting with 1).
+     */
+    private static final List<String> SCRIPTS = List.of("V1__tables.sql", "V2__columns.sql", "V3__data.sql", "V4__indexes.sql");
+    /**
+     * The indexes which the queries of the Jdbc repositories need.
+     */
+    private static final List<String> EXPECTED_INDEXES = List.of(
+            "attraction_guests_pk", "attraction_guests_guest_idx", "attraction_instructor_idx", "attraction_day_idx",
+            "attraction_price_idx", "attraction_guest_count_idx", "attraction_free_places_idx", "guest_sum_idx", "instructor_sum_idx");
+
+    private SchemaMigrations() {}
+
+    /**
+     * This method executes the scripts which were not applied to the database yet.
+     * @param factory EntityManagerFactory of the persistence unit
+     */
+    static void migrate(EntityManagerFactory factory) {
+        EntityManager manager = factory.createEntityManager();
+        try {
+            manager.unwrap(Session.class).doWork(connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("create table if not exists schema_version (version int4 not null primary key, "
+                            + "script varchar(255) not null, applied_at timestamp not null default now())");
+                    connection.commit();
+                    for (int version = 1; version <= SCRIPTS.size(); version++) {
+                        statement.execute("lock table schema_version in exclusive mode");
+                        if (!isApplied(connection, version))
+                            apply(connection, statement, version, SCRIPTS.get(version - 1));
+                        connection.commit();
+                    }
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+        } finally {
+            manager.close();
+        }
+    }
+
+    private static boolean isApplied(Connection connection, int version) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement("select 1 from schema_version where version = ?")) {
+            query.setInt(1, version);
+            try (ResultSet result = query.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    private static void apply(Connection connection, Statement statement, int version, String script) throws SQLException {
+        for (String sql : statements(read(script)))
+            statement.execute(sql);
+        try (PreparedStatement insert = connection.prepareStatement("insert into schema_version (version, script) values (?, ?)")) {
+            insert.setInt(1, version);
+            insert.setString(2, script);
+            insert.executeUpdate();
+        }
+        System.out.println("Schema-Version " + version + " wurde eingespielt: " + script);
+    }
+
+    /**
+     * This method reads a script from the classpath.
+     * @param script String - name of the script in db/migration
+     * @return the content of the script
+     */
+    private static String read(String script) {
+        try (InputStream input = SchemaMigrations.class.getResourceAsStream("/db/migration/" + script)) {
+            if (input == null)
+                throw new IllegalStateException("Das Skript wurde nicht gefunden: " + script);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method splits a script into its statements. Lines starting with "--" are comments, a statement ends with ";".
+     * A ";" between two "$$" belongs to the statement, e.g. to a "do $$ ... $$" block.
+     * @param script String - content of the script
+     * @return the list of the statements without the ";"
+     */
+    static List<String> statements(String script) {
+        StringBuilder withoutComments = new StringBuilder();
+        for (String line : script.split("\\R"))
+            if (!line.trim().startsWith("--"))
+                withoutComments.append(line).append('\n');
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        boolean quoted = false;
+        String text = withoutComments.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '$' && text.startsWith("$$", i)) {
+                quoted = !quoted;
+                statement.append("$$");
+                i++;
+            } else if (c == ';' && !quoted) {
+                if (!statement.toString().isBlank())
+                    statements.add(statement.toString().trim());
+                statement.setLength(0);
+            } else
+                statement.append(c);
+        }
+        if (!statement.toString().isBlank())
+            statements.add(statement.toString().trim());
+        return statements;
+    }
+
+    /**
+     * This method checks if the indexes in EXPECTED_INDEXES exist and prints a warning for each missing index. <br>
+     * The check reads the catalog of PostgreSQL, for another database only a warning is printed that it is not possible.
+     * @param factory EntityManagerFactory of the persistence unit
+     * @return the names of the missing indexes
+     */
+    static List<String> checkIndexes(EntityManagerFactory factory) {
+        EntityManager manager = factory.createEntityManager();
+        try {
+            List<String> missing = new ArrayList<>();
+            manager.unwrap(Session.class).doWork(connection -> {
+                Set<String> existing = new HashSet<>();
+                try (Statement statement = connection.createStatement();
+                     ResultSet result = statement.executeQuery("select indexname from pg_indexes where schemaname = current_schema()")) {
+                    while (result.next())
+                        existing.add(result.getString(1));
+                }
+                for (String index : EXPECTED_INDEXES)
+                    if (!existing.contains(index))
+                        missing.add(index);
+            });
+            for (String index : missing)
+                System.out.println("Warnung: der Index " + index + " fehlt, die Abfragen lesen die ganze Tabelle");
+            return missing;
+        } catch (RuntimeException e) {
+            System.out.println("Warnung: die Indexe konnten nicht geprüft werden: " + e.getMessage());
+            return List.of();
+        } finally {
+            manager.close();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package repository.journal;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import domain.Weekday;
+import repository.AttractionRepository;
+import repository.GuestRepository;
+import repository.InstructorRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records of the journal and their replay. <br>
+ * A record holds the type of the change, the ID which was given to the repository and the complete new state of the object.
+ * Relations are stored as IDs: an Attraction stores the ID of its Instructor, a Guest the IDs of its Attractions.
+ * The Guest list of an Attraction and the Attraction list of an Instructor are rebuilt from these IDs,
+ * so a sign-up is complete as soon as the record of the Guest is in the journal.
+ */
+final class JournalRecords {
+    static final byte ADD_INSTRUCTOR = 1;
+    static final byte UPDATE_INSTRUCTOR = 2;
+    static final byte DELETE_INSTRUCTOR = 3;
+    static final byte ADD_ATTRACTION = 4;
+    static final byte UPDATE_ATTRACTION = 5;
+    static final byte DELETE_ATTRACTION = 6;
+    static final byte ADD_GUEST = 7;
+    static final byte UPDATE_GUEST = 8;
+    static final byte DELETE_GUEST = 9;
+
+    private JournalRecords() {}
+
+    static byte[] instructor(byte type, String id, Instructor instructor) {
+        return write(out -> {
+            out.writeByte(type);
+            writeString(out, id);
+            writeString(out, instructor.getID());
+            writeString(out, instructor.getFirstName());
+            writeString(out, instructor.getLastName());
+            writeString(out, instructor.getPassword());
+            out.writeDouble(instructor.getFinalSum());
+        });
+    }
+
+    static byte[] attraction(byte type, String id, Attraction attraction) {
+        return write(out -> {
+            out.writeByte(type);
+            writeString(out, id);
+            writeString(out, attraction.getID());
+            writeString(out, attraction.name);
+            out.writeInt(attraction.getCapacity());
+            writeString(out, attraction.getInstructor() == null ? null : attraction.getInstructor().getID());
+            out.writeDouble(attraction.price);
+            writeString(out, attraction.location);
+            out.writeByte(attraction.day == null ? -1 : attraction.day.ordinal());
+        });
+    }
+
+    static byte[] guest(byte type, String id, Guest guest) {
+        return write(out -> {
+            out.writeByte(type);
+            writeString(out, id);
+            writeString(out, guest.getID());
+            writeString(out, guest.getFirstName());
+            writeString(out, guest.getLastName());
+            writeString(out, guest.getPassword());
+            out.writeLong(guest.getBirthday() == null ? Long.MIN_VALUE : guest.getBirthday().toEpochDay());
+            out.writeDouble(guest.getFinalSum());
+            // the list can be changed by a sign-up in another thread
+            List<String> attractionIDs;
+            synchronized (guest) {
+                attractionIDs = guest.getAttractions().stream().map(Attraction::getID).toList();
+            }
+            out.writeInt(attractionIDs.size());
+            for (String attractionID : attractionIDs)
+                writeString(out, attractionID);
+        });
+    }
+
+    static byte[] delete(byte type, String id) {
+        return write(out -> {
+            out.writeByte(type);
+            writeString(out, id);
+        });
+    }
+
+    /**
+     * This method returns the records which describe the complete content of the repositories, used for a checkpoint.
+     */
+    static List<byte[]> state(InstructorRepository instructorRepository, AttractionRepository attractionRepository, GuestRepository guestRepository) {
+        List<byte[]> records = new ArrayList<>();
+        for (Instructor instructor : instructorRepository.getAllInstructors())
+            records.add(instructor(ADD_INSTRUCTOR, instructor.getID(), instructor));
+        for (Attraction attraction : attractionRepository.getAllAttractions())
+            records.add(attraction(ADD_ATTRACTION, attraction.getID(), attraction));
+        for (Guest guest : guestRepository.getAllGuests())
+            records.add(guest(ADD_GUEST, guest.getID(), guest));
+        return records;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] write(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * The state which results from replaying records. The records change the maps with the same rules as the InMemory repositories:
+     * add doesn't overwrite, update and delete of an unknown ID do nothing.
+     */
+    static class Replay {
+        private final Map<String, Instructor> instructors = new LinkedHashMap<>();
+        private final Map<String, Attraction> attractions = new LinkedHashMap<>();
+        private final Map<String, String> instructorOfAttraction = new LinkedHashMap<>();
+        private final Map<String, Guest> guests = new LinkedHashMap<>();
+        private final Map<String, List<String>> attractionsOfGuest = new LinkedHashMap<>();
+
+        /**
+         * This method applies one record.
+         * @param record byte[] - record of the journal or the checkpoint
+         */
+        void apply(byte[] record) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+                byte type = in.readByte();
+                String id = readString(in);
+                switch (type) {
+                    case ADD_INSTRUCTOR, UPDATE_INSTRUCTOR -> {
+                        Instructor instructor = new Instructor(readString(in), readString(in), readString(in), readString(in));
+                        instructor.setFinalSum(in.readDouble());
+                        put(this.instructors, type == ADD_INSTRUCTOR, id, instructor.getID(), instructor);
+                    }
+                    case ADD_ATTRACTION, UPDATE_ATTRACTION -> {
+                        String newID = readString(in);
+                        String name = readString(in);
+                        int capacity = in.readInt();
+                        String instructorID = readString(in);
+                        double price = in.readDouble();
+                        String location = readString(in);
+                        byte day = in.readByte();
+                        Attraction attraction = new Attraction(newID, name, capacity, null, new ArrayList<>(), price, location,
+                                day < 0 ? null : Weekday.values()[day]);
+                        if (put(this.attractions, type == ADD_ATTRACTION, id, newID, attraction)) {
+                            this.instructorOfAttraction.remove(id);
+                            this.instructorOfAttraction.put(newID, instructorID);
+                        }
+                    }
+                    case ADD_GUEST, UPDATE_GUEST -> {
+                        String newID = readString(in);
+                        String firstName = readString(in);
+                        String lastName = readString(in);
+                        String password = readString(in);
+                        long birthday = in.readLong();
+                        double finalSum = in.readDouble();
+                        int count = in.readInt();
+                        List<String> attractionIDs = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++)
+                            attractionIDs.add(readString(in));
+                        Guest guest = new Guest(newID, firstName, lastName, password,
+                                birthday == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(birthday), finalSum, new ArrayList<>());
+                        if (put(this.guests, type == ADD_GUEST, id, newID, guest)) {
+                            this.attractionsOfGuest.remove(id);
+                            this.attractionsOfGuest.put(newID, attractionIDs);
+                        }
+                    }
+                    case DELETE_INSTRUCTOR -> this.instructors.remove(id);
+                    case DELETE_ATTRACTION -> {
+                        this.attractions.remove(id);
+                        this.instructorOfAttraction.remove(id);
+                    }
+                    case DELETE_GUEST -> {
+                        this.guests.remove(id);
+                        this.attractionsOfGuest.remove(id);
+                    }
+                    default -> throw new IllegalStateException("Unbekannter Eintrag im Journal: " + type);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return true if the map was changed
+         */
+        private static <E> boolean put(Map<String, E> map, boolean add, String id, String newID, E element) {
+            if (add) {
+                if (map.containsKey(newID))
+                    return false;
+            } else {
+                if (!map.containsKey(id))
+                    return false;
+                if (!id.equals(newID))
+                    map.remove(id);
+            }
+            map.put(newID, element);
+            return true;
+        }
+
+        /**
+         * This method replaces the content of the repositories with the replayed state. <br>
+         * The relations between the objects are rebuilt from the stored IDs.
+         */
+        void restore(InstructorRepository instructorRepository, AttractionRepository attractionRepository, GuestRepository guestRepository) {
+            for (Guest guest : guestRepository.getAllGuests())
+                guestRepository.delete(guest.getID());
+            for (Attraction attraction : attractionRepository.getAllAttractions())
+                attractionRepository.delete(attraction.getID());
+            for (Instructor instructor : instructorRepository.getAllInstructors())
+                instructorRepository.delete(instructor.getID());
+
+            for (Attraction attraction : this.attractions.values()) {
+                Instructor instructor = this.instructors.get(this.instructorOfAttraction.get(attraction.getID()));
+                attraction.setInstructor(instructor);
+                if (instructor != null)
+                    instructor.getAttractions().add(attraction);
+            }
+            for (Guest guest : this.guests.values())
+                for (String attractionID : this.attractionsOfGuest.get(guest.getID())) {
+                    Attraction attraction = this.attractions.get(attractionID);
+                    if (attraction != null) {
+                        guest.getAttractions().add(attraction);
+                        attraction.addGuest(guest);
+                    }
+                }
+
+            this.instructors.values().forEach(instructorRepository::add);
+            this.attractions.values().forEach(attractionRepository::add);
+            this.guests.values().forEach(guestRepository::add);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package repository.journal;
+
+import domain.Attraction;
+import domain.Weekday;
+import repository.AttractionRepository;
+import repository.SortCursor;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * AttractionRepository which writes every change into the WriteAheadLog of the JournaledRepositories
+ * and passes it to the wrapped repository. The queries are answered by the wrapped repository.
+ */
+class JournaledAttractionRepository implements AttractionRepository {
+    private final JournaledRepositories journal;
+    private final AttractionRepository attractionRepository;
+
+    /**
+     * Constructor - constructs a JournaledAttractionRepository.
+     * @param journal JournaledRepositories - the log of the changes
+     * @param attractionRepository AttractionRepository - keeps the Attractions
+     */
+    JournaledAttractionRepository(JournaledRepositories journal, AttractionRepository attractionRepository) {
+        this.journal = journal;
+        this.attractionRepository = attractionRepository;
+    }
+
+    @Override
+    public List<Attraction> getAllAttractions() {
+        return this.attractionRepository.getAllAttractions();
+    }
+
+    @Override
+    public List<Attraction> getAttractionsFromDay(Weekday weekday) {
+        return this.attractionRepository.getAttractionsFromDay(weekday);
+    }
+
+    @Override
+    public List<Attraction> getAttractionsWithPriceAtMost(double price) {
+        return this.attractionRepository.getAttractionsWithPriceAtMost(price);
+    }
+
+    @Override
+    public List<Attraction> getAttractionsWithFreePlaces() {
+        return this.attractionRepository.getAttractionsWithFreePlaces();
+    }
+
+    @Override
+    public Stream<Attraction> stream() {
+        return this.attractionRepository.stream();
+    }
+
+    @Override
+    public List<Attraction> page(int offset, int limit) {
+        return this.attractionRepository.page(offset, limit);
+    }
+
+    @Override
+    public List<Attraction> pageAfter(String lastID, int limit) {
+        return this.attractionRepository.pageAfter(lastID, limit);
+    }
+
+    @Override
+    public List<Attraction> pageByPrice(SortCursor after, int limit) {
+        return this.attractionRepository.pageByPrice(after, limit);
+    }
+
+    @Override
+    public List<Attraction> pageByNrOfGuests(SortCursor after, int limit) {
+        return this.attractionRepository.pageByNrOfGuests(after, limit);
+    }
+
+    @Override
+    public void add(Attraction attraction) {
+        try {
+            this.journal.log(JournalRecords.attraction(JournalRecords.ADD_ATTRACTION, attraction.getID(), attraction),
+                    () -> this.attractionRepository.add(attraction));
+        } catch (NullPointerException ignored) {}
+    }
+
+    @Override
+    public boolean insertIfAbsent(Attraction attraction) {
+        if (attraction == null)
+            return false;
+        return this.journal.logIf(JournalRecords.attraction(JournalRecords.ADD_ATTRACTION, attraction.getID(), attraction),
+                () -> this.attractionRepository.insertIfAbsent(attraction));
+    }
+
+    @Override
+    public void delete(String id) {
+        this.journal.log(JournalRecords.delete(JournalRecords.DELETE_ATTRACTION, id), () -> this.attractionRepository.delete(id));
+    }
+
+    @Override
+    public void update(String id, Attraction attraction) {
+        this.journal.log(JournalRecords.attraction(JournalRecords.UPDATE_ATTRACTION, id, attraction),
+                () -> this.attractionRepository.update(id, attraction));
+    }
+
+    @Override
+    public Attraction findByID(String id) {
+        return this.attractionRepository.findByID(id);
+    }
+}
@@ -0,0 +1,85 @@
+package repository.journal;
+
+import domain.Guest;
+import repository.GuestRepository;
+import repository.SortCursor;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * GuestRepository which writes every change into the WriteAheadLog of the JournaledRepositories
+ * and passes it to the wrapped repository. <br>
+ * The record of a Guest contains the IDs of its Attractions, so the update of the Guest in
+ * RegistrationSystem.signUpForAttraction() is the record which makes a sign-up durable.
+ */
+class JournaledGuestRepository implements GuestRepository {
+    private final JournaledRepositories journal;
+    private final GuestRepository guestRepository;
+
+    /**
+     * Constructor - constructs a JournaledGuestRepository.
+     * @param journal JournaledRepositories - the log of the changes
+     * @param guestRepository GuestRepository - keeps the Guests
+     */
+    JournaledGuestRepository(JournaledRepositories journal, GuestRepository guestRepository) {
+        this.journal = journal;
+        this.guestRepository = guestRepository;
+    }
+
+    @Override
+    public List<Guest> getAllGuests() {
+        return this.guestRepository.getAllGuests();
+    }
+
+    @Override
+    public Stream<Guest> stream() {
+        return this.guestRepository.stream();
+    }
+
+    @Override
+    public List<Guest> page(int offset, int limit) {
+        return this.guestRepository.page(offset, limit);
+    }
+
+    @Override
+    public List<Guest> pageAfter(String lastID, int limit) {
+        return this.guestRepository.pageAfter(lastID, limit);
+    }
+
+    @Override
+    public List<Guest> pageBySumDescending(SortCursor after, int limit) {
+        return this.guestRepository.pageBySumDescending(after, limit);
+    }
+
+    @Override
+    public void add(Guest guest) {
+        try {
+            this.journal.log(JournalRecords.guest(JournalRecords.ADD_GUEST, guest.getID(), guest),
+                    () -> this.guestRepository.add(guest));
+        } catch (NullPointerException ignored) {}
+    }
+
+    @Override
+    public boolean insertIfAbsent(Guest guest) {
+        if (guest == null)
+            return false;
+        return this.journal.logIf(JournalRecords.guest(JournalRecords.ADD_GUEST, guest.getID(), guest),
+                () -> this.guestRepository.insertIfAbsent(guest));
+    }
+
+    @Override
+    public void delete(String id) {
+        this.journal.log(JournalRecords.delete(JournalRecords.DELETE_GUEST, id), () -> this.guestRepository.delete(id));
+    }
+
+    @Override
+    public void update(String id, Guest guest) {
+        this.journal.log(JournalRecords.guest(JournalRecords.UPDATE_GUEST, id, guest), () -> this.guestRepository.update(id, guest));
+    }
+
+    @Override
+    public Guest findByID(String id) {
+        return this.guestRepository.findByID(id);
+    }
+}
@@ -0,0 +1,93 @@
+package repository.journal;
+
+import domain.Instructor;
+import repository.InstructorRepository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * InstructorRepository which writes every change into the WriteAheadLog of the JournaledRepositories
+ * and passes it to the wrapped repository.
+ */
+class JournaledInstructorRepository implements InstructorRepository {
+    private final JournaledRepositories journal;
+    private final InstructorRepository instructorRepository;
+
+    /**
+     * Constructor - constructs a JournaledInstructorRepository.
+     * @param journal JournaledRepositories - the log of the changes
+     * @param instructorRepository InstructorRepository - keeps the Instructors
+     */
+    JournaledInstructorRepository(JournaledRepositories journal, InstructorRepository instructorRepository) {
+        this.journal = journal;
+        this.instructorRepository = instructorRepository;
+    }
+
+    @Override
+    public List<Instructor> getAllInstructors() {
+        return this.instructorRepository.getAllInstructors();
+    }
+
+    @Override
+    public Stream<Instructor> stream() {
+        return this.instructorRepository.stream();
+    }
+
+    @Override
+    public List<Instructor> page(int offset, int limit) {
+        return this.instructorRepository.page(offset, limit);
+    }
+
+    @Override
+    public List<Instructor> pageAfter(String lastID, int limit) {
+        return this.instructorRepository.pageAfter(lastID, limit);
+    }
+
+    @Override
+    public double getTotalIncome() {
+        return this.instructorRepository.getTotalIncome();
+    }
+
+    @Override
+    public double getAverageIncome() {
+        return this.instructorRepository.getAverageIncome();
+    }
+
+    @Override
+    public List<Instructor> getInstructorsAboveAverageIncome() {
+        return this.instructorRepository.getInstructorsAboveAverageIncome();
+    }
+
+    @Override
+    public void add(Instructor instructor) {
+        try {
+            this.journal.log(JournalRecords.instructor(JournalRecords.ADD_INSTRUCTOR, instructor.getID(), instructor),
+                    () -> this.instructorRepository.add(instructor));
+        } catch (NullPointerException ignored) {}
+    }
+
+    @Override
+    public boolean insertIfAbsent(Instructor instructor) {
+        if (instructor == null)
+            return false;
+        return this.journal.logIf(JournalRecords.instructor(JournalRecords.ADD_INSTRUCTOR, instructor.getID(), instructor),
+                () -> this.instructorRepository.insertIfAbsent(instructor));
+    }
+
+    @Override
+    public void delete(String id) {
+        this.journal.log(JournalRecords.delete(JournalRecords.DELETE_INSTRUCTOR, id), () -> this.instructorRepository.delete(id));
+    }
+
+    @Override
+    public void update(String id, Instructor instructor) {
+        this.journal.log(JournalRecords.instructor(JournalRecords.UPDATE_INSTRUCTOR, id, instructor),
+                () -> this.instructorRepository.update(id, instructor));
+    }
+
+    @Override
+    public Instructor findByID(String id) {
+        return this.instructorRepository.findByID(id);
+    }
+}
@@ -0,0 +1,123 @@
+package repository.journal;
+
+import repository.AttractionRepository;
+import repository.GuestRepository;
+import repository.InstructorRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Makes the content of three repositories durable with a WriteAheadLog. <br>
+ * The repositories returned by this class write every add, update and delete into the log before they return,
+ * then they pass the change to the wrapped repositories (usually the InMemory repositories). <br>
+ * At the start the content of the wrapped repositories is replaced by the last checkpoint and the log after it.
+ * If there is no checkpoint yet, the current content of the wrapped repositories becomes the first checkpoint.
+ * After checkpointInterval records a new checkpoint is written, so the start only has to replay a short log.
+ */
+public class JournaledRepositories implements Closeable {
+    private final WriteAheadLog log;
+    private final int checkpointInterval;
+
+    private final InstructorRepository instructors;
+    private final AttractionRepository attractions;
+    private final GuestRepository guests;
+
+    private final JournaledInstructorRepository instructorRepository;
+    private final JournaledAttractionRepository attractionRepository;
+    private final JournaledGuestRepository guestRepository;
+
+    /**
+     * Constructor - opens the log and restores the content of the repositories.
+     * @param directory Path - directory of the log and the checkpoint
+     * @param syncPolicy SyncPolicy - when the log is written to the disk
+     * @param syncIntervalMillis long - interval of the fsync in milliseconds, only used with SyncPolicy.PERIODIC
+     * @param checkpointInterval int - number of records after which a checkpoint is written
+     * @param instructorRepository InstructorRepository which keeps the Instructors
+     * @param attractionRepository AttractionRepository which keeps the Attractions
+     * @param guestRepository GuestRepository which keeps the Guests
+     */
+    public JournaledRepositories(Path directory, SyncPolicy syncPolicy, long syncIntervalMillis, int checkpointInterval,
+                                 InstructorRepository instructorRepository, AttractionRepository attractionRepository, GuestRepository guestRepository) {
+        this.log = new WriteAheadLog(directory, syncPolicy, syncIntervalMillis);
+        this.checkpointInterval = checkpointInterval;
+        this.instructors = instructorRepository;
+        this.attractions = attractionRepository;
+        this.guests = guestRepository;
+
+        List<byte[]> records = this.log.readAll();
+        if (this.log.getGeneration() == 0 && records.isEmpty()) {
+            this.checkpoint();
+        } else {
+            JournalRecords.Replay replay = new JournalRecords.Replay();
+            records.forEach(replay::apply);
+            replay.restore(instructorRepository, attractionRepository, guestRepository);
+        }
+
+        this.instructorRepository = new JournaledInstructorRepository(this, instructorRepository);
+        this.attractionRepository = new JournaledAttractionRepository(this, attractionRepository);
+        this.guestRepository = new JournaledGuestRepository(this, guestRepository);
+    }
+
+    /**
+     * This method writes a record to the log and executes the change. A checkpoint is written if the log is long enough.
+     * @param record byte[] - record which describes the change
+     * @param change Runnable - the change in the wrapped repository
+     */
+    void log(byte[] record, Runnable change) {
+        if (this.log.append(record, change) >= this.checkpointInterval)
+            this.checkpoint();
+    }
+
+    /**
+     * This method executes a change which can fail and writes its record only if the change was done.
+     * @param record byte[] - record which describes the change
+     * @param change BooleanSupplier - the change in the wrapped repository, returns false if nothing was changed
+     * @return the result of the change
+     */
+    boolean logIf(byte[] record, BooleanSupplier change) {
+        int sinceCheckpoint = this.log.appendIf(record, change);
+        if (sinceCheckpoint >= this.checkpointInterval)
+            this.checkpoint();
+        return sinceCheckpoint >= 0;
+    }
+
+    /**
+     * This method writes a checkpoint with the content of the repositories and empties the log.
+     */
+    public void checkpoint() {
+        this.log.checkpoint(() -> JournalRecords.state(this.instructors, this.attractions, this.guests));
+    }
+
+    /**
+     * @return InstructorRepository which writes its changes into the log
+     */
+    public InstructorRepository getInstructorRepository() {
+        return instructorRepository;
+    }
+
+    /**
+     * @return AttractionRepository which writes its changes into the log
+     */
+    public AttractionRepository getAttractionRepository() {
+        return attractionRepository;
+    }
+
+    /**
+     * @return GuestRepository which writes its changes into the log
+     */
+    public GuestRepository getGuestRepository() {
+        return guestRepository;
+    }
+
+    /**
+     * This method writes the log to the disk and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        this.log.close();
+    }
+}
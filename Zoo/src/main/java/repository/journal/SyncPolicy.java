@@ -0,0 +1,21 @@
+package repository.journal;
+
+/**
+ * Defines when the records of the WriteAheadLog are written to the disk (fsync).
+ */
+public enum SyncPolicy {
+    /**
+     * Every change waits until its record is on the disk. Nothing is lost, but every change costs one fsync.
+     */
+    PER_OPERATION,
+    /**
+     * Every change waits until its record is on the disk, but the changes which arrive during an fsync
+     * are written together by the next fsync (group commit).
+     */
+    GROUPED,
+    /**
+     * The changes don't wait, the log is written to the disk periodically.
+     * After a crash the changes of the last interval can be lost.
+     */
+    PERIODIC
+}
@@ -0,0 +1,391 @@
+package repository.journal;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of changes with checkpoints. <br>
+ * The directory contains two files:
+ * <ul>
+ *     <li>journal.log - the records written since the last checkpoint</li>
+ *     <li>checkpoint.dat - the complete state at the last checkpoint</li>
+ * </ul>
+ * Both files start with the number of the checkpoint (generation), followed by records.
+ * A record is stored as its length, its CRC32 checksum and its bytes, so a record which was only partly written
+ * before a crash is recognized and cut off. <br>
+ * A record is written before its change is executed, so no change is visible which isn't in the log. <br>
+ * A checkpoint is first written to a temporary file which then replaces checkpoint.dat, afterwards the log is emptied.
+ * If the program stops between these steps, the log still has the old generation and is ignored at the next start.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final String LOG_FILE = "journal.log";
+    private static final String CHECKPOINT_FILE = "checkpoint.dat";
+    private static final String CHECKPOINT_TEMP_FILE = "checkpoint.tmp";
+    private static final int GENERATION_SIZE = 8;
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final SyncPolicy syncPolicy;
+    private final FileChannel log;
+    /**
+     * Writes the log to the disk if the SyncPolicy is PERIODIC.
+     */
+    private final ScheduledExecutorService syncer;
+    private long generation;
+    /**
+     * Number of records since the last checkpoint.
+     */
+    private int recordsSinceCheckpoint;
+
+    /**
+     * Number of the last appended record, guarded by this.
+     */
+    private long written;
+    /**
+     * Number of the last record which is on the disk, guarded by syncLock.
+     */
+    private long synced;
+    /**
+     * True while a thread executes an fsync for the others, guarded by syncLock.
+     */
+    private boolean syncing;
+    private final Object syncLock = new Object();
+
+    /**
+     * Constructor - opens the log in the given directory, missing files are created.
+     * @param directory Path - directory of the log and the checkpoint
+     * @param syncPolicy SyncPolicy - when the records are written to the disk
+     * @param syncIntervalMillis long - interval of the fsync in milliseconds, only used with SyncPolicy.PERIODIC
+     */
+    public WriteAheadLog(Path directory, SyncPolicy syncPolicy, long syncIntervalMillis) {
+        this.directory = directory;
+        this.syncPolicy = syncPolicy;
+        try {
+            Files.createDirectories(directory);
+            Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+            this.generation = Files.exists(checkpoint) ? readGeneration(checkpoint) : 0;
+            this.log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (this.log.size() < GENERATION_SIZE || readGeneration(this.log) != this.generation)
+                this.resetLog();
+            this.log.position(this.log.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (syncPolicy == SyncPolicy.PERIODIC) {
+            this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.syncer.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    /**
+     * This method returns the number of the last checkpoint.
+     * @return long - 0 if no checkpoint was written yet
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * This method reads the records of the last checkpoint and the records of the log after it. <br>
+     * A damaged record at the end of the log is removed, with it the rest of the log.
+     * @return list of the records, first the checkpoint, then the log
+     */
+    public synchronized List<byte[]> readAll() {
+        List<byte[]> records = new ArrayList<>();
+        try {
+            Path checkpoint = this.directory.resolve(CHECKPOINT_FILE);
+            if (Files.exists(checkpoint))
+                try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.READ)) {
+                    readRecords(channel, records);
+                }
+            long end = readRecords(this.log, records);
+            this.recordsSinceCheckpoint = 0;
+            if (end < this.log.size()) {
+                System.out.println("Das Journal ist am Ende beschädigt, " + (this.log.size() - end) + " Bytes werden verworfen");
+                this.log.truncate(end);
+                this.log.force(false);
+            }
+            this.log.position(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return records;
+    }
+
+    /**
+     * This method appends a record to the log and then executes the change described by the record,
+     * no other record can be appended and no checkpoint can be written in between. <br>
+     * If the record can't be written, the change is not executed. With SyncPolicy.PER_OPERATION the record is on the disk
+     * before the change is executed, otherwise the method waits afterwards depending on the SyncPolicy.
+     * @param record byte[] - the record
+     * @param change Runnable - the change which is described by the record
+     * @return number of records since the last checkpoint
+     */
+    public int append(byte[] record, Runnable change) {
+        return this.appendIf(record, () -> {
+            change.run();
+            return true;
+        });
+    }
+
+    /**
+     * This method executes a change which can fail and keeps its record only if the change was done,
+     * so e.g. an add of an existing ID leaves no record: the record is written first and removed again
+     * if the change returns false or throws an exception. Otherwise it works like append().
+     * @param record byte[] - the record
+     * @param change BooleanSupplier - the change, returns false if nothing was changed
+     * @return number of records since the last checkpoint, -1 if the change returned false
+     */
+    public int appendIf(byte[] record, BooleanSupplier change) {
+        long number;
+        int sinceCheckpoint;
+        synchronized (this) {
+            long start;
+            try {
+                start = this.log.position();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            boolean changed = false;
+            try {
+                this.write(this.log, record);
+                if (this.syncPolicy == SyncPolicy.PER_OPERATION)
+                    this.force();
+                changed = change.getAsBoolean();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (!changed)
+                    this.undoWrite(start);
+            }
+            if (!changed)
+                return -1;
+            number = ++this.written;
+            sinceCheckpoint = ++this.recordsSinceCheckpoint;
+        }
+        if (this.syncPolicy == SyncPolicy.PER_OPERATION) {
+            synchronized (this.syncLock) {
+                this.synced = Math.max(this.synced, number);
+            }
+        } else if (this.syncPolicy == SyncPolicy.GROUPED) {
+            this.groupSync(number);
+        }
+        return sinceCheckpoint;
+    }
+
+    /**
+     * This method waits until the record with the given number is on the disk. <br>
+     * Only one thread executes the fsync, it includes every record which was written before it started.
+     * The other threads wait and are released together.
+     */
+    private void groupSync(long number) {
+        long target;
+        synchronized (this.syncLock) {
+            while (this.synced < number && this.syncing) {
+                try {
+                    this.syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (this.synced >= number)
+                return;
+            this.syncing = true;
+        }
+        synchronized (this) {
+            target = this.written;
+        }
+        try {
+            this.force();
+        } finally {
+            synchronized (this.syncLock) {
+                this.syncing = false;
+                this.synced = Math.max(this.synced, target);
+                this.syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * This method writes the log to the disk, it is called periodically with SyncPolicy.PERIODIC.
+     */
+    private void syncQuietly() {
+        long target;
+        synchronized (this) {
+            target = this.written;
+        }
+        synchronized (this.syncLock) {
+            if (this.synced >= target)
+                return;
+            try {
+                this.force();
+                this.synced = target;
+            } catch (UncheckedIOException e) {
+                System.out.println("Das Journal kann nicht gespeichert werden: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method removes a record which was written for a change that wasn't executed, also a partly written one.
+     * Otherwise the records after it would be cut off with it when the log is read.
+     * @param position long - position of the record in the log
+     */
+    private void undoWrite(long position) {
+        try {
+            this.log.truncate(position);
+            this.log.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void force() {
+        try {
+            this.log.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method writes a checkpoint with the complete state and empties the log. <br>
+     * No record can be appended while the checkpoint is written, so the state is consistent with the log.
+     * @param state Supplier - returns the records which describe the complete state
+     */
+    public synchronized void checkpoint(Supplier<List<byte[]>> state) {
+        try {
+            long next = this.generation + 1;
+            Path temp = this.directory.resolve(CHECKPOINT_TEMP_FILE);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.allocate(GENERATION_SIZE).putLong(0, next));
+                for (byte[] record : state.get())
+                    this.write(channel, record);
+                channel.force(true);
+            }
+            Files.move(temp, this.directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // the new checkpoint must be on the disk before the log which it replaces is emptied
+            syncDirectory(this.directory);
+            this.generation = next;
+            this.resetLog();
+            this.recordsSinceCheckpoint = 0;
+            synchronized (this.syncLock) {
+                this.synced = this.written;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method writes the entries of a directory to the disk, e.g. a renamed file. <br>
+     * Windows can't open a directory, there NTFS keeps the rename in its own metadata journal.
+     * @param directory Path - the directory
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        if (System.getProperty("os.name").startsWith("Windows"))
+            return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * This method empties the log, only the generation of the current checkpoint remains.
+     */
+    private void resetLog() throws IOException {
+        this.log.truncate(0);
+        this.log.write(ByteBuffer.allocate(GENERATION_SIZE).putLong(0, this.generation), 0);
+        this.log.force(true);
+        this.log.position(GENERATION_SIZE);
+    }
+
+    private void write(FileChannel channel, byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + record.length);
+        frame.putInt(record.length).putInt((int) crc.getValue()).put(record).flip();
+        while (frame.hasRemaining())
+            channel.write(frame);
+    }
+
+    /**
+     * This method reads the records after the generation until the end of the file or the first damaged record.
+     * @return position after the last correct record
+     */
+    private static long readRecords(FileChannel channel, List<byte[]> records) throws IOException {
+        long position = GENERATION_SIZE;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        while (position + FRAME_HEADER_SIZE <= size) {
+            header.clear();
+            channel.read(header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + FRAME_HEADER_SIZE + length > size)
+                break;
+            ByteBuffer record = ByteBuffer.allocate(length);
+            while (record.hasRemaining())
+                channel.read(record, position + FRAME_HEADER_SIZE + record.position());
+            CRC32 crc = new CRC32();
+            crc.update(record.array());
+            if ((int) crc.getValue() != header.getInt(4))
+                break;
+            records.add(record.array());
+            position += FRAME_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static long readGeneration(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readLong();
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+
+    private static long readGeneration(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(GENERATION_SIZE);
+        channel.read(buffer, 0);
+        return buffer.getLong(0);
+    }
+
+    /**
+     * This method writes the log to the disk and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.syncer != null)
+            this.syncer.shutdownNow();
+        synchronized (this) {
+            this.log.force(false);
+            this.log.close();
+        }
+    }
+}
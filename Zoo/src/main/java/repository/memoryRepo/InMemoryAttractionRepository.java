@@ -5,19 +5,150 @@ import domain.Guest;
 import domain.Instructor;
 import domain.Weekday;
 import repository.AttractionRepository;
+import repository.BulkResult;
 import repository.InstructorRepository;
+import repository.SortCursor;
+import repository.WriteOutcome;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
 
 /**
- * InMemoryAttractionRepository implements the interface AttractionRepository. The data is saved in memory.
+ * InMemoryAttractionRepository implements the interface AttractionRepository. The data is saved in memory. <br>
+ * Besides the index by ID the repository maintains secondary indexes by day, by price and of the Attractions with free places.
+ * Each index entry is built from the Attraction by add() and update() and removed by update() and delete(), with the day
+ * and price it was indexed under. An Attraction which is changed in place (e.g. its Guest-list after a sign-up) is indexed
+ * again when it is passed to update(); RegistrationSystem does this after every change of an Attraction. <br>
+ * The queries answer from the indexes only, so they return the Attractions as they were at their last add() or update(),
+ * in the order of getAllAttractions(), like the default methods of AttractionRepository. <br>
+ * The writers are synchronized, after each change they publish a new immutable Snapshot and new immutable Indexes.
+ * The readers (findByID(), getAllAttractions(), the queries and the pages) only use the published copies,
+ * so they never wait for a writer and never see a change half done.
  */
 public class InMemoryAttractionRepository implements AttractionRepository {
     /**
-     * List of Attractions
+     * The day, price and free places of an Attraction at the time it was indexed.
      */
-    private final List<Attraction> allAttractions;
+    private static final class IndexedValues {
+        private final Weekday day;
+        private final double price;
+        private final boolean freePlaces;
+
+        private IndexedValues(Weekday day, double price, boolean freePlaces) {
+            this.day = day;
+            this.price = price;
+            this.freePlaces = freePlaces;
+        }
+    }
+
+    /**
+     * Immutable secondary indexes for the readers, built from the indexed values of the Attractions of a Snapshot. <br>
+     * They refer to the Attractions by their position in the Snapshot, so the Attractions found in several parts of an index
+     * are put into the order of getAllAttractions() by sorting their positions.
+     */
+    private static final class Indexes {
+        private final List<Attraction> attractions;
+        /**
+         * Positions of the Attractions held on each day, ascending.
+         */
+        private final Map<Weekday, int[]> byDay;
+        /**
+         * Indexed prices sorted ascending, and the position of the Attraction of each price.
+         */
+        private final double[] prices;
+        private final int[] byPrice;
+        private final List<Attraction> withFreePlaces;
+
+        /**
+         * Constructor - builds the indexes of a Snapshot.
+         * @param snapshot Snapshot of the Attractions
+         * @param values Map - the indexed values of each Attraction, in the order of the Snapshot
+         * @param attractionsByPrice NavigableMap - the Attractions grouped by their indexed price
+         */
+        private Indexes(Snapshot<Attraction> snapshot, Map<String, IndexedValues> values,
+                        NavigableMap<Double, Map<String, Attraction>> attractionsByPrice) {
+            this.attractions = snapshot.list();
+            Map<Weekday, IntStream.Builder> days = new EnumMap<>(Weekday.class);
+            List<Attraction> free = new ArrayList<>();
+            int position = 0;
+            for (IndexedValues indexed : values.values()) {
+                days.computeIfAbsent(indexed.day, day -> IntStream.builder()).add(position);
+                if (indexed.freePlaces)
+                    free.add(this.attractions.get(position));
+                position++;
+            }
+            this.byDay = new EnumMap<>(Weekday.class);
+            days.forEach((day, positions) -> this.byDay.put(day, positions.build().toArray()));
+            this.withFreePlaces = List.copyOf(free);
+            this.prices = new double[this.attractions.size()];
+            this.byPrice = new int[this.attractions.size()];
+            int i = 0;
+            for (Map.Entry<Double, Map<String, Attraction>> samePrice : attractionsByPrice.entrySet())
+                for (String id : samePrice.getValue().keySet()) {
+                    this.prices[i] = samePrice.getKey();
+                    this.byPrice[i++] = snapshot.position(id);
+                }
+        }
+
+        /**
+         * This method returns the Attractions at the given positions in the order of getAllAttractions().
+         */
+        private List<Attraction> inListOrder(int[] positions) {
+            Arrays.sort(positions);
+            List<Attraction> attractions = new ArrayList<>(positions.length);
+            for (int position : positions)
+                attractions.add(this.attractions.get(position));
+            return attractions;
+        }
+    }
+
+    /**
+     * Attractions indexed by their ID. The LinkedHashMap keeps the insertion order of the Attractions.
+     * It and the other maps of the writers are only used while they hold the monitor.
+     */
+    private final Map<String, Attraction> allAttractions;
+    /**
+     * Immutable copy of the Attractions for the readers, it is replaced after every change.
+     */
+    private volatile Snapshot<Attraction> snapshot;
+    /**
+     * Immutable secondary indexes for the readers, they are replaced together with the snapshot.
+     */
+    private volatile Indexes indexes;
+    /**
+     * Immutable copy of the Attractions sorted by ID, used by pageAfter(). It is replaced together with the snapshot.
+     */
+    private volatile Pages.Sorted<Attraction> sortedByID;
+    /**
+     * Immutable copy of the Attractions sorted ascending by price, used by pageByPrice(). It is replaced together with the snapshot.
+     */
+    private volatile Pages.Sorted<Attraction> sortedByPrice;
+    /**
+     * Immutable copy of the Attractions sorted ascending by the number of Guests, used by pageByNrOfGuests(). It is replaced together with the snapshot.
+     */
+    private volatile Pages.Sorted<Attraction> sortedByNrOfGuests;
+    /**
+     * Day, price and free places under which each Attraction is indexed, in the order of allAttractions.
+     */
+    private final Map<String, IndexedValues> indexedValues;
+    /**
+     * Attractions grouped by their indexed price, sorted ascending by price.
+     */
+    private final NavigableMap<Double, Map<String, Attraction>> attractionsByPrice;
+    /**
+     * Orders of the pages, kept sorted by index() and removeFromIndexes() with the values under which the Attractions are indexed.
+     */
+    private final Pages.Order<Attraction> orderByID;
+    private final Pages.Order<Attraction> orderByPrice;
+    private final Pages.Order<Attraction> orderByNrOfGuests;
     /**
      * InstructorRepository from where the Instructor of the Attractions can be selected.
      */
@@ -30,7 +161,13 @@ public class InMemoryAttractionRepository implements AttractionRepository {
      */
     public InMemoryAttractionRepository(InstructorRepository instructorRepository) {
         this.instructorRepository = instructorRepository;
-        this.allAttractions = new ArrayList<Attraction>();
+        this.allAttractions = new LinkedHashMap<String, Attraction>();
+        this.indexedValues = new LinkedHashMap<>();
+        this.attractionsByPrice = new TreeMap<>();
+        this.orderByID = Pages.Order.byID();
+        this.orderByPrice = new Pages.Order<>(attraction -> attraction.price, false);
+        this.orderByNrOfGuests = new Pages.Order<>(Attraction::getNrOfGuests, false);
+        this.publish();
         this.populateAttractions();
     }
 
@@ -76,12 +213,14 @@ public class InMemoryAttractionRepository implements AttractionRepository {
     }
 
     /**
-     * This method returns the list of Attractions.
+     * This method returns the list of Attractions. <br>
+     * The list is an immutable snapshot, later changes of the repository don't appear in it.
+     * Until the next change every call returns the same snapshot, it is built by the writer of the change.
      * @return The list of Attractions
      */
     @Override
     public List<Attraction> getAllAttractions() {
-        return allAttractions;
+        return this.snapshot.list();
     }
 
     /**
@@ -91,13 +230,22 @@ public class InMemoryAttractionRepository implements AttractionRepository {
      */
     @Override
     public void add(Attraction attraction) {
-        for (Attraction attr: this.allAttractions){
-            if (attr.getID().equals(attraction.getID())){
-                System.out.println("Eine Attraktion mit dieser ID existiert schon");
-                return;
-            }
-        }
-        this.allAttractions.add(attraction);
+        if (attraction != null && !this.insertIfAbsent(attraction))
+            System.out.println("Eine Attraktion mit dieser ID existiert schon");
+    }
+
+    /**
+     * This method adds an Attraction if there is no Attraction with the same ID, with one putIfAbsent() on the map.
+     * @param attraction Attraction which will be added.
+     * @return true if the Attraction was added, false otherwise
+     */
+    @Override
+    public synchronized boolean insertIfAbsent(Attraction attraction) {
+        if (attraction == null || this.allAttractions.putIfAbsent(attraction.getID(), attraction) != null)
+            return false;
+        this.index(attraction);
+        this.publish();
+        return true;
     }
 
     /**
@@ -105,21 +253,31 @@ public class InMemoryAttractionRepository implements AttractionRepository {
      * @param id String - the ID of the Attraction which will be eliminated
      */
     @Override
-    public void delete(String id) {
-        Attraction attraction = this.findByID(id);
-        this.allAttractions.remove(attraction);
+    public synchronized void delete(String id) {
+        if (this.allAttractions.remove(id) != null) {
+            this.removeFromIndexes(id, false);
+            this.publish();
+        }
     }
 
     /**
      * This method updates an Attraction from the list of Attractions. <br>
+     * If the new Attraction has the same ID, it keeps the position of the old Attraction, otherwise it is moved to the end of the list. <br>
+     * If the new ID belongs to another Attraction, nothing is changed.
      * @param id String - the ID of the Attraction which will be updated
      * @param attraction the new Attraction which will appear instead of the old Attraction
      */
     @Override
-    public void update(String id, Attraction attraction) {
-        Attraction attr = this.findByID(id);
-        int position = this.allAttractions.indexOf(attr);
-        this.allAttractions.set(position,attraction);
+    public synchronized void update(String id, Attraction attraction) {
+        if (!this.allAttractions.containsKey(id))
+            return;
+        if (!id.equals(attraction.getID()) && this.allAttractions.containsKey(attraction.getID())) {
+            // the new ID belongs to another Attraction, it would be overwritten
+            System.out.println("Eine Attraktion mit dieser ID existiert schon");
+            return;
+        }
+        this.replace(id, attraction);
+        this.publish();
     }
 
     /**
@@ -129,10 +287,235 @@ public class InMemoryAttractionRepository implements AttractionRepository {
      */
     @Override
     public Attraction findByID(String id) {
-        for (Attraction attraction: this.allAttractions){
-            if (attraction.getID().equals(id))
-                return attraction;
+        return this.snapshot.get(id);
+    }
+
+    /**
+     * This method adds several Attractions in one pass, the snapshot and the indexes are built once at the end. <br>
+     * A Attraction whose ID already exists isn't added.
+     * @param attractions Attractions which will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED (null) for each Attraction
+     */
+    @Override
+    public synchronized BulkResult addAll(Collection<Attraction> attractions) {
+        WriteOutcome[] outcomes = new WriteOutcome[attractions.size()];
+        int i = 0;
+        for (Attraction attraction : attractions) {
+            if (attraction == null)
+                outcomes[i] = WriteOutcome.FAILED;
+            else
+                if (this.allAttractions.putIfAbsent(attraction.getID(), attraction) == null) {
+                    this.index(attraction);
+                    outcomes[i] = WriteOutcome.ADDED;
+                } else
+                    outcomes[i] = WriteOutcome.DUPLICATE;
+            i++;
+        }
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method updates several Attractions in one pass, the snapshot and the indexes are built once at the end.
+     * @param attractions Map - the ID of each Attraction which will be updated and the new Attraction
+     * @return BulkResult - UPDATED, NOT_FOUND, DUPLICATE (the new ID exists) or FAILED (null) for each Attraction
+     */
+    @Override
+    public synchronized BulkResult updateAll(Map<String, Attraction> attractions) {
+        WriteOutcome[] outcomes = new WriteOutcome[attractions.size()];
+        int i = 0;
+        for (Map.Entry<String, Attraction> entry : attractions.entrySet()) {
+            String id = entry.getKey();
+            Attraction attraction = entry.getValue();
+            if (attraction == null)
+                outcomes[i] = WriteOutcome.FAILED;
+            else if (!this.allAttractions.containsKey(id))
+                outcomes[i] = WriteOutcome.NOT_FOUND;
+            else if (!id.equals(attraction.getID()) && this.allAttractions.containsKey(attraction.getID()))
+                // the new ID belongs to another Attraction, it would be overwritten
+                outcomes[i] = WriteOutcome.DUPLICATE;
+            else {
+                this.replace(id, attraction);
+                outcomes[i] = WriteOutcome.UPDATED;
+            }
+            i++;
+        }
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method deletes several Attractions in one pass, the snapshot and the indexes are built once at the end.
+     * @param ids IDs of the Attractions which will be eliminated
+     * @return BulkResult - DELETED or NOT_FOUND for each ID
+     */
+    @Override
+    public synchronized BulkResult deleteAll(Collection<String> ids) {
+        WriteOutcome[] outcomes = new WriteOutcome[ids.size()];
+        int i = 0;
+        for (String id : ids) {
+            if (this.allAttractions.remove(id) != null) {
+                this.removeFromIndexes(id, false);
+                outcomes[i] = WriteOutcome.DELETED;
+            } else
+                outcomes[i] = WriteOutcome.NOT_FOUND;
+            i++;
+        }
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method returns a page of the Attractions from the snapshot of all Attractions, without copying it.
+     * @param offset int - number of Attractions which are skipped
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> page(int offset, int limit) {
+        return Pages.page(this.getAllAttractions(), offset, limit);
+    }
+
+    /**
+     * This method returns the Attractions whose ID comes after the given ID, ordered by ID. <br>
+     * The order is kept sorted by the writers, the page is found by binary search in its published copy.
+     * @param lastID String - ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> pageAfter(String lastID, int limit) {
+        return this.sortedByID.pageAfter(lastID, limit);
+    }
+
+    /**
+     * This method returns a page of the Attractions sorted ascending by price, Attractions with the same price by ID. <br>
+     * The order is kept sorted by the writers, the page after the cursor is found by binary search in its published copy.
+     * @param after SortCursor - price and ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> pageByPrice(SortCursor after, int limit) {
+        return this.sortedByPrice.pageAfter(after, limit);
+    }
+
+    /**
+     * This method returns a page of the Attractions sorted ascending by the number of Guests, Attractions with the same number by ID. <br>
+     * The order is kept sorted by the writers, the page after the cursor is found by binary search in its published copy.
+     * @param after SortCursor - number of Guests and ID of the last Attraction of the previous page, null for the first page
+     * @param limit int - maximum number of Attractions in the page
+     * @return The list of at most limit Attractions
+     */
+    @Override
+    public List<Attraction> pageByNrOfGuests(SortCursor after, int limit) {
+        return this.sortedByNrOfGuests.pageAfter(after, limit);
+    }
+
+    /**
+     * This method publishes the Snapshot, the Indexes and copies of the orders of the Attractions after a change,
+     * the orders are already sorted and only copied. It is called by the writers while they hold the monitor.
+     */
+    private void publish() {
+        Snapshot<Attraction> snapshot = new Snapshot<>(this.allAttractions);
+        this.indexes = new Indexes(snapshot, this.indexedValues, this.attractionsByPrice);
+        this.snapshot = snapshot;
+        this.sortedByID = this.orderByID.copy();
+        this.sortedByPrice = this.orderByPrice.copy();
+        this.sortedByNrOfGuests = this.orderByNrOfGuests.copy();
+    }
+
+    /**
+     * This method returns the Attractions held on the given weekday or later in the week from the index by day.
+     * @param weekday Weekday - the first day of the searched Attractions
+     * @return The list of Attractions held on or after the given weekday, in the order of getAllAttractions()
+     */
+    @Override
+    public List<Attraction> getAttractionsFromDay(Weekday weekday) {
+        Indexes indexes = this.indexes;
+        IntStream positions = IntStream.empty();
+        for (Map.Entry<Weekday, int[]> entry: indexes.byDay.entrySet()) {
+            if (entry.getKey().getNr() >= weekday.getNr())
+                positions = IntStream.concat(positions, Arrays.stream(entry.getValue()));
+        }
+        return indexes.inListOrder(positions.toArray());
+    }
+
+    /**
+     * This method returns the Attractions whose price is less than or equal to the given price from the index by price.
+     * The end of the Attractions which are cheap enough is found by binary search.
+     * @param price Double - the maximum price of the searched Attractions
+     * @return The list of Attractions which are not more expensive than the given price, in the order of getAllAttractions()
+     */
+    @Override
+    public List<Attraction> getAttractionsWithPriceAtMost(double price) {
+        Indexes indexes = this.indexes;
+        int low = 0;
+        int high = indexes.prices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (indexes.prices[middle] > price)
+                high = middle;
+            else
+                low = middle + 1;
         }
-        return null;
+        return indexes.inListOrder(Arrays.copyOf(indexes.byPrice, low));
+    }
+
+    /**
+     * This method returns the Attractions which still have available places from the index of free places.
+     * @return The immutable list of Attractions whose capacity is greater than the number of signed up Guests, in the order of getAllAttractions()
+     */
+    @Override
+    public List<Attraction> getAttractionsWithFreePlaces() {
+        return this.indexes.withFreePlaces;
+    }
+
+    /**
+     * This method replaces the Attraction with the given ID and its entries in the indexes. <br>
+     * An Attraction with the same ID keeps its position, otherwise it is moved to the end, as in the LinkedHashMap.
+     * @param id String - the ID of the Attraction which will be replaced
+     * @param attraction the new Attraction
+     */
+    private void replace(String id, Attraction attraction) {
+        boolean sameID = id.equals(attraction.getID());
+        this.removeFromIndexes(id, sameID);
+        if (!sameID)
+            this.allAttractions.remove(id);
+        this.allAttractions.put(attraction.getID(), attraction);
+        this.index(attraction);
+    }
+
+    /**
+     * This method adds an Attraction to the secondary indexes and the orders with its current day, price, free places and number of Guests.
+     * @param attraction Attraction which will be indexed
+     */
+    private void index(Attraction attraction) {
+        String id = attraction.getID();
+        this.attractionsByPrice.computeIfAbsent(attraction.price, price -> new LinkedHashMap<>()).put(id, attraction);
+        this.indexedValues.put(id, new IndexedValues(attraction.day, attraction.price, attraction.getNrOfFreePlaces() > 0));
+        this.orderByID.put(id, attraction);
+        this.orderByPrice.put(id, attraction);
+        this.orderByNrOfGuests.put(id, attraction);
+    }
+
+    /**
+     * This method removes the Attraction with the given ID from the secondary indexes and the orders. <br>
+     * The Attraction is searched with the price it had when it was indexed.
+     * @param id String - the ID of the Attraction which will be removed from the indexes
+     * @param keepPosition boolean - true if the Attraction is indexed again with the same ID,
+     *                     then its entry in indexedValues stays at its position and is overwritten by index()
+     */
+    private void removeFromIndexes(String id, boolean keepPosition) {
+        this.orderByID.remove(id);
+        this.orderByPrice.remove(id);
+        this.orderByNrOfGuests.remove(id);
+        IndexedValues values = keepPosition ? this.indexedValues.get(id) : this.indexedValues.remove(id);
+        if (values == null)
+            return;
+        Map<String, Attraction> samePrice = this.attractionsByPrice.get(values.price);
+        samePrice.remove(id);
+        if (samePrice.isEmpty())
+            this.attractionsByPrice.remove(values.price);
     }
-}
\ No newline at end of file
+}
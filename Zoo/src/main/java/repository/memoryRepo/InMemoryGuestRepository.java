@@ -3,20 +3,46 @@ package repository.memoryRepo;
 import domain.Attraction;
 import domain.Guest;
 import repository.AttractionRepository;
+import repository.BulkResult;
 import repository.GuestRepository;
+import repository.SortCursor;
+import repository.WriteOutcome;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * InMemoryGuestRepository implements the interface InstructorRepository. The data is saved in memory.
+ * InMemoryGuestRepository implements the interface InstructorRepository. The data is saved in memory. <br>
+ * The writers are synchronized, after each change they publish a new immutable Snapshot of the Guests.
+ * The readers (findByID(), getAllGuests(), the pages) only use the published Snapshot, so they never wait for a writer.
+ * A write copies the Guests, which pays off because the Guests are read much more often than they are changed.
  */
 public class InMemoryGuestRepository implements GuestRepository {
     /**
-     * List of Guests
+     * Guests indexed by their ID. The LinkedHashMap keeps the insertion order of the Guests.
+     * It is only used by the writers, while they hold the monitor.
      */
-    private List<Guest> allGuests;
+    private final Map<String, Guest> allGuests;
+    /**
+     * Immutable copy of the Guests for the readers, it is replaced after every change.
+     */
+    private volatile Snapshot<Guest> snapshot;
+    /**
+     * Immutable copy of the Guests sorted by ID, used by pageAfter(). It is replaced together with the snapshot.
+     */
+    private volatile Pages.Sorted<Guest> sortedByID;
+    /**
+     * Immutable copy of the Guests sorted descending by their sum, used by pageBySumDescending(). It is replaced together with the snapshot.
+     */
+    private volatile Pages.Sorted<Guest> sortedBySum;
+    /**
+     * Orders of the pages, kept sorted by the writers with the sum each Guest had at its last add() or update().
+     */
+    private final Pages.Order<Guest> orderByID;
+    private final Pages.Order<Guest> orderBySum;
     /**
      * AttractionRepository from where the Attractions are selected on which the Guests can sign up.
      */
@@ -29,14 +55,17 @@ public class InMemoryGuestRepository implements GuestRepository {
      */
     public InMemoryGuestRepository(AttractionRepository attractionRepository) {
         this.attractionRepository = attractionRepository;
-        this.allGuests = new ArrayList<Guest>();
+        this.allGuests = new LinkedHashMap<String, Guest>();
+        this.orderByID = Pages.Order.byID();
+        this.orderBySum = new Pages.Order<>(Guest::getFinalSum, true);
+        this.publish();
         this.populateGuests();
     }
 
     /**
      * This method populates with data the list of Guests with the help of add() method. <br>
      * When an Attraction is added to the Guest's list of Attraction, the Guest appears in the Guest-list of the Attraction as well. <br>
-     * The Instructor's income will also increase.
+     * The Instructor's income will also increase. The changed Attractions are updated in the AttractionRepository.
      */
     private void populateGuests(){
         List<Attraction> attractions = attractionRepository.getAllAttractions();
@@ -86,15 +115,21 @@ public class InMemoryGuestRepository implements GuestRepository {
 
         attraction5.getInstructor().calculateSum();
         attraction8.getInstructor().calculateSum();
+
+        // the attractions got new guests, this must appear in the attraction repository too
+        attractionRepository.update(attraction5.getID(), attraction5);
+        attractionRepository.update(attraction8.getID(), attraction8);
     }
 
     /**
-     * This method returns the list of Guests.
+     * This method returns the list of Guests. <br>
+     * The list is an immutable snapshot, later changes of the repository don't appear in it.
+     * Until the next change every call returns the same snapshot, it is built by the writer of the change.
      * @return The list of Guests
      */
     @Override
     public List<Guest> getAllGuests() {
-        return this.allGuests;
+        return this.snapshot.list();
     }
 
     /**
@@ -104,15 +139,22 @@ public class InMemoryGuestRepository implements GuestRepository {
      */
     @Override
     public void add(Guest guest) {
-        try {
-            for (Guest g: this.allGuests){
-                if (g.getID().equals(guest.getID())){
-                    System.out.println("Ein Besucher mit dieser ID existiert schon");
-                    return;
-                }
-            }
-            this.allGuests.add(guest);
-        } catch (NullPointerException ignored) {}
+        if (guest != null && !this.insertIfAbsent(guest))
+            System.out.println("Ein Besucher mit dieser ID existiert schon");
+    }
+
+    /**
+     * This method adds a Guest if there is no Guest with the same ID, with one putIfAbsent() on the map.
+     * @param guest Guest who will be added.
+     * @return true if the Guest was added, false otherwise
+     */
+    @Override
+    public synchronized boolean insertIfAbsent(Guest guest) {
+        if (guest == null || this.allGuests.putIfAbsent(guest.getID(), guest) != null)
+            return false;
+        this.addToOrders(guest);
+        this.publish();
+        return true;
     }
 
     /**
@@ -120,21 +162,31 @@ public class InMemoryGuestRepository implements GuestRepository {
      * @param id String - the ID of the Guest who will be eliminated
      */
     @Override
-    public void delete(String id) {
-        Guest guest = this.findByID(id);
-        this.allGuests.remove(guest);
+    public synchronized void delete(String id) {
+        if (this.allGuests.remove(id) != null) {
+            this.removeFromOrders(id);
+            this.publish();
+        }
     }
 
     /**
      * This method updates a Guest from the list of Guests. <br>
+     * If the new Guest has the same ID, it keeps the position of the old Guest, otherwise it is moved to the end of the list. <br>
+     * If the new ID belongs to another Guest, nothing is changed.
      * @param id String - the ID of the Guest who will be updated
      * @param guest the new Guest who will appear instead of the old Guest
      */
     @Override
-    public void update(String id, Guest guest) {
-        Guest g = this.findByID(id);
-        int position = this.allGuests.indexOf(g);
-        this.allGuests.set(position,guest);
+    public synchronized void update(String id, Guest guest) {
+        if (!this.allGuests.containsKey(id))
+            return;
+        if (!id.equals(guest.getID()) && this.allGuests.containsKey(guest.getID())) {
+            // the new ID belongs to another Guest, it would be overwritten
+            System.out.println("Ein Besucher mit dieser ID existiert schon");
+            return;
+        }
+        this.replace(id, guest);
+        this.publish();
     }
 
     /**
@@ -144,10 +196,158 @@ public class InMemoryGuestRepository implements GuestRepository {
      */
     @Override
     public Guest findByID(String id) {
-        for (Guest g: this.allGuests){
-            if (g.getID().equals(id))
-                return g;
+        return this.snapshot.get(id);
+    }
+
+    /**
+     * This method adds several Guests in one pass, the snapshot is built once at the end. <br>
+     * A Guest whose ID already exists isn't added.
+     * @param guests Guests which will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED (null) for each Guest
+     */
+    @Override
+    public synchronized BulkResult addAll(Collection<Guest> guests) {
+        WriteOutcome[] outcomes = new WriteOutcome[guests.size()];
+        int i = 0;
+        for (Guest guest : guests) {
+            if (guest == null)
+                outcomes[i] = WriteOutcome.FAILED;
+            else
+                if (this.allGuests.putIfAbsent(guest.getID(), guest) == null) {
+                    this.addToOrders(guest);
+                    outcomes[i] = WriteOutcome.ADDED;
+                } else
+                    outcomes[i] = WriteOutcome.DUPLICATE;
+            i++;
         }
-        return null;
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method updates several Guests in one pass, the snapshot is built once at the end.
+     * @param guests Map - the ID of each Guest which will be updated and the new Guest
+     * @return BulkResult - UPDATED, NOT_FOUND, DUPLICATE (the new ID exists) or FAILED (null) for each Guest
+     */
+    @Override
+    public synchronized BulkResult updateAll(Map<String, Guest> guests) {
+        WriteOutcome[] outcomes = new WriteOutcome[guests.size()];
+        int i = 0;
+        for (Map.Entry<String, Guest> entry : guests.entrySet()) {
+            String id = entry.getKey();
+            Guest guest = entry.getValue();
+            if (guest == null)
+                outcomes[i] = WriteOutcome.FAILED;
+            else if (!this.allGuests.containsKey(id))
+                outcomes[i] = WriteOutcome.NOT_FOUND;
+            else if (!id.equals(guest.getID()) && this.allGuests.containsKey(guest.getID()))
+                // the new ID belongs to another Guest, it would be overwritten
+                outcomes[i] = WriteOutcome.DUPLICATE;
+            else {
+                this.replace(id, guest);
+                outcomes[i] = WriteOutcome.UPDATED;
+            }
+            i++;
+        }
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method deletes several Guests in one pass, the snapshot is built once at the end.
+     * @param ids IDs of the Guests which will be eliminated
+     * @return BulkResult - DELETED or NOT_FOUND for each ID
+     */
+    @Override
+    public synchronized BulkResult deleteAll(Collection<String> ids) {
+        WriteOutcome[] outcomes = new WriteOutcome[ids.size()];
+        int i = 0;
+        for (String id : ids) {
+            if (this.allGuests.remove(id) != null) {
+                this.removeFromOrders(id);
+                outcomes[i] = WriteOutcome.DELETED;
+            } else
+                outcomes[i] = WriteOutcome.NOT_FOUND;
+            i++;
+        }
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method returns a page of the Guests from the snapshot of all Guests, without copying it.
+     * @param offset int - number of Guests which are skipped
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    public List<Guest> page(int offset, int limit) {
+        return Pages.page(this.getAllGuests(), offset, limit);
+    }
+
+    /**
+     * This method returns the Guests whose ID comes after the given ID, ordered by ID. <br>
+     * The order is kept sorted by the writers, the page is found by binary search in its published copy.
+     * @param lastID String - ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    public List<Guest> pageAfter(String lastID, int limit) {
+        return this.sortedByID.pageAfter(lastID, limit);
+    }
+
+    /**
+     * This method returns a page of the Guests sorted descending by their sum, Guests with the same sum by ID. <br>
+     * The order is kept sorted by the writers, the page after the cursor is found by binary search in its published copy.
+     * @param after SortCursor - sum and ID of the last Guest of the previous page, null for the first page
+     * @param limit int - maximum number of Guests in the page
+     * @return The list of at most limit Guests
+     */
+    @Override
+    public List<Guest> pageBySumDescending(SortCursor after, int limit) {
+        return this.sortedBySum.pageAfter(after, limit);
+    }
+
+    /**
+     * This method publishes the Snapshot and copies of the orders of the Guests after a change, the orders are already sorted and only copied.
+     * It is called by the writers while they hold the monitor.
+     */
+    private void publish() {
+        this.snapshot = new Snapshot<>(this.allGuests);
+        this.sortedByID = this.orderByID.copy();
+        this.sortedBySum = this.orderBySum.copy();
+    }
+
+    /**
+     * This method replaces the Guest with the given ID and its entries in the orders. <br>
+     * A Guest with the same ID keeps its position, otherwise it is moved to the end, as in the LinkedHashMap.
+     * @param id String - the ID of the Guest who will be replaced
+     * @param guest the new Guest
+     */
+    private void replace(String id, Guest guest) {
+        this.removeFromOrders(id);
+        if (!id.equals(guest.getID()))
+            this.allGuests.remove(id);
+        this.allGuests.put(guest.getID(), guest);
+        this.addToOrders(guest);
+    }
+
+    /**
+     * This method adds a Guest to the orders with its current sum.
+     * @param guest Guest who will be added to the orders
+     */
+    private void addToOrders(Guest guest) {
+        this.orderByID.put(guest.getID(), guest);
+        this.orderBySum.put(guest.getID(), guest);
+    }
+
+    /**
+     * This method removes the Guest with the given ID from the orders.
+     * @param id String - the ID of the Guest who will be removed from the orders
+     */
+    private void removeFromOrders(String id) {
+        this.orderByID.remove(id);
+        this.orderBySum.remove(id);
     }
 }
@@ -2,26 +2,47 @@ package repository.memoryRepo;
 
 import domain.Attraction;
 import domain.Instructor;
+import repository.BulkResult;
 import repository.InstructorRepository;
+import repository.WriteOutcome;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * InMemoryInstructorRepository implements the interface InstructorRepository. The data is saved in memory.
+ * InMemoryInstructorRepository implements the interface InstructorRepository. The data is saved in memory. <br>
+ * The writers are synchronized, after each change they publish a new immutable Snapshot of the Instructors.
+ * The readers (findByID(), getAllInstructors(), the pages) only use the published Snapshot, so they never wait for a writer.
  */
 public class InMemoryInstructorRepository implements InstructorRepository {
     /**
-     * List of Instructors
+     * Instructors indexed by their ID. The LinkedHashMap keeps the insertion order of the Instructors.
+     * It is only used by the writers, while they hold the monitor.
      */
-    private final List<Instructor> allInstructors;
+    private final Map<String, Instructor> allInstructors;
+    /**
+     * Immutable copy of the Instructors for the readers, it is replaced after every change.
+     */
+    private volatile Snapshot<Instructor> snapshot;
+    /**
+     * Immutable copy of the Instructors sorted by ID, used by pageAfter(). It is replaced together with the snapshot.
+     */
+    private volatile Pages.Sorted<Instructor> sortedByID;
+    /**
+     * Order of the pages by ID, kept sorted by the writers.
+     */
+    private final Pages.Order<Instructor> orderByID;
 
     /**
      Constructor - constructs and initializes an InMemoryInstructorRepository. <br>
      * Initially the List of Instructors is empty, then the method populateInstructors() is called.
      */
     public InMemoryInstructorRepository() {
-        this.allInstructors = new ArrayList<>();
+        this.allInstructors = new LinkedHashMap<>();
+        this.orderByID = Pages.Order.byID();
+        this.publish();
         this.populateInstructors();
     }
 
@@ -45,12 +66,14 @@ public class InMemoryInstructorRepository implements InstructorRepository {
     }
 
     /**
-     * This method returns the list of Instructors.
+     * This method returns the list of Instructors. <br>
+     * The list is an immutable snapshot, later changes of the repository don't appear in it.
+     * Until the next change every call returns the same snapshot, it is built by the writer of the change.
      * @return The list of Instructors
      */
     @Override
     public List<Instructor> getAllInstructors() {
-        return allInstructors;
+        return this.snapshot.list();
     }
 
     /**
@@ -60,16 +83,22 @@ public class InMemoryInstructorRepository implements InstructorRepository {
      */
     @Override
     public void add(Instructor instructor) {
-        try{
-            for (Instructor instr: this.allInstructors){
-                if (instr.getID().equals(instructor.getID())){
-                    System.out.println("Es gibt schon eine Instruktor mit dieser ID");
-                    return;
-                }
-            }
-            this.allInstructors.add(instructor);
-        }catch (NullPointerException ignored) {}
+        if (instructor != null && !this.insertIfAbsent(instructor))
+            System.out.println("Es gibt schon eine Instruktor mit dieser ID");
+    }
 
+    /**
+     * This method adds an Instructor if there is no Instructor with the same ID, with one putIfAbsent() on the map.
+     * @param instructor Instructor who will be added.
+     * @return true if the Instructor was added, false otherwise
+     */
+    @Override
+    public synchronized boolean insertIfAbsent(Instructor instructor) {
+        if (instructor == null || this.allInstructors.putIfAbsent(instructor.getID(), instructor) != null)
+            return false;
+        this.orderByID.put(instructor.getID(), instructor);
+        this.publish();
+        return true;
     }
 
     /**
@@ -77,21 +106,31 @@ public class InMemoryInstructorRepository implements InstructorRepository {
      * @param id String - the ID of the Instructor who will be eliminated
      */
     @Override
-    public void delete(String id) {
-        Instructor instructor = this.findByID(id);
-        this.allInstructors.remove(instructor);
+    public synchronized void delete(String id) {
+        if (this.allInstructors.remove(id) != null) {
+            this.orderByID.remove(id);
+            this.publish();
+        }
     }
 
     /**
      * This method updates an Instructor from the list of Instructors. <br>
+     * If the new Instructor has the same ID, it keeps the position of the old Instructor, otherwise it is moved to the end of the list. <br>
+     * If the new ID belongs to another Instructor, nothing is changed.
      * @param id String - the ID of the Instructor who will be updated
      * @param instructor the new Instructor who will appear instead of the old Instructor
      */
     @Override
-    public void update(String id, Instructor instructor) {
-        Instructor instr = this.findByID(id);
-        int position = this.allInstructors.indexOf(instr);
-        this.allInstructors.set(position, instructor);
+    public synchronized void update(String id, Instructor instructor) {
+        if (!this.allInstructors.containsKey(id))
+            return;
+        if (!id.equals(instructor.getID()) && this.allInstructors.containsKey(instructor.getID())) {
+            // the new ID belongs to another Instructor, it would be overwritten
+            System.out.println("Es gibt schon eine Instruktor mit dieser ID");
+            return;
+        }
+        this.replace(id, instructor);
+        this.publish();
     }
 
     /**
@@ -101,11 +140,128 @@ public class InMemoryInstructorRepository implements InstructorRepository {
      */
     @Override
     public Instructor findByID(String id) {
-        for (Instructor instructor: this.allInstructors){
-            if(instructor.getID().equals(id))
-                return instructor;
+        return this.snapshot.get(id);
+    }
+
+    /**
+     * This method adds several Instructors in one pass, the snapshot is built once at the end. <br>
+     * A Instructor whose ID already exists isn't added.
+     * @param instructors Instructors which will be added
+     * @return BulkResult - ADDED, DUPLICATE or FAILED (null) for each Instructor
+     */
+    @Override
+    public synchronized BulkResult addAll(Collection<Instructor> instructors) {
+        WriteOutcome[] outcomes = new WriteOutcome[instructors.size()];
+        int i = 0;
+        for (Instructor instructor : instructors) {
+            if (instructor == null)
+                outcomes[i] = WriteOutcome.FAILED;
+            else
+                if (this.allInstructors.putIfAbsent(instructor.getID(), instructor) == null) {
+                    this.orderByID.put(instructor.getID(), instructor);
+                    outcomes[i] = WriteOutcome.ADDED;
+                } else
+                    outcomes[i] = WriteOutcome.DUPLICATE;
+            i++;
+        }
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method updates several Instructors in one pass, the snapshot is built once at the end.
+     * @param instructors Map - the ID of each Instructor which will be updated and the new Instructor
+     * @return BulkResult - UPDATED, NOT_FOUND, DUPLICATE (the new ID exists) or FAILED (null) for each Instructor
+     */
+    @Override
+    public synchronized BulkResult updateAll(Map<String, Instructor> instructors) {
+        WriteOutcome[] outcomes = new WriteOutcome[instructors.size()];
+        int i = 0;
+        for (Map.Entry<String, Instructor> entry : instructors.entrySet()) {
+            String id = entry.getKey();
+            Instructor instructor = entry.getValue();
+            if (instructor == null)
+                outcomes[i] = WriteOutcome.FAILED;
+            else if (!this.allInstructors.containsKey(id))
+                outcomes[i] = WriteOutcome.NOT_FOUND;
+            else if (!id.equals(instructor.getID()) && this.allInstructors.containsKey(instructor.getID()))
+                // the new ID belongs to another Instructor, it would be overwritten
+                outcomes[i] = WriteOutcome.DUPLICATE;
+            else {
+                this.replace(id, instructor);
+                outcomes[i] = WriteOutcome.UPDATED;
+            }
+            i++;
+        }
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method deletes several Instructors in one pass, the snapshot is built once at the end.
+     * @param ids IDs of the Instructors which will be eliminated
+     * @return BulkResult - DELETED or NOT_FOUND for each ID
+     */
+    @Override
+    public synchronized BulkResult deleteAll(Collection<String> ids) {
+        WriteOutcome[] outcomes = new WriteOutcome[ids.size()];
+        int i = 0;
+        for (String id : ids) {
+            if (this.allInstructors.remove(id) != null) {
+                this.orderByID.remove(id);
+                outcomes[i] = WriteOutcome.DELETED;
+            } else
+                outcomes[i] = WriteOutcome.NOT_FOUND;
+            i++;
         }
-        return null;
+        this.publish();
+        return new BulkResult(outcomes);
+    }
+
+    /**
+     * This method returns a page of the Instructors from the snapshot of all Instructors, without copying it.
+     * @param offset int - number of Instructors which are skipped
+     * @param limit int - maximum number of Instructors in the page
+     * @return The list of at most limit Instructors
+     */
+    @Override
+    public List<Instructor> page(int offset, int limit) {
+        return Pages.page(this.getAllInstructors(), offset, limit);
+    }
+
+    /**
+     * This method returns the Instructors whose ID comes after the given ID, ordered by ID. <br>
+     * The order is kept sorted by the writers, the page is found by binary search in its published copy.
+     * @param lastID String - ID of the last Instructor of the previous page, null for the first page
+     * @param limit int - maximum number of Instructors in the page
+     * @return The list of at most limit Instructors
+     */
+    @Override
+    public List<Instructor> pageAfter(String lastID, int limit) {
+        return this.sortedByID.pageAfter(lastID, limit);
+    }
+
+    /**
+     * This method publishes the Snapshot and a copy of the order of the Instructors after a change, the order is already sorted and only copied.
+     * It is called by the writers while they hold the monitor.
+     */
+    private void publish() {
+        this.snapshot = new Snapshot<>(this.allInstructors);
+        this.sortedByID = this.orderByID.copy();
+    }
+
+    /**
+     * This method replaces the Instructor with the given ID and its entry in the order. <br>
+     * An Instructor with the same ID keeps its position, otherwise it is moved to the end, as in the LinkedHashMap.
+     * @param id String - the ID of the Instructor who will be replaced
+     * @param instructor the new Instructor
+     */
+    private void replace(String id, Instructor instructor) {
+        this.orderByID.remove(id);
+        if (!id.equals(instructor.getID()))
+            this.allInstructors.remove(id);
+        this.allInstructors.put(instructor.getID(), instructor);
+        this.orderByID.put(instructor.getID(), instructor);
     }
 
 }
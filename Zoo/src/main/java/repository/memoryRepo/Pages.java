@@ -0,0 +1,154 @@
+package repository.memoryRepo;
+
+import repository.SortCursor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Helper classes and methods for the paging of the in-memory repositories.
+ */
+final class Pages {
+    private Pages() {}
+
+    /**
+     * Order of the elements of a repository by a number, elements with the same number ascending by ID (the order of the keyset pages). <br>
+     * The writers keep it up to date with put() and remove() while they hold the monitor of the repository, a change costs O(log n).
+     * The number of an element is taken when it is put, so an element which is changed in place keeps its place until it is put again.
+     * The readers only use the immutable copies of copy(), which are not sorted again.
+     */
+    static final class Order<E> {
+        private final ToDoubleFunction<E> valueOf;
+        private final boolean descending;
+        /**
+         * The elements by the number and ID under which they are sorted.
+         */
+        private final NavigableMap<SortCursor, E> sorted;
+        /**
+         * The key in sorted of each ID, needed to find an element whose number was changed.
+         */
+        private final Map<String, SortCursor> keys = new HashMap<>();
+
+        /**
+         * Constructor - constructs an empty Order.
+         * @param valueOf function which returns the number of an element
+         * @param descending boolean - true if the elements are sorted descending by the number
+         */
+        Order(ToDoubleFunction<E> valueOf, boolean descending) {
+            this.valueOf = valueOf;
+            this.descending = descending;
+            this.sorted = new TreeMap<>(SortCursor.order(SortCursor::getValue, SortCursor::getID, descending));
+        }
+
+        /**
+         * @return an empty Order by ID only
+         */
+        static <E> Order<E> byID() {
+            return new Order<>(element -> 0, false);
+        }
+
+        /**
+         * This method adds an element or moves it to the place of its current number.
+         * @param id String - the ID under which the element is stored in the repository
+         * @param element the element
+         */
+        void put(String id, E element) {
+            this.remove(id);
+            SortCursor key = new SortCursor(this.valueOf.applyAsDouble(element), id);
+            this.keys.put(id, key);
+            this.sorted.put(key, element);
+        }
+
+        /**
+         * This method removes the element with the given ID, if there is one.
+         * @param id String - the ID under which the element is stored in the repository
+         */
+        void remove(String id) {
+            SortCursor key = this.keys.remove(id);
+            if (key != null)
+                this.sorted.remove(key);
+        }
+
+        /**
+         * @return immutable copy of the Order for the readers
+         */
+        Sorted<E> copy() {
+            return new Sorted<>(this.sorted, this.descending);
+        }
+    }
+
+    /**
+     * Immutable copy of an Order, with the number and ID under which each element is sorted.
+     * The first element of a page is found by binary search on them.
+     */
+    static final class Sorted<E> {
+        private final double[] values;
+        private final String[] ids;
+        private final List<E> list;
+        private final boolean descending;
+
+        private Sorted(NavigableMap<SortCursor, E> sorted, boolean descending) {
+            this.values = new double[sorted.size()];
+            this.ids = new String[sorted.size()];
+            int i = 0;
+            for (SortCursor key : sorted.keySet()) {
+                this.values[i] = key.getValue();
+                this.ids[i++] = key.getID();
+            }
+            this.list = List.copyOf(sorted.values());
+            this.descending = descending;
+        }
+
+        /**
+         * @return the immutable list of the elements in the order
+         */
+        List<E> list() {
+            return list;
+        }
+
+        /**
+         * This method returns the elements which come after the cursor (keyset pagination).
+         * @param after SortCursor - number and ID of the last element of the previous page, null for the first page
+         * @param limit int - maximum number of elements
+         * @return view of the list after the cursor, with at most limit elements
+         */
+        List<E> pageAfter(SortCursor after, int limit) {
+            int low = 0;
+            int high = after == null ? 0 : this.ids.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (after.isBefore(this.values[middle], this.ids[middle], this.descending))
+                    high = middle;
+                else
+                    low = middle + 1;
+            }
+            return page(this.list, low, limit);
+        }
+
+        /**
+         * This method returns the elements whose ID comes after the given ID, for a copy of an Order by ID.
+         * @param lastID String - the last ID of the previous page, null for the first page
+         * @param limit int - maximum number of elements
+         * @return view of the list after lastID, with at most limit elements
+         */
+        List<E> pageAfter(String lastID, int limit) {
+            return this.pageAfter(lastID == null ? null : new SortCursor(0, lastID), limit);
+        }
+    }
+
+    /**
+     * This method returns a part of a list, without copying it.
+     * @param list the list
+     * @param offset int - position of the first element
+     * @param limit int - maximum number of elements
+     * @return view of the list from offset, with at most limit elements
+     */
+    static <E> List<E> page(List<E> list, int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), list.size());
+        return list.subList(from, (int) Math.min((long) from + Math.max(limit, 0), list.size()));
+    }
+}
@@ -0,0 +1,54 @@
+package repository.memoryRepo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable state of an in-memory repository: its elements in the order of the repository and their positions by ID. <br>
+ * The writers build a new Snapshot after every change and publish it in a volatile field, the readers use the published
+ * Snapshot without a lock. So a reader never waits for a writer and never sees a change half done.
+ */
+final class Snapshot<E> {
+    private final List<E> list;
+    /**
+     * Position of each element in the list, by the ID under which it is stored in the repository.
+     */
+    private final Map<String, Integer> positions;
+
+    /**
+     * Constructor - copies the elements of a repository.
+     * @param elements Map - the elements by their ID, in the order of the repository
+     */
+    Snapshot(Map<String, E> elements) {
+        this.list = List.copyOf(elements.values());
+        this.positions = new HashMap<>((int) (elements.size() / 0.75f) + 1);
+        int position = 0;
+        for (String id : elements.keySet())
+            this.positions.put(id, position++);
+    }
+
+    /**
+     * @return the immutable list of the elements
+     */
+    List<E> list() {
+        return list;
+    }
+
+    /**
+     * @param id String - the ID of the element
+     * @return the element with the given ID or null if there is no such element
+     */
+    E get(String id) {
+        Integer position = this.positions.get(id);
+        return position == null ? null : this.list.get(position);
+    }
+
+    /**
+     * @param id String - the ID of the element
+     * @return the position of the element in the list, -1 if there is no such element
+     */
+    int position(String id) {
+        return this.positions.getOrDefault(id, -1);
+    }
+}
@@ -0,0 +1,99 @@
+package repository.pool;
+
+/**
+ * Counters of a PooledDataSource at one moment. <br>
+ * The wait time of a caller is the time from getConnection() until it gets a connection,
+ * it grows when the pool is too small for the load.
+ */
+public class PoolStatistics {
+    private final int maxSize;
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final long created;
+    private final long borrowed;
+    private final long timeouts;
+    private final long leaks;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+
+    /**
+     * Constructor - constructs the statistics of a pool.
+     * @param maxSize int - maximum number of connections
+     * @param active int - connections which are borrowed at the moment
+     * @param idle int - open connections which are not borrowed
+     * @param waiting int - callers who wait for a connection
+     * @param created long - connections which were opened since the start
+     * @param borrowed long - connections which were handed out since the start
+     * @param timeouts long - callers who didn't get a connection in time
+     * @param leaks long - connections which were borrowed longer than the leak threshold
+     * @param averageWaitMillis double - average wait time of the callers
+     * @param maxWaitMillis double - longest wait time of a caller
+     */
+    public PoolStatistics(int maxSize, int active, int idle, int waiting, long created, long borrowed, long timeouts,
+                          long leaks, double averageWaitMillis, double maxWaitMillis) {
+        this.maxSize = maxSize;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.created = created;
+        this.borrowed = borrowed;
+        this.timeouts = timeouts;
+        this.leaks = leaks;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getBorrowed() {
+        return borrowed;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getLeaks() {
+        return leaks;
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "active=" + active + "/" + maxSize +
+                "  \tidle=" + idle +
+                "  \twaiting=" + waiting +
+                "  \tcreated=" + created +
+                "  \tborrowed=" + borrowed +
+                "  \ttimeouts=" + timeouts +
+                "  \tleaks=" + leaks +
+                "  \tavg wait=" + String.format("%.2f", averageWaitMillis) + " ms" +
+                "  \tmax wait=" + String.format("%.2f", maxWaitMillis) + " ms";
+    }
+}
@@ -0,0 +1,114 @@
+package repository.pool;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Lets Hibernate take its connections from a PooledDataSource instead of its built-in connection handling. <br>
+ * It is enabled in the persistence.xml with the property hibernate.connection.provider_class,
+ * the pool is configured with the following properties (the default in brackets):
+ * <ul>
+ *     <li>zoo.pool.min_idle - connections which are opened at the start (2)</li>
+ *     <li>zoo.pool.max_size - maximum number of connections (10)</li>
+ *     <li>zoo.pool.borrow_timeout_ms - how long a caller waits for a connection (30000)</li>
+ *     <li>zoo.pool.leak_threshold_ms - after this time a borrowed connection is reported, 0 for no leak detection (60000)</li>
+ * </ul>
+ * The database is given by javax.persistence.jdbc.url, .user, .password and .driver (or the hibernate.connection.* properties).
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String MIN_IDLE = "zoo.pool.min_idle";
+    public static final String MAX_SIZE = "zoo.pool.max_size";
+    public static final String BORROW_TIMEOUT = "zoo.pool.borrow_timeout_ms";
+    public static final String LEAK_THRESHOLD = "zoo.pool.leak_threshold_ms";
+
+    /**
+     * The pool isn't serialized with the provider, Hibernate never serializes its services.
+     */
+    private transient PooledDataSource dataSource;
+
+    /**
+     * This method creates the pool from the properties of the persistence unit.
+     * @param configurationValues Map - the properties of the persistence unit
+     */
+    @Override
+    @SuppressWarnings("rawtypes") // the signature of Configurable
+    public void configure(Map configurationValues) {
+        String driver = setting(configurationValues, "javax.persistence.jdbc.driver", "hibernate.connection.driver_class");
+        if (driver != null) {
+            try {
+                Class.forName(driver);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Der JDBC-Treiber wurde nicht gefunden: " + driver, e);
+            }
+        }
+        this.dataSource = new PooledDataSource(
+                setting(configurationValues, "javax.persistence.jdbc.url", "hibernate.connection.url"),
+                setting(configurationValues, "javax.persistence.jdbc.user", "hibernate.connection.username"),
+                setting(configurationValues, "javax.persistence.jdbc.password", "hibernate.connection.password"),
+                (int) number(configurationValues, MIN_IDLE, 2),
+                (int) number(configurationValues, MAX_SIZE, 10),
+                number(configurationValues, BORROW_TIMEOUT, 30000),
+                number(configurationValues, LEAK_THRESHOLD, 60000));
+    }
+
+    private static String setting(Map<?, ?> values, String name, String alternative) {
+        Object value = values.get(name);
+        if (value == null)
+            value = values.get(alternative);
+        return value == null ? null : value.toString();
+    }
+
+    private static long number(Map<?, ?> values, String name, long defaultValue) {
+        Object value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.toString().trim());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.dataSource.getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes") // the signature of Wrapped
+    public boolean isUnwrappableAs(Class unwrapType) {
+        Class<?> type = unwrapType;
+        return type.isAssignableFrom(PooledConnectionProvider.class) || type.isAssignableFrom(PooledDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isAssignableFrom(PooledConnectionProvider.class))
+            return (T) this;
+        if (unwrapType.isAssignableFrom(PooledDataSource.class))
+            return (T) this.dataSource;
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    /**
+     * This method closes the pool when Hibernate shuts down.
+     */
+    @Override
+    public void stop() {
+        if (this.dataSource != null)
+            this.dataSource.close();
+    }
+}
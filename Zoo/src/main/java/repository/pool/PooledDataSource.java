@@ -0,0 +1,478 @@
+package repository.pool;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource which keeps a bounded number of open connections to the database. <br>
+ * <ul>
+ *     <li>At most maxSize connections exist, a caller waits at most borrowTimeoutMillis for a free one.</li>
+ *     <li>minIdle connections are opened when the pool is created, so the first requests don't wait for the database.</li>
+ *     <li>An idle connection is validated before it is handed out, unless it was returned less than
+ *     VALIDATION_INTERVAL_MILLIS ago. Broken connections are closed and replaced.</li>
+ *     <li>A connection which is borrowed longer than leakThresholdMillis is counted once, getLeakReports() returns
+ *     the stack of the caller who borrowed it.</li>
+ *     <li>getStatistics() returns the number of waiting callers and their wait times.</li>
+ * </ul>
+ * The caller gets a wrapper of the connection, its close() returns the connection to the pool. The next caller gets it
+ * in the same state as the first one: an open transaction is rolled back, the statements which are still open are closed,
+ * and read-only, isolation level, catalog and schema are set back if they were changed. A connection whose other settings
+ * were changed (e.g. the holdability or the client info) is closed instead of being handed out again.
+ * The most recently returned connection is handed out first, so the connections which are not needed stay idle.
+ */
+public class PooledDataSource implements DataSource, Closeable {
+    /**
+     * Opens a new physical connection to the database.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * A connection returned within this time is handed out again without validation.
+     */
+    static final long VALIDATION_INTERVAL_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    /**
+     * One permit for each connection which can still be borrowed, so never more than maxSize connections are open.
+     */
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+    private int loginTimeout;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Constructor - constructs a pool which opens its connections with the DriverManager.
+     * @param url String - JDBC URL of the database
+     * @param user String - user of the database
+     * @param password String - password of the user
+     * @param minIdle int - number of connections which are opened at the start
+     * @param maxSize int - maximum number of connections
+     * @param borrowTimeoutMillis long - how long a caller waits for a connection
+     * @param leakThresholdMillis long - after this time a borrowed connection is reported, 0 for no leak detection
+     */
+    public PooledDataSource(String url, String user, String password, int minIdle, int maxSize,
+                            long borrowTimeoutMillis, long leakThresholdMillis) {
+        this(() -> DriverManager.getConnection(url, user, password), minIdle, maxSize, borrowTimeoutMillis, leakThresholdMillis);
+    }
+
+    /**
+     * Constructor - constructs a pool which opens its connections with the given factory.
+     * @param factory ConnectionFactory - opens the physical connections
+     * @param minIdle int - number of connections which are opened at the start
+     * @param maxSize int - maximum number of connections
+     * @param borrowTimeoutMillis long - how long a caller waits for a connection
+     * @param leakThresholdMillis long - after this time a borrowed connection is reported, 0 for no leak detection
+     */
+    public PooledDataSource(ConnectionFactory factory, int minIdle, int maxSize, long borrowTimeoutMillis, long leakThresholdMillis) {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize)
+            throw new IllegalArgumentException("Ungültige Pool-Größe: minIdle=" + minIdle + ", maxSize=" + maxSize);
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minIdle; i++) {
+            try {
+                this.idle.addLast(this.open());
+            } catch (SQLException e) {
+                System.out.println("Die Verbindung zur Datenbank konnte nicht vorab geöffnet werden: " + e.getMessage());
+                break;
+            }
+        }
+
+        if (leakThresholdMillis > 0) {
+            this.leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pool-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(100, leakThresholdMillis / 2);
+            this.leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.leakDetector = null;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        PooledConnection pooled = new PooledConnection(this.factory.create());
+        this.created.incrementAndGet();
+        return pooled;
+    }
+
+    /**
+     * This method hands out a connection. If all connections are borrowed, it waits until one is returned.
+     * @return Connection - its close() returns it to the pool
+     * @throws SQLTransientConnectionException if no connection was free within borrowTimeoutMillis
+     * @throws SQLException if the pool is closed or no connection can be opened
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (this.closed)
+            throw new SQLException("Der Verbindungspool ist geschlossen");
+        long start = System.nanoTime();
+        try {
+            if (!this.permits.tryAcquire(this.borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                this.timeouts.incrementAndGet();
+                throw new SQLTransientConnectionException("Keine freie Verbindung nach " + this.borrowTimeoutMillis
+                        + " ms (" + this.maxSize + " Verbindungen ausgeliehen)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Das Warten auf eine Verbindung wurde unterbrochen", e);
+        }
+        PooledConnection pooled;
+        try {
+            pooled = this.takeValid();
+        } catch (SQLException | RuntimeException e) {
+            this.permits.release();
+            throw e;
+        }
+        long waited = System.nanoTime() - start;
+        this.borrows.incrementAndGet();
+        this.waitNanos.addAndGet(waited);
+        this.maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        pooled.borrowedAt = System.currentTimeMillis();
+        pooled.borrower = this.leakDetector != null ? new Throwable("Verbindung ausgeliehen von " + Thread.currentThread().getName()) : null;
+        pooled.leak = null;
+        this.borrowed.add(pooled);
+        return pooled.handle();
+    }
+
+    /**
+     * This method returns an idle connection which works, or opens a new one.
+     */
+    private PooledConnection takeValid() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = this.idle.pollFirst()) != null) {
+            if (this.isUsable(pooled))
+                return pooled;
+            this.discard(pooled);
+        }
+        return this.open();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.returnedAt < VALIDATION_INTERVAL_MILLIS)
+            return true;
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method takes back a connection and sets it back to the state in which it was handed out.
+     * If that isn't possible, the connection is closed.
+     */
+    private void giveBack(PooledConnection pooled) {
+        this.borrowed.remove(pooled);
+        try {
+            if (this.closed || pooled.mustDiscard || pooled.physical.isClosed()) {
+                this.discard(pooled);
+            } else {
+                pooled.reset();
+                pooled.returnedAt = System.currentTimeMillis();
+                this.idle.offerFirst(pooled);
+                // close() may have emptied the idle connections in the meantime
+                if (this.closed && this.idle.remove(pooled))
+                    this.discard(pooled);
+            }
+        } catch (SQLException e) {
+            this.discard(pooled);
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {}
+    }
+
+    /**
+     * This method marks the connections which are borrowed longer than the leak threshold, each one is counted once.
+     */
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : this.borrowed) {
+            Throwable borrower = pooled.borrower;
+            if (pooled.leak == null && borrower != null && now - pooled.borrowedAt > this.leakThresholdMillis) {
+                Throwable leak = new Throwable("Mögliches Verbindungsleck: die Verbindung ist seit " + (now - pooled.borrowedAt)
+                        + " ms ausgeliehen. " + borrower.getMessage());
+                leak.setStackTrace(borrower.getStackTrace());
+                pooled.leak = leak;
+                this.leaks.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * This method returns the connections which are borrowed longer than the leak threshold and not yet returned.
+     * @return List - for each connection the stack of the caller who borrowed it, the message tells how long it is borrowed
+     */
+    public List<Throwable> getLeakReports() {
+        List<Throwable> reports = new ArrayList<>();
+        for (PooledConnection pooled : this.borrowed) {
+            Throwable leak = pooled.leak;
+            if (leak != null)
+                reports.add(leak);
+        }
+        return reports;
+    }
+
+    /**
+     * This method returns the current counters of the pool.
+     * @return PoolStatistics
+     */
+    public PoolStatistics getStatistics() {
+        long borrowCount = this.borrows.get();
+        return new PoolStatistics(this.maxSize, this.borrowed.size(), this.idle.size(), this.permits.getQueueLength(),
+                this.created.get(), borrowCount, this.timeouts.get(), this.leaks.get(),
+                borrowCount == 0 ? 0 : this.waitNanos.get() / 1e6 / borrowCount, this.maxWaitNanos.get() / 1e6);
+    }
+
+    /**
+     * This method closes the idle connections, the borrowed ones are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.leakDetector != null)
+            this.leakDetector.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = this.idle.pollFirst()) != null)
+            this.discard(pooled);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Der Pool öffnet alle Verbindungen mit demselben Benutzer");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {}
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this))
+            return iface.cast(this);
+        throw new SQLException("Kein Wrapper für " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * A physical connection of the pool with the data of its current loan.
+     */
+    private final class PooledConnection {
+        /**
+         * Number of open statements after which the closed ones are removed from the list.
+         */
+        private static final int STATEMENT_CLEANUP = 64;
+
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long returnedAt;
+        private volatile Throwable borrower;
+        private volatile Throwable leak;
+        /**
+         * The settings which the borrower changed, with their value before the first change. They are used by the Handle
+         * of the current loan and by giveBack() under its lock.
+         */
+        private final Map<String, Object> changedSettings = new LinkedHashMap<>();
+        /**
+         * The statements created during the current loan.
+         */
+        private final List<Statement> statements = new ArrayList<>();
+        /**
+         * True if the borrower changed a setting which isn't set back, the connection is closed when it is returned.
+         */
+        private boolean mustDiscard;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.returnedAt = System.currentTimeMillis();
+        }
+
+        /**
+         * This method is called before a setter of the connection, it remembers the value which the setter changes.
+         * @param setter String - name of the method of Connection
+         */
+        private void beforeSet(String setter) {
+            // the auto-commit mode is set back by reset()
+            if (setter.equals("setAutoCommit") || this.changedSettings.containsKey(setter))
+                return;
+            try {
+                switch (setter) {
+                    case "setReadOnly" -> this.changedSettings.put(setter, this.physical.isReadOnly());
+                    case "setTransactionIsolation" -> this.changedSettings.put(setter, this.physical.getTransactionIsolation());
+                    case "setCatalog" -> this.changedSettings.put(setter, this.physical.getCatalog());
+                    case "setSchema" -> this.changedSettings.put(setter, this.physical.getSchema());
+                    default -> this.mustDiscard = true;
+                }
+            } catch (SQLException e) {
+                // the old value is unknown, so it can't be set back
+                this.mustDiscard = true;
+            }
+        }
+
+        private void opened(Statement statement) throws SQLException {
+            if (statement == null)
+                return;
+            if (this.statements.size() >= STATEMENT_CLEANUP) {
+                List<Statement> open = new ArrayList<>();
+                for (Statement other : this.statements)
+                    if (!other.isClosed())
+                        open.add(other);
+                this.statements.retainAll(open);
+            }
+            this.statements.add(statement);
+        }
+
+        /**
+         * This method closes the open statements, rolls back an open transaction and sets back the changed settings.
+         * @throws SQLException if the connection can't be set back, then it is closed
+         */
+        private void reset() throws SQLException {
+            for (Statement statement : this.statements)
+                statement.close();
+            this.statements.clear();
+            if (!this.physical.getAutoCommit()) {
+                this.physical.rollback();
+                this.physical.setAutoCommit(true);
+            }
+            for (Map.Entry<String, Object> setting : this.changedSettings.entrySet()) {
+                switch (setting.getKey()) {
+                    case "setReadOnly" -> this.physical.setReadOnly((Boolean) setting.getValue());
+                    case "setTransactionIsolation" -> this.physical.setTransactionIsolation((Integer) setting.getValue());
+                    case "setCatalog" -> this.physical.setCatalog((String) setting.getValue());
+                    case "setSchema" -> this.physical.setSchema((String) setting.getValue());
+                    default -> throw new IllegalStateException(setting.getKey());
+                }
+            }
+            this.changedSettings.clear();
+        }
+
+        /**
+         * This method creates the wrapper which is handed out for one loan. After close() the wrapper can't be used anymore,
+         * even if the physical connection is borrowed again by another caller.
+         */
+        private Connection handle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new Handle(this));
+        }
+    }
+
+    /**
+     * Passes the calls of a wrapper to the physical connection, close() returns it to the pool.
+     */
+    private final class Handle implements InvocationHandler {
+        private PooledConnection pooled;
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (this.pooled != null) {
+                        PooledConnection returned = this.pooled;
+                        this.pooled = null;
+                        giveBack(returned);
+                    }
+                    return null;
+                case "isClosed":
+                    return this.pooled == null || this.pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (this.pooled == null ? "closed" : this.pooled.physical) + "]";
+                default:
+                    if (this.pooled == null)
+                        throw new SQLException("Die Verbindung wurde schon an den Pool zurückgegeben");
+                    if (method.getName().startsWith("set") && !method.getName().equals("setSavepoint"))
+                        this.pooled.beforeSet(method.getName());
+                    Object result;
+                    try {
+                        result = method.invoke(this.pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement statement)
+                        this.pooled.opened(statement);
+                    return result;
+            }
+        }
+    }
+}
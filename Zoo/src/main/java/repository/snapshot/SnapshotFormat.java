@@ -0,0 +1,51 @@
+package repository.snapshot;
+
+/**
+ * Constants of the snapshot format. <br>
+ * A snapshot consists of:
+ * <ol>
+ *     <li>header: magic number (4 bytes), format version (2 bytes)</li>
+ *     <li>Instructors: number, then the Instructors</li>
+ *     <li>Attractions: number, then the Attractions, the Instructor is a reference to its position in the Instructor section</li>
+ *     <li>Guests: number, then the Guests, the Attractions are references to their positions in the Attraction section</li>
+ *     <li>CRC32 checksum of everything before it (4 bytes)</li>
+ * </ol>
+ * The reverse relations (Attractions of an Instructor, Guests of an Attraction) are not written, they are rebuilt from the references.
+ * Numbers and references are written as variable-length integers (7 bits per byte).
+ * The capacity of an Attraction is written + 1, 0 stands for no capacity (since version 2, version 1 wrote the capacity itself).
+ * Strings are written as 0 (null), 1 followed by the length and the UTF-8 bytes, or as 2 + the number of an earlier String.
+ * Only the fields which repeat (names, passwords, locations) are entered in the table of earlier Strings, IDs are always written out.
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x5A4F4F53; // "ZOOS"
+    static final short VERSION = 2;
+    /**
+     * Oldest version which can still be read.
+     */
+    static final short FIRST_READABLE_VERSION = 1;
+
+    /**
+     * Size of the buffer between the objects and the channel.
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of Strings in the table of earlier Strings, after that new Strings are written out.
+     */
+    static final int MAX_SHARED_STRINGS = 1 << 16;
+
+    static final int NULL_STRING = 0;
+    static final int NEW_STRING = 1;
+    static final int STRING_REFERENCE = 2;
+
+    /**
+     * Reference which stands for no object (e.g. an Attraction without Instructor), other references are position + 1.
+     */
+    static final int NO_REFERENCE = 0;
+
+    static final int NO_CAPACITY = 0;
+
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private SnapshotFormat() {}
+}
@@ -0,0 +1,246 @@
+package repository.snapshot;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import domain.Weekday;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static repository.snapshot.SnapshotFormat.*;
+
+/**
+ * Reads a ZooSnapshot from a channel in the format described by SnapshotFormat. <br>
+ * The data is read through a buffer of fixed size, the relations between the objects are rebuilt from the references.
+ * The checksum is only known at the end, so every number, length and reference is checked while it is read:
+ * damaged data ends with an IOException and not with another exception or a huge allocation.
+ */
+public class SnapshotReader {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private final CRC32 crc = new CRC32();
+    /**
+     * Start of the bytes in the buffer which are not yet included in the checksum.
+     */
+    private int unchecked;
+    private final List<String> sharedStrings = new ArrayList<>();
+    private short version;
+
+    /**
+     * Constructor - constructs a SnapshotReader.
+     * @param channel ReadableByteChannel - from where the snapshot is read, it isn't closed by the reader
+     */
+    public SnapshotReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * This method reads the snapshot.
+     * @return ZooSnapshot - the Instructors, Attractions and Guests with their relations
+     * @throws IOException if the channel can't be read or the snapshot is damaged or has an unknown version
+     */
+    public ZooSnapshot read() throws IOException {
+        this.require(6);
+        if (this.buffer.getInt() != MAGIC)
+            throw new IOException("Die Daten sind kein Snapshot");
+        this.version = this.buffer.getShort();
+        if (this.version < FIRST_READABLE_VERSION || this.version > VERSION)
+            throw new IOException("Unbekannte Version des Snapshots: " + this.version);
+
+        int instructorCount = this.readCount();
+        List<Instructor> instructors = new ArrayList<>(initialCapacity(instructorCount));
+        for (int i = 0; i < instructorCount; i++) {
+            Instructor instructor = new Instructor(this.readString(false), this.readString(true),
+                    this.readString(true), this.readString(true));
+            instructor.setFinalSum(this.readDouble());
+            instructors.add(instructor);
+        }
+
+        int attractionCount = this.readCount();
+        List<Attraction> attractions = new ArrayList<>(initialCapacity(attractionCount));
+        for (int i = 0; i < attractionCount; i++) {
+            String id = this.readString(false);
+            String name = this.readString(true);
+            Integer capacity = this.readCapacity();
+            int instructorReference = this.readVarInt();
+            double price = this.readDouble();
+            String location = this.readString(true);
+            int day = this.readVarInt();
+            if (day < 0 || day > Weekday.values().length)
+                throw damaged("ungültiger Tag");
+            Instructor instructor = instructorReference == NO_REFERENCE ? null : resolve(instructors, instructorReference);
+            Attraction attraction = new Attraction(id, name, capacity, instructor, new ArrayList<>(), price, location,
+                    day == 0 ? null : Weekday.values()[day - 1]);
+            if (instructor != null)
+                instructor.getAttractions().add(attraction);
+            attractions.add(attraction);
+        }
+
+        int guestCount = this.readCount();
+        List<Guest> guests = new ArrayList<>(initialCapacity(guestCount));
+        for (int i = 0; i < guestCount; i++) {
+            String id = this.readString(false);
+            String firstName = this.readString(true);
+            String lastName = this.readString(true);
+            String password = this.readString(true);
+            long birthday = this.readVarLong();
+            double finalSum = this.readDouble();
+            if (birthday != NO_DATE && (birthday < LocalDate.MIN.toEpochDay() || birthday > LocalDate.MAX.toEpochDay()))
+                throw damaged("ungültiges Datum");
+            int count = this.readCount();
+            Guest guest = new Guest(id, firstName, lastName, password, birthday == NO_DATE ? null : LocalDate.ofEpochDay(birthday),
+                    finalSum, new ArrayList<>(initialCapacity(count)));
+            for (int j = 0; j < count; j++) {
+                int reference = this.readVarInt();
+                // version 1 wrote NO_REFERENCE for an Attraction which wasn't in the snapshot
+                if (reference != NO_REFERENCE) {
+                    Attraction attraction = resolve(attractions, reference);
+                    guest.getAttractions().add(attraction);
+                    attraction.addGuest(guest);
+                }
+            }
+            guests.add(guest);
+        }
+
+        this.updateChecksum();
+        this.require(4);
+        if (this.buffer.getInt() != (int) this.crc.getValue())
+            throw new IOException("Der Snapshot ist beschädigt (falsche Prüfsumme)");
+        return new ZooSnapshot(instructors, attractions, guests);
+    }
+
+    /**
+     * This method reads a number of objects, it can't be negative.
+     */
+    private int readCount() throws IOException {
+        int count = this.readVarInt();
+        if (count < 0)
+            throw damaged("ungültige Anzahl");
+        return count;
+    }
+
+    /**
+     * The lists grow with the objects which are really read, a damaged count doesn't allocate a huge list in advance.
+     */
+    private static int initialCapacity(int count) {
+        return Math.min(count, 1024);
+    }
+
+    private Integer readCapacity() throws IOException {
+        int capacity = this.readVarInt();
+        if (this.version == 1)
+            return capacity;
+        return capacity == NO_CAPACITY ? null : capacity - 1;
+    }
+
+    /**
+     * This method returns the object of a reference (position + 1) to an object which was read before.
+     */
+    private static <T> T resolve(List<T> objects, int reference) throws IOException {
+        if (reference < 1 || reference > objects.size())
+            throw damaged("ungültige Referenz " + reference);
+        return objects.get(reference - 1);
+    }
+
+    private static IOException damaged(String reason) {
+        return new IOException("Der Snapshot ist beschädigt (" + reason + ")");
+    }
+
+    private String readString(boolean shared) throws IOException {
+        int tag = this.readVarInt();
+        if (tag == NULL_STRING)
+            return null;
+        if (tag >= STRING_REFERENCE) {
+            if (tag - STRING_REFERENCE >= this.sharedStrings.size())
+                throw damaged("ungültige Referenz auf einen Text");
+            return this.sharedStrings.get(tag - STRING_REFERENCE);
+        }
+        if (tag != NEW_STRING)
+            throw damaged("ungültiger Text");
+        int length = this.readVarInt();
+        if (length < 0)
+            throw damaged("ungültige Länge");
+        String value;
+        if (length <= BUFFER_SIZE) {
+            this.require(length);
+            value = new String(this.buffer.array(), this.buffer.position(), length, StandardCharsets.UTF_8);
+            this.buffer.position(this.buffer.position() + length);
+        } else {
+            // the bytes are collected as they are read, a damaged length ends with an EOFException instead of a huge array
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+            int read = 0;
+            while (read < length) {
+                this.require(1);
+                int part = Math.min(this.buffer.remaining(), length - read);
+                bytes.write(this.buffer.array(), this.buffer.position(), part);
+                this.buffer.position(this.buffer.position() + part);
+                read += part;
+            }
+            value = bytes.toString(StandardCharsets.UTF_8);
+        }
+        if (shared && this.sharedStrings.size() < MAX_SHARED_STRINGS)
+            this.sharedStrings.add(value);
+        return value;
+    }
+
+    private double readDouble() throws IOException {
+        this.require(8);
+        return this.buffer.getDouble();
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            this.require(1);
+            byte b = this.buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw damaged("ungültige Zahl");
+    }
+
+    private long readVarLong() throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            this.require(1);
+            byte b = this.buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        throw damaged("ungültige Zahl");
+    }
+
+    /**
+     * This method makes sure that the buffer holds at least the given number of bytes, it reads from the channel if necessary.
+     */
+    private void require(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes)
+            return;
+        this.updateChecksum();
+        this.buffer.compact();
+        this.unchecked = 0;
+        while (this.buffer.position() < bytes)
+            if (this.channel.read(this.buffer) < 0)
+                throw new EOFException("Der Snapshot ist unvollständig");
+        this.buffer.flip();
+    }
+
+    /**
+     * This method adds the bytes which were read since the last call to the checksum.
+     */
+    private void updateChecksum() {
+        this.crc.update(this.buffer.array(), this.unchecked, this.buffer.position() - this.unchecked);
+        this.unchecked = this.buffer.position();
+    }
+}
@@ -0,0 +1,173 @@
+package repository.snapshot;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static repository.snapshot.SnapshotFormat.*;
+
+/**
+ * Writes a ZooSnapshot into a channel in the format described by SnapshotFormat. <br>
+ * The data goes through a buffer of fixed size, so the snapshot is never held in memory as a whole.
+ */
+public class SnapshotWriter {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final Map<String, Integer> sharedStrings = new HashMap<>();
+
+    /**
+     * Constructor - constructs a SnapshotWriter.
+     * @param channel WritableByteChannel - where the snapshot is written, it isn't closed by the writer
+     */
+    public SnapshotWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * This method writes the snapshot.
+     * @param snapshot ZooSnapshot - the Instructors, Attractions and Guests
+     * @throws IOException if the channel can't be written, or if an Instructor of an Attraction or an Attraction of a Guest
+     * is not in the snapshot (the relation couldn't be read back)
+     */
+    public void write(ZooSnapshot snapshot) throws IOException {
+        this.ensure(6);
+        this.buffer.putInt(MAGIC);
+        this.buffer.putShort(VERSION);
+
+        List<Instructor> instructors = snapshot.getInstructors();
+        Map<Instructor, Integer> instructorReferences = new IdentityHashMap<>();
+        this.writeVarInt(instructors.size());
+        for (Instructor instructor : instructors) {
+            instructorReferences.put(instructor, instructorReferences.size() + 1);
+            this.writeString(instructor.getID(), false);
+            this.writeString(instructor.getFirstName(), true);
+            this.writeString(instructor.getLastName(), true);
+            this.writeString(instructor.getPassword(), true);
+            this.writeDouble(instructor.getFinalSum());
+        }
+
+        List<Attraction> attractions = snapshot.getAttractions();
+        Map<Attraction, Integer> attractionReferences = new IdentityHashMap<>();
+        this.writeVarInt(attractions.size());
+        for (Attraction attraction : attractions) {
+            attractionReferences.put(attraction, attractionReferences.size() + 1);
+            this.writeString(attraction.getID(), false);
+            this.writeString(attraction.name, true);
+            this.writeVarInt(attraction.getCapacity() == null ? NO_CAPACITY : attraction.getCapacity() + 1);
+            this.writeVarInt(attraction.getInstructor() == null ? NO_REFERENCE
+                    : reference(instructorReferences, attraction.getInstructor(), attraction.getInstructor().getID()));
+            this.writeDouble(attraction.price);
+            this.writeString(attraction.location, true);
+            this.writeVarInt(attraction.day == null ? 0 : attraction.day.ordinal() + 1);
+        }
+
+        List<Guest> guests = snapshot.getGuests();
+        this.writeVarInt(guests.size());
+        for (Guest guest : guests) {
+            this.writeString(guest.getID(), false);
+            this.writeString(guest.getFirstName(), true);
+            this.writeString(guest.getLastName(), true);
+            this.writeString(guest.getPassword(), true);
+            this.writeVarLong(guest.getBirthday() == null ? NO_DATE : guest.getBirthday().toEpochDay());
+            this.writeDouble(guest.getFinalSum());
+            List<Attraction> attractionsOfGuest = guest.getAttractions();
+            this.writeVarInt(attractionsOfGuest.size());
+            for (Attraction attraction : attractionsOfGuest)
+                this.writeVarInt(reference(attractionReferences, attraction, attraction.getID()));
+        }
+
+        this.flush();
+        ByteBuffer checksum = ByteBuffer.allocate(4).putInt(0, (int) this.crc.getValue());
+        while (checksum.hasRemaining())
+            this.channel.write(checksum);
+    }
+
+    /**
+     * This method returns the reference of an object which was written before.
+     * @throws IOException if the object is not in the snapshot
+     */
+    private static <T> int reference(Map<T, Integer> references, T object, String id) throws IOException {
+        Integer reference = references.get(object);
+        if (reference == null)
+            throw new IOException("Das Objekt " + id + " ist nicht im Snapshot enthalten");
+        return reference;
+    }
+
+    private void writeString(String value, boolean shared) throws IOException {
+        if (value == null) {
+            this.writeVarInt(NULL_STRING);
+            return;
+        }
+        if (shared) {
+            Integer number = this.sharedStrings.get(value);
+            if (number != null) {
+                this.writeVarInt(STRING_REFERENCE + number);
+                return;
+            }
+            if (this.sharedStrings.size() < MAX_SHARED_STRINGS)
+                this.sharedStrings.put(value, this.sharedStrings.size());
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.writeVarInt(NEW_STRING);
+        this.writeVarInt(bytes.length);
+        int written = 0;
+        while (written < bytes.length) {
+            if (!this.buffer.hasRemaining())
+                this.flush();
+            int length = Math.min(this.buffer.remaining(), bytes.length - written);
+            this.buffer.put(bytes, written, length);
+            written += length;
+        }
+    }
+
+    private void writeDouble(double value) throws IOException {
+        this.ensure(8);
+        this.buffer.putDouble(value);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        this.ensure(5);
+        while ((value & ~0x7F) != 0) {
+            this.buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        this.buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a signed long, small negative and positive values take few bytes (zigzag encoding).
+     */
+    private void writeVarLong(long value) throws IOException {
+        this.ensure(10);
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            this.buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        this.buffer.put((byte) zigzag);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes)
+            this.flush();
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        this.crc.update(this.buffer.duplicate());
+        while (this.buffer.hasRemaining())
+            this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+}
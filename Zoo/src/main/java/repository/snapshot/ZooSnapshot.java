@@ -0,0 +1,117 @@
+package repository.snapshot;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import repository.AttractionRepository;
+import repository.GuestRepository;
+import repository.InstructorRepository;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The complete state of the zoo: Instructors, Attractions and Guests. <br>
+ * A snapshot can be taken from the repositories, saved into a file and loaded back into repositories.
+ */
+public class ZooSnapshot {
+    private final List<Instructor> instructors;
+    private final List<Attraction> attractions;
+    private final List<Guest> guests;
+
+    /**
+     * Constructor - constructs a ZooSnapshot.
+     * @param instructors list of Instructors
+     * @param attractions list of Attractions, their Instructors should be in the list of Instructors
+     * @param guests list of Guests, their Attractions should be in the list of Attractions
+     */
+    public ZooSnapshot(List<Instructor> instructors, List<Attraction> attractions, List<Guest> guests) {
+        this.instructors = instructors;
+        this.attractions = attractions;
+        this.guests = guests;
+    }
+
+    /**
+     * This method takes a snapshot of the repositories.
+     * @param instructorRepository InstructorRepository
+     * @param attractionRepository AttractionRepository
+     * @param guestRepository GuestRepository
+     * @return ZooSnapshot - with the content of the repositories
+     */
+    public static ZooSnapshot of(InstructorRepository instructorRepository, AttractionRepository attractionRepository, GuestRepository guestRepository) {
+        return new ZooSnapshot(instructorRepository.getAllInstructors(), attractionRepository.getAllAttractions(), guestRepository.getAllGuests());
+    }
+
+    /**
+     * This method adds the content of the snapshot to the repositories.
+     * @param instructorRepository InstructorRepository
+     * @param attractionRepository AttractionRepository
+     * @param guestRepository GuestRepository
+     */
+    public void restore(InstructorRepository instructorRepository, AttractionRepository attractionRepository, GuestRepository guestRepository) {
+        this.instructors.forEach(instructorRepository::add);
+        this.attractions.forEach(attractionRepository::add);
+        this.guests.forEach(guestRepository::add);
+    }
+
+    /**
+     * This method saves the snapshot into a file. It is written into a temporary file first, which then replaces the file.
+     * Afterwards the directory is written to the disk, so the replaced file doesn't come back after a crash.
+     * @param file Path - the file
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new SnapshotWriter(channel).write(this);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // Windows can't open a directory, there NTFS keeps the rename in its own metadata journal
+        if (!System.getProperty("os.name").startsWith("Windows"))
+            try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+    }
+
+    /**
+     * This method loads a snapshot from a file.
+     * @param file Path - the file
+     * @return ZooSnapshot - with the content of the file
+     * @throws IOException if the file can't be read or is damaged
+     */
+    public static ZooSnapshot load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new SnapshotReader(channel).read();
+        }
+    }
+
+    /**
+     * This method returns the Instructors of the snapshot.
+     * @return The list of Instructors
+     */
+    public List<Instructor> getInstructors() {
+        return instructors;
+    }
+
+    /**
+     * This method returns the Attractions of the snapshot.
+     * @return The list of Attractions
+     */
+    public List<Attraction> getAttractions() {
+        return attractions;
+    }
+
+    /**
+     * This method returns the Guests of the snapshot.
+     * @return The list of Guests
+     */
+    public List<Guest> getGuests() {
+        return guests;
+    }
+}
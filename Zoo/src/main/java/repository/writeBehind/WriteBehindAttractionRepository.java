@@ -0,0 +1,113 @@
+package repository.writeBehind;
+
+import domain.Attraction;
+import domain.Weekday;
+import repository.AttractionRepository;
+import repository.SortCursor;
+import repository.writeBehind.WriteBehindQueue.Kind;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * AttractionRepository which executes every change in the wrapped repository and queues it for the database
+ * of the WriteBehindRepositories. The queries are answered by the wrapped repository.
+ */
+class WriteBehindAttractionRepository implements AttractionRepository {
+    private final WriteBehindRepositories repositories;
+    private final AttractionRepository attractionRepository;
+
+    /**
+     * Constructor - constructs a WriteBehindAttractionRepository.
+     * @param repositories WriteBehindRepositories - the queue of the changes
+     * @param attractionRepository AttractionRepository - keeps the Attractions
+     */
+    WriteBehindAttractionRepository(WriteBehindRepositories repositories, AttractionRepository attractionRepository) {
+        this.repositories = repositories;
+        this.attractionRepository = attractionRepository;
+    }
+
+    @Override
+    public List<Attraction> getAllAttractions() {
+        return this.attractionRepository.getAllAttractions();
+    }
+
+    @Override
+    public List<Attraction> getAttractionsFromDay(Weekday weekday) {
+        return this.attractionRepository.getAttractionsFromDay(weekday);
+    }
+
+    @Override
+    public List<Attraction> getAttractionsWithPriceAtMost(double price) {
+        return this.attractionRepository.getAttractionsWithPriceAtMost(price);
+    }
+
+    @Override
+    public List<Attraction> getAttractionsWithFreePlaces() {
+        return this.attractionRepository.getAttractionsWithFreePlaces();
+    }
+
+    @Override
+    public Stream<Attraction> stream() {
+        return this.attractionRepository.stream();
+    }
+
+    @Override
+    public List<Attraction> page(int offset, int limit) {
+        return this.attractionRepository.page(offset, limit);
+    }
+
+    @Override
+    public List<Attraction> pageAfter(String lastID, int limit) {
+        return this.attractionRepository.pageAfter(lastID, limit);
+    }
+
+    @Override
+    public List<Attraction> pageByPrice(SortCursor after, int limit) {
+        return this.attractionRepository.pageByPrice(after, limit);
+    }
+
+    @Override
+    public List<Attraction> pageByNrOfGuests(SortCursor after, int limit) {
+        return this.attractionRepository.pageByNrOfGuests(after, limit);
+    }
+
+    @Override
+    public void add(Attraction attraction) {
+        try {
+            this.attractionRepository.add(attraction);
+            this.repositories.saved(Kind.ATTRACTION, attraction.getID(), this.attractionRepository);
+        } catch (NullPointerException ignored) {}
+    }
+
+    @Override
+    public boolean insertIfAbsent(Attraction attraction) {
+        if (attraction == null || !this.attractionRepository.insertIfAbsent(attraction))
+            return false;
+        this.repositories.saved(Kind.ATTRACTION, attraction.getID(), this.attractionRepository);
+        return true;
+    }
+
+    @Override
+    public void delete(String id) {
+        this.attractionRepository.delete(id);
+        this.repositories.deleted(Kind.ATTRACTION, id);
+    }
+
+    @Override
+    public void update(String id, Attraction attraction) {
+        this.attractionRepository.update(id, attraction);
+        if (!id.equals(attraction.getID())) {
+            // the update is rejected if the new ID belongs to another Attraction, then nothing is written
+            if (this.attractionRepository.findByID(id) != null)
+                return;
+            this.repositories.deleted(Kind.ATTRACTION, id);
+        }
+        this.repositories.saved(Kind.ATTRACTION, attraction.getID(), this.attractionRepository);
+    }
+
+    @Override
+    public Attraction findByID(String id) {
+        return this.attractionRepository.findByID(id);
+    }
+}
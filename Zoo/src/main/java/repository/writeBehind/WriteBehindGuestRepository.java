@@ -0,0 +1,92 @@
+package repository.writeBehind;
+
+import domain.Guest;
+import repository.GuestRepository;
+import repository.SortCursor;
+import repository.writeBehind.WriteBehindQueue.Kind;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * GuestRepository which executes every change in the wrapped repository and queues it for the database
+ * of the WriteBehindRepositories. The queries are answered by the wrapped repository.
+ */
+class WriteBehindGuestRepository implements GuestRepository {
+    private final WriteBehindRepositories repositories;
+    private final GuestRepository guestRepository;
+
+    /**
+     * Constructor - constructs a WriteBehindGuestRepository.
+     * @param repositories WriteBehindRepositories - the queue of the changes
+     * @param guestRepository GuestRepository - keeps the Guests
+     */
+    WriteBehindGuestRepository(WriteBehindRepositories repositories, GuestRepository guestRepository) {
+        this.repositories = repositories;
+        this.guestRepository = guestRepository;
+    }
+
+    @Override
+    public List<Guest> getAllGuests() {
+        return this.guestRepository.getAllGuests();
+    }
+
+    @Override
+    public Stream<Guest> stream() {
+        return this.guestRepository.stream();
+    }
+
+    @Override
+    public List<Guest> page(int offset, int limit) {
+        return this.guestRepository.page(offset, limit);
+    }
+
+    @Override
+    public List<Guest> pageAfter(String lastID, int limit) {
+        return this.guestRepository.pageAfter(lastID, limit);
+    }
+
+    @Override
+    public List<Guest> pageBySumDescending(SortCursor after, int limit) {
+        return this.guestRepository.pageBySumDescending(after, limit);
+    }
+
+    @Override
+    public void add(Guest guest) {
+        try {
+            this.guestRepository.add(guest);
+            this.repositories.saved(Kind.GUEST, guest.getID(), this.guestRepository);
+        } catch (NullPointerException ignored) {}
+    }
+
+    @Override
+    public boolean insertIfAbsent(Guest guest) {
+        if (guest == null || !this.guestRepository.insertIfAbsent(guest))
+            return false;
+        this.repositories.saved(Kind.GUEST, guest.getID(), this.guestRepository);
+        return true;
+    }
+
+    @Override
+    public void delete(String id) {
+        this.guestRepository.delete(id);
+        this.repositories.deleted(Kind.GUEST, id);
+    }
+
+    @Override
+    public void update(String id, Guest guest) {
+        this.guestRepository.update(id, guest);
+        if (!id.equals(guest.getID())) {
+            // the update is rejected if the new ID belongs to another Guest, then nothing is written
+            if (this.guestRepository.findByID(id) != null)
+                return;
+            this.repositories.deleted(Kind.GUEST, id);
+        }
+        this.repositories.saved(Kind.GUEST, guest.getID(), this.guestRepository);
+    }
+
+    @Override
+    public Guest findByID(String id) {
+        return this.guestRepository.findByID(id);
+    }
+}
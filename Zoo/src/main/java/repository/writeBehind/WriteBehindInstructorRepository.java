@@ -0,0 +1,101 @@
+package repository.writeBehind;
+
+import domain.Instructor;
+import repository.InstructorRepository;
+import repository.writeBehind.WriteBehindQueue.Kind;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * InstructorRepository which executes every change in the wrapped repository and queues it for the database
+ * of the WriteBehindRepositories. The queries are answered by the wrapped repository.
+ */
+class WriteBehindInstructorRepository implements InstructorRepository {
+    private final WriteBehindRepositories repositories;
+    private final InstructorRepository instructorRepository;
+
+    /**
+     * Constructor - constructs a WriteBehindInstructorRepository.
+     * @param repositories WriteBehindRepositories - the queue of the changes
+     * @param instructorRepository InstructorRepository - keeps the Instructors
+     */
+    WriteBehindInstructorRepository(WriteBehindRepositories repositories, InstructorRepository instructorRepository) {
+        this.repositories = repositories;
+        this.instructorRepository = instructorRepository;
+    }
+
+    @Override
+    public List<Instructor> getAllInstructors() {
+        return this.instructorRepository.getAllInstructors();
+    }
+
+    @Override
+    public Stream<Instructor> stream() {
+        return this.instructorRepository.stream();
+    }
+
+    @Override
+    public List<Instructor> page(int offset, int limit) {
+        return this.instructorRepository.page(offset, limit);
+    }
+
+    @Override
+    public List<Instructor> pageAfter(String lastID, int limit) {
+        return this.instructorRepository.pageAfter(lastID, limit);
+    }
+
+    @Override
+    public double getTotalIncome() {
+        return this.instructorRepository.getTotalIncome();
+    }
+
+    @Override
+    public double getAverageIncome() {
+        return this.instructorRepository.getAverageIncome();
+    }
+
+    @Override
+    public List<Instructor> getInstructorsAboveAverageIncome() {
+        return this.instructorRepository.getInstructorsAboveAverageIncome();
+    }
+
+    @Override
+    public void add(Instructor instructor) {
+        try {
+            this.instructorRepository.add(instructor);
+            this.repositories.saved(Kind.INSTRUCTOR, instructor.getID(), this.instructorRepository);
+        } catch (NullPointerException ignored) {}
+    }
+
+    @Override
+    public boolean insertIfAbsent(Instructor instructor) {
+        if (instructor == null || !this.instructorRepository.insertIfAbsent(instructor))
+            return false;
+        this.repositories.saved(Kind.INSTRUCTOR, instructor.getID(), this.instructorRepository);
+        return true;
+    }
+
+    @Override
+    public void delete(String id) {
+        this.instructorRepository.delete(id);
+        this.repositories.deleted(Kind.INSTRUCTOR, id);
+    }
+
+    @Override
+    public void update(String id, Instructor instructor) {
+        this.instructorRepository.update(id, instructor);
+        if (!id.equals(instructor.getID())) {
+            // the update is rejected if the new ID belongs to another Instructor, then nothing is written
+            if (this.instructorRepository.findByID(id) != null)
+                return;
+            this.repositories.deleted(Kind.INSTRUCTOR, id);
+        }
+        this.repositories.saved(Kind.INSTRUCTOR, instructor.getID(), this.instructorRepository);
+    }
+
+    @Override
+    public Instructor findByID(String id) {
+        return this.instructorRepository.findByID(id);
+    }
+}
@@ -0,0 +1,202 @@
+package repository.writeBehind;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Changes which are not written to the database yet, coalesced per object. <br>
+ * For each object only its last change is kept: the copy of the object which will be saved (its state at the time
+ * of the change) or the deletion. Further changes of a waiting object don't take more room, they keep its waiting time.
+ * If capacity objects are waiting, a change of another object waits until the writer has taken the changes (backpressure).
+ */
+final class WriteBehindQueue {
+    enum Kind { INSTRUCTOR, ATTRACTION, GUEST }
+
+    /**
+     * The last change of an object: the copy of the object which will be saved, null if it will be deleted.
+     */
+    static final class Change {
+        final Object entity;
+        final long queuedAt;
+        /**
+         * Number of flushes in a row in which the change could not be written.
+         */
+        final int failures;
+
+        private Change(Object entity, long queuedAt, int failures) {
+            this.entity = entity;
+            this.queuedAt = queuedAt;
+            this.failures = failures;
+        }
+
+        /**
+         * @return the same change after one more failed flush
+         */
+        Change failed() {
+            return new Change(this.entity, this.queuedAt, this.failures + 1);
+        }
+    }
+
+    private final int capacity;
+    private final Map<Kind, Map<String, Change>> pending = new EnumMap<>(Kind.class);
+    private int size;
+    /**
+     * Time when the oldest waiting change was queued (System.nanoTime()), -1 if nothing waits.
+     */
+    private long oldest = -1;
+    /**
+     * Time when the oldest change of the batch which is written at the moment was queued, -1 if no batch is written.
+     */
+    private long writingSince = -1;
+    private boolean closed;
+
+    /**
+     * Constructor - constructs an empty queue.
+     * @param capacity int - maximum number of waiting objects
+     */
+    WriteBehindQueue(int capacity) {
+        this.capacity = capacity;
+        for (Kind kind : Kind.values())
+            this.pending.put(kind, new LinkedHashMap<>());
+    }
+
+    /**
+     * This method queues the saving of an object.
+     * @param kind Kind of the object
+     * @param id String - ID of the object
+     * @param entity the copy of the object which will be written
+     */
+    synchronized void save(Kind kind, String id, Object entity) {
+        this.put(kind, id, entity);
+    }
+
+    /**
+     * This method queues the deletion of an object.
+     * @param kind Kind of the object
+     * @param id String - ID of the object
+     */
+    synchronized void delete(Kind kind, String id) {
+        this.put(kind, id, null);
+    }
+
+    private void put(Kind kind, String id, Object entity) {
+        Map<String, Change> changes = this.pending.get(kind);
+        while (!changes.containsKey(id) && this.size >= this.capacity && !this.closed) {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                // the change is queued anyway, it is already done in memory
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (this.closed)
+            throw new IllegalStateException("Die Repositories wurden geschlossen, die Änderung wird nicht gespeichert");
+        Change previous = changes.get(id);
+        long now = System.nanoTime();
+        changes.put(id, new Change(entity, previous == null ? now : previous.queuedAt, 0));
+        if (previous == null) {
+            this.size++;
+            if (this.oldest < 0)
+                this.oldest = now;
+        }
+        this.notifyAll();
+    }
+
+    /**
+     * This method waits until a batch should be written: batchSize objects are waiting
+     * or the oldest change waits for intervalMillis.
+     * @param batchSize int - number of objects which are written together
+     * @param intervalMillis long - maximum waiting time of a change
+     * @return false if the queue was closed
+     */
+    synchronized boolean awaitBatch(int batchSize, long intervalMillis) {
+        long interval = intervalMillis * 1_000_000;
+        while (!this.closed) {
+            if (this.size >= batchSize)
+                return true;
+            long waited = this.oldest < 0 ? 0 : System.nanoTime() - this.oldest;
+            if (this.oldest >= 0 && waited >= interval)
+                return true;
+            try {
+                long remaining = (interval - waited) / 1_000_000;
+                this.wait(Math.max(1, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method takes all waiting changes for writing them, the callers who wait for room can continue.
+     * @return the changes of each Kind, in the order in which the objects were changed first
+     */
+    synchronized Map<Kind, Map<String, Change>> drain() {
+        Map<Kind, Map<String, Change>> batch = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            batch.put(kind, this.pending.get(kind));
+            this.pending.put(kind, new LinkedHashMap<>());
+        }
+        this.writingSince = this.oldest;
+        this.oldest = -1;
+        this.size = 0;
+        this.notifyAll();
+        return batch;
+    }
+
+    /**
+     * This method puts the changes of a batch which could not be written back into the queue,
+     * unless the object was changed again in the meantime. The capacity may be exceeded.
+     * @param batch the changes taken by drain(), with the number of failures of the last attempt
+     */
+    synchronized void requeue(Map<Kind, Map<String, Change>> batch) {
+        batch.forEach((kind, changes) -> changes.forEach((id, change) -> {
+            Change newer = this.pending.get(kind).get(id);
+            if (newer == null) {
+                this.pending.get(kind).put(id, change);
+                this.size++;
+            } else {
+                // the newer change keeps the waiting time of the failed one, it wasn't tried yet
+                this.pending.get(kind).put(id, new Change(newer.entity, change.queuedAt, 0));
+            }
+            if (this.oldest < 0 || change.queuedAt - this.oldest < 0)
+                this.oldest = change.queuedAt;
+        }));
+    }
+
+    /**
+     * This method marks the end of the writing of a batch.
+     */
+    synchronized void written() {
+        this.writingSince = -1;
+    }
+
+    /**
+     * @return number of waiting objects
+     */
+    synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * This method returns how long the oldest change which is not in the database yet is waiting.
+     * @return long - milliseconds, 0 if every change is written
+     */
+    synchronized long lagMillis() {
+        long since = this.oldest;
+        if (this.writingSince >= 0 && (since < 0 || this.writingSince - since < 0))
+            since = this.writingSince;
+        return since < 0 ? 0 : (System.nanoTime() - since) / 1_000_000;
+    }
+
+    /**
+     * This method closes the queue: awaitBatch() returns false and no change can be queued anymore.
+     */
+    synchronized void close() {
+        this.closed = true;
+        this.notifyAll();
+    }
+}
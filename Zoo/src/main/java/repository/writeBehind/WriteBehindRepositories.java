@@ -0,0 +1,557 @@
+package repository.writeBehind;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import domain.Weekday;
+import repository.AttractionRepository;
+import repository.BulkResult;
+import repository.GuestRepository;
+import repository.ICrudRepository;
+import repository.InstructorRepository;
+import repository.UnitOfWork;
+import repository.WriteOutcome;
+import repository.writeBehind.WriteBehindQueue.Change;
+import repository.writeBehind.WriteBehindQueue.Kind;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hybrid mode: the repositories in memory are the primary copy of the data, the database receives the changes later. <br>
+ * The repositories returned by this class answer every query from the wrapped repositories in memory
+ * (usually the InMemory repositories). Every add, update and delete is done in memory and queued in a WriteBehindQueue,
+ * where the changes of one object are coalesced. A background thread writes the queue to the target repositories
+ * (usually the Jdbc repositories) when batchSize objects are waiting or the oldest change waits for flushIntervalMillis.
+ * A batch is written in one UnitOfWork of the target with its bulk operations. If it fails (also if a single object of a
+ * bulk operation fails), the unit of work is rolled back and each object of the batch is tried again in its own unit of work,
+ * so one object which can't be written doesn't hold back the others. The objects which still fail are queued again;
+ * an object which failed in MAX_FAILURES flushes in a row is taken out of the queue and kept in the dead letters
+ * (getDeadLetters()), so the queue doesn't grow with changes which are never written. A later change of the object queues it again.
+ * The UnitOfWork must discard the objects of the failed attempt, as EntityManagerProvider does, so the next attempt reads the target again.
+ * <br>
+ * The queue holds copies of the objects, taken by the thread which made the change while it holds the lock of the object,
+ * so the writer thread never reads an object in memory. The target gets rows made from the copies, whose relations point to
+ * the objects of the target, so the objects in memory are never managed by the database backend.
+ * The target repositories must only be used by this class.
+ * Changes which are still in the queue are lost if the process ends without close().
+ */
+public class WriteBehindRepositories implements Closeable {
+    /**
+     * Number of flushes in a row after which a change which can't be written is moved to the dead letters.
+     */
+    static final int MAX_FAILURES = 3;
+
+    /**
+     * A change which could not be written in MAX_FAILURES flushes in a row and was taken out of the queue.
+     */
+    public static final class DeadLetter {
+        private final String type;
+        private final String id;
+        private final boolean deletion;
+        private final String error;
+
+        private DeadLetter(Kind kind, String id, boolean deletion, String error) {
+            this.type = kind.name();
+            this.id = id;
+            this.deletion = deletion;
+            this.error = error;
+        }
+
+        /**
+         * @return the type of the object: INSTRUCTOR, ATTRACTION or GUEST
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the ID of the object
+         */
+        public String getID() {
+            return id;
+        }
+
+        /**
+         * @return true if the change was the deletion of the object, false if it was its saving
+         */
+        public boolean isDeletion() {
+            return deletion;
+        }
+
+        /**
+         * @return the message of the error of the last attempt
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return this.type + ' ' + this.id + ": " + this.error;
+        }
+    }
+
+    /**
+     * Copy of an Instructor for the queue, the Attractions by ID.
+     */
+    private static final class InstructorCopy {
+        final String id;
+        final String firstName;
+        final String lastName;
+        final String password;
+        final double finalSum;
+        final List<String> attractionIDs;
+
+        InstructorCopy(Instructor instructor) {
+            synchronized (instructor) {
+                this.id = instructor.getID();
+                this.firstName = instructor.getFirstName();
+                this.lastName = instructor.getLastName();
+                this.password = instructor.getPassword();
+                this.finalSum = instructor.getFinalSum();
+                this.attractionIDs = instructor.getAttractions().stream().map(Attraction::getID).toList();
+            }
+        }
+    }
+
+    /**
+     * Copy of an Attraction for the queue, the Instructor and the Guests by ID.
+     */
+    private static final class AttractionCopy {
+        final String id;
+        final String name;
+        final Integer capacity;
+        final String instructorID;
+        final List<String> guestIDs;
+        final double price;
+        final String location;
+        final Weekday day;
+
+        AttractionCopy(Attraction attraction) {
+            // the Guest-list is changed by a sign-up while it holds the lock of the Attraction
+            synchronized (attraction) {
+                this.id = attraction.getID();
+                this.name = attraction.name;
+                this.capacity = attraction.getCapacity();
+                this.instructorID = attraction.getInstructor() == null ? null : attraction.getInstructor().getID();
+                this.guestIDs = attraction.guestList.stream().map(Guest::getID).toList();
+                this.price = attraction.price;
+                this.location = attraction.location;
+                this.day = attraction.day;
+            }
+        }
+    }
+
+    /**
+     * Copy of a Guest for the queue, the Attractions by ID.
+     */
+    private static final class GuestCopy {
+        final String id;
+        final String firstName;
+        final String lastName;
+        final String password;
+        final LocalDate birthday;
+        final double finalSum;
+        final List<String> attractionIDs;
+
+        GuestCopy(Guest guest) {
+            synchronized (guest) {
+                this.id = guest.getID();
+                this.firstName = guest.getFirstName();
+                this.lastName = guest.getLastName();
+                this.password = guest.getPassword();
+                this.birthday = guest.getBirthday();
+                this.finalSum = guest.getFinalSum();
+                this.attractionIDs = guest.getAttractions().stream().map(Attraction::getID).toList();
+            }
+        }
+    }
+
+    private final WriteBehindQueue queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private final InstructorRepository targetInstructors;
+    private final AttractionRepository targetAttractions;
+    private final GuestRepository targetGuests;
+    private final UnitOfWork targetUnitOfWork;
+
+    private final WriteBehindInstructorRepository instructorRepository;
+    private final WriteBehindAttractionRepository attractionRepository;
+    private final WriteBehindGuestRepository guestRepository;
+
+    /**
+     * Only one batch is written at a time, by the writer thread or by flush().
+     */
+    private final Object writing = new Object();
+    private final Thread writer;
+    private final AtomicLong writtenChanges = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final List<DeadLetter> deadLetters = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor - wraps the repositories in memory and starts the writer thread.
+     * @param instructorRepository InstructorRepository which keeps the Instructors in memory
+     * @param attractionRepository AttractionRepository which keeps the Attractions in memory
+     * @param guestRepository GuestRepository which keeps the Guests in memory
+     * @param targetInstructors InstructorRepository which receives the changes, e.g. JdbcInstructorRepository
+     * @param targetAttractions AttractionRepository which receives the changes, e.g. JdbcAttractionRepository
+     * @param targetGuests GuestRepository which receives the changes, e.g. JdbcGuestRepository
+     * @param targetUnitOfWork UnitOfWork of the target repositories, e.g. their EntityManagerProvider
+     * @param capacity int - maximum number of objects with waiting changes, further changes wait for room
+     * @param batchSize int - number of waiting objects after which a batch is written
+     * @param flushIntervalMillis long - maximum waiting time of a change before it is written
+     */
+    public WriteBehindRepositories(InstructorRepository instructorRepository, AttractionRepository attractionRepository, GuestRepository guestRepository,
+                                   InstructorRepository targetInstructors, AttractionRepository targetAttractions, GuestRepository targetGuests,
+                                   UnitOfWork targetUnitOfWork, int capacity, int batchSize, long flushIntervalMillis) {
+        this.queue = new WriteBehindQueue(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.targetInstructors = targetInstructors;
+        this.targetAttractions = targetAttractions;
+        this.targetGuests = targetGuests;
+        this.targetUnitOfWork = targetUnitOfWork;
+
+        this.instructorRepository = new WriteBehindInstructorRepository(this, instructorRepository);
+        this.attractionRepository = new WriteBehindAttractionRepository(this, attractionRepository);
+        this.guestRepository = new WriteBehindGuestRepository(this, guestRepository);
+
+        this.writer = new Thread(this::run, "write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * This method queues the saving of the object which the repository in memory has with the given ID. <br>
+     * The object is copied now, under its lock, by the thread which changed it.
+     * @param kind Kind of the object
+     * @param id String - ID of the object
+     * @param repository ICrudRepository in memory
+     */
+    <E> void saved(Kind kind, String id, ICrudRepository<String, E> repository) {
+        E element = repository.findByID(id);
+        if (element == null)
+            return;
+        Object copy = switch (kind) {
+            case INSTRUCTOR -> new InstructorCopy((Instructor) element);
+            case ATTRACTION -> new AttractionCopy((Attraction) element);
+            case GUEST -> new GuestCopy((Guest) element);
+        };
+        this.queue.save(kind, id, copy);
+    }
+
+    /**
+     * This method queues the deletion of an object.
+     * @param kind Kind of the object
+     * @param id String - ID of the object
+     */
+    void deleted(Kind kind, String id) {
+        this.queue.delete(kind, id);
+    }
+
+    private void run() {
+        while (this.queue.awaitBatch(this.batchSize, this.flushIntervalMillis)) {
+            if (!this.flush()) {
+                // the target is not reachable, the changes wait in the queue until the next attempt
+                try {
+                    Thread.sleep(this.flushIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method writes every waiting change to the target repositories now, in one unit of work.
+     * If it fails, each object is written in its own unit of work, the objects which still fail are queued again
+     * or, after MAX_FAILURES failed flushes, moved to the dead letters.
+     * @return true if the changes were written, false if some of them were queued again or moved to the dead letters
+     */
+    public boolean flush() {
+        synchronized (this.writing) {
+            Map<Kind, Map<String, Change>> batch = this.queue.drain();
+            int changes = batch.values().stream().mapToInt(Map::size).sum();
+            if (changes == 0) {
+                this.queue.written();
+                return true;
+            }
+            try {
+                this.writeInUnitOfWork(batch);
+                this.writtenChanges.addAndGet(changes);
+                return true;
+            } catch (RuntimeException e) {
+                this.failedFlushes.incrementAndGet();
+                System.out.println("Die Änderungen konnten nicht in die Datenbank geschrieben werden: " + e.getMessage());
+                this.writeEach(batch);
+                return false;
+            } finally {
+                this.queue.written();
+            }
+        }
+    }
+
+    /**
+     * This method writes the objects of a failed batch one by one, each in its own unit of work. <br>
+     * An object can need another object of the batch which fails before it was written (e.g. a Guest of a new Attraction),
+     * so the failed objects are tried again as long as another object could be written.
+     * The objects which fail at last are queued again with one more failure, or moved to the dead letters.
+     * @param batch the changes of the failed batch
+     */
+    private void writeEach(Map<Kind, Map<String, Change>> batch) {
+        Map<Kind, Map<String, Change>> failed = batch;
+        Map<Kind, Map<String, String>> errors = new EnumMap<>(Kind.class);
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            Map<Kind, Map<String, Change>> remaining = new EnumMap<>(Kind.class);
+            for (Kind kind : Kind.values()) {
+                remaining.put(kind, new LinkedHashMap<>());
+                errors.put(kind, new LinkedHashMap<>());
+            }
+            for (Kind kind : Kind.values())
+                for (Map.Entry<String, Change> change : failed.get(kind).entrySet()) {
+                    Map<Kind, Map<String, Change>> single = new EnumMap<>(Kind.class);
+                    for (Kind other : Kind.values())
+                        single.put(other, other == kind ? Map.of(change.getKey(), change.getValue()) : Map.of());
+                    try {
+                        this.writeInUnitOfWork(single);
+                        this.writtenChanges.incrementAndGet();
+                        progress = true;
+                    } catch (RuntimeException e) {
+                        remaining.get(kind).put(change.getKey(), change.getValue());
+                        errors.get(kind).put(change.getKey(), e.getMessage());
+                    }
+                }
+            failed = remaining;
+        }
+
+        Map<Kind, Map<String, Change>> requeued = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            requeued.put(kind, new LinkedHashMap<>());
+            failed.get(kind).forEach((id, change) -> {
+                Change again = change.failed();
+                if (again.failures < MAX_FAILURES) {
+                    requeued.get(kind).put(id, again);
+                } else {
+                    DeadLetter letter = new DeadLetter(kind, id, change.entity == null, errors.get(kind).get(id));
+                    this.deadLetters.add(letter);
+                    System.out.println("Die Änderung wird nicht mehr versucht: " + letter);
+                }
+            });
+        }
+        this.queue.requeue(requeued);
+    }
+
+    private void writeInUnitOfWork(Map<Kind, Map<String, Change>> batch) {
+        this.targetUnitOfWork.execute(() -> {
+            this.write(batch);
+            return null;
+        });
+    }
+
+    /**
+     * This method writes a batch in two passes, because the objects of the batch can refer to each other. <br>
+     * First the new Instructors and the new Attractions are added without the relations to objects which may be new as well,
+     * then the Guests are saved with their Attractions (all Attractions exist now). In the second pass the Attractions are
+     * saved with their Guests and the Instructors with their Attractions. At last the deleted objects are deleted.
+     */
+    private void write(Map<Kind, Map<String, Change>> batch) {
+        List<InstructorCopy> instructors = saved(batch.get(Kind.INSTRUCTOR), InstructorCopy.class);
+        List<AttractionCopy> attractions = saved(batch.get(Kind.ATTRACTION), AttractionCopy.class);
+        addNew(this.targetInstructors.addAll(instructors.stream().map(i -> this.instructorRow(i, false)).toList()));
+        addNew(this.targetAttractions.addAll(attractions.stream().map(a -> this.attractionRow(a, false)).toList()));
+        save(this.targetGuests, saved(batch.get(Kind.GUEST), GuestCopy.class).stream().map(this::guestRow).toList(), Guest::getID);
+
+        Map<String, Attraction> attractionRows = new LinkedHashMap<>();
+        for (AttractionCopy attraction : attractions)
+            attractionRows.put(attraction.id, this.attractionRow(attraction, true));
+        check(this.targetAttractions.updateAll(attractionRows));
+        Map<String, Instructor> instructorRows = new LinkedHashMap<>();
+        for (InstructorCopy instructor : instructors)
+            instructorRows.put(instructor.id, this.instructorRow(instructor, true));
+        check(this.targetInstructors.updateAll(instructorRows));
+
+        check(this.targetAttractions.deleteAll(deleted(batch.get(Kind.ATTRACTION))));
+        check(this.targetGuests.deleteAll(deleted(batch.get(Kind.GUEST))));
+        check(this.targetInstructors.deleteAll(deleted(batch.get(Kind.INSTRUCTOR))));
+    }
+
+    /**
+     * This method adds the objects to the target and updates the ones which exist there already.
+     */
+    private static <E> void save(ICrudRepository<String, E> target, List<E> rows, Function<E, String> idOf) {
+        if (rows.isEmpty())
+            return;
+        BulkResult added = addNew(target.addAll(rows));
+        Map<String, E> existing = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++)
+            if (added.get(i) == WriteOutcome.DUPLICATE)
+                existing.put(idOf.apply(rows.get(i)), rows.get(i));
+        if (!existing.isEmpty())
+            check(target.updateAll(existing));
+    }
+
+    /**
+     * This method checks the result of an addAll(), an object which exists already (DUPLICATE) is updated afterwards.
+     * @throws IllegalStateException if an object couldn't be written, so the unit of work is rolled back
+     */
+    private static BulkResult addNew(BulkResult result) {
+        if (result.count(WriteOutcome.FAILED) > 0)
+            throw new IllegalStateException(failure(result));
+        return result;
+    }
+
+    /**
+     * This method checks the result of an updateAll() or deleteAll(), an object which doesn't exist (NOT_FOUND) is fine:
+     * e.g. an object which was added and deleted again before it was written.
+     * @throws IllegalStateException if an object couldn't be written, so the unit of work is rolled back
+     */
+    private static void check(BulkResult result) {
+        if (result.count(WriteOutcome.FAILED) > 0 || result.count(WriteOutcome.DUPLICATE) > 0)
+            throw new IllegalStateException(failure(result));
+    }
+
+    private static String failure(BulkResult result) {
+        return result.getError() != null ? result.getError() : "Nicht alle Objekte konnten geschrieben werden: " + result;
+    }
+
+    private static <E> List<E> saved(Map<String, Change> changes, Class<E> type) {
+        return changes.values().stream().filter(c -> c.entity != null).map(c -> type.cast(c.entity)).toList();
+    }
+
+    private static List<String> deleted(Map<String, Change> changes) {
+        List<String> ids = new ArrayList<>();
+        changes.forEach((id, change) -> {
+            if (change.entity == null)
+                ids.add(id);
+        });
+        return ids;
+    }
+
+    /**
+     * This method makes the row of an Instructor for the target.
+     * @param withAttractions boolean - false for a new Instructor, whose Attractions don't exist in the target yet
+     */
+    private Instructor instructorRow(InstructorCopy instructor, boolean withAttractions) {
+        Instructor row = new Instructor(instructor.id, instructor.firstName, instructor.lastName, instructor.password);
+        row.setFinalSum(instructor.finalSum);
+        if (withAttractions)
+            row.setAttractions(resolve(instructor.attractionIDs, this.targetAttractions::findByID));
+        return row;
+    }
+
+    private Guest guestRow(GuestCopy guest) {
+        return new Guest(guest.id, guest.firstName, guest.lastName, guest.password, guest.birthday,
+                guest.finalSum, resolve(guest.attractionIDs, this.targetAttractions::findByID));
+    }
+
+    /**
+     * This method makes the row of an Attraction for the target.
+     * @param withGuests boolean - false in the first pass, when the Guests of the batch don't exist in the target yet
+     */
+    private Attraction attractionRow(AttractionCopy attraction, boolean withGuests) {
+        Instructor instructor = attraction.instructorID == null ? null
+                : resolve(List.of(attraction.instructorID), this.targetInstructors::findByID).get(0);
+        return new Attraction(attraction.id, attraction.name, attraction.capacity, instructor,
+                resolve(withGuests ? attraction.guestIDs : List.of(), this.targetGuests::findByID), attraction.price, attraction.location, attraction.day);
+    }
+
+    /**
+     * This method returns the objects of the target with the given IDs.
+     * @throws IllegalStateException if the target doesn't know an ID, e.g. the object was created in memory after the batch
+     * was taken from the queue: the batch is written again together with the next one, instead of losing the relation
+     */
+    private static <E> List<E> resolve(List<String> ids, Function<String, E> findByID) {
+        List<E> found = new ArrayList<>();
+        for (String id : ids) {
+            E element = findByID.apply(id);
+            if (element == null)
+                throw new IllegalStateException("Das Objekt " + id + " existiert in der Datenbank noch nicht");
+            found.add(element);
+        }
+        return found;
+    }
+
+    /**
+     * @return number of objects whose changes are not written yet
+     */
+    public int getPendingChanges() {
+        return this.queue.size();
+    }
+
+    /**
+     * This method returns how far the database is behind the memory.
+     * @return long - milliseconds since the oldest change which is not written yet was made, 0 if every change is written
+     */
+    public long getLagMillis() {
+        return this.queue.lagMillis();
+    }
+
+    /**
+     * @return number of object changes which were written since the start
+     */
+    public long getWrittenChanges() {
+        return this.writtenChanges.get();
+    }
+
+    /**
+     * @return number of batches which could not be written in one unit of work
+     */
+    public long getFailedFlushes() {
+        return this.failedFlushes.get();
+    }
+
+    /**
+     * @return the changes which could not be written in MAX_FAILURES flushes in a row and are not tried anymore, the oldest first
+     */
+    public List<DeadLetter> getDeadLetters() {
+        return List.copyOf(this.deadLetters);
+    }
+
+    /**
+     * @return InstructorRepository which answers from memory and writes its changes behind
+     */
+    public InstructorRepository getInstructorRepository() {
+        return instructorRepository;
+    }
+
+    /**
+     * @return AttractionRepository which answers from memory and writes its changes behind
+     */
+    public AttractionRepository getAttractionRepository() {
+        return attractionRepository;
+    }
+
+    /**
+     * @return GuestRepository which answers from memory and writes its changes behind
+     */
+    public GuestRepository getGuestRepository() {
+        return guestRepository;
+    }
+
+    /**
+     * This method stops the writer thread and writes the remaining changes. No change can be made afterwards.
+     */
+    @Override
+    public void close() {
+        this.queue.close();
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!this.flush())
+            System.out.println(this.getPendingChanges() + " Änderungen konnten beim Beenden nicht gespeichert werden");
+    }
+}
@@ -302,13 +302,13 @@ public class UI {
                     while (choiceMenu != 11) {
                         switch (choiceMenu) {
                             case 1:
-                                System.out.println(this.controller.getAllAttractions());
+                                this.controller.forEachAttractionSummary(System.out::print);
                                 break;
                             case 2:
                                 System.out.println(this.controller.getAllInstructors());
                                 break;
                             case 3:
-                                this.showGuestData(this.controller.getAllGuests());
+                                this.controller.forEachGuestSummary(g -> System.out.println(g.getData()));
                                 break;
                             case 4:
                                 System.out.println(this.controller.getGuestsSortedDescendingBySum());
@@ -0,0 +1,11 @@
+package utils;
+
+/**
+ * This exception is thrown when a change can't be saved, because the data was changed by someone else in the meantime
+ * (e.g. another application node using the same database). The change can be tried again with the current data.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+    public ConcurrentUpdateException(String message, Throwable cause){
+        super(message, cause);
+    }
+}
@@ -0,0 +1,9 @@
+-- Indexes of the persistence unit "embedded" (H2), the counterpart of db/migration/V4__indexes.sql.
+-- Hibernate executes the file after it created the tables, one statement per line.
+-- H2 has no partial indexes, so attraction_free_places_idx is missing.
+
+alter table attraction_guests add constraint attraction_guests_pk primary key (attraction_id, guest_id);
+create index attraction_guests_guest_idx on attraction_guests (guest_id, attraction_id);
+create index attraction_instructor_idx on attraction (instructor_id);
+create index attraction_day_idx on attraction (day, id);
+create index instructor_sum_idx on instructor (finalsum);
@@ -0,0 +1,44 @@
+-- Tables of the Zoo, as Hibernate created them with hbm2ddl.auto=update.
+-- "if not exists", so a database created by Hibernate before keeps its tables and data.
+
+create table if not exists instructor (
+    id varchar(255) not null,
+    firstname varchar(255),
+    lastname varchar(255),
+    password varchar(255),
+    finalsum float8 not null,
+    version int8,
+    primary key (id)
+);
+
+create table if not exists guest (
+    id varchar(255) not null,
+    firstname varchar(255),
+    lastname varchar(255),
+    password varchar(255),
+    finalsum float8 not null,
+    version int8,
+    birthday date,
+    primary key (id)
+);
+
+create table if not exists attraction (
+    id varchar(255) not null,
+    name varchar(255),
+    capacity int4,
+    price float8 not null,
+    location varchar(255),
+    day int4,
+    guest_count int4,
+    version int8,
+    instructor_id varchar(255),
+    primary key (id),
+    constraint attraction_instructor_fk foreign key (instructor_id) references instructor
+);
+
+create table if not exists attraction_guests (
+    attraction_id varchar(255) not null,
+    guest_id varchar(255) not null,
+    constraint attraction_guests_attraction_fk foreign key (attraction_id) references attraction,
+    constraint attraction_guests_guest_fk foreign key (guest_id) references guest
+);
@@ -0,0 +1,7 @@
+-- Columns which were added to the entities later. Databases created by Hibernate before don't have them yet,
+-- V3 fills them for the old rows.
+
+alter table attraction add column if not exists guest_count int4;
+alter table attraction add column if not exists version int8;
+alter table guest add column if not exists version int8;
+alter table instructor add column if not exists version int8;
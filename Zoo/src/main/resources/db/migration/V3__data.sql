@@ -0,0 +1,11 @@
+-- Data of the rows which were stored before V2, it is completed once here instead of at every start of the application.
+-- This script must run before V4, whose primary key of attraction_guests needs the sign-ups without duplicates.
+
+-- sign-ups which were stored twice are removed first, then the number of Guests is counted again
+delete from attraction_guests a using attraction_guests b
+    where a.ctid < b.ctid and a.attraction_id = b.attraction_id and a.guest_id = b.guest_id;
+update attraction a set guest_count = (select count(*) from attraction_guests g where g.attraction_id = a.id);
+-- the rows stored before the column version existed get their first version
+update attraction set version = 0 where version is null;
+update guest set version = 0 where version is null;
+update instructor set version = 0 where version is null;
@@ -0,0 +1,33 @@
+-- Indexes for the queries of the Jdbc repositories. Hibernate creates only the primary keys,
+-- without these indexes the following lookups read the whole table.
+
+-- a Guest can sign up only once for an Attraction (V3 removed the sign-ups which were stored twice);
+-- the key is also the index of the Guests of an Attraction. PostgreSQL has no "add constraint if not exists",
+-- the key is only added if it is missing, like the indexes below, because a database may already have it.
+do $$
+begin
+    if not exists (select 1 from pg_constraint where conname = 'attraction_guests_pk') then
+        alter table attraction_guests add constraint attraction_guests_pk primary key (attraction_id, guest_id);
+    end if;
+end
+$$;
+-- the Attractions of a Guest (Guest.attractions, fetch plan Guest.LISTING), the key contains both columns,
+-- so the join table itself is not read
+create index if not exists attraction_guests_guest_idx on attraction_guests (guest_id, attraction_id);
+
+-- the Attractions of an Instructor (Instructor.attractions, fetch plan Instructor.LISTING)
+create index if not exists attraction_instructor_idx on attraction (instructor_id);
+-- getAttractionsFromDay(): day in (...)
+create index if not exists attraction_day_idx on attraction (day, id);
+-- getAttractionsWithPriceAtMost(): price <= ?, and pageByPrice(): order by price, id
+create index if not exists attraction_price_idx on attraction (price, id);
+-- pageByNrOfGuests(): order by guest_count, id
+create index if not exists attraction_guest_count_idx on attraction (guest_count, id);
+-- getAttractionsWithFreePlaces(): the index contains only the Attractions with free places,
+-- the condition of the query is the same as the condition of the index
+create index if not exists attraction_free_places_idx on attraction (id) where guest_count < capacity;
+
+-- pageBySumDescending(): order by finalsum desc, id
+create index if not exists guest_sum_idx on guest (finalsum desc, id);
+-- getInstructorsAboveAverageIncome(): the sums are read from the index, not from the table
+create index if not exists instructor_sum_idx on instructor (finalsum);
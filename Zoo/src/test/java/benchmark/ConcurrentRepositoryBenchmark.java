@@ -0,0 +1,139 @@
+package benchmark;
+
+import domain.Guest;
+import repository.AttractionRepository;
+import repository.GuestRepository;
+import repository.concurrentRepo.ConcurrentAttractionRepository;
+import repository.concurrentRepo.ConcurrentGuestRepository;
+import repository.concurrentRepo.ConcurrentInstructorRepository;
+import repository.memoryRepo.InMemoryAttractionRepository;
+import repository.memoryRepo.InMemoryGuestRepository;
+import repository.memoryRepo.InMemoryInstructorRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of the GuestRepository implementations on 1 to 32 threads. <br>
+ * The InMemoryGuestRepository is not thread-safe, so it is measured behind one global lock,
+ * this is the only way several ticket desks could share it. <br>
+ * Each thread runs 90% findByID, 5% update and 5% add + delete of a new Guest. <br>
+ * Run after mvn test-compile: java -cp target/classes:target/test-classes benchmark.ConcurrentRepositoryBenchmark [guests] [millis]
+ */
+public class ConcurrentRepositoryBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+    public static void main(String[] args) throws InterruptedException {
+        int guests = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1_000;
+
+        System.out.printf("%-28s %8s %16s%n", "repository", "threads", "ops/s");
+        for (int threads : THREADS) {
+            run("InMemory (global lock)", threads, guests, millis, () -> {
+                InMemoryInstructorRepository instructors = new InMemoryInstructorRepository();
+                AttractionRepository attractions = new InMemoryAttractionRepository(instructors);
+                return new LockedGuestRepository(new InMemoryGuestRepository(attractions));
+            });
+            run("Concurrent", threads, guests, millis, () -> {
+                ConcurrentInstructorRepository instructors = new ConcurrentInstructorRepository();
+                AttractionRepository attractions = new ConcurrentAttractionRepository(instructors);
+                return new ConcurrentGuestRepository(attractions);
+            });
+        }
+    }
+
+    /**
+     * Fills a new repository and measures the throughput of the given number of threads.
+     */
+    private static void run(String name, int threads, int guests, long millis, Supplier<GuestRepository> factory)
+            throws InterruptedException {
+        GuestRepository repository = factory.get();
+        for (int i = 0; i < guests; i++)
+            repository.add(newGuest("guest" + i));
+
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long end = System.nanoTime() + millis * 1_000_000 + 50_000_000;
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0, next = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < end) {
+                    int choice = random.nextInt(100);
+                    String id = "guest" + random.nextInt(guests);
+                    if (choice < 90) {
+                        repository.findByID(id);
+                    } else if (choice < 95) {
+                        Guest guest = repository.findByID(id);
+                        if (guest != null)
+                            repository.update(id, guest);
+                    } else {
+                        String newId = "new" + worker + '-' + next++;
+                        repository.add(newGuest(newId));
+                        repository.delete(newId);
+                    }
+                    done++;
+                }
+                operations.add(done);
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : workers)
+            thread.join();
+        System.out.printf("%-28s %8d %16.0f%n", name, threads, operations.sum() * 1000.0 / (millis + 50));
+    }
+
+    private static Guest newGuest(String id) {
+        return new Guest(id, "Bench", "Mark", "bench", LocalDate.of(1990, 1, 1));
+    }
+
+    /**
+     * Shares a GuestRepository between threads by serializing every call on one lock.
+     */
+    private static final class LockedGuestRepository implements GuestRepository {
+        private final GuestRepository delegate;
+
+        private LockedGuestRepository(GuestRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized List<Guest> getAllGuests() {
+            return delegate.getAllGuests();
+        }
+
+        @Override
+        public synchronized void add(Guest guest) {
+            delegate.add(guest);
+        }
+
+        @Override
+        public synchronized void delete(String id) {
+            delegate.delete(id);
+        }
+
+        @Override
+        public synchronized void update(String id, Guest guest) {
+            delegate.update(id, guest);
+        }
+
+        @Override
+        public synchronized Guest findByID(String id) {
+            return delegate.findByID(id);
+        }
+    }
+}
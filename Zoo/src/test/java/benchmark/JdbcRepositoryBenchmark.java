@@ -0,0 +1,127 @@
+package benchmark;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import domain.Weekday;
+import registration.RegistrationSystem;
+import repository.jdbcRepository.EntityManagerProvider;
+import repository.jdbcRepository.ImportReport;
+import repository.jdbcRepository.JdbcAttractionRepository;
+import repository.jdbcRepository.JdbcGuestRepository;
+import repository.jdbcRepository.JdbcImport;
+import repository.jdbcRepository.JdbcInstructorRepository;
+import repository.jdbcRepository.JdbcListingQueries;
+import repository.jdbcRepository.ManagerMode;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the throughput of the Jdbc repositories and of the RegistrationSystem on top of them,
+ * for each given number of Guests (with a tenth as many Attractions and a hundredth as many Instructors). <br>
+ * By default the persistence unit "embedded" is used, an H2 database in memory, so no PostgreSQL is needed.
+ * The database is filled with the bulk import, then each operation runs for the given time. Every operation is
+ * one unit of work: afterwards the persistence context is released, as at the end of a request.
+ * At the end the hits and misses of the second-level cache and the query cache are printed. <br>
+ * Run after mvn -Pembedded test-compile, with the H2 jar on the classpath:
+ * java -cp target/classes:target/test-classes:... benchmark.JdbcRepositoryBenchmark [guests,guests,...] [millis] [persistence unit]
+ */
+public class JdbcRepositoryBenchmark {
+    public static void main(String[] args) {
+        String[] sizes = (args.length > 0 ? args[0] : "1000,10000").split(",");
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1_000;
+        String persistenceName = args.length > 2 ? args[2] : "embedded";
+
+        System.out.printf("%-28s %8s %16s%n", "operation", "guests", "ops/s");
+        for (String size : sizes)
+            run(persistenceName, Integer.parseInt(size.trim()), millis);
+    }
+
+    /**
+     * Fills an empty database with the given number of Guests and measures each operation.
+     */
+    private static void run(String persistenceName, int guests, long millis) {
+        try (EntityManagerProvider provider = new EntityManagerProvider(persistenceName, ManagerMode.PER_THREAD)) {
+            JdbcInstructorRepository instructorRepository = new JdbcInstructorRepository(provider);
+            JdbcAttractionRepository attractionRepository = new JdbcAttractionRepository(instructorRepository);
+            JdbcGuestRepository guestRepository = new JdbcGuestRepository(attractionRepository);
+            RegistrationSystem controller = new RegistrationSystem(attractionRepository, guestRepository, instructorRepository,
+                    new JdbcListingQueries(provider), provider);
+
+            int attractions = Math.max(1, guests / 10);
+            ImportReport report = load(provider, guests, attractions);
+            System.out.printf("%-28s %8d %16.0f%n", "import (rows)", guests, report.getRowsPerSecond());
+            if (!report.isSuccessful())
+                return;
+
+            measure("guest findByID", guests, millis, provider,
+                    () -> guestRepository.findByID("guest" + ThreadLocalRandom.current().nextInt(guests)));
+            measure("attraction findByID", guests, millis, provider,
+                    () -> attractionRepository.findByID("attraction" + ThreadLocalRandom.current().nextInt(attractions)));
+            measure("attractions from day", guests, millis, provider,
+                    () -> attractionRepository.getAttractionsFromDay(randomDay()));
+            measure("attractions with free places", guests, millis, provider,
+                    attractionRepository::getAttractionsWithFreePlaces);
+            measure("guests by sum (page of 20)", guests, millis, provider,
+                    () -> guestRepository.pageBySumDescending(null, 20));
+            measure("attraction listing", guests, millis, provider,
+                    () -> controller.forEachAttractionSummary(summary -> {}));
+            int[] next = {0};
+            measure("sign-up", guests, millis, provider, () -> {
+                // each sign-up is a new pair of Guest and Attraction, the import signed up Guest k for Attraction k % attractions
+                int k = next[0]++;
+                controller.signUpForAttraction("guest" + k % guests, "attraction" + (k + 1 + k / guests) % attractions);
+            });
+            System.out.println(provider.getCacheStatistics());
+        }
+    }
+
+    /**
+     * Inserts the Instructors, Attractions and Guests with the bulk import, every Guest is signed up for one Attraction.
+     */
+    private static ImportReport load(EntityManagerProvider provider, int guests, int attractions) {
+        List<Instructor> instructorList = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, guests / 100); i++)
+            instructorList.add(new Instructor("instructor" + i, "Bench", "Mark", "bench"));
+        List<Attraction> attractionList = new ArrayList<>();
+        for (int i = 0; i < attractions; i++) {
+            Instructor instructor = instructorList.get(i % instructorList.size());
+            Attraction attraction = new Attraction("attraction" + i, "Show " + i, 1000, instructor, new ArrayList<>(),
+                    10 + i % 90, "A" + i % 10, Weekday.values()[i % Weekday.values().length]);
+            instructor.addAttraction(attraction);
+            attractionList.add(attraction);
+        }
+        List<Guest> guestList = new ArrayList<>();
+        for (int i = 0; i < guests; i++) {
+            Guest guest = new Guest("guest" + i, "Bench", "Mark", "bench", LocalDate.of(1990, 1, 1));
+            Attraction attraction = attractionList.get(i % attractions);
+            guest.addAttraction(attraction);
+            attraction.addGuest(guest);
+            guestList.add(guest);
+        }
+        instructorList.forEach(Instructor::calculateSum);
+        return JdbcImport.importAll(provider, instructorList, attractionList, guestList);
+    }
+
+    /**
+     * Runs an operation again and again for the given time, each call in its own unit of work.
+     */
+    private static void measure(String name, int guests, long millis, EntityManagerProvider provider, Runnable operation) {
+        long operations = 0;
+        long start = System.nanoTime();
+        long end = start + millis * 1_000_000;
+        while (System.nanoTime() < end) {
+            operation.run();
+            provider.release();
+            operations++;
+        }
+        System.out.printf("%-28s %8d %16.0f%n", name, guests, operations * 1_000_000_000.0 / (System.nanoTime() - start));
+    }
+
+    private static Weekday randomDay() {
+        return Weekday.values()[ThreadLocalRandom.current().nextInt(Weekday.values().length)];
+    }
+}
@@ -6,18 +6,43 @@ import domain.Instructor;
 import domain.Weekday;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import repository.AttractionRepository;
+import repository.BulkResult;
 import repository.GuestRepository;
 import repository.InstructorRepository;
+import repository.ListingQueries;
+import repository.UnitOfWork;
+import repository.concurrentRepo.ConcurrentAttractionRepository;
+import repository.concurrentRepo.ConcurrentGuestRepository;
+import repository.concurrentRepo.ConcurrentInstructorRepository;
+import repository.journal.JournaledRepositories;
+import repository.journal.SyncPolicy;
 import repository.memoryRepo.InMemoryAttractionRepository;
 import repository.memoryRepo.InMemoryGuestRepository;
 import repository.memoryRepo.InMemoryInstructorRepository;
+import repository.WriteOutcome;
+import repository.snapshot.ZooSnapshot;
+import repository.writeBehind.WriteBehindRepositories;
+import utils.ConcurrentUpdateException;
 import utils.NoMoreAvailableTicketsException;
 import utils.NoSuchDataException;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static domain.Weekday.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -129,6 +154,53 @@ class RegistrationSystemTest{
         assertEquals(sortedAttractions.get(7).name, "Zoo time");
     }
 
+    /**
+     * Test for the snapshots returned by the repositories.
+     * <ul>
+     *     <li> the snapshot can't be changed and sorting doesn't change the order in the repository </li>
+     *     <li> without changes the same snapshot is returned, after a change a new one </li>
+     * </ul>
+     */
+    @Test
+    void testSnapshotOfAllAttractions() {
+        List<Attraction> snapshot = attractionRepository.getAllAttractions();
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+        controller.getAttractionsSortedByTitle();
+        controller.getAttractionsSortedByPriceAscending();
+        assertSame(snapshot, attractionRepository.getAllAttractions());
+        assertEquals(attractionRepository.getAllAttractions().get(0).name, "Zoo time");
+
+        assertTrue(controller.addAttraction(new Attraction("Sea lion show", 50, null, 120.4, "Pool1", SUNDAY), "i2"));
+        assertEquals(snapshot.size(), 8);
+        assertNotSame(snapshot, attractionRepository.getAllAttractions());
+        assertEquals(attractionRepository.getAllAttractions().size(), 9);
+    }
+
+    /**
+     * Test for the readers of the in-memory repositories: they don't wait for a writer,
+     * here the writer is simulated by holding the monitor of the repositories.
+     */
+    @Test
+    void testReadersDontWaitForWriters() throws Exception {
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            synchronized (attractionRepository) {
+                synchronized (guestRepository) {
+                    Future<Integer> found = reader.submit(() -> attractionRepository.getAllAttractions().size()
+                            + attractionRepository.getAttractionsFromDay(MONDAY).size()
+                            + attractionRepository.getAttractionsWithPriceAtMost(100).size()
+                            + attractionRepository.getAttractionsWithFreePlaces().size()
+                            + (attractionRepository.findByID("ZA-MON") == null ? 0 : 1)
+                            + guestRepository.getAllGuests().size()
+                            + (guestRepository.findByID("maria01") == null ? 0 : 1));
+                    assertEquals(found.get(5, TimeUnit.SECONDS), 8 + 8 + 4 + 7 + 1 + 18 + 1);
+                }
+            }
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
     /**
      * Test for getting Attractions after a given day. <br>
      * Size of the list is checked for different weekdays.
@@ -515,6 +587,39 @@ class RegistrationSystemTest{
         assertEquals(sortedAttractions.size(),4);
     }
 
+    /**
+     * Test for the indexes of the AttractionRepository. <br>
+     * <ul>
+     *     <li> an Attraction without free places after the sign-ups disappears from the Attractions with free places </li>
+     *     <li> an updated price and day appears in the filters </li>
+     *     <li> a deleted Attraction disappears from the filters </li>
+     * </ul>
+     */
+    @Test
+    void testFiltersAfterSignUpUpdateAndDelete() {
+        Attraction attraction = this.controller.getAllAttractions().get(4);
+        for (int i = 0; i < 4; i++) {
+            String username = "guest" + i;
+            this.controller.addGuest(new Guest(username, "Anna", "Berg", "abc123", LocalDate.of(1990, 1, 1)));
+            assertTrue(this.controller.signUpForAttraction(username, attraction.getID()));
+        }
+        assertEquals(attraction.getNrOfFreePlaces(), 0);
+        assertFalse(this.controller.getAllAttractionsWithFreePlaces().contains(attraction));
+        assertEquals(this.controller.getAllAttractionsWithFreePlaces().size(), 6);
+
+        Attraction cheapest = this.controller.filterAttractionsByAGivenValue(55.00).get(0);
+        cheapest.price = 500;
+        cheapest.day = SUNDAY;
+        attractionRepository.update(cheapest.getID(), cheapest);
+        assertEquals(this.controller.filterAttractionsByAGivenValue(55.00).size(), 0);
+        assertEquals(this.controller.filterAttractionsByAGivenValue(500).size(), 8);
+        assertTrue(this.controller.getAttractionsAfterAGivenDay(SUNDAY).contains(cheapest));
+
+        assertTrue(this.controller.deleteAttraction("i3", cheapest.getID()));
+        assertFalse(this.controller.getAttractionsAfterAGivenDay(SUNDAY).contains(cheapest));
+        assertEquals(this.controller.filterAttractionsByAGivenValue(500).size(), 7);
+    }
+
     /**
      * Test for getting Attractions with smaller price as a given value - when there are no matching Attractions.
      */
@@ -667,4 +772,590 @@ class RegistrationSystemTest{
         assertEquals(attraction.price, 100.3);
         assertEquals(attraction.day.getNr(), 1);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test for signing up Guests from several threads with the concurrent repositories. <br>
+     * The Attraction "White Lion" on Friday has 4 free places, so only 4 of the 20 new Guests can sign up.
+     */
+    @Test
+    void testConcurrentSignUpForAttraction() throws Exception {
+        InstructorRepository instructors = new ConcurrentInstructorRepository();
+        AttractionRepository attractions = new ConcurrentAttractionRepository(instructors);
+        GuestRepository guests = new ConcurrentGuestRepository(attractions);
+        RegistrationSystem concurrentController = new RegistrationSystem(attractions, guests, instructors);
+        Attraction attraction = attractions.getAllAttractions().get(4);
+        assertEquals(attraction.getNrOfFreePlaces(), 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String username = "guest" + i;
+            results.add(executor.submit(() -> {
+                concurrentController.addGuest(new Guest(username, "Anna", "Berg", "abc123", LocalDate.of(1990, 1, 1)));
+                return concurrentController.signUpForAttraction(username, attraction.getID());
+            }));
+        }
+        int signedUp = 0;
+        for (Future<Boolean> result : results)
+            if (result.get())
+                signedUp++;
+        executor.shutdown();
+
+        assertEquals(signedUp, 4);
+        assertEquals(attraction.getNrOfFreePlaces(), 0);
+        assertEquals(concurrentController.getAllGuests().size(), 38);
+    }
+
+    /**
+     * Test for sign-ups to two Attractions of the same Instructor from several threads. <br>
+     * The income of the Instructor reads the Guest-lists of both Attractions while they are changed, it must count every Guest.
+     */
+    @Test
+    void testConcurrentSignUpForAttractionsOfOneInstructor() throws Exception {
+        InstructorRepository instructors = new ConcurrentInstructorRepository();
+        AttractionRepository attractions = new ConcurrentAttractionRepository(instructors);
+        GuestRepository guests = new ConcurrentGuestRepository(attractions);
+        RegistrationSystem concurrentController = new RegistrationSystem(attractions, guests, instructors);
+        assertTrue(concurrentController.addAttraction(new Attraction("night1", "Night walk", 500, null, new ArrayList<>(), 10, "N1", MONDAY), "i6"));
+        assertTrue(concurrentController.addAttraction(new Attraction("night2", "Night show", 500, null, new ArrayList<>(), 20, "N2", TUESDAY), "i6"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String username = "guest" + i;
+            String attraction = i % 2 == 0 ? "night1" : "night2";
+            results.add(executor.submit(() -> {
+                concurrentController.addGuest(new Guest(username, "Anna", "Berg", "abc123", LocalDate.of(1990, 1, 1)));
+                return concurrentController.signUpForAttraction(username, attraction);
+            }));
+        }
+        for (Future<Boolean> result : results)
+            assertTrue(result.get());
+        executor.shutdown();
+
+        Instructor instructor = instructors.findByID("i6");
+        double income = instructor.getFinalSum();
+        instructor.calculateSum();
+        assertEquals(income, instructor.getFinalSum());
+        assertEquals(attractions.findByID("night1").getNrOfGuests(), 200);
+        assertEquals(attractions.findByID("night2").getNrOfGuests(), 200);
+    }
+
+    /**
+     * Test for the journal. The changes made through the journaled repositories must be restored at the next start,
+     * also after a checkpoint.
+     */
+    @Test
+    void testJournalRestoresChanges(@TempDir Path directory) throws Exception {
+        try (JournaledRepositories journal = new JournaledRepositories(directory, SyncPolicy.PER_OPERATION, 0, 3,
+                instructorRepository, attractionRepository, guestRepository)) {
+            RegistrationSystem journaledController = new RegistrationSystem(journal.getAttractionRepository(),
+                    journal.getGuestRepository(), journal.getInstructorRepository());
+            assertTrue(journaledController.signUpForAttraction("timi11", "ZA-MON"));
+            assertTrue(journaledController.addGuest(new Guest("anna.b", "Anna", "Berg", "abc123", LocalDate.of(1990, 1, 1))));
+            assertFalse(journaledController.signUpForAttraction("anna.b", "VB-WED"));
+            assertTrue(journaledController.deleteAttraction("i4", "AX-THU"));
+        }
+
+        // new repositories with the populated data, the journal replaces it
+        InstructorRepository instructors = new InMemoryInstructorRepository();
+        AttractionRepository attractions = new InMemoryAttractionRepository(instructors);
+        GuestRepository guests = new InMemoryGuestRepository(attractions);
+        try (JournaledRepositories journal = new JournaledRepositories(directory, SyncPolicy.GROUPED, 0, 3, instructors, attractions, guests)) {
+            RegistrationSystem journaledController = new RegistrationSystem(journal.getAttractionRepository(),
+                    journal.getGuestRepository(), journal.getInstructorRepository());
+            assertEquals(journaledController.getAllGuests().size(), 19);
+            assertEquals(journaledController.getAllAttractions().size(), 7);
+            assertNull(attractions.findByID("AX-THU"));
+            assertEquals(journaledController.getAttractionsOfGuest("timi11").get(0).getID(), "ZA-MON");
+            assertEquals(attractions.findByID("ZA-MON").getNrOfGuests(), 1);
+            assertEquals(journaledController.getAttractionsOfInstructor("i4").size(), 1);
+            assertEquals(instructors.findByID("i1").getFinalSum(), instructorRepository.findByID("i1").getFinalSum());
+        }
+    }
+
+    /**
+     * Test for saving and loading a snapshot. The loaded objects must have the same data and relations.
+     */
+    @Test
+    void testSnapshotSaveAndLoad(@TempDir Path directory) throws Exception {
+        controller.signUpForAttraction("timi11", "ZA-MON");
+        Path file = directory.resolve("zoo.snapshot");
+        ZooSnapshot.of(instructorRepository, attractionRepository, guestRepository).save(file);
+
+        ZooSnapshot snapshot = ZooSnapshot.load(file);
+        assertEquals(snapshot.getInstructors().size(), 6);
+        assertEquals(snapshot.getAttractions().size(), 8);
+        assertEquals(snapshot.getGuests().size(), 18);
+
+        Attraction vipShow = snapshot.getAttractions().get(7);
+        assertEquals(vipShow.getID(), "VB-WED");
+        assertEquals(vipShow.getNrOfGuests(), 10);
+        assertEquals(vipShow.price, 300.87);
+        assertEquals(vipShow.day, WEDNESDAY);
+        assertSame(vipShow.getInstructor(), snapshot.getInstructors().get(5));
+        assertTrue(vipShow.getInstructor().getAttractions().contains(vipShow));
+        assertEquals(vipShow.getInstructor().getFinalSum(), instructorRepository.findByID("i6").getFinalSum());
+
+        Guest guest = snapshot.getGuests().get(0);
+        assertEquals(guest.getID(), "maria01");
+        assertEquals(guest.getBirthday(), LocalDate.of(2002, 2, 1));
+        assertSame(guest.getAttractions().get(0), vipShow);
+        assertTrue(vipShow.guestList.contains(guest));
+        assertEquals(snapshot.getGuests().get(5).getAttractions().get(0).getID(), "ZA-MON");
+
+        InstructorRepository instructors = new InMemoryInstructorRepository();
+        AttractionRepository attractions = new InMemoryAttractionRepository(instructors);
+        GuestRepository guests = new InMemoryGuestRepository(attractions);
+        guests.getAllGuests().forEach(g -> guests.delete(g.getID()));
+        attractions.getAllAttractions().forEach(a -> attractions.delete(a.getID()));
+        instructors.getAllInstructors().forEach(i -> instructors.delete(i.getID()));
+        snapshot.restore(instructors, attractions, guests);
+        assertEquals(attractions.getAttractionsWithFreePlaces().size(), 7);
+        assertEquals(guests.findByID("timi11").getFinalSum(), guestRepository.findByID("timi11").getFinalSum());
+    }
+
+    /**
+     * Test for a damaged snapshot: whichever byte is changed, loading it ends with an IOException.
+     * An Attraction without capacity is saved and loaded as well.
+     */
+    @Test
+    void testDamagedSnapshotIsRejected(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("zoo.snapshot");
+        Attraction withoutCapacity = new Attraction("NC-MON", "Open Air", null, null, new ArrayList<>(), 10, "Z1", Weekday.MONDAY);
+        List<Attraction> attractions = new ArrayList<>(attractionRepository.getAllAttractions());
+        attractions.add(withoutCapacity);
+        new ZooSnapshot(instructorRepository.getAllInstructors(), attractions, guestRepository.getAllGuests()).save(file);
+        assertNull(ZooSnapshot.load(file).getAttractions().get(8).getCapacity());
+
+        byte[] bytes = Files.readAllBytes(file);
+        Path damaged = directory.resolve("damaged.snapshot");
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] copy = bytes.clone();
+            copy[i] ^= (byte) 0xFF;
+            Files.write(damaged, copy);
+            assertThrows(IOException.class, () -> ZooSnapshot.load(damaged), "byte " + i);
+        }
+        Files.write(damaged, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> ZooSnapshot.load(damaged));
+    }
+
+    /**
+     * Test for a snapshot with an Attraction whose Instructor is not in the snapshot: it isn't written without the relation.
+     */
+    @Test
+    void testSnapshotWithMissingReferenceIsNotSaved(@TempDir Path directory) {
+        ZooSnapshot snapshot = new ZooSnapshot(List.of(), attractionRepository.getAllAttractions(), List.of());
+        assertThrows(IOException.class, () -> snapshot.save(directory.resolve("zoo.snapshot")));
+    }
+
+    /**
+     * Test for the paging of the repositories and forEachGuest.
+     */
+    @Test
+    void testPagingAndForEachGuest() {
+        List<Guest> page = guestRepository.page(16, 5);
+        assertEquals(page.size(), 2);
+        assertEquals(page.get(0).getID(), "jackie23");
+
+        List<Guest> firstPage = guestRepository.pageAfter(null, 3);
+        assertEquals(firstPage.get(0).getID(), "bieber_justin");
+        List<Guest> secondPage = guestRepository.pageAfter(firstPage.get(2).getID(), 3);
+        assertEquals(secondPage.get(0).getID(), "ecaterinaa");
+        assertEquals(attractionRepository.pageAfter("ZA-MON", 3).size(), 0);
+
+        List<String> ids = new ArrayList<>();
+        controller.forEachGuest(g -> ids.add(g.getID()));
+        assertEquals(ids.size(), 18);
+        assertEquals(ids, ids.stream().sorted().toList());
+        try (var guests = guestRepository.stream()) {
+            assertEquals(guests.filter(g -> g.getAttractions().isEmpty()).count(), 6);
+        }
+    }
+
+    /**
+     * Test for the bulk operations of the repositories, each element gets its own outcome.
+     */
+    @Test
+    void testBulkOperations() {
+        Guest anna = new Guest("anna_b", "Anna", "Berg", "anna1234", LocalDate.of(1999, 4, 12));
+        Guest duplicate = new Guest("timi11", "Timea", "Nagy", "timi1234", LocalDate.of(2001, 1, 1));
+        BulkResult added = guestRepository.addAll(List.of(anna, duplicate));
+        assertEquals(added.get(0), WriteOutcome.ADDED);
+        assertEquals(added.get(1), WriteOutcome.DUPLICATE);
+        assertFalse(added.allSucceeded());
+        assertEquals(guestRepository.getAllGuests().size(), 19);
+
+        Guest changed = new Guest("anna_b", "Anna", "Bergmann", "anna1234", LocalDate.of(1999, 4, 12));
+        Map<String, Guest> updates = new LinkedHashMap<>();
+        updates.put("anna_b", changed);
+        updates.put("nobody", changed);
+        BulkResult updated = guestRepository.updateAll(updates);
+        assertEquals(updated.count(WriteOutcome.UPDATED), 1);
+        assertEquals(updated.get(1), WriteOutcome.NOT_FOUND);
+        assertEquals(guestRepository.findByID("anna_b").getLastName(), "Bergmann");
+
+        BulkResult deleted = guestRepository.deleteAll(List.of("anna_b", "nobody"));
+        assertEquals(deleted.getOutcomes(), List.of(WriteOutcome.DELETED, WriteOutcome.NOT_FOUND));
+        assertNull(guestRepository.findByID("anna_b"));
+        assertEquals(guestRepository.getAllGuests().size(), 18);
+
+        // the new ID of ZA-MON belongs to another Attraction, which must not be overwritten
+        Attraction vipShow = attractionRepository.findByID("VB-WED");
+        Attraction renamed = new Attraction("VB-WED", "Zoo time", 100, null, new ArrayList<>(), 180.99, "A456", Weekday.MONDAY);
+        BulkResult collision = attractionRepository.updateAll(Map.of("ZA-MON", renamed));
+        assertEquals(collision.get(0), WriteOutcome.DUPLICATE);
+        assertSame(attractionRepository.findByID("VB-WED"), vipShow);
+        assertNotNull(attractionRepository.findByID("ZA-MON"));
+        assertEquals(attractionRepository.getAttractionsFromDay(Weekday.SUNDAY).size(), 1);
+    }
+
+    /**
+     * Test for an update whose new ID belongs to another object, in the in-memory and the concurrent repositories:
+     * the other object isn't overwritten and the updated one isn't lost.
+     */
+    @Test
+    void testUpdateRejectsTakenID() {
+        Guest maria = guestRepository.findByID("maria01");
+        Guest timea = guestRepository.findByID("timi11");
+        guestRepository.update("timi11", new Guest("maria01", "Timea", "Gal", "gtig", LocalDate.of(2009, 2, 1)));
+        assertSame(guestRepository.findByID("maria01"), maria);
+        assertSame(guestRepository.findByID("timi11"), timea);
+        instructorRepository.update("i1", new Instructor("i2", "James", "Parker", "123456"));
+        assertEquals(instructorRepository.findByID("i2").getLastName(), "John");
+        assertNotNull(instructorRepository.findByID("i1"));
+        Attraction zooTime = attractionRepository.findByID("ZA-MON");
+        attractionRepository.update("ZA-MON", new Attraction("VB-WED", "Zoo time", 100, null, new ArrayList<>(), 180.99, "A456", Weekday.MONDAY));
+        assertSame(attractionRepository.findByID("ZA-MON"), zooTime);
+        assertEquals(attractionRepository.getAttractionsFromDay(Weekday.MONDAY).size(), attractionRepository.getAllAttractions().size());
+
+        InstructorRepository instructors = new ConcurrentInstructorRepository();
+        GuestRepository guests = new ConcurrentGuestRepository(new ConcurrentAttractionRepository(instructors));
+        Guest concurrentMaria = guests.findByID("maria01");
+        guests.update("timi11", new Guest("maria01", "Timea", "Gal", "gtig", LocalDate.of(2009, 2, 1)));
+        assertSame(guests.findByID("maria01"), concurrentMaria);
+        assertNotNull(guests.findByID("timi11"));
+        BulkResult result = guests.updateAll(Map.of("timi11", new Guest("maria01", "Timea", "Gal", "gtig", LocalDate.of(2009, 2, 1))));
+        assertEquals(result.get(0), WriteOutcome.DUPLICATE);
+        assertEquals(guests.getAllGuests().size(), 18);
+    }
+
+    /**
+     * Test for the indexes of the InMemoryAttractionRepository: the queries return the same Attractions in the same order
+     * as the list of all Attractions filtered, also after updates. An Attraction changed in place is found under
+     * the values of its last update() until it is updated again.
+     */
+    @Test
+    void testIndexesKeepListOrder() {
+        Attraction zooTime = attractionRepository.findByID("ZA-MON");
+        zooTime.day = Weekday.SUNDAY;
+        zooTime.price = 20;
+        attractionRepository.update(zooTime.getID(), zooTime);
+        assertSame(attractionRepository.getAllAttractions().get(0), zooTime);
+
+        List<Attraction> all = attractionRepository.getAllAttractions();
+        assertEquals(attractionRepository.getAttractionsFromDay(Weekday.WEDNESDAY),
+                all.stream().filter(attr -> attr.day.getNr() >= Weekday.WEDNESDAY.getNr()).toList());
+        assertEquals(attractionRepository.getAttractionsWithPriceAtMost(100),
+                all.stream().filter(attr -> attr.price <= 100).toList());
+        assertEquals(attractionRepository.getAttractionsWithFreePlaces(),
+                all.stream().filter(attr -> attr.getNrOfFreePlaces() > 0).toList());
+
+        // changed in place, the indexes still have the values of the last update
+        zooTime.day = Weekday.MONDAY;
+        zooTime.price = 500;
+        assertTrue(attractionRepository.getAttractionsFromDay(Weekday.SUNDAY).contains(zooTime));
+        assertTrue(attractionRepository.getAttractionsWithPriceAtMost(20).contains(zooTime));
+        attractionRepository.update(zooTime.getID(), zooTime);
+        assertFalse(attractionRepository.getAttractionsFromDay(Weekday.TUESDAY).contains(zooTime));
+        assertFalse(attractionRepository.getAttractionsWithPriceAtMost(499).contains(zooTime));
+        assertTrue(attractionRepository.getAttractionsWithPriceAtMost(500).contains(zooTime));
+    }
+
+    /**
+     * Test for registering the same username from several threads, only one of the registrations may succeed.
+     */
+    @Test
+    void testConcurrentAddGuestWithSameUsername() throws Exception {
+        InstructorRepository instructors = new ConcurrentInstructorRepository();
+        AttractionRepository attractions = new ConcurrentAttractionRepository(instructors);
+        GuestRepository guests = new ConcurrentGuestRepository(attractions);
+        RegistrationSystem concurrentController = new RegistrationSystem(attractions, guests, instructors);
+        int initialNr = guests.getAllGuests().size();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String firstName = "Anna" + i;
+            results.add(executor.submit(() -> concurrentController.addGuest(new Guest("anna_b", firstName, "Berg", "abc123", LocalDate.of(1990, 1, 1)))));
+        }
+        int added = 0;
+        for (Future<Boolean> result : results)
+            if (result.get())
+                added++;
+        executor.shutdown();
+
+        assertEquals(added, 1);
+        assertEquals(guests.getAllGuests().size(), initialNr + 1);
+        assertFalse(this.controller.addGuest(null));
+        assertTrue(this.guestRepository.insertIfAbsent(new Guest("anna_b", "Anna", "Berg", "abc123", LocalDate.of(1990, 1, 1))));
+        assertFalse(this.guestRepository.insertIfAbsent(new Guest("anna_b", "Anna", "Berg", "abc123", LocalDate.of(1990, 1, 1))));
+    }
+
+    /**
+     * Test for the stored number of Guests of an Attraction, it has to follow the sign ups.
+     */
+    @Test
+    void testGuestCountFollowsSignUp() {
+        for (Attraction attraction : this.controller.getAllAttractions())
+            assertEquals(attraction.getGuestCount(), attraction.getNrOfGuests());
+        Attraction attraction = this.controller.getAllAttractions().get(4);
+        int nrBefore = attraction.getGuestCount();
+        this.controller.addGuest(new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1970, 8, 10)));
+        assertTrue(this.controller.signUpForAttraction("ioana_maria", attraction.getID()));
+        assertEquals(this.attractionRepository.findByID(attraction.getID()).getGuestCount(), nrBefore + 1);
+        assertEquals(this.attractionRepository.findByID(attraction.getID()).getGuestCount(),
+                this.attractionRepository.findByID(attraction.getID()).getNrOfGuests());
+
+        Attraction newAttraction = new Attraction("Night Safari", 5, attraction.getInstructor(), 45.00, "N001", Weekday.MONDAY);
+        assertEquals(newAttraction.getGuestCount(), 0);
+    }
+
+    /**
+     * Test for the aggregates of the InstructorRepository, they must match a calculation over all Instructors.
+     */
+    @Test
+    void testInstructorIncomeAggregates() {
+        double sum = 0;
+        for (Instructor instructor : this.controller.getAllInstructors())
+            sum += instructor.getFinalSum();
+        assertEquals(this.instructorRepository.getTotalIncome(), sum, 0.001);
+        assertEquals(this.instructorRepository.getAverageIncome(), sum / this.controller.getAllInstructors().size(), 0.001);
+
+        // no Instructors -> no division by zero
+        this.instructorRepository.deleteAll(List.of("i1", "i2", "i3", "i4", "i5", "i6"));
+        assertEquals(this.instructorRepository.getTotalIncome(), 0);
+        assertEquals(this.instructorRepository.getAverageIncome(), 0);
+        assertTrue(this.instructorRepository.getInstructorsAboveAverageIncome().isEmpty());
+    }
+    /**
+     * Test for the sorted listings page by page, the pages together must give the whole sorted list.
+     */
+    @Test
+    void testSortedListingsPageByPage() {
+        List<Guest> guests = new ArrayList<>();
+        List<Guest> page = this.controller.getGuestsSortedDescendingBySum(null, 5);
+        while (!page.isEmpty()) {
+            guests.addAll(page);
+            page = this.controller.getGuestsSortedDescendingBySum(page.get(page.size() - 1), 5);
+        }
+        assertEquals(guests.size(), 18);
+        for (int i = 1; i < guests.size(); i++)
+            assertTrue(guests.get(i - 1).getFinalSum() >= guests.get(i).getFinalSum());
+
+        List<Attraction> byPrice = this.controller.getAttractionsSortedByPriceAscending(null, 3);
+        byPrice = new ArrayList<>(byPrice);
+        byPrice.addAll(this.controller.getAttractionsSortedByPriceAscending(byPrice.get(2), 10));
+        assertEquals(byPrice, this.controller.getAttractionsSortedByPriceAscending());
+
+        List<Attraction> byGuests = new ArrayList<>(this.controller.getAttractionsSortedByGuestAscending(null, 4));
+        byGuests.addAll(this.controller.getAttractionsSortedByGuestAscending(byGuests.get(3), 4));
+        assertEquals(byGuests.size(), 8);
+        for (int i = 1; i < byGuests.size(); i++)
+            assertTrue(byGuests.get(i - 1).getNrOfGuests() <= byGuests.get(i).getNrOfGuests());
+
+        // the default of the interface gives the same pages as the sorted snapshot of the in-memory repository
+        GuestRepository concurrentGuests = new ConcurrentGuestRepository(new ConcurrentAttractionRepository(new ConcurrentInstructorRepository()));
+        assertEquals(concurrentGuests.pageBySumDescending(null, 18).stream().map(Guest::getID).toList(),
+                guests.stream().map(Guest::getID).toList());
+    }
+
+    /**
+     * Test for the listings of summaries, they must show the same data as the entities.
+     */
+    @Test
+    void testSummaryListingsMatchEntities() {
+        List<String> attractions = new ArrayList<>();
+        this.controller.forEachAttractionSummary(a -> attractions.add(a.toString()));
+        List<String> expectedAttractions = new ArrayList<>();
+        this.controller.forEachAttraction(a -> expectedAttractions.add(a.toString()));
+        assertEquals(attractions.size(), 8);
+        assertEquals(attractions, expectedAttractions);
+
+        List<String> guests = new ArrayList<>();
+        this.controller.forEachGuestSummary(g -> guests.add(g.getData()));
+        List<String> expectedGuests = new ArrayList<>();
+        this.controller.forEachGuest(g -> expectedGuests.add(g.getData()));
+        assertEquals(guests.size(), 18);
+        assertEquals(guests, expectedGuests);
+    }
+
+    /**
+     * Test for the units of work: each operation runs in one unit, a conflict in the unit makes the operation fail.
+     */
+    @Test
+    void testOperationsRunInOneUnitOfWork() {
+        int[] units = {0};
+        UnitOfWork counting = new UnitOfWork() {
+            @Override
+            public <T> T execute(Supplier<T> work) {
+                units[0]++;
+                return work.get();
+            }
+        };
+        RegistrationSystem system = new RegistrationSystem(attractionRepository, guestRepository, instructorRepository,
+                ListingQueries.of(attractionRepository, guestRepository), counting);
+        Attraction attraction = attractionRepository.getAllAttractions().get(4);
+        assertTrue(system.changeInstructorOfAttraction(attraction.getID(), "i1"));
+        assertEquals(units[0], 1);
+        system.addGuest(new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1970, 8, 10)));
+        assertTrue(system.signUpForAttraction("ioana_maria", attraction.getID()));
+        assertEquals(units[0], 2);
+        assertTrue(system.deleteAttraction("i1", attraction.getID()));
+        assertEquals(units[0], 3);
+        assertFalse(this.guestRepository.findByID("ioana_maria").getAttractions().contains(attraction));
+
+        UnitOfWork conflicting = new UnitOfWork() {
+            @Override
+            public <T> T execute(Supplier<T> work) {
+                throw new ConcurrentUpdateException("Die Daten wurden inzwischen geändert", null);
+            }
+        };
+        RegistrationSystem failing = new RegistrationSystem(attractionRepository, guestRepository, instructorRepository,
+                ListingQueries.of(attractionRepository, guestRepository), conflicting);
+        assertFalse(failing.deleteAttraction("i6", attractionRepository.getAllAttractions().get(0).getID()));
+        assertEquals(attractionRepository.getAllAttractions().size(), 7);
+    }
+
+    /**
+     * Test for the retry of a sign-up: a unit of work which fails with a ConcurrentUpdateException is tried again
+     * as a whole in a new unit of work, at most MAX_ATTEMPTS times.
+     */
+    @Test
+    void testSignUpRetriesWholeUnitOfWork() {
+        int[] attempts = {3};
+        UnitOfWork conflictingTwice = new UnitOfWork() {
+            @Override
+            public <T> T execute(Supplier<T> work) {
+                if (++attempts[0] <= 2)
+                    throw new ConcurrentUpdateException("Die Daten wurden inzwischen geändert", null);
+                return work.get();
+            }
+        };
+        RegistrationSystem system = new RegistrationSystem(attractionRepository, guestRepository, instructorRepository,
+                ListingQueries.of(attractionRepository, guestRepository), conflictingTwice);
+        Attraction attraction = attractionRepository.getAllAttractions().get(4);
+        int guests = attraction.getNrOfGuests();
+        assertTrue(system.addGuest(new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1970, 8, 10))));
+        attempts[0] = 0;
+        assertTrue(system.signUpForAttraction("ioana_maria", attraction.getID()));
+        assertEquals(attempts[0], 3);
+        assertEquals(attraction.getNrOfGuests(), guests + 1);
+
+        attempts[0] = -10;
+        assertFalse(system.signUpForAttraction("timi11", attraction.getID()));
+        assertEquals(attempts[0], -5);
+    }
+
+    /**
+     * Test for the hybrid mode: the changes are answered from memory at once and reach the target after the flush,
+     * the changes of one object are coalesced.
+     */
+    @Test
+    void testWriteBehindReachesTarget() {
+        InstructorRepository targetInstructors = new ConcurrentInstructorRepository();
+        AttractionRepository targetAttractions = new ConcurrentAttractionRepository(targetInstructors);
+        GuestRepository targetGuests = new ConcurrentGuestRepository(targetAttractions);
+        WriteBehindRepositories hybrid = new WriteBehindRepositories(instructorRepository, attractionRepository, guestRepository,
+                targetInstructors, targetAttractions, targetGuests, UnitOfWork.NONE, 100, 100, 60_000);
+        RegistrationSystem system = new RegistrationSystem(hybrid.getAttractionRepository(), hybrid.getGuestRepository(),
+                hybrid.getInstructorRepository());
+        Attraction attraction = attractionRepository.getAllAttractions().get(4);
+        assertTrue(system.addGuest(new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1970, 8, 10))));
+        assertTrue(system.signUpForAttraction("ioana_maria", attraction.getID()));
+        assertEquals(system.getAttractionsOfGuest("ioana_maria").size(), 1);
+
+        // the Guest, the Attraction and the Instructor wait, the add and the update of the Guest are coalesced
+        assertEquals(hybrid.getPendingChanges(), 3);
+        assertNull(targetGuests.findByID("ioana_maria"));
+        assertTrue(hybrid.flush());
+        assertEquals(hybrid.getPendingChanges(), 0);
+        assertEquals(hybrid.getLagMillis(), 0);
+        assertEquals(hybrid.getWrittenChanges(), 3);
+        assertEquals(targetGuests.findByID("ioana_maria").getAttractions().size(), 1);
+        assertEquals(targetGuests.findByID("ioana_maria").getFinalSum(), this.guestRepository.findByID("ioana_maria").getFinalSum());
+        assertEquals(targetAttractions.findByID(attraction.getID()).getNrOfGuests(), attraction.getNrOfGuests());
+
+        hybrid.close();
+        assertThrows(IllegalStateException.class, () -> hybrid.getGuestRepository().delete("ioana_maria"));
+    }
+
+    /**
+     * Test for the hybrid mode: a new Guest who signs up for a new Attraction is written in one batch with both relations,
+     * the Attraction is saved before the Guest refers to it.
+     */
+    @Test
+    void testWriteBehindLinksNewObjects() {
+        InstructorRepository targetInstructors = new ConcurrentInstructorRepository();
+        AttractionRepository targetAttractions = new ConcurrentAttractionRepository(targetInstructors);
+        GuestRepository targetGuests = new ConcurrentGuestRepository(targetAttractions);
+        targetInstructors.add(instructorRepository.findByID("i6"));
+        WriteBehindRepositories hybrid = new WriteBehindRepositories(instructorRepository, attractionRepository, guestRepository,
+                targetInstructors, targetAttractions, targetGuests, UnitOfWork.NONE, 100, 100, 60_000);
+        RegistrationSystem system = new RegistrationSystem(hybrid.getAttractionRepository(), hybrid.getGuestRepository(),
+                hybrid.getInstructorRepository());
+        assertTrue(system.addAttraction(new Attraction("a_new", "Night walk", 10, null, new ArrayList<>(), 50, "B12", Weekday.FRIDAY), "i6"));
+        assertTrue(system.addGuest(new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1970, 8, 10))));
+        assertTrue(system.signUpForAttraction("ioana_maria", "a_new"));
+
+        assertTrue(hybrid.flush());
+        assertEquals(hybrid.getPendingChanges(), 0);
+        assertEquals(targetGuests.findByID("ioana_maria").getAttractions().size(), 1);
+        assertEquals(targetAttractions.findByID("a_new").getNrOfGuests(), 1);
+        assertEquals(targetAttractions.findByID("a_new").getInstructor().getID(), "i6");
+        hybrid.close();
+    }
+
+    /**
+     * Test for the hybrid mode: a Guest who can never be written doesn't hold back the other changes of the batch,
+     * after MAX_FAILURES failed flushes it leaves the queue and appears in the dead letters.
+     */
+    @Test
+    void testWriteBehindParksFailingObject() {
+        InstructorRepository targetInstructors = new ConcurrentInstructorRepository();
+        AttractionRepository targetAttractions = new ConcurrentAttractionRepository(targetInstructors);
+        GuestRepository targetGuests = new ConcurrentGuestRepository(targetAttractions) {
+            @Override
+            public BulkResult addAll(Collection<Guest> guests) {
+                if (guests.stream().noneMatch(g -> g.getID().equals("kaputt")))
+                    return super.addAll(guests);
+                WriteOutcome[] outcomes = new WriteOutcome[guests.size()];
+                Arrays.fill(outcomes, WriteOutcome.FAILED);
+                return new BulkResult("Der Besucher kann nicht gespeichert werden", outcomes);
+            }
+        };
+        WriteBehindRepositories hybrid = new WriteBehindRepositories(instructorRepository, attractionRepository, guestRepository,
+                targetInstructors, targetAttractions, targetGuests, UnitOfWork.NONE, 100, 100, 60_000);
+        RegistrationSystem system = new RegistrationSystem(hybrid.getAttractionRepository(), hybrid.getGuestRepository(),
+                hybrid.getInstructorRepository());
+        assertTrue(system.addGuest(new Guest("kaputt", "Karl", "Putt", "passw123", LocalDate.of(1980, 1, 1))));
+        assertTrue(system.addGuest(new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1970, 8, 10))));
+
+        // the batch fails, the other Guest is written on its own
+        assertFalse(hybrid.flush());
+        assertEquals(targetGuests.findByID("ioana_maria").getFirstName(), "Ioana");
+        assertEquals(hybrid.getPendingChanges(), 1);
+        assertFalse(hybrid.flush());
+        assertEquals(hybrid.getPendingChanges(), 1);
+        assertTrue(hybrid.getDeadLetters().isEmpty());
+
+        assertFalse(hybrid.flush());
+        assertEquals(hybrid.getPendingChanges(), 0);
+        assertEquals(hybrid.getDeadLetters().size(), 1);
+        assertEquals(hybrid.getDeadLetters().get(0).getID(), "kaputt");
+        assertEquals(hybrid.getDeadLetters().get(0).getError(), "Der Besucher kann nicht gespeichert werden");
+        assertEquals(hybrid.getWrittenChanges(), 1);
+        assertTrue(hybrid.flush());
+        hybrid.close();
+    }
+}
@@ -0,0 +1,137 @@
+package repository.fileRepo;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Weekday;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import registration.RegistrationSystem;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the file repositories. The files are closed and opened again, the data must be the same.
+ */
+class FileRepositoryTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Test for the population of new files.
+     */
+    @Test
+    void testPopulateNewFiles() throws Exception {
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileAttractionRepository attractionRepository = new FileAttractionRepository(instructorRepository);
+            FileGuestRepository guestRepository = new FileGuestRepository(attractionRepository);
+            assertEquals(instructorRepository.getAllInstructors().size(), 6);
+            assertEquals(attractionRepository.getAllAttractions().size(), 8);
+            assertEquals(guestRepository.getAllGuests().size(), 18);
+        }
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileAttractionRepository attractionRepository = new FileAttractionRepository(instructorRepository);
+            FileGuestRepository guestRepository = new FileGuestRepository(attractionRepository);
+            List<Attraction> attractions = attractionRepository.getAllAttractions();
+            assertEquals(attractions.size(), 8);
+            assertEquals(attractions.get(0).name, "Zoo time");
+            assertEquals(attractions.get(7).getNrOfGuests(), 10);
+            assertEquals(guestRepository.findByID("maria01").getAttractions().size(), 2);
+            // the same object is returned for the same ID
+            assertSame(guestRepository.findByID("maria01").getAttractions().get(0).getInstructor(),
+                    instructorRepository.findByID(attractions.get(7).getInstructor().getID()));
+        }
+    }
+
+    /**
+     * Test for signUpForAttraction and deleteAttraction, the changes must be in the files after opening them again.
+     */
+    @Test
+    void testChangesAfterReopen() throws Exception {
+        double sumOfInstructor;
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileAttractionRepository attractionRepository = new FileAttractionRepository(instructorRepository);
+            FileGuestRepository guestRepository = new FileGuestRepository(attractionRepository);
+            RegistrationSystem controller = new RegistrationSystem(attractionRepository, guestRepository, instructorRepository);
+            assertTrue(controller.signUpForAttraction("timi11", "ZA-MON"));
+            assertTrue(controller.deleteAttraction("i6", "VB-WED"));
+            sumOfInstructor = instructorRepository.findByID("i1").getFinalSum();
+        }
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileAttractionRepository attractionRepository = new FileAttractionRepository(instructorRepository);
+            FileGuestRepository guestRepository = new FileGuestRepository(attractionRepository);
+            Guest guest = guestRepository.findByID("timi11");
+            assertEquals(guest.getAttractions().size(), 1);
+            assertEquals(guest.getAttractions().get(0).getID(), "ZA-MON");
+            assertEquals(instructorRepository.findByID("i1").getFinalSum(), sumOfInstructor);
+            assertNull(attractionRepository.findByID("VB-WED"));
+            assertEquals(attractionRepository.getAllAttractions().size(), 7);
+            assertEquals(guestRepository.findByID("maria01").getAttractions().size(), 1);
+            assertEquals(instructorRepository.findByID("i6").getAttractions().size(), 0);
+        }
+    }
+
+    /**
+     * Test for an update whose new ID belongs to another Guest: the other Guest is neither overwritten nor lost after reopening.
+     */
+    @Test
+    void testUpdateRejectsTakenID() throws Exception {
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileGuestRepository guestRepository = new FileGuestRepository(new FileAttractionRepository(instructorRepository));
+            Guest renamed = new Guest("maria01", "Timea", "Gal", "gtig", LocalDate.of(2009, 2, 1));
+            guestRepository.update("timi11", renamed);
+            assertEquals(guestRepository.findByID("maria01").getFirstName(), "Maria");
+            assertEquals(guestRepository.findByID("timi11").getFirstName(), "Timea");
+        }
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileGuestRepository guestRepository = new FileGuestRepository(new FileAttractionRepository(instructorRepository));
+            assertEquals(guestRepository.findByID("maria01").getFirstName(), "Maria");
+            assertNotNull(guestRepository.findByID("timi11"));
+            assertEquals(guestRepository.getAllGuests().size(), 18);
+        }
+    }
+
+    /**
+     * Test for a long chain of Guests, each Guest is signed up for his/her Attraction and the next one.
+     * Reading a Guest reads only the Guest, the Attractions are read when they are used.
+     */
+    @Test
+    void testLongChainIsReadLazily() throws Exception {
+        int n = 2_000;
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileAttractionRepository attractionRepository = new FileAttractionRepository(instructorRepository);
+            FileGuestRepository guestRepository = new FileGuestRepository(attractionRepository);
+            List<Attraction> chain = new ArrayList<>();
+            for (int i = 0; i <= n; i++) {
+                Attraction attraction = new Attraction("c" + i, "Chain " + i, 10, null, new ArrayList<>(), 10, "C1", Weekday.MONDAY);
+                attractionRepository.add(attraction);
+                chain.add(attraction);
+            }
+            for (int i = 0; i < n; i++)
+                guestRepository.add(new Guest("g" + i, "Chain", "Guest", "chain", LocalDate.of(1990, 1, 1), 0,
+                        new ArrayList<>(List.of(chain.get(i), chain.get(i + 1)))));
+        }
+        try (FileInstructorRepository instructorRepository = new FileInstructorRepository(directory)) {
+            FileAttractionRepository attractionRepository = new FileAttractionRepository(instructorRepository);
+            FileGuestRepository guestRepository = new FileGuestRepository(attractionRepository);
+            // with a small stack, so that reading the whole chain would overflow it
+            Guest[] found = new Guest[1];
+            Thread reader = new Thread(null, () -> found[0] = guestRepository.findByID("g0"), "reader", 256 * 1024);
+            reader.start();
+            reader.join();
+            Guest guest = found[0];
+            assertNotNull(guest);
+            assertEquals(guest.getAttractions().size(), 2);
+            assertFalse(((LazyList<Attraction>) guest.getAttractions()).isLoaded());
+            Attraction next = guest.getAttractions().get(1);
+            assertEquals(next.getID(), "c1");
+            assertEquals(next.getNrOfGuests(), 2);
+            assertSame(next.guestList.get(0), guest);
+            assertEquals(next.guestList.get(1).getID(), "g1");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package repository.jdbcRepository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for a region of the second-level cache. They run without database.
+ */
+class BoundedStorageTest {
+    /**
+     * Test for the bound of a region: the least recently used entry is removed first.
+     */
+    @Test
+    void testLeastRecentlyUsedIsRemoved() {
+        BoundedStorage storage = new BoundedStorage(2);
+        storage.putIntoCache("a1", "Zoo-Tour", null);
+        storage.putIntoCache("a2", "Tiger-Show", null);
+        assertEquals(storage.getFromCache("a1", null), "Zoo-Tour");
+        storage.putIntoCache("a3", "Delfin-Show", null);
+        assertEquals(storage.size(), 2);
+        assertTrue(storage.contains("a1"));
+        assertFalse(storage.contains("a2"));
+        assertNull(storage.getFromCache("a2", null));
+    }
+
+    /**
+     * Test for the invalidation of a region, a single entry or all entries.
+     */
+    @Test
+    void testEvictData() {
+        BoundedStorage storage = new BoundedStorage(BoundedRegionFactory.DEFAULT_MAX_ENTRIES);
+        storage.putIntoCache("i1", "Instructor 1", null);
+        storage.putIntoCache("i2", "Instructor 2", null);
+        storage.removeFromCache("i1", null);
+        assertFalse(storage.contains("i1"));
+        assertTrue(storage.contains("i2"));
+        storage.evictData();
+        assertEquals(storage.size(), 0);
+    }
+
+    /**
+     * Test for the time to live: an expired entry is a cache miss, so a change of another node is read from the database.
+     */
+    @Test
+    void testEntryExpires() {
+        long[] now = {0};
+        BoundedStorage storage = new BoundedStorage(BoundedRegionFactory.DEFAULT_MAX_ENTRIES, 1000, () -> now[0]);
+        storage.putIntoCache("a1", "Zoo-Tour", null);
+        now[0] = 999;
+        assertEquals(storage.getFromCache("a1", null), "Zoo-Tour");
+        now[0] = 1000;
+        assertNull(storage.getFromCache("a1", null));
+        assertFalse(storage.contains("a1"));
+        assertEquals(storage.size(), 0);
+    }
+
+    /**
+     * Test for the counters of a region: contains() is no lookup of Hibernate and isn't counted.
+     */
+    @Test
+    void testCountsHitsAndMisses() {
+        BoundedStorage storage = new BoundedStorage(BoundedRegionFactory.DEFAULT_MAX_ENTRIES);
+        assertNull(storage.getFromCache("a1", null));
+        storage.putIntoCache("a1", "Zoo-Tour", null);
+        assertEquals(storage.getFromCache("a1", null), "Zoo-Tour");
+        assertEquals(storage.getFromCache("a1", null), "Zoo-Tour");
+        assertTrue(storage.contains("a1"));
+        assertEquals(storage.getHits(), 2);
+        assertEquals(storage.getMisses(), 1);
+        assertEquals(storage.getPuts(), 1);
+    }
+}
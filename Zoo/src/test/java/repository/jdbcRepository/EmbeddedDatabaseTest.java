@@ -0,0 +1,183 @@
+package repository.jdbcRepository;
+
+import domain.Attraction;
+import domain.Guest;
+import domain.Instructor;
+import domain.Weekday;
+import org.junit.jupiter.api.Test;
+import registration.RegistrationSystem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for the Jdbc repositories with the persistence unit "embedded". <br>
+ * They run only with the Maven profile "embedded" (mvn -Pembedded test), which puts the H2 driver on the classpath.
+ */
+class EmbeddedDatabaseTest {
+    private static boolean hasDriver() {
+        try {
+            Class.forName("org.h2.Driver");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Test for a sign-up in the embedded database: the place, the sum of the Guest and the income of the Instructor are stored.
+     */
+    @Test
+    void testSignUp() {
+        assumeTrue(hasDriver(), "H2 is not on the classpath");
+        try (EntityManagerProvider provider = new EntityManagerProvider("embedded", ManagerMode.PER_THREAD)) {
+            JdbcInstructorRepository instructorRepository = new JdbcInstructorRepository(provider);
+            JdbcAttractionRepository attractionRepository = new JdbcAttractionRepository(instructorRepository);
+            JdbcGuestRepository guestRepository = new JdbcGuestRepository(attractionRepository);
+            RegistrationSystem controller = new RegistrationSystem(attractionRepository, guestRepository, instructorRepository,
+                    new JdbcListingQueries(provider), provider);
+
+            Instructor instructor = new Instructor("i1", "James", "Parker", "123456");
+            Attraction attraction = new Attraction("a1", "Zoo time", 100, instructor, new ArrayList<>(), 180.99, "A456", Weekday.MONDAY);
+            instructor.addAttraction(attraction);
+            assertTrue(JdbcImport.importAll(provider, List.of(instructor), List.of(attraction), List.of()).isSuccessful());
+            assertTrue(controller.addGuest(new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1990, 8, 10))));
+
+            assertTrue(controller.signUpForAttraction("ioana_maria", "a1"));
+            provider.release();
+            assertEquals(attractionRepository.findByID("a1").getNrOfGuests(), 1);
+            assertEquals(controller.getFinalSumOfGuest("ioana_maria"), 180.99);
+            assertEquals(instructorRepository.findByID("i1").getFinalSum(), 180.99);
+            assertEquals(attractionRepository.getAttractionsFromDay(Weekday.MONDAY).size(), 1);
+            // the cache counts without the statistics of Hibernate, which are disabled in the persistence unit
+            assertTrue(provider.getCacheStatistics().getPuts() > 0);
+        }
+    }
+
+    /**
+     * Test for insertIfAbsent() of a Guest who is already signed up for an Attraction: the sign-up is stored with the Guest,
+     * a second Guest with the same ID is rejected and changes nothing.
+     */
+    @Test
+    void testInsertIfAbsentStoresSignUps() {
+        assumeTrue(hasDriver(), "H2 is not on the classpath");
+        try (EntityManagerProvider provider = new EntityManagerProvider("embedded", ManagerMode.PER_THREAD)) {
+            JdbcAttractionRepository attractionRepository = new JdbcAttractionRepository(new JdbcInstructorRepository(provider));
+            JdbcGuestRepository guestRepository = new JdbcGuestRepository(attractionRepository);
+            Instructor instructor = new Instructor("i1", "James", "Parker", "123456");
+            Attraction attraction = new Attraction("a1", "Zoo time", 10, instructor, new ArrayList<>(), 180.99, "A456", Weekday.MONDAY);
+            instructor.addAttraction(attraction);
+            assertTrue(JdbcImport.importAll(provider, List.of(instructor), List.of(attraction), List.of()).isSuccessful());
+
+            Guest guest = new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1990, 8, 10));
+            guest.addAttraction(attraction);
+            assertTrue(guestRepository.insertIfAbsent(guest));
+            assertFalse(guestRepository.insertIfAbsent(new Guest("ioana_maria", "Maria", "Ioana", "abc", LocalDate.of(1991, 1, 1))));
+            provider.release();
+
+            assertEquals(guestRepository.findByID("ioana_maria").getFirstName(), "Ioana");
+            assertEquals(guestRepository.findByID("ioana_maria").getAttractions().size(), 1);
+            assertEquals(attractionRepository.findByID("a1").getNrOfGuests(), 1);
+            assertEquals(attractionRepository.findByID("a1").getGuestCount(), 1);
+        }
+    }
+
+    /**
+     * Test for the guest count of an imported Attraction whose sign-up is only in the Attractions of the Guest:
+     * it is counted from the inserted rows, not from the guestList of the Attraction.
+     */
+    @Test
+    void testImportCountsSignUpsOfGuests() {
+        assumeTrue(hasDriver(), "H2 is not on the classpath");
+        try (EntityManagerProvider provider = new EntityManagerProvider("embedded", ManagerMode.PER_THREAD)) {
+            JdbcAttractionRepository attractionRepository = new JdbcAttractionRepository(new JdbcInstructorRepository(provider));
+            Instructor instructor = new Instructor("i1", "James", "Parker", "123456");
+            Attraction attraction = new Attraction("a1", "Zoo time", 1, instructor, new ArrayList<>(), 180.99, "A456", Weekday.MONDAY);
+            instructor.addAttraction(attraction);
+            Guest guest = new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1990, 8, 10));
+            guest.addAttraction(attraction);
+            assertTrue(JdbcImport.importAll(provider, List.of(instructor), List.of(attraction), List.of(guest)).isSuccessful());
+
+            assertEquals(attractionRepository.findByID("a1").getGuestCount(), 1);
+            assertTrue(attractionRepository.getAttractionsWithFreePlaces().isEmpty());
+        }
+    }
+
+    /**
+     * Test for the listings: outside a unit of work they are read with their own read-only persistence context,
+     * a changed Guest of a listing is written with update().
+     */
+    @Test
+    void testListingIsReadOnly() {
+        assumeTrue(hasDriver(), "H2 is not on the classpath");
+        try (EntityManagerProvider provider = new EntityManagerProvider("embedded", ManagerMode.SHARED)) {
+            JdbcGuestRepository guestRepository = new JdbcGuestRepository(new JdbcAttractionRepository(new JdbcInstructorRepository(provider)));
+            Guest guest = new Guest("ioana_maria", "Ioana", "Maria", "passw123", LocalDate.of(1990, 8, 10));
+            assertTrue(JdbcImport.importAll(provider, List.of(), List.of(), List.of(guest)).isSuccessful());
+
+            Guest listed = guestRepository.getAllGuests().get(0);
+            assertNotSame(listed, guestRepository.findByID("ioana_maria"));
+            listed.setFirstName("Ioana-Maria");
+            guestRepository.update(listed.getID(), listed);
+            provider.release();
+            assertEquals(guestRepository.findByID("ioana_maria").getFirstName(), "Ioana-Maria");
+            assertEquals(guestRepository.getAllGuests().get(0).getFirstName(), "Ioana-Maria");
+        }
+    }
+
+    /**
+     * Test for the Stream of the Guests: its transaction ends when the Stream is closed and the Guests which were passed on
+     * are detached, so the next transaction can begin and the persistence context doesn't keep every Guest.
+     */
+    @Test
+    void testStreamEndsItsTransaction() {
+        assumeTrue(hasDriver(), "H2 is not on the classpath");
+        try (EntityManagerProvider provider = new EntityManagerProvider("embedded", ManagerMode.SHARED)) {
+            JdbcGuestRepository guestRepository = new JdbcGuestRepository(new JdbcAttractionRepository(new JdbcInstructorRepository(provider)));
+            List<Guest> guests = new ArrayList<>();
+            for (int i = 0; i < 250; i++)
+                guests.add(new Guest(String.format("guest%03d", i), "Stream", "Guest", "stream", LocalDate.of(1990, 1, 1)));
+            assertTrue(JdbcImport.importAll(provider, List.of(), List.of(), guests).isSuccessful());
+
+            Guest first;
+            try (Stream<Guest> stream = guestRepository.stream()) {
+                List<Guest> read = stream.toList();
+                assertEquals(read.size(), 250);
+                first = read.get(0);
+            }
+            assertFalse(provider.get().getTransaction().isActive());
+            assertFalse(provider.get().contains(first));
+            guestRepository.update(first.getID(), first);
+            assertNotNull(guestRepository.findByID("guest000"));
+        }
+    }
+    /**
+     * Test for a Stream which is still open: changes don't join its transaction, after it was closed they are written.
+     */
+    @Test
+    void testOpenStreamRefusesChanges() {
+        assumeTrue(hasDriver(), "H2 is not on the classpath");
+        try (EntityManagerProvider provider = new EntityManagerProvider("embedded", ManagerMode.PER_THREAD)) {
+            JdbcGuestRepository guestRepository = new JdbcGuestRepository(new JdbcAttractionRepository(new JdbcInstructorRepository(provider)));
+            Guest guest = new Guest("stream_guest", "Stream", "Guest", "stream", LocalDate.of(1990, 1, 1));
+            assertTrue(JdbcImport.importAll(provider, List.of(), List.of(), List.of(guest)).isSuccessful());
+
+            Stream<Guest> stream = guestRepository.stream();
+            // a terminal operation would close the Stream, the Iterator leaves it open
+            assertEquals(stream.iterator().next().getID(), "stream_guest");
+            assertThrows(IllegalStateException.class, () -> provider.inTransaction(manager -> {}));
+            assertThrows(IllegalStateException.class, () -> provider.execute(() -> null));
+            stream.close();
+
+            assertFalse(provider.get().getTransaction().isActive());
+            assertTrue(guestRepository.insertIfAbsent(new Guest("after_stream", "After", "Stream", "stream", LocalDate.of(1990, 1, 1))));
+            provider.release();
+            assertNotNull(guestRepository.findByID("after_stream"));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package repository.jdbcRepository;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the schema scripts. They run without database, only the scripts on the classpath are read.
+ */
+class SchemaMigrationsTest {
+    private static String read(String script) throws IOException {
+        try (InputStream input = SchemaMigrationsTest.class.getResourceAsStream("/db/migration/" + script)) {
+            assertNotNull(input, script);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Test for splitting a script into statements, comments and empty parts are skipped.
+     */
+    @Test
+    void testStatements() {
+        List<String> statements = SchemaMigrations.statements("-- comment\ncreate table a (id int4);\n\n  -- another; comment\ncreate index b on a (id);\n");
+        assertEquals(statements, List.of("create table a (id int4)", "create index b on a (id)"));
+    }
+
+    /**
+     * Test for splitting a script with a "do $$ ... $$" block, the semicolons inside the block don't end the statement.
+     */
+    @Test
+    void testStatementsWithDollarQuotes() {
+        List<String> statements = SchemaMigrations.statements("do $$\nbegin\n    perform 1;\nend\n$$;\ncreate index b on a (id);\n");
+        assertEquals(statements, List.of("do $$\nbegin\n    perform 1;\nend\n$$", "create index b on a (id)"));
+    }
+
+    /**
+     * Test for the scripts: each script exists and every index which is checked at the start is created by a script.
+     */
+    @Test
+    void testScriptsCreateExpectedIndexes() throws IOException {
+        StringBuilder all = new StringBuilder();
+        for (String script : List.of("V1__tables.sql", "V2__columns.sql", "V3__data.sql", "V4__indexes.sql"))
+            all.append(String.join("\n", SchemaMigrations.statements(read(script)))).append('\n');
+        for (String index : List.of("attraction_guests_pk", "attraction_guests_guest_idx", "attraction_instructor_idx",
+                "attraction_day_idx", "attraction_price_idx", "attraction_guest_count_idx", "attraction_free_places_idx",
+                "guest_sum_idx", "instructor_sum_idx"))
+            assertTrue(all.toString().contains(" " + index + " "), index);
+    }
+}
@@ -0,0 +1,145 @@
+package repository.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the connection pool. The pool gets connections which only remember if they are closed and valid,
+ * their read-only flag and their schema, and the statements which were created.
+ */
+class PooledDataSourceTest {
+    /**
+     * State of a test connection.
+     */
+    private static class State {
+        boolean closed;
+        boolean valid = true;
+        boolean readOnly;
+        String schema = "public";
+        final List<boolean[]> statements = new ArrayList<>();
+    }
+
+    private final List<State> states = new ArrayList<>();
+
+    private Connection open() {
+        State state = new State();
+        this.states.add(state);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        state.closed = true;
+                        yield null;
+                    }
+                    case "isClosed" -> state.closed;
+                    case "isValid" -> state.valid;
+                    case "getAutoCommit" -> true;
+                    case "isReadOnly" -> state.readOnly;
+                    case "setReadOnly" -> {
+                        state.readOnly = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "getSchema" -> state.schema;
+                    case "setSchema" -> {
+                        state.schema = (String) args[0];
+                        yield null;
+                    }
+                    case "createStatement" -> {
+                        boolean[] statementClosed = {false};
+                        state.statements.add(statementClosed);
+                        yield Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                                (statement, statementMethod, statementArgs) -> switch (statementMethod.getName()) {
+                                    case "close" -> {
+                                        statementClosed[0] = true;
+                                        yield null;
+                                    }
+                                    case "isClosed" -> statementClosed[0];
+                                    default -> null;
+                                });
+                    }
+                    default -> null;
+                });
+    }
+
+    /**
+     * Test for the size of the pool: connections are opened at the start, reused and never more than maxSize.
+     */
+    @Test
+    void testBoundedPoolReusesConnections() throws Exception {
+        try (PooledDataSource pool = new PooledDataSource(this::open, 1, 2, 50, 0)) {
+            assertEquals(pool.getStatistics().getCreated(), 1);
+            Connection first = pool.getConnection();
+            Connection second = pool.getConnection();
+            assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+            assertEquals(pool.getStatistics().getTimeouts(), 1);
+            assertEquals(pool.getStatistics().getActive(), 2);
+
+            first.close();
+            assertTrue(first.isClosed());
+            assertThrows(SQLException.class, first::createStatement);
+            Connection third = pool.getConnection();
+            assertFalse(third.isClosed());
+            assertEquals(pool.getStatistics().getCreated(), 2);
+            assertEquals(pool.getStatistics().getBorrowed(), 3);
+            second.close();
+            third.close();
+            assertEquals(pool.getStatistics().getIdle(), 2);
+        }
+        assertTrue(this.states.stream().allMatch(state -> state.closed));
+    }
+
+    /**
+     * Test for the validation on borrow and the leak detection.
+     */
+    @Test
+    void testValidationAndLeakDetection() throws Exception {
+        try (PooledDataSource pool = new PooledDataSource(this::open, 1, 2, 50, 100)) {
+            this.states.get(0).valid = false;
+            Thread.sleep(PooledDataSource.VALIDATION_INTERVAL_MILLIS + 100);
+            Connection connection = pool.getConnection();
+            assertTrue(this.states.get(0).closed);
+            assertEquals(pool.getStatistics().getCreated(), 2);
+
+            Thread.sleep(400);
+            assertEquals(pool.getStatistics().getLeaks(), 1);
+            assertEquals(pool.getLeakReports().size(), 1);
+            assertTrue(pool.getLeakReports().get(0).getMessage().contains(Thread.currentThread().getName()));
+            connection.close();
+            assertTrue(pool.getLeakReports().isEmpty());
+        }
+    }
+
+    /**
+     * Test for the return of a connection: the changed settings are set back and the open statements are closed,
+     * a connection with a setting which can't be set back is closed.
+     */
+    @Test
+    void testReturnedConnectionIsReset() throws Exception {
+        try (PooledDataSource pool = new PooledDataSource(this::open, 1, 1, 50, 0)) {
+            Connection connection = pool.getConnection();
+            connection.setReadOnly(true);
+            connection.setSchema("zoo");
+            connection.createStatement();
+            connection.close();
+            State state = this.states.get(0);
+            assertFalse(state.readOnly);
+            assertEquals(state.schema, "public");
+            assertTrue(state.statements.get(0)[0]);
+            assertFalse(state.closed);
+
+            connection = pool.getConnection();
+            connection.setHoldability(1);
+            connection.close();
+            assertTrue(state.closed);
+            assertEquals(pool.getStatistics().getIdle(), 0);
+        }
+    }
+}